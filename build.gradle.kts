@@ -11,6 +11,32 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+    create("jcstress") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+configurations {
+    named("jmhImplementation") {
+        extendsFrom(configurations.implementation.get())
+    }
+    named("jmhCompileOnly") {
+        extendsFrom(configurations.compileOnly.get())
+    }
+    named("jmhAnnotationProcessor") {
+        extendsFrom(configurations.annotationProcessor.get())
+    }
+    named("jcstressImplementation") {
+        extendsFrom(configurations.implementation.get())
+    }
+}
+
 dependencies {
 
     // FastUtil
@@ -25,6 +51,14 @@ dependencies {
     // JUnit Jupiter
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.9.0")
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.9.0")
+
+    // JMH
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.36")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.36")
+
+    // jcstress
+    "jcstressImplementation"("org.openjdk.jcstress:jcstress-core:0.16")
+    "jcstressAnnotationProcessor"("org.openjdk.jcstress:jcstress-core:0.16")
 }
 
 
@@ -32,6 +66,32 @@ tasks {
     test {
         useJUnitPlatform()
     }
+
+    // gradle jmh -PjmhArgs="<regex> -t <threads> ..."
+    register<JavaExec>("jmh") {
+        group = "benchmark"
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+        args = (project.findProperty("jmhArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+    }
+
+    // gradle jmhMatrix -PjmhArgs="<regex> ..." -PjmhThreads=1,4,16, once per thread count
+    register<JavaExec>("jmhMatrix") {
+        group = "benchmark"
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("dev.twelveoclock.fastutil.benchmark.BenchmarkMatrix")
+        args = (project.findProperty("jmhArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+        (project.findProperty("jmhThreads") as String?)?.let { systemProperty("benchmark.threads", it) }
+    }
+
+    // gradle jcstress -PjcstressArgs="-m quick ..." -PjcstressSubjects=INT2INT_OPEN_HASH,LONG_BITMAP_SET, once per subject
+    register<JavaExec>("jcstress") {
+        group = "verification"
+        classpath = sourceSets["jcstress"].runtimeClasspath
+        mainClass.set("dev.twelveoclock.fastutil.stress.StressMatrix")
+        args = (project.findProperty("jcstressArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+        (project.findProperty("jcstressSubjects") as String?)?.let { systemProperty("stress.subjects", it) }
+    }
 }
 
 publishing {
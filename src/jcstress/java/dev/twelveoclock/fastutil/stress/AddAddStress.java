@@ -0,0 +1,36 @@
+package dev.twelveoclock.fastutil.stress;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.ZZI_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+
+@JCStressTest
+@Description("Two adds of the same key, exactly one of them finds it absent")
+@Outcome(id = "true, false, 1", expect = ACCEPTABLE, desc = "The first actor won")
+@Outcome(id = "false, true, 1", expect = ACCEPTABLE, desc = "The second actor won")
+@Outcome(expect = FORBIDDEN, desc = "Lost or duplicated add")
+@State
+public class AddAddStress {
+
+	private final Subject subject = Subjects.current();
+
+
+	@Actor
+	public void first(final ZZI_Result result) {
+		result.r1 = subject.add(1);
+	}
+
+	@Actor
+	public void second(final ZZI_Result result) {
+		result.r2 = subject.add(1);
+	}
+
+	@Arbiter
+	public void size(final ZZI_Result result) {
+		result.r3 = subject.size();
+	}
+
+}
@@ -0,0 +1,36 @@
+package dev.twelveoclock.fastutil.stress;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.ZZZ_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+
+@JCStressTest
+@Description("An add racing a remove of the same key, starting empty")
+@Outcome(id = "true, true, false", expect = ACCEPTABLE, desc = "Add, then remove")
+@Outcome(id = "true, false, true", expect = ACCEPTABLE, desc = "Remove, then add")
+@Outcome(expect = FORBIDDEN, desc = "Not a sequential order")
+@State
+public class AddRemoveStress {
+
+	private final Subject subject = Subjects.current();
+
+
+	@Actor
+	public void add(final ZZZ_Result result) {
+		result.r1 = subject.add(1);
+	}
+
+	@Actor
+	public void remove(final ZZZ_Result result) {
+		result.r2 = subject.remove(1);
+	}
+
+	@Arbiter
+	public void contains(final ZZZ_Result result) {
+		result.r3 = subject.contains(1);
+	}
+
+}
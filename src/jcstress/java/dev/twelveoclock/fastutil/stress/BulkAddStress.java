@@ -0,0 +1,38 @@
+package dev.twelveoclock.fastutil.stress;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.ZZI_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.*;
+
+
+@JCStressTest
+@Description("A bulk add of keys 1 and 2 racing removes of 1 then 2")
+@Outcome(id = "true, true, 0", expect = ACCEPTABLE, desc = "Bulk add, then the removes")
+@Outcome(id = "false, true, 1", expect = ACCEPTABLE, desc = "Bulk add between the removes")
+@Outcome(id = "false, false, 2", expect = ACCEPTABLE, desc = "The removes, then the bulk add")
+@Outcome(id = "true, false, 1", expect = ACCEPTABLE_INTERESTING, desc = "Bulk adds aren't atomic, key 2 landed after both removes")
+@Outcome(expect = FORBIDDEN, desc = "Lost or duplicated key")
+@State
+public class BulkAddStress {
+
+	private final Subject subject = Subjects.current();
+
+
+	@Actor
+	public void addAll() {
+		subject.addAll(1, 2);
+	}
+
+	@Actor
+	public void remove(final ZZI_Result result) {
+		result.r1 = subject.remove(1);
+		result.r2 = subject.remove(2);
+	}
+
+	@Arbiter
+	public void size(final ZZI_Result result) {
+		result.r3 = subject.size();
+	}
+
+}
@@ -0,0 +1,209 @@
+package dev.twelveoclock.fastutil.stress;
+
+import dev.twelveoclock.fastutil.map.impl.ConcurrentInt2LongCounterMap;
+import dev.twelveoclock.fastutil.map.impl.ConcurrentLong2LongCounterMap;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.JJ_Result;
+import org.openjdk.jcstress.infra.results.J_Result;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+import static org.openjdk.jcstress.annotations.Expect.*;
+
+
+/**
+ * The counter maps, which don't fit {@link Subject} since a key's count lives outside its stripe.
+ */
+public final class CounterMapStress {
+
+	private CounterMapStress() {}
+
+
+	@JCStressTest
+	@Description("Two increments of a new key, the first one creates its adder under the write lock")
+	@Outcome(id = "2", expect = ACCEPTABLE, desc = "Both counted")
+	@Outcome(expect = FORBIDDEN, desc = "Lost increment")
+	@State
+	public static class LongIncrement {
+
+		private final ConcurrentLong2LongCounterMap map = new ConcurrentLong2LongCounterMap(Subjects.NUM_BUCKETS, Subjects.CAPACITY, DEFAULT_LOAD_FACTOR);
+
+
+		@Actor
+		public void first() {
+			map.increment(1);
+		}
+
+		@Actor
+		public void second() {
+			map.increment(1);
+		}
+
+		@Arbiter
+		public void get(final J_Result result) {
+			result.r1 = map.get(1);
+		}
+
+	}
+
+	@JCStressTest
+	@Description("An increment racing a reset, it counts towards one period or the other")
+	@Outcome(id = "2, 0", expect = ACCEPTABLE, desc = "Increment, then reset")
+	@Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "Reset, then increment")
+	@Outcome(expect = FORBIDDEN, desc = "Lost or doubled increment")
+	@State
+	public static class LongSumThenReset {
+
+		private final ConcurrentLong2LongCounterMap map = new ConcurrentLong2LongCounterMap(Subjects.NUM_BUCKETS, Subjects.CAPACITY, DEFAULT_LOAD_FACTOR);
+
+
+		public LongSumThenReset() {
+			map.increment(1);
+		}
+
+
+		@Actor
+		public void increment() {
+			map.increment(1);
+		}
+
+		@Actor
+		public void reset(final JJ_Result result) {
+			result.r1 = map.sumThenReset(1);
+		}
+
+		@Arbiter
+		public void get(final JJ_Result result) {
+			result.r2 = map.get(1);
+		}
+
+	}
+
+	@JCStressTest
+	@Description("An increment racing the key's removal")
+	@Outcome(id = "2, 0", expect = ACCEPTABLE, desc = "Increment, then remove")
+	@Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "Remove, then increment")
+	@Outcome(id = "1, 0", expect = ACCEPTABLE_INTERESTING, desc = "Documented, the increment landed in the removed adder")
+	@Outcome(expect = FORBIDDEN, desc = "Doubled increment")
+	@State
+	public static class LongRemove {
+
+		private final ConcurrentLong2LongCounterMap map = new ConcurrentLong2LongCounterMap(Subjects.NUM_BUCKETS, Subjects.CAPACITY, DEFAULT_LOAD_FACTOR);
+
+
+		public LongRemove() {
+			map.increment(1);
+		}
+
+
+		@Actor
+		public void increment() {
+			map.increment(1);
+		}
+
+		@Actor
+		public void remove(final JJ_Result result) {
+			result.r1 = map.remove(1);
+		}
+
+		@Arbiter
+		public void get(final JJ_Result result) {
+			result.r2 = map.get(1);
+		}
+
+	}
+
+	@JCStressTest
+	@Description("Two increments of a new key, the first one creates its adder under the write lock")
+	@Outcome(id = "2", expect = ACCEPTABLE, desc = "Both counted")
+	@Outcome(expect = FORBIDDEN, desc = "Lost increment")
+	@State
+	public static class IntIncrement {
+
+		private final ConcurrentInt2LongCounterMap map = new ConcurrentInt2LongCounterMap(Subjects.NUM_BUCKETS, Subjects.CAPACITY, DEFAULT_LOAD_FACTOR);
+
+
+		@Actor
+		public void first() {
+			map.increment(1);
+		}
+
+		@Actor
+		public void second() {
+			map.increment(1);
+		}
+
+		@Arbiter
+		public void get(final J_Result result) {
+			result.r1 = map.get(1);
+		}
+
+	}
+
+	@JCStressTest
+	@Description("An increment racing a reset, it counts towards one period or the other")
+	@Outcome(id = "2, 0", expect = ACCEPTABLE, desc = "Increment, then reset")
+	@Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "Reset, then increment")
+	@Outcome(expect = FORBIDDEN, desc = "Lost or doubled increment")
+	@State
+	public static class IntSumThenReset {
+
+		private final ConcurrentInt2LongCounterMap map = new ConcurrentInt2LongCounterMap(Subjects.NUM_BUCKETS, Subjects.CAPACITY, DEFAULT_LOAD_FACTOR);
+
+
+		public IntSumThenReset() {
+			map.increment(1);
+		}
+
+
+		@Actor
+		public void increment() {
+			map.increment(1);
+		}
+
+		@Actor
+		public void reset(final JJ_Result result) {
+			result.r1 = map.sumThenReset(1);
+		}
+
+		@Arbiter
+		public void get(final JJ_Result result) {
+			result.r2 = map.get(1);
+		}
+
+	}
+
+	@JCStressTest
+	@Description("An increment racing the key's removal")
+	@Outcome(id = "2, 0", expect = ACCEPTABLE, desc = "Increment, then remove")
+	@Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "Remove, then increment")
+	@Outcome(id = "1, 0", expect = ACCEPTABLE_INTERESTING, desc = "Documented, the increment landed in the removed adder")
+	@Outcome(expect = FORBIDDEN, desc = "Doubled increment")
+	@State
+	public static class IntRemove {
+
+		private final ConcurrentInt2LongCounterMap map = new ConcurrentInt2LongCounterMap(Subjects.NUM_BUCKETS, Subjects.CAPACITY, DEFAULT_LOAD_FACTOR);
+
+
+		public IntRemove() {
+			map.increment(1);
+		}
+
+
+		@Actor
+		public void increment() {
+			map.increment(1);
+		}
+
+		@Actor
+		public void remove(final JJ_Result result) {
+			result.r1 = map.remove(1);
+		}
+
+		@Arbiter
+		public void get(final JJ_Result result) {
+			result.r2 = map.get(1);
+		}
+
+	}
+
+}
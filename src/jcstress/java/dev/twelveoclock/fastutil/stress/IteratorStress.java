@@ -0,0 +1,44 @@
+package dev.twelveoclock.fastutil.stress;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.*;
+
+
+@JCStressTest
+@Description("One pass of the iterator while key 2 is added and key 3 removed, key 1 is there throughout")
+@Outcome(id = "1, 0, 1", expect = ACCEPTABLE, desc = "Before both writes")
+@Outcome(id = "1, 1, 1", expect = ACCEPTABLE, desc = "Between the writes")
+@Outcome(id = "1, 1, 0", expect = ACCEPTABLE, desc = "After both writes")
+@Outcome(id = "1, 0, 0", expect = ACCEPTABLE_INTERESTING, desc = "Weakly consistent, passed key 2 before the add and key 3 after the remove")
+@Outcome(expect = FORBIDDEN, desc = "Missed key 1, or returned a key twice")
+@State
+public class IteratorStress {
+
+	private final Subject subject = Subjects.current();
+
+
+	public IteratorStress() {
+		subject.add(1);
+		subject.add(3);
+	}
+
+
+	@Actor
+	public void writer() {
+		subject.add(2);
+		subject.remove(3);
+	}
+
+	@Actor
+	public void iterate(final III_Result result) {
+
+		final int[] counts = subject.iterate();
+
+		result.r1 = counts[1];
+		result.r2 = counts[2];
+		result.r3 = counts[3];
+	}
+
+}
@@ -0,0 +1,89 @@
+package dev.twelveoclock.fastutil.stress;
+
+import dev.twelveoclock.fastutil.map.impl.ConcurrentLong2ObjectListMultimap;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.I_Result;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+
+/**
+ * The list multimap, whose values repeat so it doesn't fit {@link Subject}.
+ * The key's first value is stored inline and later ones move it into a list, which is the path these race.
+ */
+public final class ListMultimapStress {
+
+	private ListMultimapStress() {}
+
+
+	@JCStressTest
+	@Description("Two values put under a new key")
+	@Outcome(id = "2", expect = ACCEPTABLE, desc = "Both kept")
+	@Outcome(expect = FORBIDDEN, desc = "Lost value")
+	@State
+	public static class PutPut {
+
+		private final ConcurrentLong2ObjectListMultimap<String> map = new ConcurrentLong2ObjectListMultimap<>(Subjects.NUM_BUCKETS, Subjects.CAPACITY, DEFAULT_LOAD_FACTOR);
+
+
+		@Actor
+		public void first() {
+			map.putValue(1, "a");
+		}
+
+		@Actor
+		public void second() {
+			map.putValue(1, "b");
+		}
+
+		@Arbiter
+		public void count(final I_Result result) {
+			result.r1 = map.valueCount(1);
+		}
+
+	}
+
+	@JCStressTest
+	@Description("A value put while the key's only other value is removed")
+	@Outcome(id = "true, true", expect = ACCEPTABLE, desc = "Only the new value is left")
+	@Outcome(expect = FORBIDDEN, desc = "The remove missed, or took the new value")
+	@State
+	public static class PutRemove {
+
+		private final ConcurrentLong2ObjectListMultimap<String> map = new ConcurrentLong2ObjectListMultimap<>(Subjects.NUM_BUCKETS, Subjects.CAPACITY, DEFAULT_LOAD_FACTOR);
+
+
+		public PutRemove() {
+			map.putValue(1, "a");
+		}
+
+
+		@Actor
+		public void put() {
+			map.putValue(1, "b");
+		}
+
+		@Actor
+		public void remove(final ZZ_Result result) {
+			result.r1 = map.removeValue(1, "a");
+		}
+
+		@Arbiter
+		public void values(final ZZ_Result result) {
+
+			final List<String> values = new ArrayList<>();
+
+			map.getValues(1, values);
+
+			result.r2 = values.equals(List.of("b"));
+		}
+
+	}
+
+}
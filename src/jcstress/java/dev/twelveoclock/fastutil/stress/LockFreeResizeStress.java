@@ -0,0 +1,137 @@
+package dev.twelveoclock.fastutil.stress;
+
+import dev.twelveoclock.fastutil.map.impl.ConcurrentLong2ObjectLockFreeHashMap;
+import it.unimi.dsi.fastutil.HashCommon;
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.ZZZZ_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+
+/**
+ * The lock-free map while it resizes, which the {@link Subjects} scenarios never reach with their few keys.
+ * Every key lands on the same home slot, so one insert fills the table or runs past the reprobe limit,
+ * and a remove races the copy into the next table.
+ */
+public final class LockFreeResizeStress {
+
+	// The smallest table, full at 12 claimed slots
+	private static final int MIN_LOAD_CAPACITY = 1;
+
+	// A 64 slot table, whose reprobe limit of 26 comes before it's full at 48
+	private static final int REPROBE_LOAD_CAPACITY = 32;
+
+	// One probe cluster in both tables, the last key starts the resize
+	private static final long[] KEYS = collidingKeys(28, 63);
+
+
+	private LockFreeResizeStress() {}
+
+
+	@JCStressTest
+	@Description("A remove racing the resize an insert into the full minimum table starts")
+	@Outcome(id = "true, true, true, true", expect = ACCEPTABLE, desc = "Removed once, every other key copied")
+	@Outcome(expect = FORBIDDEN, desc = "The remove was lost or undone by the copy, a key went missing, or the size drifted")
+	@State
+	public static class FullTable {
+
+		private static final int PRELOADED = 11;
+
+		private final ConcurrentLong2ObjectLockFreeHashMap<String> map = preload(MIN_LOAD_CAPACITY, PRELOADED);
+
+
+		@Actor
+		public void insert() {
+			map.put(KEYS[PRELOADED], "b");
+		}
+
+		@Actor
+		public void remove(final ZZZZ_Result result) {
+			result.r1 = "a".equals(map.remove(KEYS[0]));
+			result.r2 = "a".equals(map.get(KEYS[1]));
+		}
+
+		@Arbiter
+		public void check(final ZZZZ_Result result) {
+			result.r3 = isOnlyMissingFirst(map, PRELOADED + 1);
+			result.r4 = map.size() == PRELOADED;
+		}
+
+	}
+
+	@JCStressTest
+	@Description("A remove racing the resize an insert past the reprobe limit starts")
+	@Outcome(id = "true, true, true, true", expect = ACCEPTABLE, desc = "Removed once, every other key copied")
+	@Outcome(expect = FORBIDDEN, desc = "The remove was lost or undone by the copy, a key went missing, or the size drifted")
+	@State
+	public static class ReprobeLimit {
+
+		private static final int PRELOADED = 27;
+
+		private final ConcurrentLong2ObjectLockFreeHashMap<String> map = preload(REPROBE_LOAD_CAPACITY, PRELOADED);
+
+
+		@Actor
+		public void insert() {
+			map.put(KEYS[PRELOADED], "b");
+		}
+
+		@Actor
+		public void remove(final ZZZZ_Result result) {
+			result.r1 = "a".equals(map.remove(KEYS[0]));
+			result.r2 = "a".equals(map.get(KEYS[1]));
+		}
+
+		@Arbiter
+		public void check(final ZZZZ_Result result) {
+			result.r3 = isOnlyMissingFirst(map, PRELOADED + 1);
+			result.r4 = map.size() == PRELOADED;
+		}
+
+	}
+
+
+	private static ConcurrentLong2ObjectLockFreeHashMap<String> preload(final int loadCapacity, final int count) {
+
+		final ConcurrentLong2ObjectLockFreeHashMap<String> map = new ConcurrentLong2ObjectLockFreeHashMap<>(null, loadCapacity);
+
+		for (int i = 0; i < count; i++) {
+			map.put(KEYS[i], "a");
+		}
+
+		return map;
+	}
+
+	private static boolean isOnlyMissingFirst(final ConcurrentLong2ObjectLockFreeHashMap<String> map, final int count) {
+
+		if (map.containsKey(KEYS[0])) {
+			return false;
+		}
+
+		for (int i = 1; i < count; i++) {
+			if (!map.containsKey(KEYS[i])) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static long[] collidingKeys(final int count, final int mask) {
+
+		final long[] keys = new long[count];
+		final int home = (int) HashCommon.mix(1L) & mask;
+
+		int found = 0;
+
+		for (long key = 1; found < count; key++) {
+			if (((int) HashCommon.mix(key) & mask) == home) {
+				keys[found++] = key;
+			}
+		}
+
+		return keys;
+	}
+
+}
@@ -0,0 +1,41 @@
+package dev.twelveoclock.fastutil.stress;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.*;
+
+
+@JCStressTest
+@Description("size() while one key is added and another removed, starting with the removed one")
+@Outcome(id = {"1, 1", "2, 1"}, expect = ACCEPTABLE, desc = "A size the structure had")
+@Outcome(id = "0, 1", expect = ACCEPTABLE_INTERESTING, desc = "Striped sizes are summed a stripe at a time, the remove was counted but not the add")
+@Outcome(expect = FORBIDDEN, desc = "Impossible size")
+@State
+public class SizeStress {
+
+	private final Subject subject = Subjects.current();
+
+
+	public SizeStress() {
+		subject.add(1);
+	}
+
+
+	@Actor
+	public void writer() {
+		subject.add(2);
+		subject.remove(1);
+	}
+
+	@Actor
+	public void reader(final II_Result result) {
+		result.r1 = subject.size();
+	}
+
+	@Arbiter
+	public void size(final II_Result result) {
+		result.r2 = subject.size();
+	}
+
+}
@@ -0,0 +1,45 @@
+package dev.twelveoclock.fastutil.stress;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.ZZZZ_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+
+@JCStressTest
+@Description("Adding and removing keys while every stripe is split, nothing is lost or revived by the rehash")
+@Outcome(id = "true, true, true, true", expect = ACCEPTABLE, desc = "Both writes survived the split")
+@Outcome(expect = FORBIDDEN, desc = "A write was lost in the split")
+@State
+public class SplitStress {
+
+	private final Subject subject = Subjects.current();
+
+
+	public SplitStress() {
+		subject.add(1);
+		subject.add(2);
+		subject.add(3);
+		subject.add(5);
+	}
+
+
+	@Actor
+	public void writer(final ZZZZ_Result result) {
+		result.r1 = subject.add(4);
+		result.r2 = subject.remove(5);
+	}
+
+	@Actor
+	public void split() {
+		subject.split();
+	}
+
+	@Arbiter
+	public void check(final ZZZZ_Result result) {
+		result.r3 = subject.contains(4) && !subject.contains(5);
+		result.r4 = subject.size() == 4;
+	}
+
+}
@@ -0,0 +1,93 @@
+package dev.twelveoclock.fastutil.stress;
+
+import org.openjdk.jcstress.Main;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Runs the scenarios once per {@link Subjects} constant, since jcstress tests take no parameters,
+ * then the dedicated {@link CounterMapStress}, {@link ListMultimapStress} and {@link LockFreeResizeStress} tests.
+ * Takes the usual jcstress arguments except {@code -t}, subjects come from {@code -Dstress.subjects=LONG2LONG_OFF_HEAP,INT_BITMAP_SET}
+ * and default to all of them, e.g. {@code gradle jcstress -PjcstressArgs="-m quick" -PjcstressSubjects=INT2INT_OPEN_HASH}.
+ * Each pass runs in its own VM, jcstress keeps the VM configurations it forks with in static state,
+ * and writes its report to its own directory under {@code results/}.
+ */
+public final class StressMatrix {
+
+	private static final String PACKAGE = StressMatrix.class.getPackageName() + ".";
+
+
+	private StressMatrix() {}
+
+
+	public static void main(final String[] args) throws IOException, InterruptedException {
+
+		final String subjects = System.getProperty("stress.subjects");
+		final List<String> failed = new ArrayList<>();
+
+		for (final Subjects subject : subjects == null ? Subjects.values() : Arrays.stream(subjects.split(",")).map(String::trim).map(Subjects::valueOf).toArray(Subjects[]::new)) {
+			if (!run(args, subject.name(), scenarios(subject), "-jvmArgsPrepend", "-D" + Subjects.PROPERTY + "=" + subject.name())) {
+				failed.add(subject.name());
+			}
+		}
+
+		if (subjects == null && !run(args, "DEDICATED", List.of(CounterMapStress.class, ListMultimapStress.class, LockFreeResizeStress.class))) {
+			failed.add("DEDICATED");
+		}
+
+		if (!failed.isEmpty()) {
+			throw new IllegalStateException("Failed passes " + failed + ", see their reports under results/");
+		}
+	}
+
+
+	private static List<Class<?>> scenarios(final Subjects subject) {
+
+		final List<Class<?>> scenarios = new ArrayList<>(List.of(
+			AddRemoveStress.class,
+			AddAddStress.class,
+			VisibilityStress.class,
+			SizeStress.class,
+			BulkAddStress.class
+		));
+
+		if (subject.isIterable()) {
+			scenarios.add(IteratorStress.class);
+		}
+
+		if (subject.isStriped()) {
+			scenarios.add(SplitStress.class);
+		}
+
+		return scenarios;
+	}
+
+	private static boolean run(final String[] args, final String name, final List<Class<?>> tests, final String... extraArgs) throws IOException, InterruptedException {
+
+		final StringBuilder regex = new StringBuilder();
+
+		for (final Class<?> test : tests) {
+			regex.append(regex.length() == 0 ? "" : "|").append(test.getSimpleName());
+		}
+
+		final List<String> command = new ArrayList<>(List.of(
+			Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+			"-cp", System.getProperty("java.class.path"),
+			Main.class.getName()
+		));
+
+		command.addAll(Arrays.asList(args));
+		command.addAll(List.of("-t", "^" + PACKAGE.replace(".", "\\.") + "(" + regex + ")", "-r", "results/" + name));
+		command.addAll(Arrays.asList(extraArgs));
+
+		System.out.println("Stressing " + name);
+
+		return new ProcessBuilder(command).inheritIO().start().waitFor() == 0;
+	}
+
+}
@@ -0,0 +1,61 @@
+package dev.twelveoclock.fastutil.stress;
+
+
+/**
+ * A structure under test seen as a set of small int keys.
+ * Maps store {@link #valueOf(int)} under each key, lookups throw if they find any other value,
+ * which jcstress reports as a test error.
+ */
+interface Subject {
+
+	/**
+	 * Keys are counted by {@link #iterate()} below this.
+	 */
+	int KEY_LIMIT = 8;
+
+
+	/**
+	 * Stores the key if it's absent, atomically.
+	 *
+	 * @return Whether it was absent.
+	 */
+	boolean add(final int key);
+
+	/**
+	 * @return Whether it was present.
+	 */
+	boolean remove(final int key);
+
+	boolean contains(final int key);
+
+	/**
+	 * Adds the keys through the structure's bulk path.
+	 */
+	void addAll(final int... keys);
+
+	int size();
+
+	/**
+	 * Walks the structure's iterator once.
+	 *
+	 * @return How many times each key under {@link #KEY_LIMIT} came up.
+	 */
+	int[] iterate();
+
+	/**
+	 * Splits every stripe, for structures with stripes.
+	 */
+	void split();
+
+
+	static int valueOf(final int key) {
+		return key + 100;
+	}
+
+	static void check(final int key, final long value) {
+		if (value != valueOf(key)) {
+			throw new IllegalStateException("Key " + key + " maps to " + value);
+		}
+	}
+
+}
@@ -0,0 +1,970 @@
+package dev.twelveoclock.fastutil.stress;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.impl.*;
+import dev.twelveoclock.fastutil.set.impl.*;
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.ints.*;
+import it.unimi.dsi.fastutil.longs.*;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * Every map and set the scenarios run against, picked by the {@value #PROPERTY} system property of the forked VMs,
+ * see {@link StressMatrix}. The counter maps and the list multimap don't behave like sets of keys,
+ * {@link CounterMapStress} and {@link ListMultimapStress} cover them instead.
+ * The scenarios' few keys never resize the lock-free map, {@link LockFreeResizeStress} races its copy.
+ * <p>
+ * Striped structures start with {@value #NUM_BUCKETS} stripes, so the scenarios' keys spread over several.
+ */
+public enum Subjects {
+
+	INT2INT_OPEN_HASH(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentInt2IntOpenHashMap map = new ConcurrentInt2IntOpenHashMap(NUM_BUCKETS, 0, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+			return intMap(map, map::splitBuckets);
+		}
+	},
+
+	INT2INT_OPEN_HASH_OPTIMISTIC(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentInt2IntOpenHashMap map = new ConcurrentInt2IntOpenHashMap(NUM_BUCKETS, 0, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.OPTIMISTIC);
+			return intMap(map, map::splitBuckets);
+		}
+	},
+
+	INT2OBJECT_OPEN_HASH(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentInt2ObjectOpenHashMap<Integer> map = new ConcurrentInt2ObjectOpenHashMap<>(NUM_BUCKETS, null, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+			return intObjectMap(map, map::splitBuckets);
+		}
+	},
+
+	INT2OBJECT_OPEN_HASH_OPTIMISTIC(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentInt2ObjectOpenHashMap<Integer> map = new ConcurrentInt2ObjectOpenHashMap<>(NUM_BUCKETS, null, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.OPTIMISTIC);
+			return intObjectMap(map, map::splitBuckets);
+		}
+	},
+
+	LONG2LONG_OPEN_HASH(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentLong2LongOpenHashMap map = new ConcurrentLong2LongOpenHashMap(NUM_BUCKETS, 0, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+			return longMap(map, map::splitBuckets);
+		}
+	},
+
+	LONG2LONG_OPEN_HASH_OPTIMISTIC(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentLong2LongOpenHashMap map = new ConcurrentLong2LongOpenHashMap(NUM_BUCKETS, 0, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.OPTIMISTIC);
+			return longMap(map, map::splitBuckets);
+		}
+	},
+
+	LONG2LONG_OFF_HEAP(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentLong2LongOffHeapHashMap map = new ConcurrentLong2LongOffHeapHashMap(NUM_BUCKETS, 0, CAPACITY, DEFAULT_LOAD_FACTOR);
+			return longMap(map, map::splitBuckets);
+		}
+	},
+
+	LONG2INT_OFF_HEAP(true, true) {
+		@Override
+		Subject create() {
+
+			final ConcurrentLong2IntOffHeapHashMap map = new ConcurrentLong2IntOffHeapHashMap(NUM_BUCKETS, 0, CAPACITY, DEFAULT_LOAD_FACTOR);
+
+			return new Subject() {
+
+				@Override
+				public boolean add(final int key) {
+					return map.putIfAbsent((long) key, Subject.valueOf(key)) == 0;
+				}
+
+				@Override
+				public boolean remove(final int key) {
+					return map.remove((long) key) != 0;
+				}
+
+				@Override
+				public boolean contains(final int key) {
+					return found(key, map.get(key));
+				}
+
+				@Override
+				public void addAll(final int... keys) {
+
+					final Long2IntOpenHashMap entries = new Long2IntOpenHashMap(keys.length);
+
+					for (final int key : keys) {
+						entries.put(key, Subject.valueOf(key));
+					}
+
+					map.putAll(entries);
+				}
+
+				@Override
+				public int size() {
+					return map.size();
+				}
+
+				@Override
+				public int[] iterate() {
+
+					final int[] counts = new int[KEY_LIMIT];
+
+					for (final Long2IntMap.Entry entry : map.long2IntEntrySet()) {
+						count(counts, (int) entry.getLongKey(), entry.getIntValue());
+					}
+
+					return counts;
+				}
+
+				@Override
+				public void split() {
+					map.splitBuckets();
+				}
+			};
+		}
+	},
+
+	LONG2OBJECT_OPEN_HASH(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentLong2ObjectOpenHashMap<Integer> map = new ConcurrentLong2ObjectOpenHashMap<>(NUM_BUCKETS, null, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+			return longObjectMap(map, map::splitBuckets);
+		}
+	},
+
+	LONG2OBJECT_OPEN_HASH_OPTIMISTIC(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentLong2ObjectOpenHashMap<Integer> map = new ConcurrentLong2ObjectOpenHashMap<>(NUM_BUCKETS, null, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.OPTIMISTIC);
+			return longObjectMap(map, map::splitBuckets);
+		}
+	},
+
+	LONG2OBJECT_LOCK_FREE(true, false) {
+		@Override
+		Subject create() {
+			return longObjectMap(new ConcurrentLong2ObjectLockFreeHashMap<>(null, CAPACITY), () -> {});
+		}
+	},
+
+	LONG2OBJECT_SORTED(true, false) {
+		@Override
+		Subject create() {
+			return longObjectMap(new ConcurrentLong2ObjectSortedMap<>(), () -> {});
+		}
+	},
+
+	REFERENCE2INT_OPEN_HASH(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentReference2IntOpenHashMap<Integer> map = new ConcurrentReference2IntOpenHashMap<>(NUM_BUCKETS, 0, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+			return referenceMap(map, map::splitBuckets);
+		}
+	},
+
+	REFERENCE2INT_OPEN_HASH_OPTIMISTIC(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentReference2IntOpenHashMap<Integer> map = new ConcurrentReference2IntOpenHashMap<>(NUM_BUCKETS, 0, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.OPTIMISTIC);
+			return referenceMap(map, map::splitBuckets);
+		}
+	},
+
+	INT2OBJECT_CACHE(false, true) {
+		@Override
+		Subject create() {
+
+			final ConcurrentInt2ObjectCache<Integer> cache = new ConcurrentInt2ObjectCache<>(NUM_BUCKETS, CAPACITY * NUM_BUCKETS, value -> 1, null, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+
+			return new Subject() {
+
+				@Override
+				public boolean add(final int key) {
+
+					final boolean[] loaded = new boolean[1];
+
+					cache.computeIfAbsent(key, k -> {
+						loaded[0] = true;
+						return Subject.valueOf(k);
+					});
+
+					return loaded[0];
+				}
+
+				@Override
+				public boolean remove(final int key) {
+					return cache.remove(key) != null;
+				}
+
+				@Override
+				public boolean contains(final int key) {
+					return found(key, cache.get(key));
+				}
+
+				@Override
+				public void addAll(final int... keys) {
+					for (final int key : keys) {
+						cache.put(key, Subject.valueOf(key));
+					}
+				}
+
+				@Override
+				public int size() {
+					return cache.size();
+				}
+
+				@Override
+				public int[] iterate() {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void split() {
+					cache.splitBuckets();
+				}
+			};
+		}
+	},
+
+	INT2OBJECT_EXPIRING(false, true) {
+		@Override
+		Subject create() {
+
+			final ConcurrentInt2ObjectExpiringMap<Integer> map = new ConcurrentInt2ObjectExpiringMap<>(NUM_BUCKETS, Duration.ofHours(1), null, CAPACITY, DEFAULT_LOAD_FACTOR, System::nanoTime);
+
+			return new Subject() {
+
+				@Override
+				public boolean add(final int key) {
+					return map.putIfAbsent(key, Subject.valueOf(key)) == null;
+				}
+
+				@Override
+				public boolean remove(final int key) {
+					return map.remove(key) != null;
+				}
+
+				@Override
+				public boolean contains(final int key) {
+					return found(key, map.get(key));
+				}
+
+				@Override
+				public void addAll(final int... keys) {
+					for (final int key : keys) {
+						map.put(key, Subject.valueOf(key));
+					}
+				}
+
+				@Override
+				public int size() {
+					return map.size();
+				}
+
+				@Override
+				public int[] iterate() {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void split() {
+					map.splitBuckets();
+				}
+			};
+		}
+	},
+
+	LONG2OBJECT_EXPIRING(false, true) {
+		@Override
+		Subject create() {
+
+			final ConcurrentLong2ObjectExpiringMap<Integer> map = new ConcurrentLong2ObjectExpiringMap<>(NUM_BUCKETS, Duration.ofHours(1), null, CAPACITY, DEFAULT_LOAD_FACTOR, System::nanoTime);
+
+			return new Subject() {
+
+				@Override
+				public boolean add(final int key) {
+					return map.putIfAbsent(key, Subject.valueOf(key)) == null;
+				}
+
+				@Override
+				public boolean remove(final int key) {
+					return map.remove(key) != null;
+				}
+
+				@Override
+				public boolean contains(final int key) {
+					return found(key, map.get(key));
+				}
+
+				@Override
+				public void addAll(final int... keys) {
+					for (final int key : keys) {
+						map.put(key, Subject.valueOf(key));
+					}
+				}
+
+				@Override
+				public int size() {
+					return map.size();
+				}
+
+				@Override
+				public int[] iterate() {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void split() {
+					map.splitBuckets();
+				}
+			};
+		}
+	},
+
+	// The keys are values of a single multimap key, so every operation also goes through its single to set promotion
+	LONG2LONG_SET_MULTIMAP(true, true) {
+		@Override
+		Subject create() {
+
+			final ConcurrentLong2LongSetMultimap map = new ConcurrentLong2LongSetMultimap(NUM_BUCKETS, CAPACITY, DEFAULT_LOAD_FACTOR);
+
+			return new Subject() {
+
+				@Override
+				public boolean add(final int key) {
+					return map.putValue(0, key);
+				}
+
+				@Override
+				public boolean remove(final int key) {
+					return map.removeValue(0, key);
+				}
+
+				@Override
+				public boolean contains(final int key) {
+					return map.containsValue(0, key);
+				}
+
+				@Override
+				public void addAll(final int... keys) {
+					for (final int key : keys) {
+						map.putValue(0, key);
+					}
+				}
+
+				@Override
+				public int size() {
+					return (int) map.valueCount();
+				}
+
+				@Override
+				public int[] iterate() {
+
+					final int[] counts = new int[KEY_LIMIT];
+
+					map.forEachValue(0, value -> count(counts, (int) value, Subject.valueOf((int) value)));
+
+					return counts;
+				}
+
+				@Override
+				public void split() {
+					map.splitBuckets();
+				}
+			};
+		}
+	},
+
+	LONG_OPEN_HASH_SET(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentLongOpenHashSet set = new ConcurrentLongOpenHashSet(NUM_BUCKETS, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+			return longSet(set, set::splitBuckets);
+		}
+	},
+
+	LONG_OPEN_HASH_SET_OPTIMISTIC(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentLongOpenHashSet set = new ConcurrentLongOpenHashSet(NUM_BUCKETS, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.OPTIMISTIC);
+			return longSet(set, set::splitBuckets);
+		}
+	},
+
+	LONG_BITMAP_SET(true, false) {
+		@Override
+		Subject create() {
+			return longSet(new ConcurrentLongBitmapSet(), () -> {});
+		}
+	},
+
+	INT_BITMAP_SET(true, false) {
+		@Override
+		Subject create() {
+			return intSet(new ConcurrentIntBitmapSet());
+		}
+	},
+
+	OBJECT_OPEN_HASH_SET(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentObjectOpenHashSet<Integer> set = new ConcurrentObjectOpenHashSet<>(NUM_BUCKETS, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+			return objectSet(set, set::splitBuckets);
+		}
+	},
+
+	OBJECT_OPEN_HASH_SET_OPTIMISTIC(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentObjectOpenHashSet<Integer> set = new ConcurrentObjectOpenHashSet<>(NUM_BUCKETS, CAPACITY, DEFAULT_LOAD_FACTOR, StripeLockMode.OPTIMISTIC);
+			return objectSet(set, set::splitBuckets);
+		}
+	},
+
+	OBJECT_OPEN_CUSTOM_HASH_SET(true, true) {
+		@Override
+		Subject create() {
+			final ConcurrentObjectOpenCustomHashSet<Integer> set = new ConcurrentObjectOpenCustomHashSet<>(NUM_BUCKETS, CAPACITY, DEFAULT_LOAD_FACTOR, STRATEGY);
+			return objectSet(set, set::splitBuckets);
+		}
+	};
+
+
+	public static final String PROPERTY = "stress.subject";
+
+	static final int NUM_BUCKETS = 4;
+
+	static final int CAPACITY = 16;
+
+	private static final Hash.Strategy<Integer> STRATEGY = new Hash.Strategy<>() {
+
+		@Override
+		public int hashCode(final Integer key) {
+			return key == null ? 0 : key * 31;
+		}
+
+		@Override
+		public boolean equals(final Integer a, final Integer b) {
+			return Objects.equals(a, b);
+		}
+	};
+
+
+	private final boolean iterable;
+
+	private final boolean striped;
+
+
+	Subjects(final boolean iterable, final boolean striped) {
+		this.iterable = iterable;
+		this.striped = striped;
+	}
+
+
+	abstract Subject create();
+
+	/**
+	 * Whether {@link Subject#iterate()} is supported, the cache and expiring maps have no iterators.
+	 */
+	public boolean isIterable() {
+		return iterable;
+	}
+
+	/**
+	 * Whether the structure has stripes that {@link Subject#split()} splits.
+	 */
+	public boolean isStriped() {
+		return striped;
+	}
+
+
+	/**
+	 * A new instance of the structure named by {@value #PROPERTY}.
+	 */
+	static Subject current() {
+
+		final String name = System.getProperty(PROPERTY);
+
+		if (name == null) {
+			throw new IllegalStateException("No structure to test, run through StressMatrix or pass -jvmArgsPrepend -D" + PROPERTY + "=<Subjects constant>");
+		}
+
+		return valueOf(name).create();
+	}
+
+
+	private static boolean found(final int key, final long value) {
+
+		if (value == 0) {
+			return false;
+		}
+
+		Subject.check(key, value);
+
+		return true;
+	}
+
+	private static boolean found(final int key, final Integer value) {
+		return value != null && found(key, value.longValue());
+	}
+
+	private static void count(final int[] counts, final int key, final long value) {
+
+		Subject.check(key, value);
+
+		if (key >= 0 && key < counts.length) {
+			counts[key]++;
+		}
+	}
+
+	private static Subject intMap(final Int2IntMap map, final Runnable split) {
+		return new Subject() {
+
+			@Override
+			public boolean add(final int key) {
+				return map.putIfAbsent(key, Subject.valueOf(key)) == 0;
+			}
+
+			@Override
+			public boolean remove(final int key) {
+				return map.remove(key) != 0;
+			}
+
+			@Override
+			public boolean contains(final int key) {
+				return found(key, map.get(key));
+			}
+
+			@Override
+			public void addAll(final int... keys) {
+
+				final Int2IntOpenHashMap entries = new Int2IntOpenHashMap(keys.length);
+
+				for (final int key : keys) {
+					entries.put(key, Subject.valueOf(key));
+				}
+
+				map.putAll(entries);
+			}
+
+			@Override
+			public int size() {
+				return map.size();
+			}
+
+			@Override
+			public int[] iterate() {
+
+				final int[] counts = new int[KEY_LIMIT];
+
+				for (final Int2IntMap.Entry entry : map.int2IntEntrySet()) {
+					count(counts, entry.getIntKey(), entry.getIntValue());
+				}
+
+				return counts;
+			}
+
+			@Override
+			public void split() {
+				split.run();
+			}
+		};
+	}
+
+	private static Subject intObjectMap(final Int2ObjectMap<Integer> map, final Runnable split) {
+		return new Subject() {
+
+			@Override
+			public boolean add(final int key) {
+				return map.putIfAbsent(key, (Integer) Subject.valueOf(key)) == null;
+			}
+
+			@Override
+			public boolean remove(final int key) {
+				return map.remove(key) != null;
+			}
+
+			@Override
+			public boolean contains(final int key) {
+				return found(key, map.get(key));
+			}
+
+			@Override
+			public void addAll(final int... keys) {
+
+				final Int2ObjectOpenHashMap<Integer> entries = new Int2ObjectOpenHashMap<>(keys.length);
+
+				for (final int key : keys) {
+					entries.put(key, (Integer) Subject.valueOf(key));
+				}
+
+				map.putAll(entries);
+			}
+
+			@Override
+			public int size() {
+				return map.size();
+			}
+
+			@Override
+			public int[] iterate() {
+
+				final int[] counts = new int[KEY_LIMIT];
+
+				for (final Int2ObjectMap.Entry<Integer> entry : map.int2ObjectEntrySet()) {
+					count(counts, entry.getIntKey(), entry.getValue());
+				}
+
+				return counts;
+			}
+
+			@Override
+			public void split() {
+				split.run();
+			}
+		};
+	}
+
+	private static Subject longMap(final Long2LongMap map, final Runnable split) {
+		return new Subject() {
+
+			@Override
+			public boolean add(final int key) {
+				return map.putIfAbsent((long) key, Subject.valueOf(key)) == 0;
+			}
+
+			@Override
+			public boolean remove(final int key) {
+				return map.remove((long) key) != 0;
+			}
+
+			@Override
+			public boolean contains(final int key) {
+				return found(key, map.get(key));
+			}
+
+			@Override
+			public void addAll(final int... keys) {
+
+				final Long2LongOpenHashMap entries = new Long2LongOpenHashMap(keys.length);
+
+				for (final int key : keys) {
+					entries.put(key, Subject.valueOf(key));
+				}
+
+				map.putAll(entries);
+			}
+
+			@Override
+			public int size() {
+				return map.size();
+			}
+
+			@Override
+			public int[] iterate() {
+
+				final int[] counts = new int[KEY_LIMIT];
+
+				for (final Long2LongMap.Entry entry : map.long2LongEntrySet()) {
+					count(counts, (int) entry.getLongKey(), entry.getLongValue());
+				}
+
+				return counts;
+			}
+
+			@Override
+			public void split() {
+				split.run();
+			}
+		};
+	}
+
+	private static Subject longObjectMap(final Long2ObjectMap<Integer> map, final Runnable split) {
+		return new Subject() {
+
+			@Override
+			public boolean add(final int key) {
+				return map.putIfAbsent(key, (Integer) Subject.valueOf(key)) == null;
+			}
+
+			@Override
+			public boolean remove(final int key) {
+				return map.remove((long) key) != null;
+			}
+
+			@Override
+			public boolean contains(final int key) {
+				return found(key, map.get(key));
+			}
+
+			@Override
+			public void addAll(final int... keys) {
+
+				final Long2ObjectOpenHashMap<Integer> entries = new Long2ObjectOpenHashMap<>(keys.length);
+
+				for (final int key : keys) {
+					entries.put(key, (Integer) Subject.valueOf(key));
+				}
+
+				map.putAll(entries);
+			}
+
+			@Override
+			public int size() {
+				return map.size();
+			}
+
+			@Override
+			public int[] iterate() {
+
+				final int[] counts = new int[KEY_LIMIT];
+
+				for (final Long2ObjectMap.Entry<Integer> entry : map.long2ObjectEntrySet()) {
+					count(counts, (int) entry.getLongKey(), entry.getValue());
+				}
+
+				return counts;
+			}
+
+			@Override
+			public void split() {
+				split.run();
+			}
+		};
+	}
+
+	// Small Integers are cached, so the same key is always the same reference
+	private static Subject referenceMap(final Reference2IntMap<Integer> map, final Runnable split) {
+		return new Subject() {
+
+			@Override
+			public boolean add(final int key) {
+				return map.putIfAbsent((Integer) key, Subject.valueOf(key)) == 0;
+			}
+
+			@Override
+			public boolean remove(final int key) {
+				return map.removeInt(key) != 0;
+			}
+
+			@Override
+			public boolean contains(final int key) {
+				return found(key, map.getInt(key));
+			}
+
+			@Override
+			public void addAll(final int... keys) {
+
+				final Reference2IntOpenHashMap<Integer> entries = new Reference2IntOpenHashMap<>(keys.length);
+
+				for (final int key : keys) {
+					entries.put((Integer) key, Subject.valueOf(key));
+				}
+
+				map.putAll(entries);
+			}
+
+			@Override
+			public int size() {
+				return map.size();
+			}
+
+			@Override
+			public int[] iterate() {
+
+				final int[] counts = new int[KEY_LIMIT];
+
+				for (final Reference2IntMap.Entry<Integer> entry : map.reference2IntEntrySet()) {
+					count(counts, entry.getKey(), entry.getIntValue());
+				}
+
+				return counts;
+			}
+
+			@Override
+			public void split() {
+				split.run();
+			}
+		};
+	}
+
+	private static Subject longSet(final LongSet set, final Runnable split) {
+		return new Subject() {
+
+			@Override
+			public boolean add(final int key) {
+				return set.add(key);
+			}
+
+			@Override
+			public boolean remove(final int key) {
+				return set.remove(key);
+			}
+
+			@Override
+			public boolean contains(final int key) {
+				return set.contains(key);
+			}
+
+			@Override
+			public void addAll(final int... keys) {
+
+				final LongArrayList elements = new LongArrayList(keys.length);
+
+				for (final int key : keys) {
+					elements.add(key);
+				}
+
+				set.addAll(elements);
+			}
+
+			@Override
+			public int size() {
+				return set.size();
+			}
+
+			@Override
+			public int[] iterate() {
+
+				final int[] counts = new int[KEY_LIMIT];
+
+				for (final LongIterator iterator = set.iterator(); iterator.hasNext(); ) {
+
+					final int key = (int) iterator.nextLong();
+
+					count(counts, key, Subject.valueOf(key));
+				}
+
+				return counts;
+			}
+
+			@Override
+			public void split() {
+				split.run();
+			}
+		};
+	}
+
+	private static Subject intSet(final IntSet set) {
+		return new Subject() {
+
+			@Override
+			public boolean add(final int key) {
+				return set.add(key);
+			}
+
+			@Override
+			public boolean remove(final int key) {
+				return set.remove(key);
+			}
+
+			@Override
+			public boolean contains(final int key) {
+				return set.contains(key);
+			}
+
+			@Override
+			public void addAll(final int... keys) {
+				set.addAll(IntArrayList.wrap(keys));
+			}
+
+			@Override
+			public int size() {
+				return set.size();
+			}
+
+			@Override
+			public int[] iterate() {
+
+				final int[] counts = new int[KEY_LIMIT];
+
+				for (final IntIterator iterator = set.iterator(); iterator.hasNext(); ) {
+
+					final int key = iterator.nextInt();
+
+					count(counts, key, Subject.valueOf(key));
+				}
+
+				return counts;
+			}
+
+			@Override
+			public void split() {}
+		};
+	}
+
+	private static Subject objectSet(final Set<Integer> set, final Runnable split) {
+		return new Subject() {
+
+			@Override
+			public boolean add(final int key) {
+				return set.add(key);
+			}
+
+			@Override
+			public boolean remove(final int key) {
+				return set.remove(key);
+			}
+
+			@Override
+			public boolean contains(final int key) {
+				return set.contains(key);
+			}
+
+			@Override
+			public void addAll(final int... keys) {
+
+				final ObjectArrayList<Integer> elements = new ObjectArrayList<>(keys.length);
+
+				for (final int key : keys) {
+					elements.add(key);
+				}
+
+				set.addAll(elements);
+			}
+
+			@Override
+			public int size() {
+				return set.size();
+			}
+
+			@Override
+			public int[] iterate() {
+
+				final int[] counts = new int[KEY_LIMIT];
+
+				for (final Integer key : set) {
+					count(counts, key, Subject.valueOf(key));
+				}
+
+				return counts;
+			}
+
+			@Override
+			public void split() {
+				split.run();
+			}
+		};
+	}
+
+}
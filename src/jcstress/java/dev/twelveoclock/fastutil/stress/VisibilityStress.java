@@ -0,0 +1,34 @@
+package dev.twelveoclock.fastutil.stress;
+
+import org.openjdk.jcstress.annotations.*;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+
+@JCStressTest
+@Description("Adds of two keys read back in the opposite order, seeing the later add means seeing the earlier one")
+@Outcome(id = "false, false", expect = ACCEPTABLE, desc = "Read before both adds")
+@Outcome(id = "false, true", expect = ACCEPTABLE, desc = "Read between the adds")
+@Outcome(id = "true, true", expect = ACCEPTABLE, desc = "Read after both adds")
+@Outcome(id = "true, false", expect = FORBIDDEN, desc = "Saw the second add without the first")
+@State
+public class VisibilityStress {
+
+	private final Subject subject = Subjects.current();
+
+
+	@Actor
+	public void writer() {
+		subject.add(1);
+		subject.add(2);
+	}
+
+	@Actor
+	public void reader(final ZZ_Result result) {
+		result.r1 = subject.contains(2);
+		result.r2 = subject.contains(1);
+	}
+
+}
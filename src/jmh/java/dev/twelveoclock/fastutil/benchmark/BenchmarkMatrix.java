@@ -0,0 +1,42 @@
+package dev.twelveoclock.fastutil.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+
+/**
+ * Runs the benchmarks once per thread count, since JMH takes a single {@code -t}.
+ * Takes the usual JMH arguments, thread counts come from {@code -Dbenchmark.threads=1,4,16}
+ * and default to powers of two up to twice the core count, e.g.
+ * {@code gradle jmhMatrix -PjmhArgs="LongKeyBenchmark -p distribution=ZIPFIAN" -PjmhThreads=1,8}.
+ */
+public final class BenchmarkMatrix {
+
+	private BenchmarkMatrix() {}
+
+
+	public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+
+		final CommandLineOptions options = new CommandLineOptions(args);
+		final String threads = System.getProperty("benchmark.threads");
+
+		for (final int threadCount : threads == null ? defaultThreadCounts() : Arrays.stream(threads.split(",")).mapToInt(Integer::parseInt).toArray()) {
+			new Runner(new OptionsBuilder().parent(options).threads(threadCount).build()).run();
+		}
+	}
+
+
+	private static int[] defaultThreadCounts() {
+
+		final int max = Runtime.getRuntime().availableProcessors() * 2;
+
+		return IntStream.iterate(1, count -> count <= max, count -> count * 2).toArray();
+	}
+
+}
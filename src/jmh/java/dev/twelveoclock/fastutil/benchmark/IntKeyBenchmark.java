@@ -0,0 +1,299 @@
+package dev.twelveoclock.fastutil.benchmark;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.impl.*;
+import dev.twelveoclock.fastutil.set.impl.ConcurrentIntBitmapSet;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * The int keyed counterpart of {@link LongKeyBenchmark}, with the same workload and baselines.
+ * The cache is sized to hold every key, so evictions only come from stripes that hash more than their share.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class IntKeyBenchmark {
+
+	private static final Object VALUE = new Object();
+
+
+	@Param
+	public Implementation implementation;
+
+	@Param({"0", "10", "50"})
+	public int writePercent;
+
+	@Param
+	public KeyDistribution distribution;
+
+	@Param({"1024", "1048576"})
+	public int size;
+
+	@Param({"16", "128"})
+	public int numBuckets;
+
+	private Target target;
+
+
+	@Setup
+	public void setup(final BenchmarkParams params) {
+
+		if (implementation == Implementation.UNSYNCHRONIZED && writePercent > 0 && params.getThreads() > 1) {
+			throw new IllegalStateException("The unsynchronized baseline can only take writes from a single thread");
+		}
+
+		target = implementation.create(numBuckets, size);
+	}
+
+
+	@Benchmark
+	public long mixed(final ThreadState state) {
+
+		final int key = state.workload.nextKey();
+
+		if (state.workload.isWrite()) {
+			target.write(key);
+			return 0;
+		}
+
+		return target.read(key);
+	}
+
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		private Workload workload;
+
+
+		@Setup
+		public void setup(final IntKeyBenchmark benchmark, final ThreadParams params) {
+			workload = new Workload(benchmark.distribution, benchmark.size, benchmark.writePercent, params.getThreadIndex());
+		}
+
+	}
+
+	interface Target {
+
+		long read(final int key);
+
+		void write(final int key);
+
+	}
+
+	public enum Implementation {
+
+		OPEN_HASH {
+			@Override
+			Target create(final int numBuckets, final int size) {
+				return objectMap(new ConcurrentInt2ObjectOpenHashMap<>(numBuckets, null, size, DEFAULT_LOAD_FACTOR), size);
+			}
+		},
+
+		INT2INT_OPEN_HASH {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentInt2IntOpenHashMap map = new ConcurrentInt2IntOpenHashMap(numBuckets, 0, size, DEFAULT_LOAD_FACTOR);
+
+				for (int key = 0; key < size; key++) {
+					map.put(key, key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final int key) {
+						return map.get(key);
+					}
+
+					@Override
+					public void write(final int key) {
+						map.put(key, key);
+					}
+				};
+			}
+		},
+
+		INT2LONG_COUNTER {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentInt2LongCounterMap map = new ConcurrentInt2LongCounterMap(numBuckets, size, DEFAULT_LOAD_FACTOR);
+
+				for (int key = 0; key < size; key++) {
+					map.increment(key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final int key) {
+						return map.get(key);
+					}
+
+					@Override
+					public void write(final int key) {
+						map.increment(key);
+					}
+				};
+			}
+		},
+
+		CACHE {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentInt2ObjectCache<Object> cache = new ConcurrentInt2ObjectCache<>(numBuckets, size, value -> 1, null, size, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+
+				for (int key = 0; key < size; key++) {
+					cache.put(key, VALUE);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final int key) {
+						return cache.get(key) == null ? 0 : 1;
+					}
+
+					@Override
+					public void write(final int key) {
+						cache.put(key, VALUE);
+					}
+				};
+			}
+		},
+
+		EXPIRING {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentInt2ObjectExpiringMap<Object> map = new ConcurrentInt2ObjectExpiringMap<>(numBuckets, Duration.ofHours(1), null, size, DEFAULT_LOAD_FACTOR, System::nanoTime);
+
+				for (int key = 0; key < size; key++) {
+					map.put(key, VALUE);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final int key) {
+						return map.get(key) == null ? 0 : 1;
+					}
+
+					@Override
+					public void write(final int key) {
+						map.put(key, VALUE);
+					}
+				};
+			}
+		},
+
+		BITMAP_SET {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentIntBitmapSet set = new ConcurrentIntBitmapSet();
+
+				for (int key = 0; key < size; key++) {
+					set.add(key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final int key) {
+						return set.contains(key) ? 1 : 0;
+					}
+
+					@Override
+					public void write(final int key) {
+						set.remove(key);
+						set.add(key);
+					}
+				};
+			}
+		},
+
+		CONCURRENT_HASH_MAP {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentHashMap<Integer, Object> map = new ConcurrentHashMap<>(size);
+
+				for (int key = 0; key < size; key++) {
+					map.put(key, VALUE);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final int key) {
+						return map.get(key) == null ? 0 : 1;
+					}
+
+					@Override
+					public void write(final int key) {
+						map.put(key, VALUE);
+					}
+				};
+			}
+		},
+
+		SYNCHRONIZED {
+			@Override
+			Target create(final int numBuckets, final int size) {
+				return objectMap(Int2ObjectMaps.synchronize(new Int2ObjectOpenHashMap<>(size)), size);
+			}
+		},
+
+		UNSYNCHRONIZED {
+			@Override
+			Target create(final int numBuckets, final int size) {
+				return objectMap(new Int2ObjectOpenHashMap<>(size), size);
+			}
+		};
+
+
+		abstract Target create(final int numBuckets, final int size);
+
+
+		private static Target objectMap(final Int2ObjectMap<Object> map, final int size) {
+
+			for (int key = 0; key < size; key++) {
+				map.put(key, VALUE);
+			}
+
+			return new Target() {
+
+				@Override
+				public long read(final int key) {
+					return map.get(key) == null ? 0 : 1;
+				}
+
+				@Override
+				public void write(final int key) {
+					map.put(key, VALUE);
+				}
+			};
+		}
+
+	}
+
+}
@@ -0,0 +1,102 @@
+package dev.twelveoclock.fastutil.benchmark;
+
+import dev.twelveoclock.fastutil.map.impl.ConcurrentLong2ObjectOpenHashMap;
+import dev.twelveoclock.fastutil.set.impl.ConcurrentLongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * Full scans, meant to be run with the allocation profiler, e.g.
+ * {@code gradle jmh -PjmhArgs="IterationBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IterationBenchmark {
+
+	@Param({"16"})
+	public int numBuckets;
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({"2147483647", "1024"})
+	public int iteratorChunkSize;
+
+	private ConcurrentLong2ObjectOpenHashMap<Object> map;
+
+	private ConcurrentLongOpenHashSet set;
+
+
+	@Setup
+	public void setup() {
+
+		map = new ConcurrentLong2ObjectOpenHashMap<>(numBuckets, null, size, DEFAULT_LOAD_FACTOR);
+		set = new ConcurrentLongOpenHashSet(numBuckets, size, DEFAULT_LOAD_FACTOR);
+
+		for (long i = 0; i < size; i++) {
+			map.put(i, Long.valueOf(i));
+			set.add(i);
+		}
+
+		map.setIteratorChunkSize(iteratorChunkSize);
+		set.setIteratorChunkSize(iteratorChunkSize);
+	}
+
+
+	@Benchmark
+	public long mapKeys() {
+
+		long sum = 0;
+
+		for (final LongIterator iterator = map.keySet().iterator(); iterator.hasNext(); ) {
+			sum += iterator.nextLong();
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public long mapEntries() {
+
+		long sum = 0;
+
+		for (final Long2ObjectMap.Entry<Object> entry : map.long2ObjectEntrySet()) {
+			sum += entry.getLongKey();
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public long setValues() {
+
+		long sum = 0;
+
+		for (final LongIterator iterator = set.iterator(); iterator.hasNext(); ) {
+			sum += iterator.nextLong();
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public long setParallelSum() {
+		return set.longParallelStream().sum();
+	}
+
+	@Benchmark
+	public long mapParallelKeySum() {
+		return map.keySet().longParallelStream().sum();
+	}
+
+}
@@ -0,0 +1,97 @@
+package dev.twelveoclock.fastutil.benchmark;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.SplittableRandom;
+
+
+/**
+ * How benchmark threads pick keys out of {@code [0, size)}, drawn up front so the benchmark loop only reads an array.
+ */
+public enum KeyDistribution {
+
+	UNIFORM {
+		@Override
+		void fill(final int[] keys, final int size, final SplittableRandom random, final int threadIndex) {
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = random.nextInt(size);
+			}
+		}
+	},
+
+	/**
+	 * YCSB's Zipfian with a skew of 0.99, scrambled so the hot keys spread over every stripe instead of the first few.
+	 */
+	ZIPFIAN {
+		@Override
+		void fill(final int[] keys, final int size, final SplittableRandom random, final int threadIndex) {
+
+			final double theta = 0.99;
+			final double zeta2 = 1 + Math.pow(0.5, theta);
+
+			double zetaN = 0;
+
+			for (int i = 1; i <= size; i++) {
+				zetaN += 1 / Math.pow(i, theta);
+			}
+
+			final double alpha = 1 / (1 - theta);
+			final double eta = (1 - Math.pow(2.0 / size, 1 - theta)) / (1 - zeta2 / zetaN);
+
+			for (int i = 0; i < keys.length; i++) {
+
+				final double u = random.nextDouble();
+				final double uz = u * zetaN;
+
+				final long rank;
+
+				if (uz < 1) {
+					rank = 0;
+				}
+				else if (uz < zeta2) {
+					rank = 1;
+				}
+				else {
+					rank = Math.min(size - 1, (long) (size * Math.pow(eta * u - eta + 1, alpha)));
+				}
+
+				keys[i] = (int) Math.floorMod(HashCommon.mix(rank), (long) size);
+			}
+		}
+	},
+
+	/**
+	 * Ascending runs, each thread starting at its own offset so threads don't walk in lockstep.
+	 */
+	SEQUENTIAL {
+		@Override
+		void fill(final int[] keys, final int size, final SplittableRandom random, final int threadIndex) {
+
+			final int start = (int) ((long) threadIndex * size / 8 % size);
+
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = (int) ((start + (long) i) % size);
+			}
+		}
+	};
+
+
+	// Large enough that the pattern doesn't fit in L1, a power of two so cursors wrap with a mask
+	static final int KEYS_PER_THREAD = 1 << 16;
+
+
+	/**
+	 * @return Keys for one thread, {@link #KEYS_PER_THREAD} of them.
+	 */
+	public int[] keys(final int size, final long seed, final int threadIndex) {
+
+		final int[] keys = new int[KEYS_PER_THREAD];
+
+		fill(keys, size, new SplittableRandom(seed + threadIndex), threadIndex);
+
+		return keys;
+	}
+
+	abstract void fill(final int[] keys, final int size, final SplittableRandom random, final int threadIndex);
+
+}
@@ -0,0 +1,439 @@
+package dev.twelveoclock.fastutil.benchmark;
+
+import dev.twelveoclock.fastutil.map.impl.*;
+import dev.twelveoclock.fastutil.set.impl.ConcurrentLongBitmapSet;
+import dev.twelveoclock.fastutil.set.impl.ConcurrentLongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * Mixed reads and writes against every long keyed map and set, next to {@link ConcurrentHashMap} and fastutil's
+ * synchronized and plain maps. Reads are gets or contains, writes are puts, or a remove and re-add for sets and multimaps,
+ * so the size stays put. The lock-free, sorted and bitmap implementations have no stripes and ignore {@code numBuckets}.
+ * <p>
+ * Every combination runs in its own fork, so each call site only ever sees one implementation.
+ * Narrow the matrix with {@code -p}, e.g. {@code gradle jmh -PjmhArgs="LongKeyBenchmark -p implementation=LOCK_FREE -t 8"},
+ * or sweep thread counts with {@link BenchmarkMatrix}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class LongKeyBenchmark {
+
+	private static final Object VALUE = new Object();
+
+
+	@Param
+	public Implementation implementation;
+
+	@Param({"0", "10", "50"})
+	public int writePercent;
+
+	@Param
+	public KeyDistribution distribution;
+
+	@Param({"1024", "1048576"})
+	public int size;
+
+	@Param({"16", "128"})
+	public int numBuckets;
+
+	private Target target;
+
+
+	@Setup
+	public void setup(final BenchmarkParams params) {
+
+		if (implementation == Implementation.UNSYNCHRONIZED && writePercent > 0 && params.getThreads() > 1) {
+			throw new IllegalStateException("The unsynchronized baseline can only take writes from a single thread");
+		}
+
+		target = implementation.create(numBuckets, size);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		target.close();
+	}
+
+
+	@Benchmark
+	public long mixed(final ThreadState state) {
+
+		final long key = state.workload.nextKey();
+
+		if (state.workload.isWrite()) {
+			target.write(key);
+			return 0;
+		}
+
+		return target.read(key);
+	}
+
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		private Workload workload;
+
+
+		@Setup
+		public void setup(final LongKeyBenchmark benchmark, final ThreadParams params) {
+			workload = new Workload(benchmark.distribution, benchmark.size, benchmark.writePercent, params.getThreadIndex());
+		}
+
+	}
+
+	interface Target extends AutoCloseable {
+
+		long read(final long key);
+
+		void write(final long key);
+
+		@Override
+		default void close() throws Exception {}
+
+	}
+
+	public enum Implementation {
+
+		OPEN_HASH {
+			@Override
+			Target create(final int numBuckets, final int size) {
+				return objectMap(new ConcurrentLong2ObjectOpenHashMap<>(numBuckets, null, size, DEFAULT_LOAD_FACTOR), size);
+			}
+		},
+
+		LOCK_FREE {
+			@Override
+			Target create(final int numBuckets, final int size) {
+				return objectMap(new ConcurrentLong2ObjectLockFreeHashMap<>(null, size), size);
+			}
+		},
+
+		SORTED {
+			@Override
+			Target create(final int numBuckets, final int size) {
+				return objectMap(new ConcurrentLong2ObjectSortedMap<>(), size);
+			}
+		},
+
+		EXPIRING {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentLong2ObjectExpiringMap<Object> map = new ConcurrentLong2ObjectExpiringMap<>(numBuckets, Duration.ofHours(1), null, size, DEFAULT_LOAD_FACTOR, System::nanoTime);
+
+				for (long key = 0; key < size; key++) {
+					map.put(key, VALUE);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return map.get(key) == null ? 0 : 1;
+					}
+
+					@Override
+					public void write(final long key) {
+						map.put(key, VALUE);
+					}
+				};
+			}
+		},
+
+		LIST_MULTIMAP {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentLong2ObjectListMultimap<Object> map = new ConcurrentLong2ObjectListMultimap<>(numBuckets, size, DEFAULT_LOAD_FACTOR);
+
+				for (long key = 0; key < size; key++) {
+					map.putValue(key, VALUE);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return map.valueCount(key);
+					}
+
+					@Override
+					public void write(final long key) {
+						map.removeValue(key, VALUE);
+						map.putValue(key, VALUE);
+					}
+				};
+			}
+		},
+
+		LONG2LONG_OPEN_HASH {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentLong2LongOpenHashMap map = new ConcurrentLong2LongOpenHashMap(numBuckets, 0, size, DEFAULT_LOAD_FACTOR);
+
+				for (long key = 0; key < size; key++) {
+					map.put(key, key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return map.get(key);
+					}
+
+					@Override
+					public void write(final long key) {
+						map.put(key, key);
+					}
+				};
+			}
+		},
+
+		LONG2LONG_COUNTER {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentLong2LongCounterMap map = new ConcurrentLong2LongCounterMap(numBuckets, size, DEFAULT_LOAD_FACTOR);
+
+				for (long key = 0; key < size; key++) {
+					map.increment(key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return map.get(key);
+					}
+
+					@Override
+					public void write(final long key) {
+						map.increment(key);
+					}
+				};
+			}
+		},
+
+		LONG2LONG_OFF_HEAP {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentLong2LongOffHeapHashMap map = new ConcurrentLong2LongOffHeapHashMap(numBuckets, 0, size, DEFAULT_LOAD_FACTOR);
+
+				for (long key = 0; key < size; key++) {
+					map.put(key, key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return map.get(key);
+					}
+
+					@Override
+					public void write(final long key) {
+						map.put(key, key);
+					}
+
+					@Override
+					public void close() {
+						map.close();
+					}
+				};
+			}
+		},
+
+		LONG2INT_OFF_HEAP {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentLong2IntOffHeapHashMap map = new ConcurrentLong2IntOffHeapHashMap(numBuckets, 0, size, DEFAULT_LOAD_FACTOR);
+
+				for (long key = 0; key < size; key++) {
+					map.put(key, (int) key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return map.get(key);
+					}
+
+					@Override
+					public void write(final long key) {
+						map.put(key, (int) key);
+					}
+
+					@Override
+					public void close() {
+						map.close();
+					}
+				};
+			}
+		},
+
+		SET_MULTIMAP {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentLong2LongSetMultimap map = new ConcurrentLong2LongSetMultimap(numBuckets, size, DEFAULT_LOAD_FACTOR);
+
+				for (long key = 0; key < size; key++) {
+					map.putValue(key, key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return map.containsValue(key, key) ? 1 : 0;
+					}
+
+					@Override
+					public void write(final long key) {
+						map.removeValue(key, key);
+						map.putValue(key, key);
+					}
+				};
+			}
+		},
+
+		OPEN_HASH_SET {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentLongOpenHashSet set = new ConcurrentLongOpenHashSet(numBuckets, size, DEFAULT_LOAD_FACTOR);
+
+				for (long key = 0; key < size; key++) {
+					set.add(key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return set.contains(key) ? 1 : 0;
+					}
+
+					@Override
+					public void write(final long key) {
+						set.remove(key);
+						set.add(key);
+					}
+				};
+			}
+		},
+
+		BITMAP_SET {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentLongBitmapSet set = new ConcurrentLongBitmapSet();
+
+				for (long key = 0; key < size; key++) {
+					set.add(key);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return set.contains(key) ? 1 : 0;
+					}
+
+					@Override
+					public void write(final long key) {
+						set.remove(key);
+						set.add(key);
+					}
+				};
+			}
+		},
+
+		CONCURRENT_HASH_MAP {
+			@Override
+			Target create(final int numBuckets, final int size) {
+
+				final ConcurrentHashMap<Long, Object> map = new ConcurrentHashMap<>(size);
+
+				for (long key = 0; key < size; key++) {
+					map.put(key, VALUE);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final long key) {
+						return map.get(key) == null ? 0 : 1;
+					}
+
+					@Override
+					public void write(final long key) {
+						map.put(key, VALUE);
+					}
+				};
+			}
+		},
+
+		SYNCHRONIZED {
+			@Override
+			Target create(final int numBuckets, final int size) {
+				return objectMap(Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>(size)), size);
+			}
+		},
+
+		UNSYNCHRONIZED {
+			@Override
+			Target create(final int numBuckets, final int size) {
+				return objectMap(new Long2ObjectOpenHashMap<>(size), size);
+			}
+		};
+
+
+		abstract Target create(final int numBuckets, final int size);
+
+
+		private static Target objectMap(final Long2ObjectMap<Object> map, final int size) {
+
+			for (long key = 0; key < size; key++) {
+				map.put(key, VALUE);
+			}
+
+			return new Target() {
+
+				@Override
+				public long read(final long key) {
+					return map.get(key) == null ? 0 : 1;
+				}
+
+				@Override
+				public void write(final long key) {
+					map.put(key, VALUE);
+				}
+			};
+		}
+
+	}
+
+}
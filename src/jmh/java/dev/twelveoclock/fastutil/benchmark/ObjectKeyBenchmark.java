@@ -0,0 +1,226 @@
+package dev.twelveoclock.fastutil.benchmark;
+
+import dev.twelveoclock.fastutil.map.impl.ConcurrentReference2IntOpenHashMap;
+import dev.twelveoclock.fastutil.set.impl.ConcurrentObjectOpenCustomHashSet;
+import dev.twelveoclock.fastutil.set.impl.ConcurrentObjectOpenHashSet;
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMaps;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * The object keyed counterpart of {@link LongKeyBenchmark}, keys are distinct objects created up front.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ObjectKeyBenchmark {
+
+	@Param
+	public Implementation implementation;
+
+	@Param({"0", "10", "50"})
+	public int writePercent;
+
+	@Param
+	public KeyDistribution distribution;
+
+	@Param({"1024", "1048576"})
+	public int size;
+
+	@Param({"16", "128"})
+	public int numBuckets;
+
+	private Object[] keys;
+
+	private Target target;
+
+
+	@Setup
+	public void setup(final BenchmarkParams params) {
+
+		if (implementation == Implementation.UNSYNCHRONIZED && writePercent > 0 && params.getThreads() > 1) {
+			throw new IllegalStateException("The unsynchronized baseline can only take writes from a single thread");
+		}
+
+		keys = new Object[size];
+
+		for (int i = 0; i < size; i++) {
+			keys[i] = new Object();
+		}
+
+		target = implementation.create(numBuckets, keys);
+	}
+
+
+	@Benchmark
+	public long mixed(final ThreadState state) {
+
+		final Object key = keys[state.workload.nextKey()];
+
+		if (state.workload.isWrite()) {
+			target.write(key);
+			return 0;
+		}
+
+		return target.read(key);
+	}
+
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+
+		private Workload workload;
+
+
+		@Setup
+		public void setup(final ObjectKeyBenchmark benchmark, final ThreadParams params) {
+			workload = new Workload(benchmark.distribution, benchmark.size, benchmark.writePercent, params.getThreadIndex());
+		}
+
+	}
+
+	interface Target {
+
+		long read(final Object key);
+
+		void write(final Object key);
+
+	}
+
+	public enum Implementation {
+
+		REFERENCE2INT_OPEN_HASH {
+			@Override
+			Target create(final int numBuckets, final Object[] keys) {
+				return referenceMap(new ConcurrentReference2IntOpenHashMap<>(numBuckets, 0, keys.length, DEFAULT_LOAD_FACTOR), keys);
+			}
+		},
+
+		OPEN_HASH_SET {
+			@Override
+			Target create(final int numBuckets, final Object[] keys) {
+				return set(new ConcurrentObjectOpenHashSet<>(numBuckets, keys.length, DEFAULT_LOAD_FACTOR), keys);
+			}
+		},
+
+		OPEN_CUSTOM_HASH_SET {
+			@Override
+			Target create(final int numBuckets, final Object[] keys) {
+				return set(new ConcurrentObjectOpenCustomHashSet<>(numBuckets, keys.length, DEFAULT_LOAD_FACTOR, new Hash.Strategy<>() {
+
+					@Override
+					public int hashCode(final Object o) {
+						return Objects.hashCode(o);
+					}
+
+					@Override
+					public boolean equals(final Object a, final Object b) {
+						return Objects.equals(a, b);
+					}
+				}), keys);
+			}
+		},
+
+		CONCURRENT_HASH_MAP {
+			@Override
+			Target create(final int numBuckets, final Object[] keys) {
+
+				final ConcurrentHashMap<Object, Integer> map = new ConcurrentHashMap<>(keys.length);
+
+				for (final Object key : keys) {
+					map.put(key, 1);
+				}
+
+				return new Target() {
+
+					@Override
+					public long read(final Object key) {
+						final Integer value = map.get(key);
+						return value == null ? 0 : value;
+					}
+
+					@Override
+					public void write(final Object key) {
+						map.put(key, 1);
+					}
+				};
+			}
+		},
+
+		SYNCHRONIZED {
+			@Override
+			Target create(final int numBuckets, final Object[] keys) {
+				return referenceMap(Reference2IntMaps.synchronize(new Reference2IntOpenHashMap<>(keys.length)), keys);
+			}
+		},
+
+		UNSYNCHRONIZED {
+			@Override
+			Target create(final int numBuckets, final Object[] keys) {
+				return referenceMap(new Reference2IntOpenHashMap<>(keys.length), keys);
+			}
+		};
+
+
+		abstract Target create(final int numBuckets, final Object[] keys);
+
+
+		private static Target referenceMap(final Reference2IntMap<Object> map, final Object[] keys) {
+
+			for (final Object key : keys) {
+				map.put(key, 1);
+			}
+
+			return new Target() {
+
+				@Override
+				public long read(final Object key) {
+					return map.getInt(key);
+				}
+
+				@Override
+				public void write(final Object key) {
+					map.put(key, 1);
+				}
+			};
+		}
+
+		private static Target set(final Set<Object> set, final Object[] keys) {
+
+			for (final Object key : keys) {
+				set.add(key);
+			}
+
+			return new Target() {
+
+				@Override
+				public long read(final Object key) {
+					return set.contains(key) ? 1 : 0;
+				}
+
+				@Override
+				public void write(final Object key) {
+					set.remove(key);
+					set.add(key);
+				}
+			};
+		}
+
+	}
+
+}
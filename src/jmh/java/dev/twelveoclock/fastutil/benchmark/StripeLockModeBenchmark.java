@@ -0,0 +1,86 @@
+package dev.twelveoclock.fastutil.benchmark;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.impl.ConcurrentLong2ObjectOpenHashMap;
+import dev.twelveoclock.fastutil.set.impl.ConcurrentLongOpenHashSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * Point lookups against both stripe lock modes, run once per thread count (1 to 64), e.g.
+ * {@code gradle jmh -PjmhArgs="StripeLockModeBenchmark -t 64"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StripeLockModeBenchmark {
+
+	@Param({"REENTRANT", "OPTIMISTIC"})
+	public StripeLockMode lockMode;
+
+	@Param({"0", "10"})
+	public int writePercent;
+
+	@Param({"16"})
+	public int numBuckets;
+
+	@Param({"1000000"})
+	public int size;
+
+	private ConcurrentLong2ObjectOpenHashMap<Object> map;
+
+	private ConcurrentLongOpenHashSet set;
+
+
+	@Setup
+	public void setup() {
+
+		map = new ConcurrentLong2ObjectOpenHashMap<>(numBuckets, null, size, DEFAULT_LOAD_FACTOR, lockMode);
+		set = new ConcurrentLongOpenHashSet(numBuckets, size, DEFAULT_LOAD_FACTOR, lockMode);
+
+		for (long i = 0; i < size; i++) {
+			map.put(i, Long.valueOf(i));
+			set.add(i);
+		}
+	}
+
+
+	@Benchmark
+	public Object mapGet(final ThreadState state) {
+
+		final long key = state.random.nextLong(size);
+
+		if (state.random.nextInt(100) < writePercent) {
+			return map.put(key, state);
+		}
+
+		return map.get(key);
+	}
+
+	@Benchmark
+	public boolean setContains(final ThreadState state) {
+
+		final long key = state.random.nextLong(size);
+
+		if (state.random.nextInt(100) < writePercent) {
+			return set.add(key);
+		}
+
+		return set.contains(key);
+	}
+
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		private final SplittableRandom random = new SplittableRandom();
+	}
+
+}
@@ -0,0 +1,48 @@
+package dev.twelveoclock.fastutil.benchmark;
+
+import java.util.SplittableRandom;
+
+
+/**
+ * One thread's pre-drawn keys and read/write choices, replayed in a loop.
+ */
+final class Workload {
+
+	private final int[] keys;
+
+	private final boolean[] writes;
+
+	private int cursor;
+
+
+	Workload(final KeyDistribution distribution, final int size, final int writePercent, final int threadIndex) {
+
+		this.keys = distribution.keys(size, 42, threadIndex);
+		this.writes = new boolean[keys.length];
+
+		final SplittableRandom random = new SplittableRandom(~threadIndex);
+
+		for (int i = 0; i < writes.length; i++) {
+			writes[i] = random.nextInt(100) < writePercent;
+		}
+	}
+
+
+	/**
+	 * Moves on to the next operation.
+	 *
+	 * @return Its key.
+	 */
+	int nextKey() {
+		cursor = (cursor + 1) & (keys.length - 1);
+		return keys[cursor];
+	}
+
+	/**
+	 * Whether the operation of the last {@link #nextKey()} is a write.
+	 */
+	boolean isWrite() {
+		return writes[cursor];
+	}
+
+}
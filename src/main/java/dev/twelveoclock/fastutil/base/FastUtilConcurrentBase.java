@@ -0,0 +1,1423 @@
+package dev.twelveoclock.fastutil.base;
+
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+
+/**
+ * Hash striping shared by the maps and sets, each stripe is a fastutil bucket guarded by its own lock.
+ * <p>
+ * Stripes are found through a directory indexed by the low bits of the spread hash, like extendible hashing.
+ * A stripe that gets too contended splits in two on the next hash bit while holding only its own write lock,
+ * it then forwards to its halves until the directory has been rebuilt to point at them directly.
+ *
+ * @param <B> The backing fastutil structure of a stripe.
+ */
+public abstract class FastUtilConcurrentBase<B> {
+
+
+	protected static final int DEFAULT_NUM_BUCKETS = Runtime.getRuntime().availableProcessors() - 1;
+
+	private static final int MAX_DEPTH = 30;
+
+	// Writes to a stripe between two looks at its contention
+	private static final int CONTENTION_WINDOW = 1 << 10;
+
+	// Split when more than 1/8th of the acquisitions in a window had to wait
+	private static final int CONTENTION_SPLIT_SHIFT = 3;
+
+	// Batches at least this large spread their stripes over the common pool
+	private static final int PARALLEL_BATCH_SIZE = 1 << 14;
+
+	/**
+	 * Per stripe lock and growth metrics, off unless the JVM runs with {@code -Ddev.twelveoclock.fastutil.metrics=true}.
+	 * Static final so the checks on the lock paths fold away while it's off.
+	 */
+	static final boolean METRICS = Boolean.getBoolean("dev.twelveoclock.fastutil.metrics");
+
+	private static final String MXBEAN_DOMAIN = "dev.twelveoclock.fastutil";
+
+	private static final VarHandle CONTENDED;
+
+	static {
+		try {
+			CONTENDED = MethodHandles.lookup().findVarHandle(StripeCounters.class, "contended", long.class);
+		} catch (final ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+
+	@Getter
+	protected final StripeLockMode lockMode;
+
+	/**
+	 * Upper bound for contention driven splitting, splitting is off while it isn't above {@link #getNumBuckets()}.
+	 */
+	@Getter
+	@Setter
+	private volatile int maxNumBuckets;
+
+	/**
+	 * How many elements iterators copy out of a stripe per read lock hold, by default a whole stripe at once.
+	 * Lower it to keep writers from waiting behind a scan of a large stripe.
+	 */
+	@Getter
+	@Setter
+	private volatile int iteratorChunkSize = Integer.MAX_VALUE;
+
+	private final AtomicInteger numBuckets;
+
+	private final ReentrantLock directoryLock = new ReentrantLock();
+
+	private volatile Stripe<B>[] directory;
+
+	// Counters of stripes that have been split, so totals survive splits, a split itself counts as a rehash
+	private final LongAdder retiredAcquisitions = new LongAdder();
+
+	private final LongAdder retiredContended = new LongAdder();
+
+	private final LongAdder retiredRehashes = new LongAdder();
+
+	private ObjectName mxBeanName;
+
+
+	protected FastUtilConcurrentBase(final int numBuckets, final StripeLockMode lockMode) {
+
+		final int length = (int) HashCommon.nextPowerOfTwo(Math.min(Math.max(numBuckets, 1), 1 << MAX_DEPTH));
+
+		this.lockMode = lockMode;
+		this.maxNumBuckets = length;
+		this.numBuckets = new AtomicInteger(length);
+
+		//noinspection unchecked
+		this.directory = new Stripe[length];
+	}
+
+
+	protected abstract B newBucket(final int capacity);
+
+	protected abstract int bucketSize(final B bucket);
+
+	/**
+	 * Moves every element of {@code source} into {@code lower} or {@code upper}, as told by {@link #isUpperHalf(int, int)}.
+	 */
+	protected abstract void splitBucket(final B source, final B lower, final B upper, final int splitBit);
+
+	/**
+	 * The load factor buckets are created with, for {@link #getDistribution()}.
+	 */
+	protected float bucketLoadFactor() {
+		return Hash.DEFAULT_LOAD_FACTOR;
+	}
+
+	/**
+	 * Whether the bucket may be split, called under its write lock, structures whose buckets can be closed say no once they are.
+	 */
+	protected boolean isSplittable(final B bucket) {
+		return true;
+	}
+
+	/**
+	 * The real slot count of the bucket's table, or -1 for fastutil tables that don't expose it, called under its lock.
+	 */
+	protected long bucketTableLength(final B bucket) {
+		return -1;
+	}
+
+	/**
+	 * The slots of the bucket's table, for {@link #getDistribution()}, called under its read lock.
+	 * Unless {@link #bucketTableLength(Object)} knows it, what a fastutil table created for the larger of its initial capacity
+	 * and its size would have, removals may have left a real one up to four times larger.
+	 */
+	protected long bucketCapacity(final B bucket, final int initialCapacity) {
+
+		final long length = bucketTableLength(bucket);
+
+		return length >= 0 ? length : HashCommon.arraySize(Math.max(Math.max(initialCapacity, bucketSize(bucket)), 1), bucketLoadFactor());
+	}
+
+
+	/**
+	 * Creates the initial stripes, called at the end of the implementation's constructor once {@link #newBucket(int)} can run.
+	 */
+	protected final void initBuckets(final int loadCapacity) {
+
+		final Stripe<B>[] directory = this.directory;
+		final int depth = Integer.numberOfTrailingZeros(directory.length);
+		final int bucketLoadCapacity = (int) Math.ceil(((double) loadCapacity) / directory.length);
+
+		for (int i = 0; i < directory.length; i++) {
+			directory[i] = new Stripe<>(newBucket(bucketLoadCapacity), bucketLoadCapacity, i, depth, lockMode, bucketLoadFactor());
+		}
+
+		this.directory = directory;
+	}
+
+	/**
+	 * The bucket of an initial stripe by directory index, for constructors finishing their setup after {@link #initBuckets(int)}.
+	 */
+	protected final B initialBucket(final int index) {
+		return directory[index].bucket;
+	}
+
+	/**
+	 * The number of stripes, rounded up to a power of two at construction and grown by splits afterwards.
+	 */
+	public int getNumBuckets() {
+		return numBuckets.get();
+	}
+
+	public int size() {
+
+		final Stripe<B>[] directory = this.directory;
+
+		long size = 0;
+
+		for (int i = 0; i < directory.length; i++) {
+			if (isCanonical(directory[i], i)) {
+				size += directory[i].deepSize();
+			}
+		}
+
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	public boolean isEmpty() {
+
+		final Stripe<B>[] directory = this.directory;
+
+		for (int i = 0; i < directory.length; i++) {
+			if (isCanonical(directory[i], i) && directory[i].deepSize() != 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * An estimate that only reads a few stripes, for metrics that poll often.
+	 * Each sampled stripe is scaled up by the share of the hash space it covers.
+	 */
+	public int approximateSize() {
+
+		final Stripe<B>[] directory = this.directory;
+		final int samples = Math.min(directory.length, 4);
+
+		long size = 0;
+
+		for (int i = 0; i < samples; i++) {
+			size += directory[i].deepSize() << directory[i].depth;
+		}
+
+		return (int) Math.min(size / samples, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Splits every stripe once, doubling the stripe count without blocking more than one stripe at a time.
+	 */
+	public void splitBuckets() {
+
+		final Stripe<B>[] directory = this.directory;
+
+		for (int i = 0; i < directory.length; i++) {
+			if (isCanonical(directory[i], i)) {
+				splitLeaves(directory[i]);
+			}
+		}
+
+		rebuildDirectory();
+	}
+
+	/**
+	 * Whether stripes record lock acquisitions, wait and hold times and rehashes, see {@link #METRICS}.
+	 */
+	public static boolean isInstrumented() {
+		return METRICS;
+	}
+
+	/**
+	 * A snapshot of every stripe in directory order, only sizes and contended acquisitions are filled in unless instrumented.
+	 */
+	public List<StripeStats> getStripeStats() {
+
+		final Stripe<B>[] directory = this.directory;
+		final List<StripeStats> stats = new ArrayList<>(directory.length);
+
+		for (int i = 0; i < directory.length; i++) {
+			if (isCanonical(directory[i], i)) {
+				collectStats(directory[i], stats);
+			}
+		}
+
+		return stats;
+	}
+
+	/**
+	 * Entry counts, table capacities and load of every stripe in directory order, with a stripe count and capacity advice.
+	 * Each stripe is read under its read lock, one at a time, so the counts are not a single point in time.
+	 */
+	public StripeDistribution getDistribution() {
+
+		final Stripe<B>[] directory = this.directory;
+		final IntArrayList depths = new IntArrayList(directory.length);
+		final LongArrayList sizes = new LongArrayList(directory.length);
+		final LongArrayList capacities = new LongArrayList(directory.length);
+
+		for (int i = 0; i < directory.length; i++) {
+			if (isCanonical(directory[i], i)) {
+				collectDistribution(directory[i], depths, sizes, capacities);
+			}
+		}
+
+		return new StripeDistribution(depths.toIntArray(), sizes.toLongArray(), capacities.toLongArray(), bucketLoadFactor());
+	}
+
+	/**
+	 * Registers a {@link StripeMetricsMXBean} for this structure with the platform MBean server,
+	 * as {@code dev.twelveoclock.fastutil:type=<class name>,name=<name>}.
+	 */
+	public synchronized ObjectName registerMXBean(final String name) throws JMException {
+
+		if (mxBeanName != null) {
+			throw new IllegalStateException("Already registered as " + mxBeanName);
+		}
+
+		final ObjectName objectName = new ObjectName(MXBEAN_DOMAIN + ":type=" + getClass().getSimpleName() + ",name=" + ObjectName.quote(name));
+
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsView(), objectName);
+		mxBeanName = objectName;
+
+		return objectName;
+	}
+
+	/**
+	 * Undoes {@link #registerMXBean(String)}, does nothing if it isn't registered.
+	 */
+	public synchronized void unregisterMXBean() throws JMException {
+
+		if (mxBeanName == null) {
+			return;
+		}
+
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(mxBeanName);
+		mxBeanName = null;
+	}
+
+
+	/**
+	 * The live stripe for a hash, without locking, for optimistic reads.
+	 */
+	protected final Stripe<B> stripeFor(final int hashCode) {
+		return leaf(spread(hashCode));
+	}
+
+	protected final Stripe<B> lockRead(final int hashCode) {
+
+		final int hash = spread(hashCode);
+		final Stripe<B>[] directory = this.directory;
+
+		Stripe<B> stripe = directory[hash & (directory.length - 1)];
+
+		while (true) {
+
+			while (stripe.isForwarded()) {
+				stripe = stripe.child(hash);
+			}
+
+			lockRead(stripe);
+
+			// Split while we were waiting
+			if (!stripe.isForwarded()) {
+				return stripe;
+			}
+
+			releaseRead(stripe);
+		}
+	}
+
+	protected final void unlockRead(final Stripe<B> stripe) {
+		releaseRead(stripe);
+	}
+
+	protected final Stripe<B> lockWrite(final int hashCode) {
+
+		final int hash = spread(hashCode);
+		final Stripe<B>[] directory = this.directory;
+
+		Stripe<B> stripe = directory[hash & (directory.length - 1)];
+
+		while (true) {
+
+			while (stripe.isForwarded()) {
+				stripe = stripe.child(hash);
+			}
+
+			lockWrite(stripe);
+
+			if (!stripe.isForwarded()) {
+				return stripe;
+			}
+
+			releaseWrite(stripe);
+		}
+	}
+
+	/**
+	 * Publishes the stripe's size and releases it, splitting it first if it has been contended for a while.
+	 */
+	protected final void unlockWrite(final Stripe<B> stripe) {
+
+		final int size = bucketSize(stripe.bucket);
+
+		stripe.setSize(size);
+
+		final StripeRehashEvent event = stripe.writeEvent;
+
+		if (stripe.resizes.update(size, bucketTableLength(stripe.bucket)) && event != null) {
+
+			event.end();
+
+			if (event.shouldCommit()) {
+				event.structure = identity();
+				event.stripeIndex = stripe.index;
+				event.stripeDepth = stripe.depth;
+				event.elements = size;
+				event.commit();
+			}
+		}
+
+		final boolean split = shouldSplit(stripe) && reserveSplit();
+
+		try {
+			if (split) {
+				split(stripe);
+			}
+		} finally {
+			releaseWrite(stripe);
+		}
+
+		if (split) {
+			rebuildDirectory();
+		}
+	}
+
+	/**
+	 * Visits every stripe under its read lock until the predicate matches.
+	 */
+	protected final boolean anyBucket(final Predicate<? super B> predicate) {
+
+		final Stripe<B>[] directory = this.directory;
+
+		for (int i = 0; i < directory.length; i++) {
+			if (isCanonical(directory[i], i) && anyBucket(directory[i], predicate)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Visits every stripe under its read lock.
+	 */
+	protected final void forEachBucket(final Consumer<? super B> action) {
+		anyBucket(bucket -> {
+			action.accept(bucket);
+			return false;
+		});
+	}
+
+	/**
+	 * Visits every stripe under its write lock.
+	 *
+	 * @return Whether the action returned true for any stripe.
+	 */
+	protected final boolean updateBuckets(final Predicate<? super B> action) {
+
+		final Stripe<B>[] directory = this.directory;
+
+		boolean changed = false;
+
+		for (int i = 0; i < directory.length; i++) {
+			if (isCanonical(directory[i], i)) {
+				changed |= updateBuckets(directory[i], action);
+			}
+		}
+
+		return changed;
+	}
+
+
+	/**
+	 * Applies a batch stripe by stripe, each stripe's share under a single write lock, so it can be pre-sized once.
+	 * The batch is partitioned by stripe up front, large ones run their stripes in parallel.
+	 *
+	 * @param hashCodes The hash code of each element of the batch, the action gets indexes into it.
+	 * @return Whether the action returned true for any stripe.
+	 */
+	protected final boolean updateBatch(final int[] hashCodes, final BatchAction<? super B> action) {
+
+		final Batch batch = new Batch(hashCodes, directory.length);
+
+		if (hashCodes.length >= PARALLEL_BATCH_SIZE && batch.slots() > 1) {
+			return IntStream.range(0, batch.slots())
+				.parallel()
+				.mapToObj(slot -> updateBatch(batch, slot, action))
+				.reduce(false, Boolean::logicalOr);
+		}
+
+		boolean changed = false;
+
+		for (int slot = 0; slot < batch.slots(); slot++) {
+			changed |= updateBatch(batch, slot, action);
+		}
+
+		return changed;
+	}
+
+	/**
+	 * Tests a batch stripe by stripe, each stripe's share under a single read lock.
+	 *
+	 * @return Whether the predicate held for every stripe's share, stopping at the first that it doesn't.
+	 */
+	protected final boolean testBatch(final int[] hashCodes, final BatchAction<? super B> predicate) {
+
+		final Batch batch = new Batch(hashCodes, directory.length);
+
+		for (int slot = 0; slot < batch.slots(); slot++) {
+
+			int from = batch.starts[slot];
+			final int to = batch.starts[slot + 1];
+
+			while (from < to) {
+
+				final Stripe<B> stripe = lockRead(hashCodes[batch.order[from]]);
+
+				try {
+
+					final int end = batch.claim(stripe, from, to);
+
+					if (!predicate.apply(stripe.bucket, batch.order, from, end)) {
+						return false;
+					}
+
+					from = end;
+				} finally {
+					unlockRead(stripe);
+				}
+			}
+		}
+
+		return true;
+	}
+
+
+	/**
+	 * Murmur3's finalizer, the inner fastutil tables place keys by the low bits of {@link HashCommon#mix(int)},
+	 * so the stripe has to be picked by an unrelated function or every key of a stripe would share its low slot bits.
+	 */
+	protected static int spread(int hashCode) {
+		hashCode ^= hashCode >>> 16;
+		hashCode *= 0x85EBCA6B;
+		hashCode ^= hashCode >>> 13;
+		hashCode *= 0xC2B2AE35;
+		hashCode ^= hashCode >>> 16;
+		return hashCode;
+	}
+
+	protected static boolean isUpperHalf(final int hashCode, final int splitBit) {
+		return (spread(hashCode) & splitBit) != 0;
+	}
+
+
+	private boolean updateBatch(final Batch batch, final int slot, final BatchAction<? super B> action) {
+
+		int from = batch.starts[slot];
+		final int to = batch.starts[slot + 1];
+
+		boolean changed = false;
+
+		// The slot's stripe may have split since the batch was partitioned, then it takes one lock per half
+		while (from < to) {
+
+			final Stripe<B> stripe = lockWrite(batch.hashCodes[batch.order[from]]);
+
+			try {
+
+				final int end = batch.claim(stripe, from, to);
+
+				changed |= action.apply(stripe.bucket, batch.order, from, end);
+				from = end;
+			} finally {
+				unlockWrite(stripe);
+			}
+		}
+
+		return changed;
+	}
+
+	private static void collectStats(final Stripe<?> stripe, final List<StripeStats> stats) {
+
+		if (stripe.isForwarded()) {
+			collectStats(stripe.lower, stats);
+			collectStats(stripe.upper, stats);
+			return;
+		}
+
+		final StripeMetrics metrics = stripe.metrics;
+
+		if (metrics == null) {
+			stats.add(new StripeStats(stripe.depth, stripe.size, 0, stripe.contended, stripe.resizes.rehashes(), new long[0], new long[0]));
+			return;
+		}
+
+		stats.add(new StripeStats(stripe.depth, stripe.size, metrics.acquisitions(), stripe.contended, stripe.resizes.rehashes(), metrics.waitHistogram(), metrics.holdHistogram()));
+	}
+
+	private void collectDistribution(final Stripe<B> stripe, final IntArrayList depths, final LongArrayList sizes, final LongArrayList capacities) {
+
+		lockRead(stripe);
+
+		if (stripe.isForwarded()) {
+			releaseRead(stripe);
+			collectDistribution(stripe.lower, depths, sizes, capacities);
+			collectDistribution(stripe.upper, depths, sizes, capacities);
+			return;
+		}
+
+		try {
+			depths.add(stripe.depth);
+			sizes.add(bucketSize(stripe.bucket));
+			capacities.add(bucketCapacity(stripe.bucket, stripe.capacity));
+		} finally {
+			releaseRead(stripe);
+		}
+	}
+
+	// A stripe shallower than the directory shows up at several indexes, only visit it at the first one
+	private static boolean isCanonical(final Stripe<?> stripe, final int index) {
+		return (index >>> stripe.depth) == 0;
+	}
+
+	private Stripe<B> leaf(final int hash) {
+
+		final Stripe<B>[] directory = this.directory;
+
+		Stripe<B> stripe = directory[hash & (directory.length - 1)];
+
+		while (stripe.isForwarded()) {
+			stripe = stripe.child(hash);
+		}
+
+		return stripe;
+	}
+
+	private void lockRead(final Stripe<?> stripe) {
+		acquire(stripe, stripe.lock.readLock(), false);
+	}
+
+	private void lockWrite(final Stripe<?> stripe) {
+
+		acquire(stripe, stripe.lock.writeLock(), true);
+
+		// Times the write in case it rehashes the table, only allocated while recording
+		final StripeRehashEvent event = new StripeRehashEvent();
+
+		if (event.isEnabled()) {
+			event.begin();
+			stripe.writeEvent = event;
+		}
+	}
+
+	private void acquire(final Stripe<?> stripe, final Lock lock, final boolean write) {
+
+		if (lock.tryLock()) {
+
+			if (METRICS) {
+				stripe.metrics.acquired(0);
+			}
+
+			return;
+		}
+
+		stripe.contended();
+
+		final StripeLockWaitEvent event = new StripeLockWaitEvent();
+		final long start = METRICS ? System.nanoTime() : 0;
+
+		event.begin();
+		lock.lock();
+		event.end();
+
+		if (METRICS) {
+			stripe.metrics.acquired(System.nanoTime() - start);
+		}
+
+		if (event.shouldCommit()) {
+			event.structure = identity();
+			event.stripeIndex = stripe.index;
+			event.stripeDepth = stripe.depth;
+			event.write = write;
+			event.commit();
+		}
+	}
+
+	private static FullIterationEvent beginIteration() {
+
+		final FullIterationEvent event = new FullIterationEvent();
+
+		if (!event.isEnabled()) {
+			return null;
+		}
+
+		event.begin();
+
+		return event;
+	}
+
+	// What the JFR events name the structure by, only built for events that get recorded
+	private String identity() {
+		return getClass().getName() + '@' + Integer.toHexString(System.identityHashCode(this));
+	}
+
+	private static void releaseRead(final Stripe<?> stripe) {
+
+		if (METRICS) {
+			stripe.metrics.release();
+		}
+
+		stripe.lock.readLock().unlock();
+	}
+
+	private static void releaseWrite(final Stripe<?> stripe) {
+
+		stripe.writeEvent = null;
+
+		if (METRICS) {
+			stripe.metrics.release();
+		}
+
+		stripe.lock.writeLock().unlock();
+	}
+
+	private boolean anyBucket(final Stripe<B> stripe, final Predicate<? super B> predicate) {
+
+		lockRead(stripe);
+
+		if (stripe.isForwarded()) {
+			releaseRead(stripe);
+			return anyBucket(stripe.lower, predicate) || anyBucket(stripe.upper, predicate);
+		}
+
+		try {
+			return predicate.test(stripe.bucket);
+		} finally {
+			releaseRead(stripe);
+		}
+	}
+
+	private boolean updateBuckets(final Stripe<B> stripe, final Predicate<? super B> action) {
+
+		lockWrite(stripe);
+
+		if (stripe.isForwarded()) {
+			releaseWrite(stripe);
+			return updateBuckets(stripe.lower, action) | updateBuckets(stripe.upper, action);
+		}
+
+		try {
+			return action.test(stripe.bucket);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	private void splitLeaves(final Stripe<B> stripe) {
+
+		lockWrite(stripe);
+
+		if (stripe.isForwarded()) {
+			releaseWrite(stripe);
+			splitLeaves(stripe.lower);
+			splitLeaves(stripe.upper);
+			return;
+		}
+
+		try {
+			if (stripe.depth < MAX_DEPTH && isSplittable(stripe.bucket)) {
+				numBuckets.incrementAndGet();
+				split(stripe);
+			}
+		} finally {
+			releaseWrite(stripe);
+		}
+	}
+
+	// Called under the stripe's write lock
+	private boolean shouldSplit(final Stripe<B> stripe) {
+
+		if ((++stripe.writes & (CONTENTION_WINDOW - 1)) != 0) {
+			return false;
+		}
+
+		final long contended = stripe.contended;
+		final long windowContended = contended - stripe.lastContended;
+
+		stripe.lastContended = contended;
+
+		return windowContended > (CONTENTION_WINDOW >> CONTENTION_SPLIT_SHIFT)
+			&& stripe.depth < maxDepth()
+			&& isSplittable(stripe.bucket);
+	}
+
+	private boolean reserveSplit() {
+
+		final int max = maxNumBuckets;
+
+		while (true) {
+
+			final int current = numBuckets.get();
+
+			if (current >= max) {
+				return false;
+			}
+
+			if (numBuckets.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	// Contention never grows the directory past the stripe limit, so one hot key can't drive it to 2^30 entries
+	private int maxDepth() {
+		return Math.min(MAX_DEPTH, 32 - Integer.numberOfLeadingZeros(Math.max(maxNumBuckets, 1) - 1));
+	}
+
+	// Called under the stripe's write lock
+	private void split(final Stripe<B> stripe) {
+
+		final StripeRehashEvent event = new StripeRehashEvent();
+
+		event.begin();
+
+		final int splitBit = 1 << stripe.depth;
+		final int elements = bucketSize(stripe.bucket);
+		final int capacity = Math.max(elements / 2, 1);
+
+		final Stripe<B> lower = new Stripe<>(newBucket(capacity), capacity, stripe.index, stripe.depth + 1, lockMode, bucketLoadFactor());
+		final Stripe<B> upper = new Stripe<>(newBucket(capacity), capacity, stripe.index | splitBit, stripe.depth + 1, lockMode, bucketLoadFactor());
+
+		splitBucket(stripe.bucket, lower.bucket, upper.bucket, splitBit);
+
+		event.end();
+
+		if (event.shouldCommit()) {
+			event.structure = identity();
+			event.stripeIndex = stripe.index;
+			event.stripeDepth = stripe.depth;
+			event.elements = elements;
+			event.split = true;
+			event.commit();
+		}
+
+		retiredContended.add(stripe.contended);
+		retiredRehashes.add(stripe.resizes.rehashes() + 1);
+
+		if (METRICS) {
+			retiredAcquisitions.add(stripe.metrics.acquisitions());
+		}
+
+		lower.setSize(bucketSize(lower.bucket));
+		upper.setSize(bucketSize(upper.bucket));
+
+		stripe.forward(lower, upper);
+	}
+
+	// Points the directory straight at the halves of split stripes, growing it when a stripe got deeper than it
+	private void rebuildDirectory() {
+
+		directoryLock.lock();
+		try {
+
+			final Stripe<B>[] old = this.directory;
+			final int oldMask = old.length - 1;
+
+			int depth = Integer.numberOfTrailingZeros(old.length);
+
+			for (int i = 0; i < old.length; i++) {
+				if (isCanonical(old[i], i)) {
+					depth = Math.max(depth, old[i].leafDepth());
+				}
+			}
+
+
+			//noinspection unchecked
+			final Stripe<B>[] directory = new Stripe[Math.max(1 << depth, old.length)];
+
+			for (int i = 0; i < directory.length; i++) {
+
+				Stripe<B> stripe = old[i & oldMask];
+
+				while (stripe.isForwarded() && stripe.depth < depth) {
+					stripe = stripe.child(i);
+				}
+
+				directory[i] = stripe;
+			}
+
+			this.directory = directory;
+		}
+		finally {
+			directoryLock.unlock();
+		}
+	}
+
+
+	/**
+	 * Weakly consistent iteration, stripe by stripe, copying at most {@link #getIteratorChunkSize()} elements per read lock hold
+	 * into a buffer owned by the implementation, which is reused from one stripe to the next.
+	 * <p>
+	 * Every element present for the whole iteration is returned exactly once, like {@link java.util.concurrent.ConcurrentHashMap}'s iterators.
+	 * When a stripe is written to between two of its chunks, the rest of it is read in one go, skipping what was already returned.
+	 * <p>
+	 * Spliterators split the directory range they cover in halves, then the buffered part of their last stripe.
+	 *
+	 * @param <S> The implementation's cursor over a bucket.
+	 */
+	protected abstract class StripeIterator<S> {
+
+		private final ArrayDeque<Stripe<B>> pending = new ArrayDeque<>();
+
+		private final int chunkSize = Math.max(iteratorChunkSize, 1);
+
+		private Stripe<B>[] directory = FastUtilConcurrentBase.this.directory;
+
+		private int index;
+
+		private int fence = directory.length;
+
+		private long estimate = size();
+
+		private Stripe<B> stripe;
+
+		private S source;
+
+		private long writes;
+
+		// Only set while JFR records full iterations, dropped once the iterator is split
+		private FullIterationEvent iteration = beginIteration();
+
+		private int stripesRead;
+
+		/**
+		 * The buffered elements of the current stripe, the ones before position have been returned.
+		 */
+		protected int size, position;
+
+
+		/**
+		 * Starts reading a bucket, under its read lock.
+		 */
+		protected abstract S open(final B bucket);
+
+		/**
+		 * Buffers up to max elements from the source starting at offset, under the bucket's read lock.
+		 *
+		 * @return How many were buffered, less than max once the source is exhausted.
+		 */
+		protected abstract int read(final B bucket, final S source, final int offset, final int max);
+
+		/**
+		 * Buffers the bucket's elements that aren't among the first {@code returned} buffered ones, starting at offset.
+		 *
+		 * @return The new buffer size.
+		 */
+		protected abstract int readMissing(final B bucket, final int offset, final int returned);
+
+
+		/**
+		 * Copies the buffered elements from {@code from} to {@code to} to the start of the prefix's buffer.
+		 */
+		protected abstract void copyTo(final StripeIterator<S> prefix, final int from, final int to);
+
+
+		/**
+		 * Hands the first half of what is left to a new iterator from the factory, for {@link java.util.Spliterator#trySplit()}.
+		 *
+		 * @return The prefix, or null if there's too little left to split.
+		 */
+		protected final <I extends StripeIterator<S>> I trySplit(final Supplier<I> factory) {
+
+			iteration = null;
+
+			if (position == size && stripe == null && pending.isEmpty() && fence - index > 1) {
+
+				final I prefix = factory.get();
+				final StripeIterator<S> split = prefix;
+				final int mid = (index + fence) >>> 1;
+
+				split.iteration = null;
+				split.directory = directory;
+				split.index = index;
+				split.fence = mid;
+				split.estimate = estimate >>> 1;
+
+				index = mid;
+				estimate -= split.estimate;
+
+				return prefix;
+			}
+
+			if (position == size && !fill()) {
+				return null;
+			}
+
+			if (size - position < 2) {
+				return null;
+			}
+
+			final I prefix = factory.get();
+			final StripeIterator<S> split = prefix;
+			final int mid = (position + size) >>> 1;
+
+			split.iteration = null;
+
+			// Only walks its buffer, which counts as returned here so a re-read of the stripe won't repeat it
+			copyTo(split, position, mid);
+
+			split.fence = 0;
+			split.size = mid - position;
+			split.estimate = split.size;
+
+			position = mid;
+			estimate = Math.max(estimate - split.size, size - position);
+
+			return prefix;
+		}
+
+		/**
+		 * What {@link java.util.Spliterator#estimateSize()} reports, the map's size shared out among the splits.
+		 */
+		public long estimateSize() {
+			return estimate;
+		}
+
+		/**
+		 * Buffers the next chunk once the buffer has been drained.
+		 *
+		 * @return Whether there are buffered elements left.
+		 */
+		protected final boolean fill() {
+
+			while (position == size) {
+
+				if (stripe == null) {
+
+					stripe = nextStripe();
+
+					if (stripe == null) {
+						commitIteration();
+						return false;
+					}
+
+					stripesRead++;
+
+					source = null;
+					size = 0;
+					position = 0;
+				}
+
+				final Stripe<B> stripe = this.stripe;
+
+				lockRead(stripe);
+
+				if (stripe.isForwarded()) {
+
+					releaseRead(stripe);
+
+					if (source == null) {
+						pending.push(stripe.upper);
+						pending.push(stripe.lower);
+					}
+					else {
+						readMissing(stripe, size);
+					}
+
+					this.stripe = null;
+					continue;
+				}
+
+				try {
+
+					if (source == null) {
+						source = open(stripe.bucket);
+						writes = stripe.writes;
+					}
+					// The source can't be trusted after a write, finish the stripe from a fresh look
+					else if (writes != stripe.writes) {
+						size = readMissing(stripe.bucket, size, size);
+						this.stripe = null;
+						continue;
+					}
+
+					final int read = read(stripe.bucket, source, size, chunkSize);
+
+					size += read;
+
+					if (read < chunkSize) {
+						this.stripe = null;
+					}
+				} finally {
+					releaseRead(stripe);
+				}
+			}
+
+			return true;
+		}
+
+
+		private void commitIteration() {
+
+			final FullIterationEvent iteration = this.iteration;
+
+			if (iteration == null) {
+				return;
+			}
+
+			this.iteration = null;
+			iteration.end();
+
+			if (iteration.shouldCommit()) {
+				iteration.structure = identity();
+				iteration.stripes = stripesRead;
+				iteration.commit();
+			}
+		}
+
+		private Stripe<B> nextStripe() {
+
+			if (!pending.isEmpty()) {
+				return pending.pop();
+			}
+
+			while (index < fence) {
+
+				final int i = index++;
+
+				if (isCanonical(directory[i], i)) {
+					return directory[i];
+				}
+			}
+
+			return null;
+		}
+
+		private void readMissing(final Stripe<B> stripe, final int returned) {
+
+			lockRead(stripe);
+
+			if (stripe.isForwarded()) {
+				releaseRead(stripe);
+				readMissing(stripe.lower, returned);
+				readMissing(stripe.upper, returned);
+				return;
+			}
+
+			try {
+				size = readMissing(stripe.bucket, size, returned);
+			} finally {
+				releaseRead(stripe);
+			}
+		}
+
+	}
+
+
+	private final class MetricsView implements StripeMetricsMXBean {
+
+		@Override
+		public boolean isInstrumented() {
+			return METRICS;
+		}
+
+		@Override
+		public int getNumBuckets() {
+			return FastUtilConcurrentBase.this.getNumBuckets();
+		}
+
+		@Override
+		public long getSize() {
+			return size();
+		}
+
+		@Override
+		public long getAcquisitions() {
+			return retiredAcquisitions.sum() + getStripeStats().stream().mapToLong(StripeStats::getAcquisitions).sum();
+		}
+
+		@Override
+		public long getContendedAcquisitions() {
+			return retiredContended.sum() + getStripeStats().stream().mapToLong(StripeStats::getContendedAcquisitions).sum();
+		}
+
+		@Override
+		public long getRehashes() {
+			return retiredRehashes.sum() + getStripeStats().stream().mapToLong(StripeStats::getRehashes).sum();
+		}
+
+		@Override
+		public StripeStats[] getStripes() {
+			return getStripeStats().toArray(StripeStats[]::new);
+		}
+
+		@Override
+		public StripeDistribution getDistribution() {
+			return FastUtilConcurrentBase.this.getDistribution();
+		}
+
+	}
+
+	/**
+	 * Works on one stripe's share of a batch, under its lock.
+	 */
+	@FunctionalInterface
+	protected interface BatchAction<B> {
+
+		/**
+		 * @param indexes The batch indexes of the share are {@code indexes[from]} to {@code indexes[to - 1]}.
+		 */
+		boolean apply(final B bucket, final int[] indexes, final int from, final int to);
+
+	}
+
+	// A batch's indexes grouped by directory slot, a counting sort on the spread hashes
+	private final class Batch {
+
+		private final int[] hashCodes;
+
+		private final int[] spread;
+
+		private final int[] order;
+
+		private final int[] starts;
+
+
+		private Batch(final int[] hashCodes, final int slots) {
+
+			this.hashCodes = hashCodes;
+			this.spread = new int[hashCodes.length];
+			this.order = new int[hashCodes.length];
+			this.starts = new int[slots + 1];
+
+			final int mask = slots - 1;
+
+			for (int i = 0; i < hashCodes.length; i++) {
+				spread[i] = spread(hashCodes[i]);
+				starts[(spread[i] & mask) + 1]++;
+			}
+
+			for (int slot = 0; slot < slots; slot++) {
+				starts[slot + 1] += starts[slot];
+			}
+
+			final int[] next = starts.clone();
+
+			for (int i = 0; i < hashCodes.length; i++) {
+				order[next[spread[i] & mask]++] = i;
+			}
+		}
+
+
+		private int slots() {
+			return starts.length - 1;
+		}
+
+		// Moves the indexes the locked stripe owns to the front of [from, to), keeping their order so later duplicates still win
+		private int claim(final Stripe<B> stripe, final int from, final int to) {
+
+			int end = from;
+			int[] rest = null;
+			int restSize = 0;
+
+			for (int i = from; i < to; i++) {
+
+				final int index = order[i];
+
+				if (leaf(spread[index]) == stripe) {
+					order[end++] = index;
+				}
+				else {
+
+					if (rest == null) {
+						rest = new int[to - i];
+					}
+
+					rest[restSize++] = index;
+				}
+			}
+
+			if (rest != null) {
+				System.arraycopy(rest, 0, order, end, restSize);
+			}
+
+			return end;
+		}
+
+	}
+
+
+	@SuppressWarnings("unused")
+	abstract static class StripeHeadPadding {
+		long p00, p01, p02, p03, p04, p05, p06, p07;
+		long p08, p09, p0a, p0b, p0c, p0d, p0e, p0f;
+	}
+
+	// The fields written on every operation, kept away from the neighbouring stripes' counters
+	abstract static class StripeCounters extends StripeHeadPadding {
+
+		volatile long size;
+
+		volatile long contended;
+
+		// Only touched under the write lock, also tells iterators whether a stripe changed between two reads
+		long writes;
+
+		long lastContended;
+
+		// Begun when the write lock was taken, while the rehash event is recorded
+		StripeRehashEvent writeEvent;
+
+	}
+
+	@SuppressWarnings("unused")
+	abstract static class StripeTailPadding extends StripeCounters {
+		long p10, p11, p12, p13, p14, p15, p16, p17;
+		long p18, p19, p1a, p1b, p1c, p1d, p1e, p1f;
+	}
+
+	protected static final class Stripe<B> extends StripeTailPadding {
+
+		public final B bucket;
+
+		// Covers the hashes whose low depth bits match index
+		final int index;
+
+		final int depth;
+
+		// What the bucket was created for
+		final int capacity;
+
+		final ReadWriteLock lock;
+
+		// Only set in OPTIMISTIC mode, lock is then a view of it
+		private final StampedLock stampedLock;
+
+		// Written under the write lock
+		final TableResizes resizes;
+
+		// Only set while instrumentation is on
+		final StripeMetrics metrics;
+
+		private volatile Stripe<B> lower;
+
+		// Written after lower, a non null upper means the stripe has been split
+		private volatile Stripe<B> upper;
+
+
+		private Stripe(final B bucket, final int capacity, final int index, final int depth, final StripeLockMode lockMode, final float loadFactor) {
+
+			this.bucket = bucket;
+			this.index = index;
+			this.depth = depth;
+			this.capacity = capacity;
+			this.resizes = new TableResizes(capacity, loadFactor);
+			this.metrics = METRICS ? new StripeMetrics() : null;
+
+			if (lockMode == StripeLockMode.OPTIMISTIC) {
+				this.stampedLock = new StampedLock();
+				this.lock = stampedLock.asReadWriteLock();
+			}
+			else {
+				this.stampedLock = null;
+				this.lock = new ReentrantReadWriteLock();
+			}
+		}
+
+
+		/**
+		 * @return A stamp to validate after an unlocked read of {@link #bucket}, or 0 if the read has to be done under the read lock.
+		 */
+		public long tryOptimisticRead() {
+
+			if (stampedLock == null) {
+				return 0L;
+			}
+
+			final long stamp = stampedLock.tryOptimisticRead();
+
+			return isForwarded() ? 0L : stamp;
+		}
+
+		public boolean validate(final long stamp) {
+			return stampedLock.validate(stamp);
+		}
+
+
+		private boolean isForwarded() {
+			return upper != null;
+		}
+
+		private Stripe<B> child(final int hash) {
+			return (hash & (1 << depth)) == 0 ? lower : upper;
+		}
+
+		private void forward(final Stripe<B> lower, final Stripe<B> upper) {
+			this.lower = lower;
+			this.upper = upper;
+		}
+
+		private void setSize(final long size) {
+			this.size = size;
+		}
+
+		private void contended() {
+			CONTENDED.getAndAdd(this, 1L);
+		}
+
+		private long deepSize() {
+			return isForwarded() ? lower.deepSize() + upper.deepSize() : size;
+		}
+
+		private int leafDepth() {
+			return isForwarded() ? Math.max(lower.leafDepth(), upper.leafDepth()) : depth;
+		}
+
+	}
+
+}
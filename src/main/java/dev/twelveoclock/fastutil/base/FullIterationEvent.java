@@ -0,0 +1,27 @@
+package dev.twelveoclock.fastutil.base;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+
+/**
+ * An iterator that walked every stripe, from its first read to running out. Abandoned and split iterators aren't recorded.
+ */
+@Name("dev.twelveoclock.fastutil.FullIteration")
+@Label("Full Iteration")
+@Category({"FastUtil Concurrent", "Iteration"})
+@Description("An iteration over every stripe, taking each stripe's read lock in turn")
+@Threshold("10 ms")
+final class FullIterationEvent extends Event {
+
+	@Label("Structure")
+	String structure;
+
+	@Label("Stripes")
+	int stripes;
+
+}
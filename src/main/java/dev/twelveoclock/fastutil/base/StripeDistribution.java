@@ -0,0 +1,152 @@
+package dev.twelveoclock.fastutil.base;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import lombok.Getter;
+
+
+/**
+ * How a structure's entries are spread over its stripes, see {@link FastUtilConcurrentBase#getDistribution()}.
+ * <p>
+ * A stripe of depth d covers 2^-d of the hash space, its load is its size over that fair share of the total, so 1 is even.
+ * Stripes are picked by a mix of the full hash code, so high loads mean many keys share hash codes,
+ * which more stripes can't spread out, the key's {@code hashCode} needs fixing instead.
+ */
+@Getter
+public final class StripeDistribution {
+
+	// Fewer entries than this per stripe buys no concurrency worth the extra tables
+	private static final int MIN_STRIPE_ENTRIES = 256;
+
+	// Lock striping rule of thumb, enough stripes that threads rarely meet on one
+	private static final int STRIPES_PER_PROCESSOR = 4;
+
+
+	// The per stripe arrays have getters handing out copies, so the distribution stays as it was read
+
+	private final int[] depths;
+
+	private final long[] sizes;
+
+	private final long[] capacities;
+
+	private final double[] loadFactors;
+
+	private final double[] loads;
+
+	/**
+	 * The load factor the backing tables were created with.
+	 */
+	private final float configuredLoadFactor;
+
+	private final long size;
+
+	/**
+	 * The share weighted coefficient of variation of the loads, 0 when perfectly even.
+	 * Random hashes give about {@code sqrt(stripes / size)}.
+	 */
+	private final double skew;
+
+	/**
+	 * The highest load, how many times its fair share the fullest stripe holds.
+	 */
+	private final double peakLoad;
+
+	/**
+	 * A stripe count for the observed size, enough for the machine's processors without starving stripes of entries.
+	 */
+	private final int recommendedNumBuckets;
+
+	/**
+	 * A load capacity that sizes every stripe for the fullest one's density, so none of them would rehash while refilling.
+	 */
+	private final int recommendedLoadCapacity;
+
+
+	StripeDistribution(final int[] depths, final long[] sizes, final long[] capacities, final float configuredLoadFactor) {
+
+		this.depths = depths;
+		this.sizes = sizes;
+		this.capacities = capacities;
+		this.configuredLoadFactor = configuredLoadFactor;
+		this.loadFactors = new double[sizes.length];
+		this.loads = new double[sizes.length];
+
+		long size = 0;
+		long peakDensity = 0;
+
+		for (int i = 0; i < sizes.length; i++) {
+			size += sizes[i];
+			peakDensity = Math.max(peakDensity, sizes[i] << depths[i]);
+		}
+
+		double variance = 0;
+		double peakLoad = 0;
+
+		for (int i = 0; i < sizes.length; i++) {
+
+			loadFactors[i] = capacities[i] == 0 ? 0 : (double) sizes[i] / capacities[i];
+
+			if (size == 0) {
+				continue;
+			}
+
+			final double share = Math.scalb(1.0, -depths[i]);
+			final double load = sizes[i] / (size * share);
+
+			loads[i] = load;
+			variance += share * (load - 1) * (load - 1);
+			peakLoad = Math.max(peakLoad, load);
+		}
+
+		this.size = size;
+		this.skew = Math.sqrt(variance);
+		this.peakLoad = peakLoad;
+		this.recommendedLoadCapacity = (int) Math.min(peakDensity, Integer.MAX_VALUE);
+
+		final long wanted = (long) STRIPES_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+		final long supported = Math.max(size / MIN_STRIPE_ENTRIES, 1);
+
+		this.recommendedNumBuckets = (int) Math.min(HashCommon.nextPowerOfTwo(Math.min(wanted, supported)), 1 << 30);
+	}
+
+
+	public int getNumStripes() {
+		return sizes.length;
+	}
+
+	/**
+	 * Per stripe in directory order, how many hash bits it covers.
+	 */
+	public int[] getDepths() {
+		return depths.clone();
+	}
+
+	/**
+	 * Per stripe, the entries it holds.
+	 */
+	public long[] getSizes() {
+		return sizes.clone();
+	}
+
+	/**
+	 * Per stripe, the slots of its backing table, estimated for fastutil tables that don't expose it.
+	 */
+	public long[] getCapacities() {
+		return capacities.clone();
+	}
+
+	/**
+	 * Per stripe, its size over its capacity.
+	 */
+	public double[] getLoadFactors() {
+		return loadFactors.clone();
+	}
+
+	/**
+	 * Per stripe, its size over its fair share of the total.
+	 */
+	public double[] getLoads() {
+		return loads.clone();
+	}
+
+}
@@ -0,0 +1,19 @@
+package dev.twelveoclock.fastutil.base;
+
+
+public enum StripeLockMode {
+
+	/**
+	 * One {@link java.util.concurrent.locks.ReentrantReadWriteLock} per stripe, every read takes the shared read lock.
+	 */
+	REENTRANT,
+
+	/**
+	 * One {@link java.util.concurrent.locks.StampedLock} per stripe, point reads are attempted optimistically
+	 * and only fall back to the read lock when a writer interfered.
+	 * <p>
+	 * The stamped locks are not reentrant, so callbacks running under a stripe lock must not call back into the same structure.
+	 */
+	OPTIMISTIC
+
+}
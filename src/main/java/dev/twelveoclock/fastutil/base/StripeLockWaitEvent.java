@@ -0,0 +1,35 @@
+package dev.twelveoclock.fastutil.base;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+
+/**
+ * A wait for a stripe lock that another thread held, only begun once the uncontended attempt failed.
+ * The threshold can be changed like any JDK event's, e.g. {@code dev.twelveoclock.fastutil.StripeLockWait#threshold=1 ms}.
+ */
+@Name("dev.twelveoclock.fastutil.StripeLockWait")
+@Label("Stripe Lock Wait")
+@Category({"FastUtil Concurrent", "Locks"})
+@Description("Waiting for a stripe lock held by another thread")
+@Threshold("100 us")
+final class StripeLockWaitEvent extends Event {
+
+	@Label("Structure")
+	String structure;
+
+	@Label("Stripe Index")
+	@Description("The low hash bits the stripe covers")
+	int stripeIndex;
+
+	@Label("Stripe Depth")
+	int stripeDepth;
+
+	@Label("Write Lock")
+	boolean write;
+
+}
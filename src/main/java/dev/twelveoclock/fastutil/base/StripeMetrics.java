@@ -0,0 +1,103 @@
+package dev.twelveoclock.fastutil.base;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * One stripe's lock recorder, only created when {@link FastUtilConcurrentBase#METRICS} is on.
+ * <p>
+ * Hold times are measured from a per thread stack of acquisition times, stripe locks are always released in the reverse
+ * order they were taken, so the top of the stack belongs to the lock being released.
+ */
+final class StripeMetrics {
+
+	// Bucket i counts durations in [2^i, 2^(i + 1)) nanoseconds, the first also counts 0, the last everything above
+	static final int HISTOGRAM_BUCKETS = 40;
+
+	private static final ThreadLocal<HoldStack> HOLDS = ThreadLocal.withInitial(HoldStack::new);
+
+
+	private final LongAdder acquisitions = new LongAdder();
+
+	private final AtomicLongArray waitHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+	private final AtomicLongArray holdHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+
+	/**
+	 * Called once the lock is held, with how long it took to get it.
+	 */
+	void acquired(final long waitNanos) {
+
+		if (waitNanos == 0) {
+			waitHistogram.getAndIncrement(0);
+		}
+		else {
+			record(waitHistogram, waitNanos);
+		}
+
+		acquisitions.increment();
+		HOLDS.get().push(System.nanoTime());
+	}
+
+	/**
+	 * Called right before the lock is released.
+	 */
+	void release() {
+		record(holdHistogram, System.nanoTime() - HOLDS.get().pop());
+	}
+
+	long acquisitions() {
+		return acquisitions.sum();
+	}
+
+	long[] waitHistogram() {
+		return toArray(waitHistogram);
+	}
+
+	long[] holdHistogram() {
+		return toArray(holdHistogram);
+	}
+
+
+	private static void record(final AtomicLongArray histogram, final long nanos) {
+		histogram.getAndIncrement(Math.min(HISTOGRAM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1))));
+	}
+
+	private static long[] toArray(final AtomicLongArray histogram) {
+
+		final long[] counts = new long[histogram.length()];
+
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = histogram.get(i);
+		}
+
+		return counts;
+	}
+
+
+	private static final class HoldStack {
+
+		private long[] starts = new long[8];
+
+		private int size;
+
+
+		private void push(final long start) {
+
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size << 1);
+			}
+
+			starts[size++] = start;
+		}
+
+		private long pop() {
+			return starts[--size];
+		}
+
+	}
+
+}
@@ -0,0 +1,31 @@
+package dev.twelveoclock.fastutil.base;
+
+
+/**
+ * Stripe contention and growth of one structure, see {@link FastUtilConcurrentBase#registerMXBean(String)}.
+ * Everything but the contended count, rehashes and sizes stays at zero unless instrumentation is on.
+ * The totals include stripes that have since been split, {@link #getStripes()} only covers the current ones.
+ */
+public interface StripeMetricsMXBean {
+
+	boolean isInstrumented();
+
+	int getNumBuckets();
+
+	long getSize();
+
+	long getAcquisitions();
+
+	long getContendedAcquisitions();
+
+	long getRehashes();
+
+	StripeStats[] getStripes();
+
+	/**
+	 * See {@link FastUtilConcurrentBase#getDistribution()}, one composite attribute so a poll locks every stripe once
+	 * and its skew, peak load and advice all come from the same read.
+	 */
+	StripeDistribution getDistribution();
+
+}
@@ -0,0 +1,39 @@
+package dev.twelveoclock.fastutil.base;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+
+/**
+ * A stripe rehashing its elements under its write lock, either a write that grew or shrank its table,
+ * timed from when the writer took the lock, or a split into two new stripes.
+ */
+@Name("dev.twelveoclock.fastutil.StripeRehash")
+@Label("Stripe Rehash")
+@Category({"FastUtil Concurrent", "Locks"})
+@Description("A stripe's table rehashed or the stripe split in two, its writers wait for the whole rehash")
+@Threshold("0 ms")
+final class StripeRehashEvent extends Event {
+
+	@Label("Structure")
+	String structure;
+
+	@Label("Stripe Index")
+	@Description("The low hash bits the stripe covered")
+	int stripeIndex;
+
+	@Label("Stripe Depth")
+	int stripeDepth;
+
+	@Label("Elements")
+	long elements;
+
+	@Label("Split")
+	@Description("Whether the stripe split in two rather than rehashing its own table")
+	boolean split;
+
+}
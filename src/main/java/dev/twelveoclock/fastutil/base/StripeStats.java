@@ -0,0 +1,54 @@
+package dev.twelveoclock.fastutil.base;
+
+import lombok.Getter;
+
+import javax.management.ConstructorParameters;
+
+
+/**
+ * A snapshot of one stripe's counters, read without locking so the fields may be a little apart in time.
+ * <p>
+ * Histogram bucket i counts durations of at least 2^i and under 2^(i + 1) nanoseconds,
+ * the first also counts waits that didn't happen, the last everything longer.
+ */
+@Getter
+public final class StripeStats {
+
+	/**
+	 * How many hash bits the stripe covers, stripes one deeper than their neighbours came out of a split.
+	 */
+	private final int depth;
+
+	private final long size;
+
+	private final long acquisitions;
+
+	/**
+	 * Acquisitions that found the lock taken and had to wait, counted even while instrumentation is off.
+	 */
+	private final long contendedAcquisitions;
+
+	/**
+	 * Rehashes of the stripe's table since it was created, growths and shrinks.
+	 * For fastutil tables, which don't expose their length, replayed from the size after each write and the structure's load factor,
+	 * so it's an estimate when single writes add or remove many elements.
+	 */
+	private final long rehashes;
+
+	private final long[] waitHistogram;
+
+	private final long[] holdHistogram;
+
+
+	@ConstructorParameters({"depth", "size", "acquisitions", "contendedAcquisitions", "rehashes", "waitHistogram", "holdHistogram"})
+	public StripeStats(final int depth, final long size, final long acquisitions, final long contendedAcquisitions, final long rehashes, final long[] waitHistogram, final long[] holdHistogram) {
+		this.depth = depth;
+		this.size = size;
+		this.acquisitions = acquisitions;
+		this.contendedAcquisitions = contendedAcquisitions;
+		this.rehashes = rehashes;
+		this.waitHistogram = waitHistogram;
+		this.holdHistogram = holdHistogram;
+	}
+
+}
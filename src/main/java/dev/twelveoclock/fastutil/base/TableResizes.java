@@ -0,0 +1,74 @@
+package dev.twelveoclock.fastutil.base;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+
+
+/**
+ * Follows the length of a stripe's table from one write to the next, called under the stripe's write lock.
+ * <p>
+ * Fastutil tables don't expose their length, so it's replayed from their policy: grow to fit once the size passes
+ * the fill threshold, halve each time it drops under a quarter of it, never below the length the table was created with.
+ * A write that passes several thresholds at once counts as the single growth fastutil's bulk methods do for it.
+ */
+final class TableResizes {
+
+	private final float loadFactor;
+
+	private final long minLength;
+
+	private long length;
+
+	private volatile long rehashes;
+
+
+	TableResizes(final int capacity, final float loadFactor) {
+		this.loadFactor = loadFactor;
+		this.minLength = HashCommon.arraySize(Math.max(capacity, 1), loadFactor);
+		this.length = minLength;
+	}
+
+
+	/**
+	 * @param tableLength The table's real length if the structure knows it, or -1 to replay fastutil's policy.
+	 * @return Whether the table was rehashed since the last write.
+	 */
+	boolean update(final long size, final long tableLength) {
+
+		final long old = length;
+
+		if (tableLength >= 0) {
+			length = tableLength;
+		}
+		else if (size > HashCommon.maxFill((int) length, loadFactor)) {
+			length = Math.min(HashCommon.bigArraySize(size + 1, loadFactor), 1 << 30);
+		}
+		else {
+
+			long shrinks = 0;
+
+			while (length > minLength && length > DEFAULT_INITIAL_SIZE && size < HashCommon.maxFill((int) length, loadFactor) / 4) {
+				length >>= 1;
+				shrinks++;
+			}
+
+			if (shrinks != 0) {
+				rehashes += shrinks;
+				return true;
+			}
+		}
+
+		if (length == old) {
+			return false;
+		}
+
+		rehashes++;
+		return true;
+	}
+
+	long rehashes() {
+		return rehashes;
+	}
+
+}
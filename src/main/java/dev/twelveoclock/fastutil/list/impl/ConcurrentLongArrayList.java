@@ -0,0 +1,423 @@
+package dev.twelveoclock.fastutil.list.impl;
+
+import it.unimi.dsi.fastutil.longs.AbstractLongList;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterators;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongListIterator;
+import it.unimi.dsi.fastutil.longs.LongSpliterator;
+import it.unimi.dsi.fastutil.longs.LongSpliterators;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+
+/**
+ * An append-only list of unboxed longs, stored in segments that double in size so growing never copies.
+ * <p>
+ * Appenders reserve their indexes with a CAS and mark them in a bitset once written. The size only moves past written indexes,
+ * and whichever appender completes a run moves it, so a stalled appender delays visibility but never blocks the others.
+ * Reads are wait-free, iterators and spliterators walk the elements present when they were created without copying them.
+ * Inserting or removing in the middle is not supported, {@link #clear()} swaps in an empty store.
+ */
+public final class ConcurrentLongArrayList extends AbstractLongList implements RandomAccess {
+
+	private static final VarHandle SIZE;
+
+	private static final VarHandle RESERVED;
+
+	private static final VarHandle SEGMENTS = MethodHandles.arrayElementVarHandle(Segment[].class);
+
+	private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+
+	static {
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			SIZE = lookup.findVarHandle(Store.class, "size", int.class);
+			RESERVED = lookup.findVarHandle(Store.class, "reserved", int.class);
+		} catch (final ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// A multiple of 64, so every segment has whole words of published bits
+	private static final int FIRST_SEGMENT_SHIFT = 6;
+
+	private static final int FIRST_SEGMENT_SIZE = 1 << FIRST_SEGMENT_SHIFT;
+
+	private static final int MAX_SIZE = Integer.MAX_VALUE - FIRST_SEGMENT_SIZE;
+
+
+	private volatile Store store = new Store();
+
+
+	@Override
+	public int size() {
+		return store.size;
+	}
+
+	@Override
+	public long getLong(final int index) {
+
+		final Store store = this.store;
+
+		Objects.checkIndex(index, store.size);
+
+		return get(store, index);
+	}
+
+	@Override
+	public long set(final int index, final long k) {
+
+		final Store store = this.store;
+
+		Objects.checkIndex(index, store.size);
+
+		return set(store, index, k);
+	}
+
+	@Override
+	public boolean add(final long k) {
+
+		final Store store = this.store;
+		final int index = reserve(store, 1);
+		final int segment = segmentIndex(index);
+
+		segment(store, segment).values[offset(index, segment)] = k;
+		publish(store, index, 1);
+
+		return true;
+	}
+
+	/**
+	 * Appends {@code a[offset, offset + length)} with a single reservation, copied straight into the segments.
+	 */
+	public boolean addAll(final long[] a, final int offset, final int length) {
+
+		Objects.checkFromIndexSize(offset, length, a.length);
+
+		if (length == 0) {
+			return false;
+		}
+
+		final Store store = this.store;
+		final int index = reserve(store, length);
+
+		for (int done = 0; done < length; ) {
+
+			final int segment = segmentIndex(index + done);
+			final int from = offset(index + done, segment);
+			final int count = Math.min(length - done, (FIRST_SEGMENT_SIZE << segment) - from);
+
+			System.arraycopy(a, offset + done, segment(store, segment).values, from, count);
+			done += count;
+		}
+
+		publish(store, index, length);
+
+		return true;
+	}
+
+	@Override
+	public boolean addAll(final LongCollection c) {
+
+		final long[] a = c.toLongArray();
+
+		return addAll(a, 0, a.length);
+	}
+
+	@Override
+	public boolean addAll(final LongList l) {
+		return addAll((LongCollection) l);
+	}
+
+	@Override
+	public boolean addAll(final Collection<? extends Long> c) {
+
+		if (c instanceof LongCollection) {
+			return addAll((LongCollection) c);
+		}
+
+		final long[] a = LongIterators.unwrap(LongIterators.asLongIterator(c.iterator()));
+
+		return addAll(a, 0, a.length);
+	}
+
+	@Override
+	public void getElements(final int from, final long[] a, final int offset, final int length) {
+
+		final Store store = this.store;
+
+		Objects.checkFromIndexSize(from, length, store.size);
+		Objects.checkFromIndexSize(offset, length, a.length);
+
+		for (int done = 0; done < length; ) {
+
+			final int segment = segmentIndex(from + done);
+			final int start = offset(from + done, segment);
+			final int count = Math.min(length - done, (FIRST_SEGMENT_SIZE << segment) - start);
+
+			System.arraycopy(segment(store, segment).values, start, a, offset + done, count);
+			done += count;
+		}
+	}
+
+	/**
+	 * Appends racing with the swap may land in the discarded store, same as an append that happened just before clear.
+	 */
+	@Override
+	public void clear() {
+		store = new Store();
+	}
+
+	@Override
+	public LongListIterator listIterator(final int index) {
+
+		final Store store = this.store;
+		final int size = store.size;
+
+		Objects.checkIndex(index, size + 1);
+
+		return new SnapshotIterator(store, size, index);
+	}
+
+	@Override
+	public LongSpliterator spliterator() {
+
+		final Store store = this.store;
+
+		return new SnapshotSpliterator(store, 0, store.size);
+	}
+
+
+	private static int segmentIndex(final int index) {
+		return 31 - Integer.numberOfLeadingZeros(index + FIRST_SEGMENT_SIZE) - FIRST_SEGMENT_SHIFT;
+	}
+
+	private static int offset(final int index, final int segment) {
+		return index + FIRST_SEGMENT_SIZE - (FIRST_SEGMENT_SIZE << segment);
+	}
+
+	private static Segment segment(final Store store, final int segment) {
+
+		final Segment existing = (Segment) SEGMENTS.getAcquire(store.segments, segment);
+
+		if (existing != null) {
+			return existing;
+		}
+
+		// Racing appenders may both allocate, the loser's segment is dropped
+		final Segment created = new Segment(FIRST_SEGMENT_SIZE << segment);
+		final Segment witness = (Segment) SEGMENTS.compareAndExchange(store.segments, segment, null, created);
+
+		return witness == null ? created : witness;
+	}
+
+	private static long get(final Store store, final int index) {
+
+		final int segment = segmentIndex(index);
+
+		return (long) VALUES.getAcquire(segment(store, segment).values, offset(index, segment));
+	}
+
+	private static long set(final Store store, final int index, final long k) {
+
+		final int segment = segmentIndex(index);
+
+		return (long) VALUES.getAndSet(segment(store, segment).values, offset(index, segment), k);
+	}
+
+	private static int reserve(final Store store, final int length) {
+		while (true) {
+
+			final int reserved = store.reserved;
+
+			if (reserved > MAX_SIZE - length) {
+				throw new IllegalStateException("List is full");
+			}
+
+			if (RESERVED.compareAndSet(store, reserved, reserved + length)) {
+				return reserved;
+			}
+		}
+	}
+
+	/**
+	 * Marks {@code [index, index + length)} written, then moves the size past every written index following it.
+	 */
+	private static void publish(final Store store, final int index, final int length) {
+
+		for (int done = 0; done < length; ) {
+
+			final int segment = segmentIndex(index + done);
+			final int from = offset(index + done, segment);
+			final int count = Math.min(length - done, (FIRST_SEGMENT_SIZE << segment) - from);
+
+			markPublished(segment(store, segment).published, from, count);
+			done += count;
+		}
+
+		while (true) {
+
+			final int size = store.size;
+			final int end = publishedUntil(store, size);
+
+			// An appender that publishes after our scan sees either its bits or our new size, and carries on from there
+			if (end == size || SIZE.compareAndSet(store, size, end)) {
+				return;
+			}
+		}
+	}
+
+	private static void markPublished(final long[] published, final int from, final int count) {
+
+		final int to = from + count;
+
+		for (int word = from >>> 6; word << 6 < to; word++) {
+
+			final int start = Math.max(from, word << 6);
+			final int end = Math.min(to, (word + 1) << 6);
+
+			// Shifts only use the low 6 bits, so 64 - (end - start) also covers a full word
+			final long bits = (-1L >>> (64 - (end - start))) << start;
+
+			PUBLISHED.getAndBitwiseOr(published, word, bits);
+		}
+	}
+
+	/**
+	 * @return The first index at or after from that is not written yet.
+	 */
+	private static int publishedUntil(final Store store, int from) {
+		while (from <= MAX_SIZE) {
+
+			final int segmentIndex = segmentIndex(from);
+			final Segment segment = (Segment) SEGMENTS.getAcquire(store.segments, segmentIndex);
+
+			if (segment == null) {
+				return from;
+			}
+
+			final int offset = offset(from, segmentIndex);
+			final long unpublished = ~(long) PUBLISHED.getVolatile(segment.published, offset >>> 6) & (-1L << offset);
+
+			if (unpublished != 0) {
+				return from - (offset & 63) + Long.numberOfTrailingZeros(unpublished);
+			}
+
+			from += 64 - (offset & 63);
+		}
+
+		return from;
+	}
+
+
+	private static final class Store {
+
+		final Segment[] segments = new Segment[31 - FIRST_SEGMENT_SHIFT];
+
+		// Indexes below it are written
+		volatile int size;
+
+		// Indexes below it are claimed by an appender, maybe not written yet
+		volatile int reserved;
+
+	}
+
+	private static final class Segment {
+
+		final long[] values;
+
+		// One bit per written index
+		final long[] published;
+
+
+		private Segment(final int length) {
+			this.values = new long[length];
+			this.published = new long[length >>> 6];
+		}
+
+	}
+
+	private static final class SnapshotIterator extends LongIterators.AbstractIndexBasedListIterator {
+
+		private final Store store;
+
+		private final int size;
+
+
+		private SnapshotIterator(final Store store, final int size, final int index) {
+
+			super(0, index);
+
+			this.store = store;
+			this.size = size;
+		}
+
+
+		@Override
+		protected long get(final int location) {
+			return ConcurrentLongArrayList.get(store, location);
+		}
+
+		@Override
+		protected void set(final int location, final long k) {
+			ConcurrentLongArrayList.set(store, location, k);
+		}
+
+		@Override
+		protected void add(final int location, final long k) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected void remove(final int location) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected int getMaxPos() {
+			return size;
+		}
+
+	}
+
+	private static final class SnapshotSpliterator extends LongSpliterators.AbstractIndexBasedSpliterator {
+
+		private final Store store;
+
+		private final int maxPos;
+
+
+		private SnapshotSpliterator(final Store store, final int pos, final int maxPos) {
+
+			super(pos);
+
+			this.store = store;
+			this.maxPos = maxPos;
+		}
+
+
+		@Override
+		protected long get(final int location) {
+			return ConcurrentLongArrayList.get(store, location);
+		}
+
+		@Override
+		protected int getMaxPos() {
+			return maxPos;
+		}
+
+		@Override
+		protected LongSpliterator makeForSplit(final int pos, final int maxPos) {
+			return new SnapshotSpliterator(store, pos, maxPos);
+		}
+
+	}
+
+}
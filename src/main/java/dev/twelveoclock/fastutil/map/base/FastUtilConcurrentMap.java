@@ -1,33 +1,18 @@
 package dev.twelveoclock.fastutil.map.base;
 
-import lombok.Getter;
+import dev.twelveoclock.fastutil.base.FastUtilConcurrentBase;
+import dev.twelveoclock.fastutil.base.StripeLockMode;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-
-public abstract class FastUtilConcurrentMap {
-
-
-	@Getter
-	protected final int numBuckets;
-
-	protected final ReadWriteLock[] locks;
+public abstract class FastUtilConcurrentMap<B> extends FastUtilConcurrentBase<B> {
 
 
 	protected FastUtilConcurrentMap(final int numBuckets) {
-
-		this.numBuckets = numBuckets;
-		this.locks = new ReadWriteLock[numBuckets];
-
-		for (int i = 0; i < numBuckets; i++) {
-			locks[i] = new ReentrantReadWriteLock();
-		}
+		this(numBuckets, StripeLockMode.REENTRANT);
 	}
 
-
-	protected int getBucket(final int hashCode) {
-		return Math.floorMod(hashCode, numBuckets);
+	protected FastUtilConcurrentMap(final int numBuckets, final StripeLockMode lockMode) {
+		super(numBuckets, lockMode);
 	}
 
 }
@@ -1,189 +1,385 @@
 package dev.twelveoclock.fastutil.map.impl;
 
+import dev.twelveoclock.fastutil.base.StripeLockMode;
 import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
 import it.unimi.dsi.fastutil.ints.*;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectSpliterator;
 import lombok.Getter;
 import lombok.NonNull;
 
+import java.util.Arrays;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
 
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
 
 
-public final class ConcurrentInt2IntOpenHashMap extends FastUtilConcurrentMap implements Int2IntMap {
+public final class ConcurrentInt2IntOpenHashMap extends FastUtilConcurrentMap<Int2IntOpenHashMap> implements Int2IntMap {
 
-	private final Int2IntMap[] buckets;
+	private final float loadFactor;
 
 	@Getter
 	private int defaultValue;
 
+	// Views are stateless, so racing to create them is harmless
+	private KeySet keySet;
+
+	private Values values;
+
+	private EntrySet entrySet;
+
 
 	public ConcurrentInt2IntOpenHashMap() {
-		this(Runtime.getRuntime().availableProcessors() - 1, 0, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+		this(DEFAULT_NUM_BUCKETS, 0, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
 	}
 
 	public ConcurrentInt2IntOpenHashMap(final int numBuckets, final int defaultValue, final int loadCapacity, final float loadFactor) {
+		this(numBuckets, defaultValue, loadCapacity, loadFactor, StripeLockMode.REENTRANT);
+	}
 
-		super(numBuckets);
+	public ConcurrentInt2IntOpenHashMap(final int numBuckets, final int defaultValue, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
 
-		this.buckets = new Int2IntMap[numBuckets];
-		this.defaultValue = defaultValue;
+		super(numBuckets, lockMode);
 
-		final int bucketLoadCapacity = (int) Math.ceil(((double) loadCapacity) / numBuckets);
+		this.loadFactor = loadFactor;
+		this.defaultValue = defaultValue;
 
-		for (int i = 0; i < numBuckets; i++) {
-			final Int2IntOpenHashMap bucket = new Int2IntOpenHashMap(bucketLoadCapacity, loadFactor);
-			if (defaultValue != 0) {
-				bucket.defaultReturnValue(defaultValue);
-			}
-			buckets[i] = bucket;
-		}
+		initBuckets(loadCapacity);
 	}
 
 
 	@Override
-	public int size() {
+	protected Int2IntOpenHashMap newBucket(final int capacity) {
 
-		int size = 0;
+		final Int2IntOpenHashMap bucket = new Int2IntOpenHashMap(capacity, loadFactor);
 
-		for (final Int2IntMap bucket : buckets) {
-			size += bucket.size();
+		if (defaultValue != 0) {
+			bucket.defaultReturnValue(defaultValue);
 		}
 
-		return size;
+		return bucket;
 	}
 
 	@Override
-	public boolean isEmpty() {
+	protected int bucketSize(final Int2IntOpenHashMap bucket) {
+		return bucket.size();
+	}
 
-		for (final Int2IntMap bucket : buckets) {
-			if (!bucket.isEmpty()) {
-				return false;
-			}
-		}
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
 
-		return true;
+	@Override
+	protected void splitBucket(final Int2IntOpenHashMap source, final Int2IntOpenHashMap lower, final Int2IntOpenHashMap upper, final int splitBit) {
+		for (final Int2IntMap.Entry entry : Int2IntMaps.fastIterable(source)) {
+			final int key = entry.getIntKey();
+			(isUpperHalf(key, splitBit) ? upper : lower).put(key, entry.getIntValue());
+		}
 	}
 
 	@Override
 	public void putAll(final Map<? extends Integer, ? extends Integer> m) {
+
+		if (m instanceof Int2IntMap) {
+			putAll((Int2IntMap) m);
+			return;
+		}
+
+		int[] keys = new int[m.size()];
+		int[] values = new int[keys.length];
+
+		int size = 0;
+
 		for (final Map.Entry<? extends Integer, ? extends Integer> entry : m.entrySet()) {
 
-			final int bucket = getBucket(entry.getKey());
-			final Lock writeLock = locks[bucket].writeLock();
+			// Grew since it was sized
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
+			}
 
-			writeLock.lock();
-			try {
-				buckets[bucket].put(entry.getKey(), entry.getValue());
-			} finally {
-				writeLock.unlock();
+			keys[size] = entry.getKey();
+			values[size++] = entry.getValue();
+		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Like {@link #putAll(Map)}, without boxing.
+	 */
+	public void putAll(final Int2IntMap m) {
+
+		int[] keys = new int[m.size()];
+		int[] values = new int[keys.length];
+
+		int size = 0;
+
+		for (final Int2IntMap.Entry entry : Int2IntMaps.fastIterable(m)) {
+
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
 			}
+
+			keys[size] = entry.getIntKey();
+			values[size++] = entry.getIntValue();
 		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Puts {@code keys[offset + i]} to {@code values[offset + i]} for every i below length, a later duplicate key wins.
+	 */
+	public void putAll(final int[] keys, final int[] values, final int offset, final int length) {
+
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+
+		putBatch(keys, values, offset, length);
 	}
 
 	@Override
 	public int put(final int key, final int value) {
 
-		final int bucket = getBucket(key);
-		final Lock writeLock = locks[bucket].writeLock();
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
 
-		writeLock.lock();
 		try {
-			return buckets[bucket].put(key, value);
+			return stripe.bucket.put(key, value);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
 	public int remove(final int key) {
 
-		final int bucket = getBucket(key);
-		final Lock writeLock = locks[bucket].writeLock();
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
 
-		writeLock.lock();
 		try {
-			return buckets[bucket].remove(key);
+			return stripe.bucket.remove(key);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
-	public void defaultReturnValue(final int rv) {
+	public int getOrDefault(final int key, final int defaultValue) {
 
-		this.defaultValue = rv;
+		final Stripe<Int2IntOpenHashMap> stripe = lockRead(key);
 
-		for (final Int2IntMap bucket : buckets) {
-			bucket.defaultReturnValue(rv);
+		try {
+			return stripe.bucket.getOrDefault(key, defaultValue);
+		} finally {
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
-	public int defaultReturnValue() {
-		return defaultValue;
+	public int putIfAbsent(final int key, final int value) {
+
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.putIfAbsent(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
 	}
 
 	@Override
-	public ObjectSet<Entry> int2IntEntrySet() {
+	public boolean remove(final int key, final int value) {
 
-		final Int2IntOpenHashMap map = new Int2IntOpenHashMap(size());
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
 
-		for (int i = 0; i < buckets.length; i++) {
+		try {
+			return stripe.bucket.remove(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
 
-			final Int2IntMap bucket = buckets[i];
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public boolean replace(final int key, final int oldValue, final int newValue) {
 
-			readLock.lock();
-			try {
-				map.putAll(bucket);
-			} finally {
-				readLock.unlock();
-			}
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.replace(key, oldValue, newValue);
+		} finally {
+			unlockWrite(stripe);
 		}
+	}
+
+	@Override
+	public int replace(final int key, final int value) {
 
-		return map.int2IntEntrySet();
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.replace(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
 	}
 
+	/**
+	 * Runs the mapping function under the key's stripe write lock, so it must not access other keys of this map.
+	 */
 	@Override
-	public IntSet keySet() {
+	public int computeIfAbsent(final int key, final IntUnaryOperator mappingFunction) {
 
-		final IntOpenHashSet keySets = new IntOpenHashSet(buckets.length);
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
 
-		for (int i = 0; i < buckets.length; i++) {
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
 
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public int computeIfAbsentNullable(final int key, final IntFunction<? extends Integer> mappingFunction) {
 
-			readLock.lock();
-			try {
-				keySets.addAll(buckets[i].keySet());
-			} finally {
-				readLock.unlock();
-			}
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.computeIfAbsentNullable(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
 		}
+	}
 
-		return keySets;
+	@Override
+	public int computeIfAbsent(final int key, final Int2IntFunction mappingFunction) {
+
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
 	}
 
-	@NonNull
 	@Override
-	public IntCollection values() {
+	public int computeIfPresent(final int key, final BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
 
-		final IntOpenHashSet values = new IntOpenHashSet();
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.computeIfPresent(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
 
-		for (int i = 0; i < buckets.length; i++) {
+	@Override
+	public int compute(final int key, final BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
 
-			final Lock readLock = locks[i].readLock();
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
 
-			readLock.lock();
-			try {
-				values.addAll(buckets[i].values());
-			} finally {
-				readLock.unlock();
-			}
+		try {
+			return stripe.bucket.compute(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int merge(final int key, final int value, final BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
+
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.merge(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int mergeInt(final int key, final int value, final java.util.function.IntBinaryOperator remappingFunction) {
+
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.mergeInt(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Adds the increment to the key's value, starting from the default value if absent.
+	 *
+	 * @return the previous value, or the default value if absent
+	 */
+	public int addTo(final int key, final int increment) {
+
+		final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.addTo(key, increment);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public void defaultReturnValue(final int rv) {
+
+		this.defaultValue = rv;
+
+		updateBuckets(bucket -> {
+			bucket.defaultReturnValue(rv);
+			return false;
+		});
+	}
+
+	@Override
+	public int defaultReturnValue() {
+		return defaultValue;
+	}
+
+	@Override
+	public ObjectSet<Entry> int2IntEntrySet() {
+
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+
+		return entrySet;
+	}
+
+	@Override
+	public IntSet keySet() {
+
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+
+		return keySet;
+	}
+
+	@NonNull
+	@Override
+	public IntCollection values() {
+
+		if (values == null) {
+			values = new Values();
 		}
 
 		return values;
@@ -192,68 +388,454 @@ public final class ConcurrentInt2IntOpenHashMap extends FastUtilConcurrentMap im
 	@Override
 	public int get(final int key) {
 
-		final int bucketIndex = getBucket(key);
-		final Int2IntMap bucket = buckets[bucketIndex];
-		final Lock readLock = locks[bucketIndex].readLock();
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Int2IntOpenHashMap> stripe = stripeFor(key);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final int value = stripe.bucket.get(key);
+					if (stripe.validate(stamp)) {
+						return value;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Int2IntOpenHashMap> stripe = lockRead(key);
 
-		readLock.lock();
 		try {
-			return bucket.get(key);
+			return stripe.bucket.get(key);
 		} finally {
-			readLock.unlock();
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
 	public boolean containsKey(final int key) {
 
-		final int bucketIndex = getBucket(key);
-		final Int2IntMap bucket = buckets[bucketIndex];
-		final Lock readLock = locks[bucketIndex].readLock();
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Int2IntOpenHashMap> stripe = stripeFor(key);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final boolean result = stripe.bucket.containsKey(key);
+					if (stripe.validate(stamp)) {
+						return result;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Int2IntOpenHashMap> stripe = lockRead(key);
 
-		readLock.lock();
 		try {
-			return bucket.containsKey(key);
+			return stripe.bucket.containsKey(key);
 		} finally {
-			readLock.unlock();
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
 	public boolean containsValue(final int value) {
+		return anyBucket(bucket -> bucket.containsValue(value));
+	}
 
-		for (int i = 0; i < buckets.length; i++) {
+	@Override
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
 
-			final Int2IntMap bucket = buckets[i];
-			final Lock readLock = locks[i].readLock();
 
-			readLock.lock();
-			try {
-				if (bucket.containsValue(value)) {
-					return true;
+	/**
+	 * Puts {@code length} pairs from {@code offset} with one write lock and one table resize per stripe.
+	 */
+	private void putBatch(final int[] keys, final int[] values, final int offset, final int length) {
+
+		final int[] hashCodes = new int[length];
+
+		for (int i = 0; i < length; i++) {
+			hashCodes[i] = keys[offset + i];
+		}
+
+		updateBatch(hashCodes, (bucket, indexes, from, to) -> {
+
+			final int[] shareKeys = new int[to - from];
+			final int[] shareValues = new int[to - from];
+
+			for (int i = from; i < to; i++) {
+				shareKeys[i - from] = keys[offset + indexes[i]];
+				shareValues[i - from] = values[offset + indexes[i]];
+			}
+
+			// Sizes the table once for the whole share
+			bucket.putAll(new Int2IntArrayMap(shareKeys, shareValues, shareKeys.length));
+
+			return true;
+		});
+	}
+
+
+	private class MapIterator extends StripeIterator<ObjectIterator<Int2IntMap.Entry>> {
+
+		int[] keys = IntArrays.EMPTY_ARRAY;
+
+		int[] values = IntArrays.EMPTY_ARRAY;
+
+		private int lastKey;
+
+		private boolean canRemove;
+
+
+		@Override
+		protected ObjectIterator<Int2IntMap.Entry> open(final Int2IntOpenHashMap bucket) {
+			return Int2IntMaps.fastIterator(bucket);
+		}
+
+		@Override
+		protected int read(final Int2IntOpenHashMap bucket, final ObjectIterator<Int2IntMap.Entry> source, final int offset, final int max) {
+
+			grow(offset + Math.min(max, bucket.size()));
+
+			int read = 0;
+
+			while (read < max && source.hasNext()) {
+				final Int2IntMap.Entry entry = source.next();
+				keys[offset + read] = entry.getIntKey();
+				values[offset + read++] = entry.getIntValue();
+			}
+
+			return read;
+		}
+
+		@Override
+		protected int readMissing(final Int2IntOpenHashMap bucket, int offset, final int returned) {
+
+			final IntOpenHashSet seen = new IntOpenHashSet(keys, 0, returned);
+
+			grow(offset + bucket.size());
+
+			for (final Int2IntMap.Entry entry : Int2IntMaps.fastIterable(bucket)) {
+				if (!seen.contains(entry.getIntKey())) {
+					keys[offset] = entry.getIntKey();
+					values[offset++] = entry.getIntValue();
 				}
+			}
+
+			return offset;
+		}
+
+		@Override
+		protected void copyTo(final StripeIterator<ObjectIterator<Int2IntMap.Entry>> prefix, final int from, final int to) {
+
+			final MapIterator split = (MapIterator) prefix;
+
+			split.keys = Arrays.copyOfRange(keys, from, to);
+			split.values = Arrays.copyOfRange(values, from, to);
+		}
+
+		public boolean hasNext() {
+			return position < size || fill();
+		}
+
+		public void remove() {
+
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			canRemove = false;
+			ConcurrentInt2IntOpenHashMap.this.remove(lastKey);
+		}
+
+		int nextIndex() {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			lastKey = keys[position];
+			canRemove = true;
+
+			return position++;
+		}
+
+
+		private void grow(final int length) {
+			keys = IntArrays.grow(keys, length);
+			values = IntArrays.grow(values, length);
+		}
+
+	}
+
+	private final class KeyIterator extends MapIterator implements IntIterator {
+
+		@Override
+		public int nextInt() {
+
+			final int index = nextIndex();
+
+			return keys[index];
+		}
+
+	}
+
+	private final class ValueIterator extends MapIterator implements IntIterator {
+
+		@Override
+		public int nextInt() {
+
+			final int index = nextIndex();
+
+			return values[index];
+		}
+
+	}
+
+	private final class EntryIterator extends MapIterator implements ObjectIterator<Int2IntMap.Entry> {
+
+		@Override
+		public Int2IntMap.Entry next() {
+
+			final int index = nextIndex();
+
+			return new MapEntry(keys[index], values[index]);
+		}
+
+	}
+
+	private final class KeySpliterator extends MapIterator implements IntSpliterator {
+
+		@Override
+		public boolean tryAdvance(final java.util.function.IntConsumer action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			action.accept(keys[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public IntSpliterator trySplit() {
+			return trySplit(KeySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class ValueSpliterator extends MapIterator implements IntSpliterator {
+
+		@Override
+		public boolean tryAdvance(final java.util.function.IntConsumer action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			action.accept(values[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public IntSpliterator trySplit() {
+			return trySplit(ValueSpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class EntrySpliterator extends MapIterator implements ObjectSpliterator<Int2IntMap.Entry> {
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Int2IntMap.Entry> action) {
+
+			if (!hasNext()) {
+				return false;
+			}
+
+			final int index = nextIndex();
+
+			action.accept(new MapEntry(keys[index], values[index]));
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<Int2IntMap.Entry> trySplit() {
+			return trySplit(EntrySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	// Writes through to the map, like ConcurrentHashMap's entries
+	private final class MapEntry extends AbstractInt2IntMap.BasicEntry {
+
+		private MapEntry(final int key, final int value) {
+			super(key, value);
+		}
+
+		@Override
+		public int setValue(final int value) {
+
+			final int old = this.value;
+
+			this.value = value;
+			put(key, value);
+
+			return old;
+		}
+
+	}
+
+	private final class KeySet extends AbstractIntSet {
+
+		@Override
+		public IntIterator iterator() {
+			return new KeyIterator();
+		}
+
+		@Override
+		public IntSpliterator spliterator() {
+			return new KeySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentInt2IntOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final int key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(final int key) {
+
+			final Stripe<Int2IntOpenHashMap> stripe = lockWrite(key);
+
+			try {
+				return stripe.bucket.keySet().remove(key);
 			} finally {
-				readLock.unlock();
+				unlockWrite(stripe);
 			}
 		}
 
-		return false;
+		@Override
+		public void clear() {
+			ConcurrentInt2IntOpenHashMap.this.clear();
+		}
+
 	}
 
-	@Override
-	public void clear() {
-		for (int i = 0; i < buckets.length; i++) {
+	private final class Values extends AbstractIntCollection {
+
+		@Override
+		public IntIterator iterator() {
+			return new ValueIterator();
+		}
+
+		@Override
+		public IntSpliterator spliterator() {
+			return new ValueSpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentInt2IntOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final int value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentInt2IntOpenHashMap.this.clear();
+		}
+
+	}
+
+	private final class EntrySet extends AbstractObjectSet<Int2IntMap.Entry> {
+
+		@Override
+		public ObjectIterator<Int2IntMap.Entry> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public ObjectSpliterator<Int2IntMap.Entry> spliterator() {
+			return new EntrySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentInt2IntOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Integer)) {
+				return false;
+			}
+
+			final Stripe<Int2IntOpenHashMap> stripe = lockRead(((Map.Entry<?, ?>) o).getKey().hashCode());
+
+			try {
+				return stripe.bucket.int2IntEntrySet().contains(o);
+			} finally {
+				unlockRead(stripe);
+			}
+		}
 
-			final Int2IntMap bucket = buckets[i];
-			final Lock writeLock = locks[i].writeLock();
+		@Override
+		public boolean remove(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Integer)) {
+				return false;
+			}
+
+			final Stripe<Int2IntOpenHashMap> stripe = lockWrite(((Map.Entry<?, ?>) o).getKey().hashCode());
 
-			writeLock.lock();
 			try {
-				bucket.clear();
+				return stripe.bucket.int2IntEntrySet().remove(o);
 			} finally {
-				writeLock.unlock();
+				unlockWrite(stripe);
 			}
 		}
+
+		@Override
+		public void clear() {
+			ConcurrentInt2IntOpenHashMap.this.clear();
+		}
+
 	}
 
 }
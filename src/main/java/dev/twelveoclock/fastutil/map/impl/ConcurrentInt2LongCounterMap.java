@@ -0,0 +1,207 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * A counting map for keys that are incremented far more often than they are read.
+ * <p>
+ * Every key owns a {@link LongAdder}, its stripe's write lock is only taken the first time the key is counted,
+ * after that increments land in the adder's cells and a hot key no longer serializes writers. {@link #get(int)} merges the cells.
+ * Increments racing with {@link #remove(int)} or {@link #clear()} may be lost along with the removed adder.
+ */
+public final class ConcurrentInt2LongCounterMap extends FastUtilConcurrentMap<Int2ObjectOpenHashMap<LongAdder>> {
+
+	private final float loadFactor;
+
+
+	public ConcurrentInt2LongCounterMap() {
+		this(DEFAULT_NUM_BUCKETS, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Defaults to {@link StripeLockMode#OPTIMISTIC}, every increment starts with a lookup.
+	 */
+	public ConcurrentInt2LongCounterMap(final int numBuckets, final int loadCapacity, final float loadFactor) {
+		this(numBuckets, loadCapacity, loadFactor, StripeLockMode.OPTIMISTIC);
+	}
+
+	public ConcurrentInt2LongCounterMap(final int numBuckets, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
+
+		super(numBuckets, lockMode);
+
+		this.loadFactor = loadFactor;
+
+		initBuckets(loadCapacity);
+	}
+
+
+	@Override
+	protected Int2ObjectOpenHashMap<LongAdder> newBucket(final int capacity) {
+		return new Int2ObjectOpenHashMap<>(capacity, loadFactor);
+	}
+
+	@Override
+	protected int bucketSize(final Int2ObjectOpenHashMap<LongAdder> bucket) {
+		return bucket.size();
+	}
+
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
+
+	@Override
+	protected void splitBucket(final Int2ObjectOpenHashMap<LongAdder> source, final Int2ObjectOpenHashMap<LongAdder> lower, final Int2ObjectOpenHashMap<LongAdder> upper, final int splitBit) {
+		for (final Int2ObjectMap.Entry<LongAdder> entry : Int2ObjectMaps.fastIterable(source)) {
+			final int key = entry.getIntKey();
+			(isUpperHalf(key, splitBit) ? upper : lower).put(key, entry.getValue());
+		}
+	}
+
+	public void add(final int key, final long delta) {
+		cell(key).add(delta);
+	}
+
+	public void increment(final int key) {
+		cell(key).increment();
+	}
+
+	public void decrement(final int key) {
+		cell(key).decrement();
+	}
+
+	/**
+	 * Merges the key's cells, concurrent increments may or may not be included.
+	 *
+	 * @return the count, or 0 if the key was never counted
+	 */
+	public long get(final int key) {
+
+		final LongAdder cell = find(key);
+
+		return cell == null ? 0 : cell.sum();
+	}
+
+	/**
+	 * Resets the key's count while keeping its cells, increments racing with the reset count towards the next period.
+	 *
+	 * @return the count before the reset, or 0 if the key was never counted
+	 */
+	public long sumThenReset(final int key) {
+
+		final LongAdder cell = find(key);
+
+		return cell == null ? 0 : cell.sumThenReset();
+	}
+
+	public boolean containsKey(final int key) {
+		return find(key) != null;
+	}
+
+	/**
+	 * @return the count of the removed key, or 0 if it was never counted
+	 */
+	public long remove(final int key) {
+
+		final Stripe<Int2ObjectOpenHashMap<LongAdder>> stripe = lockWrite(key);
+
+		final LongAdder cell;
+
+		try {
+			cell = stripe.bucket.remove(key);
+		} finally {
+			unlockWrite(stripe);
+		}
+
+		return cell == null ? 0 : cell.sum();
+	}
+
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
+
+	/**
+	 * Merges every key's cells into a new map, one stripe at a time.
+	 */
+	public Int2LongOpenHashMap snapshot() {
+
+		final Int2LongOpenHashMap snapshot = new Int2LongOpenHashMap(approximateSize());
+
+		forEachBucket(bucket -> {
+			for (final Int2ObjectMap.Entry<LongAdder> entry : Int2ObjectMaps.fastIterable(bucket)) {
+				snapshot.put(entry.getIntKey(), entry.getValue().sum());
+			}
+		});
+
+		return snapshot;
+	}
+
+
+	private LongAdder cell(final int key) {
+
+		final LongAdder cell = find(key);
+
+		if (cell != null) {
+			return cell;
+		}
+
+		final Stripe<Int2ObjectOpenHashMap<LongAdder>> stripe = lockWrite(key);
+
+		try {
+			// Another writer may have created it since the lookup
+			LongAdder created = stripe.bucket.get(key);
+
+			if (created == null) {
+				created = new LongAdder();
+				stripe.bucket.put(key, created);
+			}
+
+			return created;
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	private LongAdder find(final int key) {
+
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Int2ObjectOpenHashMap<LongAdder>> stripe = stripeFor(key);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final LongAdder cell = stripe.bucket.get(key);
+					if (stripe.validate(stamp)) {
+						return cell;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Int2ObjectOpenHashMap<LongAdder>> stripe = lockRead(key);
+
+		try {
+			return stripe.bucket.get(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+}
@@ -0,0 +1,323 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import lombok.Getter;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * A bounded int to object cache, each stripe evicts on its own with CLOCK once it goes over its share of the maximum weight.
+ * <p>
+ * The bound is shared out exactly between the stripes and kept per stripe, so the cache never goes over it,
+ * but may evict before reaching it when keys don't spread evenly.
+ * There are no more stripes than the maximum weight, and a value heavier than its stripe's share is evicted as soon as it's put.
+ * Hits take the read lock and set a reference bit, there is no global lock or access order list.
+ * The eviction listener runs after the stripe's lock has been released, on the thread whose write caused the eviction.
+ * Null values are not supported.
+ */
+public final class ConcurrentInt2ObjectCache<V> extends FastUtilConcurrentMap<Int2ObjectClockTable<V>> {
+
+	private final float loadFactor;
+
+	@Getter
+	private final long maximumWeight;
+
+	private final ToIntFunction<? super V> weigher;
+
+	private final EvictionListener<? super V> listener;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+
+	/**
+	 * Bounded by entry count.
+	 */
+	public ConcurrentInt2ObjectCache(final long maximumSize) {
+		this(DEFAULT_NUM_BUCKETS, maximumSize, value -> 1, null);
+	}
+
+	/**
+	 * @param weigher  The weight of a value, at least 0, weighed once when it's put.
+	 * @param listener Told about entries evicted to make room, not about removed or replaced ones, may be null.
+	 */
+	public ConcurrentInt2ObjectCache(final int numBuckets, final long maximumWeight, final ToIntFunction<? super V> weigher, final EvictionListener<? super V> listener) {
+		this(numBuckets, maximumWeight, weigher, listener, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR, StripeLockMode.REENTRANT);
+	}
+
+	public ConcurrentInt2ObjectCache(final int numBuckets, final long maximumWeight, final ToIntFunction<? super V> weigher, final EvictionListener<? super V> listener, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
+
+		// A stripe per unit of weight at most, so every share is at least 1
+		super(Math.min(numBuckets, (int) Math.min(Long.highestOneBit(Math.max(maximumWeight, 1)), 1 << 30)), lockMode);
+
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("Maximum weight must not be negative: " + maximumWeight);
+		}
+
+		this.loadFactor = loadFactor;
+		this.maximumWeight = maximumWeight;
+		this.weigher = Objects.requireNonNull(weigher);
+		this.listener = listener;
+
+		initBuckets(loadCapacity);
+
+		final int stripes = getNumBuckets();
+
+		// Floored shares with the remainder going to the first stripes, so they add up to the maximum weight
+		for (int i = 0; i < stripes; i++) {
+			initialBucket(i).maximumWeight = maximumWeight / stripes + (i < maximumWeight % stripes ? 1 : 0);
+		}
+	}
+
+
+	/**
+	 * The constructor shares the maximum weight out between the initial stripes, splits then halve a stripe's share.
+	 */
+	@Override
+	protected Int2ObjectClockTable<V> newBucket(final int capacity) {
+		return new Int2ObjectClockTable<>(capacity, loadFactor, 0);
+	}
+
+	@Override
+	protected int bucketSize(final Int2ObjectClockTable<V> bucket) {
+		return bucket.size();
+	}
+
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
+
+	@Override
+	protected void splitBucket(final Int2ObjectClockTable<V> source, final Int2ObjectClockTable<V> lower, final Int2ObjectClockTable<V> upper, final int splitBit) {
+		source.splitInto(lower, upper, key -> isUpperHalf(key, splitBit));
+	}
+
+	/**
+	 * Counts a hit or a miss and marks the entry as recently used.
+	 *
+	 * @return The cached value, or null.
+	 */
+	public V get(final int key) {
+
+		final V value = find(key);
+
+		(value == null ? misses : hits).increment();
+
+		return value;
+	}
+
+	/**
+	 * Doesn't count as a hit or miss, nor as a use of the entry.
+	 */
+	public boolean containsKey(final int key) {
+
+		final Stripe<Int2ObjectClockTable<V>> stripe = lockRead(key);
+
+		try {
+			return stripe.bucket.containsKey(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	/**
+	 * Loads a missing value under the stripe's write lock, so a key is loaded once however many threads ask for it.
+	 *
+	 * @return The cached or loaded value, or null if the loader returned null.
+	 */
+	public V computeIfAbsent(final int key, final IntFunction<? extends V> loader) {
+
+		final V cached = find(key);
+
+		if (cached != null) {
+			hits.increment();
+			return cached;
+		}
+
+		misses.increment();
+
+		final Stripe<Int2ObjectClockTable<V>> stripe = lockWrite(key);
+		final Int2ObjectArrayMap<V> evicted;
+		V value;
+
+		try {
+
+			value = stripe.bucket.get(key);
+
+			if (value == null && (value = loader.apply(key)) != null) {
+				stripe.bucket.put(key, value, weigh(value));
+			}
+
+			evicted = stripe.bucket.takeEvicted();
+		} finally {
+			unlockWrite(stripe);
+		}
+
+		notifyEvicted(evicted);
+
+		return value;
+	}
+
+	/**
+	 * @return The previous value, or null.
+	 */
+	public V put(final int key, final V value) {
+
+		final int weight = weigh(Objects.requireNonNull(value));
+		final Stripe<Int2ObjectClockTable<V>> stripe = lockWrite(key);
+		final Int2ObjectArrayMap<V> evicted;
+		final V old;
+
+		try {
+			old = stripe.bucket.put(key, value, weight);
+			evicted = stripe.bucket.takeEvicted();
+		} finally {
+			unlockWrite(stripe);
+		}
+
+		notifyEvicted(evicted);
+
+		return old;
+	}
+
+	/**
+	 * Doesn't call the eviction listener.
+	 *
+	 * @return The removed value, or null.
+	 */
+	public V remove(final int key) {
+
+		final Stripe<Int2ObjectClockTable<V>> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.remove(key);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
+
+	/**
+	 * The summed weight of the cached values, read stripe by stripe.
+	 */
+	public long weight() {
+
+		final long[] weight = new long[1];
+
+		forEachBucket(bucket -> weight[0] += bucket.weight());
+
+		return weight[0];
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public void resetCounts() {
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+	}
+
+
+	private int weigh(final V value) {
+
+		final int weight = weigher.applyAsInt(value);
+
+		if (weight < 0) {
+			throw new IllegalArgumentException("Weight must not be negative: " + weight);
+		}
+
+		return weight;
+	}
+
+	private V find(final int key) {
+
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Int2ObjectClockTable<V>> stripe = stripeFor(key);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					// Only looks, a hit whose reference bit isn't set yet is marked under the read lock below
+					final Int2ObjectClockTable<V> bucket = stripe.bucket;
+					final int slot = bucket.slotOf(key);
+					final V value = slot < 0 ? null : bucket.valueAt(slot);
+					final boolean marked = slot < 0 || bucket.isReferenced(slot);
+					if (stripe.validate(stamp) && marked) {
+						return value;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a resize, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Int2ObjectClockTable<V>> stripe = lockRead(key);
+
+		try {
+			return stripe.bucket.get(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	private void notifyEvicted(final Int2ObjectArrayMap<V> evicted) {
+
+		if (evicted == null) {
+			return;
+		}
+
+		evictions.add(evicted.size());
+
+		if (listener == null) {
+			return;
+		}
+
+		for (final Int2ObjectMap.Entry<V> entry : Int2ObjectMaps.fastIterable(evicted)) {
+			listener.onEviction(entry.getIntKey(), entry.getValue());
+		}
+	}
+
+
+	/**
+	 * Told about every entry evicted to stay within the maximum weight.
+	 */
+	@FunctionalInterface
+	public interface EvictionListener<V> {
+
+		void onEviction(final int key, final V value);
+
+	}
+
+}
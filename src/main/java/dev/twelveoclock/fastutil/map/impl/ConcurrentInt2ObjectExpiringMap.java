@@ -0,0 +1,213 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * An int to object map whose entries expire a fixed time after they were last written, last accessed, or whichever comes first.
+ * <p>
+ * Each stripe keeps a timer wheel, writes to a stripe first sweep its expired entries, so purging costs a little per write
+ * rather than a scan of the map. Expired entries are invisible to reads right away, but only leave the stripe, and
+ * {@link #size()}, once it's written to again or {@link #cleanUp()} runs.
+ * Null values are not supported.
+ */
+public final class ConcurrentInt2ObjectExpiringMap<V> extends FastUtilConcurrentMap<Int2ObjectExpiringTable<V>> {
+
+	// Keeps deadlines far from overflowing, about 146 years
+	private static final long MAX_EXPIRY_NANOS = Long.MAX_VALUE >> 1;
+
+	private final float loadFactor;
+
+	private final long expireAfterWriteNanos;
+
+	private final long expireAfterAccessNanos;
+
+	private final LongSupplier ticker;
+
+
+	/**
+	 * @param expireAfterWrite  How long an entry lives after it was put, null for no limit.
+	 * @param expireAfterAccess How long an entry lives after it was put or last read, null for no limit.
+	 */
+	public ConcurrentInt2ObjectExpiringMap(final Duration expireAfterWrite, final Duration expireAfterAccess) {
+		this(DEFAULT_NUM_BUCKETS, expireAfterWrite, expireAfterAccess, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR, System::nanoTime);
+	}
+
+	/**
+	 * @param ticker The current time in nanoseconds, like {@link System#nanoTime()}.
+	 */
+	public ConcurrentInt2ObjectExpiringMap(final int numBuckets, final Duration expireAfterWrite, final Duration expireAfterAccess, final int loadCapacity, final float loadFactor, final LongSupplier ticker) {
+
+		super(numBuckets);
+
+		if (expireAfterWrite == null && expireAfterAccess == null) {
+			throw new IllegalArgumentException("Either expireAfterWrite or expireAfterAccess has to be set");
+		}
+
+		this.loadFactor = loadFactor;
+		this.expireAfterWriteNanos = toNanos(expireAfterWrite);
+		this.expireAfterAccessNanos = toNanos(expireAfterAccess);
+		this.ticker = Objects.requireNonNull(ticker);
+
+		initBuckets(loadCapacity);
+	}
+
+
+	@Override
+	protected Int2ObjectExpiringTable<V> newBucket(final int capacity) {
+		return new Int2ObjectExpiringTable<>(capacity, loadFactor, ticker.getAsLong(), expireAfterWriteNanos, expireAfterAccessNanos);
+	}
+
+	@Override
+	protected int bucketSize(final Int2ObjectExpiringTable<V> bucket) {
+		return bucket.size();
+	}
+
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
+
+	@Override
+	protected void splitBucket(final Int2ObjectExpiringTable<V> source, final Int2ObjectExpiringTable<V> lower, final Int2ObjectExpiringTable<V> upper, final int splitBit) {
+		source.splitInto(lower, upper, ticker.getAsLong(), key -> isUpperHalf(key, splitBit));
+	}
+
+	/**
+	 * Counts as an access.
+	 *
+	 * @return The value, or null if it's absent or expired.
+	 */
+	public V get(final int key) {
+
+		final Stripe<Int2ObjectExpiringTable<V>> stripe = lockRead(key);
+
+		try {
+			return stripe.bucket.get(key, ticker.getAsLong());
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	/**
+	 * Doesn't count as an access.
+	 */
+	public boolean containsKey(final int key) {
+
+		final Stripe<Int2ObjectExpiringTable<V>> stripe = lockRead(key);
+
+		try {
+			return stripe.bucket.containsKey(key, ticker.getAsLong());
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	/**
+	 * Restarts the entry's expiry.
+	 *
+	 * @return The previous value, or null.
+	 */
+	public V put(final int key, final V value) {
+		return put(key, value, false);
+	}
+
+	/**
+	 * @return The current value, or null if the value was put.
+	 */
+	public V putIfAbsent(final int key, final V value) {
+		return put(key, value, true);
+	}
+
+	/**
+	 * Runs the mapping function under the stripe's write lock.
+	 *
+	 * @return The current or computed value, or null if the function returned null.
+	 */
+	public V computeIfAbsent(final int key, final IntFunction<? extends V> mappingFunction) {
+
+		final Stripe<Int2ObjectExpiringTable<V>> stripe = lockWrite(key);
+
+		try {
+
+			final long now = ticker.getAsLong();
+
+			V value = stripe.bucket.get(key, now);
+
+			if (value == null && (value = mappingFunction.apply(key)) != null) {
+				stripe.bucket.put(key, value, now, true);
+			}
+
+			return value;
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * @return The removed value, or null if it was absent or expired.
+	 */
+	public V remove(final int key) {
+
+		final Stripe<Int2ObjectExpiringTable<V>> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.remove(key, ticker.getAsLong());
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
+
+	/**
+	 * Sweeps the expired entries of every stripe, for maps that may go a while without writes.
+	 */
+	public void cleanUp() {
+		updateBuckets(bucket -> {
+			bucket.expire(ticker.getAsLong());
+			return true;
+		});
+	}
+
+
+	private V put(final int key, final V value, final boolean onlyIfAbsent) {
+
+		Objects.requireNonNull(value);
+
+		final Stripe<Int2ObjectExpiringTable<V>> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.put(key, value, ticker.getAsLong(), onlyIfAbsent);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	private static long toNanos(final Duration duration) {
+
+		if (duration == null) {
+			return -1;
+		}
+
+		if (duration.isNegative()) {
+			throw new IllegalArgumentException("Expiry must not be negative: " + duration);
+		}
+
+		return duration.compareTo(Duration.ofNanos(MAX_EXPIRY_NANOS)) > 0 ? MAX_EXPIRY_NANOS : duration.toNanos();
+	}
+
+}
@@ -1,189 +1,346 @@
 package dev.twelveoclock.fastutil.map.impl;
 
+import dev.twelveoclock.fastutil.base.StripeLockMode;
 import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
 import it.unimi.dsi.fastutil.ints.*;
+import it.unimi.dsi.fastutil.objects.AbstractObjectCollection;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrays;
 import it.unimi.dsi.fastutil.objects.ObjectCollection;
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectSpliterator;
 import lombok.Getter;
 
+import java.util.Arrays;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
 
 
-public final class ConcurrentInt2ObjectOpenHashMap<V> extends FastUtilConcurrentMap implements Int2ObjectMap<V> {
+public final class ConcurrentInt2ObjectOpenHashMap<V> extends FastUtilConcurrentMap<Int2ObjectOpenHashMap<V>> implements Int2ObjectMap<V> {
 
-	private final Int2ObjectMap<V>[] buckets;
+	private final float loadFactor;
 
 	@Getter
 	private V defaultValue;
 
+	// Views are stateless, so racing to create them is harmless
+	private KeySet keySet;
+
+	private Values values;
+
+	private EntrySet entrySet;
+
 
 	public ConcurrentInt2ObjectOpenHashMap() {
-		this(Runtime.getRuntime().availableProcessors() - 1, null, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+		this(DEFAULT_NUM_BUCKETS, null, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
 	}
 
 	public ConcurrentInt2ObjectOpenHashMap(final int numBuckets, final V defaultValue, final int loadCapacity, final float loadFactor) {
+		this(numBuckets, defaultValue, loadCapacity, loadFactor, StripeLockMode.REENTRANT);
+	}
 
-		super(numBuckets);
+	public ConcurrentInt2ObjectOpenHashMap(final int numBuckets, final V defaultValue, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
 
-		//noinspection unchecked
-		this.buckets = new Int2ObjectMap[numBuckets];
-		this.defaultValue = defaultValue;
+		super(numBuckets, lockMode);
 
-		final int bucketLoadCapacity = (int) Math.ceil(((double) loadCapacity) / numBuckets);
+		this.loadFactor = loadFactor;
+		this.defaultValue = defaultValue;
 
-		for (int i = 0; i < numBuckets; i++) {
-			final Int2ObjectOpenHashMap<V> int2IntOpenHashMap = new Int2ObjectOpenHashMap(bucketLoadCapacity, loadFactor);
-			if (defaultValue != null) {
-				int2IntOpenHashMap.defaultReturnValue(defaultValue);
-			}
-			buckets[i] = int2IntOpenHashMap;
-		}
+		initBuckets(loadCapacity);
 	}
 
+
 	@Override
-	public int size() {
+	protected Int2ObjectOpenHashMap<V> newBucket(final int capacity) {
 
-		int size = 0;
+		final Int2ObjectOpenHashMap<V> bucket = new Int2ObjectOpenHashMap<>(capacity, loadFactor);
 
-		for (final Int2ObjectMap<V> bucket : buckets) {
-			size += bucket.size();
+		if (defaultValue != null) {
+			bucket.defaultReturnValue(defaultValue);
 		}
 
-		return size;
+		return bucket;
 	}
 
 	@Override
-	public boolean isEmpty() {
+	protected int bucketSize(final Int2ObjectOpenHashMap<V> bucket) {
+		return bucket.size();
+	}
 
-		for (final Int2ObjectMap<V> bucket : buckets) {
-			if (!bucket.isEmpty()) {
-				return false;
-			}
-		}
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
 
-		return true;
+	@Override
+	protected void splitBucket(final Int2ObjectOpenHashMap<V> source, final Int2ObjectOpenHashMap<V> lower, final Int2ObjectOpenHashMap<V> upper, final int splitBit) {
+		for (final Int2ObjectMap.Entry<V> entry : Int2ObjectMaps.fastIterable(source)) {
+			final int key = entry.getIntKey();
+			(isUpperHalf(key, splitBit) ? upper : lower).put(key, entry.getValue());
+		}
 	}
 
 	@Override
 	public void putAll(final Map<? extends Integer, ? extends V> m) {
+
+		if (m instanceof Int2ObjectMap) {
+			//noinspection unchecked
+			putAll((Int2ObjectMap<? extends V>) m);
+			return;
+		}
+
+		int[] keys = new int[m.size()];
+		Object[] values = new Object[keys.length];
+
+		int size = 0;
+
 		for (final Map.Entry<? extends Integer, ? extends V> entry : m.entrySet()) {
 
-			final int bucket = getBucket(entry.getKey());
-			final Lock writeLock = locks[bucket].writeLock();
+			// Grew since it was sized
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
+			}
 
-			writeLock.lock();
-			try {
-				buckets[bucket].put(entry.getKey(), entry.getValue());
-			} finally {
-				writeLock.unlock();
+			keys[size] = entry.getKey();
+			values[size++] = entry.getValue();
+		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Like {@link #putAll(Map)}, without boxing.
+	 */
+	public void putAll(final Int2ObjectMap<? extends V> m) {
+
+		int[] keys = new int[m.size()];
+		Object[] values = new Object[keys.length];
+
+		int size = 0;
+
+		for (final Int2ObjectMap.Entry<? extends V> entry : Int2ObjectMaps.fastIterable(m)) {
+
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
 			}
+
+			keys[size] = entry.getIntKey();
+			values[size++] = entry.getValue();
 		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Puts {@code keys[offset + i]} to {@code values[offset + i]} for every i below length, a later duplicate key wins.
+	 */
+	public void putAll(final int[] keys, final V[] values, final int offset, final int length) {
+
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+
+		putBatch(keys, values, offset, length);
 	}
 
 	@Override
 	public V put(final int key, final V value) {
 
-		final int bucket = getBucket(key);
-		final Lock writeLock = locks[bucket].writeLock();
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
 
-		writeLock.lock();
 		try {
-			return buckets[bucket].put(key, value);
+			return stripe.bucket.put(key, value);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
 	public V remove(final int key) {
 
-		final int bucket = getBucket(key);
-		final Lock writeLock = locks[bucket].writeLock();
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
 
-		writeLock.lock();
 		try {
-			return buckets[bucket].remove(key);
+			return stripe.bucket.remove(key);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
-	public void defaultReturnValue(final V rv) {
+	public V getOrDefault(final int key, final V defaultValue) {
 
-		this.defaultValue = rv;
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockRead(key);
 
-		for (final Int2ObjectMap<V> bucket : buckets) {
-			bucket.defaultReturnValue(rv);
+		try {
+			return stripe.bucket.getOrDefault(key, defaultValue);
+		} finally {
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
-	public V defaultReturnValue() {
-		return defaultValue;
+	public V putIfAbsent(final int key, final V value) {
+
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.putIfAbsent(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
 	}
 
 	@Override
-	public ObjectSet<Entry<V>> int2ObjectEntrySet() {
+	public boolean remove(final int key, final Object value) {
 
-		final Int2ObjectOpenHashMap<V> map = new Int2ObjectOpenHashMap<>(size());
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
 
-		for (int i = 0; i < buckets.length; i++) {
+		try {
+			return stripe.bucket.remove(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
 
-			final Int2ObjectMap<V> bucket = buckets[i];
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public boolean replace(final int key, final V oldValue, final V newValue) {
 
-			readLock.lock();
-			try {
-				map.putAll(bucket);
-			} finally {
-				readLock.unlock();
-			}
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.replace(key, oldValue, newValue);
+		} finally {
+			unlockWrite(stripe);
 		}
+	}
+
+	@Override
+	public V replace(final int key, final V value) {
 
-		return map.int2ObjectEntrySet();
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.replace(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
 	}
 
+	/**
+	 * Runs the mapping function under the key's stripe write lock, so it must not access other keys of this map.
+	 */
 	@Override
-	public IntSet keySet() {
+	public V computeIfAbsent(final int key, final IntFunction<? extends V> mappingFunction) {
 
-		final IntOpenHashSet keySets = new IntOpenHashSet(buckets.length);
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
 
-		for (int i = 0; i < buckets.length; i++) {
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public V computeIfAbsent(final int key, final Int2ObjectFunction<? extends V> mappingFunction) {
 
-			final Lock readLock = locks[i].readLock();
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
 
-			readLock.lock();
-			try {
-				keySets.addAll(buckets[i].keySet());
-			} finally {
-				readLock.unlock();
-			}
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
 		}
+	}
+
+	@Override
+	public V computeIfPresent(final int key, final BiFunction<? super Integer, ? super V, ? extends V> remappingFunction) {
+
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
 
-		return keySets;
+		try {
+			return stripe.bucket.computeIfPresent(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
 	}
 
 	@Override
-	public ObjectCollection<V> values() {
+	public V compute(final int key, final BiFunction<? super Integer, ? super V, ? extends V> remappingFunction) {
 
-		final ObjectOpenHashSet<V> values = new ObjectOpenHashSet<>();
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
 
-		for (int i = 0; i < buckets.length; i++) {
+		try {
+			return stripe.bucket.compute(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
 
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public V merge(final int key, final V value, final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
 
-			readLock.lock();
-			try {
-				values.addAll(buckets[i].values());
-			} finally {
-				readLock.unlock();
-			}
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
+
+		try {
+			return stripe.bucket.merge(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public void defaultReturnValue(final V rv) {
+
+		this.defaultValue = rv;
+
+		updateBuckets(bucket -> {
+			bucket.defaultReturnValue(rv);
+			return false;
+		});
+	}
+
+	@Override
+	public V defaultReturnValue() {
+		return defaultValue;
+	}
+
+	@Override
+	public ObjectSet<Entry<V>> int2ObjectEntrySet() {
+
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+
+		return entrySet;
+	}
+
+	@Override
+	public IntSet keySet() {
+
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+
+		return keySet;
+	}
+
+	@Override
+	public ObjectCollection<V> values() {
+
+		if (values == null) {
+			values = new Values();
 		}
 
 		return values;
@@ -192,67 +349,457 @@ public final class ConcurrentInt2ObjectOpenHashMap<V> extends FastUtilConcurrent
 	@Override
 	public V get(final int key) {
 
-		final int bucketIndex = getBucket(key);
-		final Int2ObjectMap<V> bucket = buckets[bucketIndex];
-		final Lock readLock = locks[bucketIndex].readLock();
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Int2ObjectOpenHashMap<V>> stripe = stripeFor(key);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final V value = stripe.bucket.get(key);
+					if (stripe.validate(stamp)) {
+						return value;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockRead(key);
 
-		readLock.lock();
 		try {
-			return bucket.get(key);
+			return stripe.bucket.get(key);
 		} finally {
-			readLock.unlock();
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
 	public boolean containsKey(final int key) {
 
-		final int bucketIndex = getBucket(key);
-		final Int2ObjectMap<V> bucket = buckets[bucketIndex];
-		final Lock readLock = locks[bucketIndex].readLock();
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Int2ObjectOpenHashMap<V>> stripe = stripeFor(key);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final boolean result = stripe.bucket.containsKey(key);
+					if (stripe.validate(stamp)) {
+						return result;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockRead(key);
 
-		readLock.lock();
 		try {
-			return bucket.containsKey(key);
+			return stripe.bucket.containsKey(key);
 		} finally {
-			readLock.unlock();
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
 	public boolean containsValue(final Object value) {
-		for (int i = 0; i < buckets.length; i++) {
+		return anyBucket(bucket -> bucket.containsValue(value));
+	}
 
-			final Int2ObjectMap<V> bucket = buckets[i];
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
 
-			readLock.lock();
-			try {
-				if (bucket.containsValue(value)) {
-					return true;
+
+	/**
+	 * Puts {@code length} pairs from {@code offset} with one write lock and one table resize per stripe.
+	 */
+	private void putBatch(final int[] keys, final Object[] values, final int offset, final int length) {
+
+		final int[] hashCodes = new int[length];
+
+		for (int i = 0; i < length; i++) {
+			hashCodes[i] = keys[offset + i];
+		}
+
+		updateBatch(hashCodes, (bucket, indexes, from, to) -> {
+
+			final int[] shareKeys = new int[to - from];
+			final Object[] shareValues = new Object[to - from];
+
+			for (int i = from; i < to; i++) {
+				shareKeys[i - from] = keys[offset + indexes[i]];
+				shareValues[i - from] = values[offset + indexes[i]];
+			}
+
+			// Sizes the table once for the whole share
+			//noinspection unchecked
+			bucket.putAll(new Int2ObjectArrayMap<>(shareKeys, (V[]) shareValues, shareKeys.length));
+
+			return true;
+		});
+	}
+
+
+	private class MapIterator extends StripeIterator<ObjectIterator<Int2ObjectMap.Entry<V>>> {
+
+		int[] keys = IntArrays.EMPTY_ARRAY;
+
+		Object[] values = ObjectArrays.EMPTY_ARRAY;
+
+		private int lastKey;
+
+		private boolean canRemove;
+
+
+		@Override
+		protected ObjectIterator<Int2ObjectMap.Entry<V>> open(final Int2ObjectOpenHashMap<V> bucket) {
+			return Int2ObjectMaps.fastIterator(bucket);
+		}
+
+		@Override
+		protected int read(final Int2ObjectOpenHashMap<V> bucket, final ObjectIterator<Int2ObjectMap.Entry<V>> source, final int offset, final int max) {
+
+			grow(offset + Math.min(max, bucket.size()));
+
+			int read = 0;
+
+			while (read < max && source.hasNext()) {
+				final Int2ObjectMap.Entry<V> entry = source.next();
+				keys[offset + read] = entry.getIntKey();
+				values[offset + read++] = entry.getValue();
+			}
+
+			return read;
+		}
+
+		@Override
+		protected int readMissing(final Int2ObjectOpenHashMap<V> bucket, int offset, final int returned) {
+
+			final IntOpenHashSet seen = new IntOpenHashSet(keys, 0, returned);
+
+			grow(offset + bucket.size());
+
+			for (final Int2ObjectMap.Entry<V> entry : Int2ObjectMaps.fastIterable(bucket)) {
+				if (!seen.contains(entry.getIntKey())) {
+					keys[offset] = entry.getIntKey();
+					values[offset++] = entry.getValue();
 				}
+			}
+
+			return offset;
+		}
+
+		@Override
+		protected void copyTo(final StripeIterator<ObjectIterator<Int2ObjectMap.Entry<V>>> prefix, final int from, final int to) {
+
+			final MapIterator split = (MapIterator) prefix;
+
+			split.keys = Arrays.copyOfRange(keys, from, to);
+			split.values = Arrays.copyOfRange(values, from, to);
+		}
+
+		public boolean hasNext() {
+			return position < size || fill();
+		}
+
+		public void remove() {
+
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			canRemove = false;
+			ConcurrentInt2ObjectOpenHashMap.this.remove(lastKey);
+		}
+
+		int nextIndex() {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			lastKey = keys[position];
+			canRemove = true;
+
+			return position++;
+		}
+
+
+		private void grow(final int length) {
+			keys = IntArrays.grow(keys, length);
+			values = ObjectArrays.grow(values, length);
+		}
+
+	}
+
+	private final class KeyIterator extends MapIterator implements IntIterator {
+
+		@Override
+		public int nextInt() {
+
+			final int index = nextIndex();
+
+			return keys[index];
+		}
+
+	}
+
+	private final class ValueIterator extends MapIterator implements ObjectIterator<V> {
+
+		@Override
+		public V next() {
+
+			final int index = nextIndex();
+
+			return (V) values[index];
+		}
+
+	}
+
+	private final class EntryIterator extends MapIterator implements ObjectIterator<Int2ObjectMap.Entry<V>> {
+
+		@Override
+		public Int2ObjectMap.Entry<V> next() {
+
+			final int index = nextIndex();
+
+			return new MapEntry(keys[index], (V) values[index]);
+		}
+
+	}
+
+	private final class KeySpliterator extends MapIterator implements IntSpliterator {
+
+		@Override
+		public boolean tryAdvance(final java.util.function.IntConsumer action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			action.accept(keys[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public IntSpliterator trySplit() {
+			return trySplit(KeySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class ValueSpliterator extends MapIterator implements ObjectSpliterator<V> {
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super V> action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			//noinspection unchecked
+			action.accept((V) values[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<V> trySplit() {
+			return trySplit(ValueSpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class EntrySpliterator extends MapIterator implements ObjectSpliterator<Int2ObjectMap.Entry<V>> {
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Int2ObjectMap.Entry<V>> action) {
+
+			if (!hasNext()) {
+				return false;
+			}
+
+			final int index = nextIndex();
+
+			//noinspection unchecked
+			action.accept(new MapEntry(keys[index], (V) values[index]));
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<Int2ObjectMap.Entry<V>> trySplit() {
+			return trySplit(EntrySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	// Writes through to the map, like ConcurrentHashMap's entries
+	private final class MapEntry extends AbstractInt2ObjectMap.BasicEntry<V> {
+
+		private MapEntry(final int key, final V value) {
+			super(key, value);
+		}
+
+		@Override
+		public V setValue(final V value) {
+
+			final V old = this.value;
+
+			this.value = value;
+			put(key, value);
+
+			return old;
+		}
+
+	}
+
+	private final class KeySet extends AbstractIntSet {
+
+		@Override
+		public IntIterator iterator() {
+			return new KeyIterator();
+		}
+
+		@Override
+		public IntSpliterator spliterator() {
+			return new KeySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentInt2ObjectOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final int key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(final int key) {
+
+			final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(key);
+
+			try {
+				return stripe.bucket.keySet().remove(key);
 			} finally {
-				readLock.unlock();
+				unlockWrite(stripe);
 			}
 		}
 
-		return false;
+		@Override
+		public void clear() {
+			ConcurrentInt2ObjectOpenHashMap.this.clear();
+		}
+
 	}
 
-	@Override
-	public void clear() {
-		for (int i = 0; i < buckets.length; i++) {
+	private final class Values extends AbstractObjectCollection<V> {
+
+		@Override
+		public ObjectIterator<V> iterator() {
+			return new ValueIterator();
+		}
+
+		@Override
+		public ObjectSpliterator<V> spliterator() {
+			return new ValueSpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentInt2ObjectOpenHashMap.this.size();
+		}
 
-			final Int2ObjectMap<V> bucket = buckets[i];
-			final Lock writeLock = locks[i].writeLock();
+		@Override
+		public boolean contains(final Object value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentInt2ObjectOpenHashMap.this.clear();
+		}
+
+	}
+
+	private final class EntrySet extends AbstractObjectSet<Int2ObjectMap.Entry<V>> {
+
+		@Override
+		public ObjectIterator<Int2ObjectMap.Entry<V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public ObjectSpliterator<Int2ObjectMap.Entry<V>> spliterator() {
+			return new EntrySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentInt2ObjectOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Integer)) {
+				return false;
+			}
+
+			final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockRead(((Map.Entry<?, ?>) o).getKey().hashCode());
+
+			try {
+				return stripe.bucket.int2ObjectEntrySet().contains(o);
+			} finally {
+				unlockRead(stripe);
+			}
+		}
+
+		@Override
+		public boolean remove(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Integer)) {
+				return false;
+			}
+
+			final Stripe<Int2ObjectOpenHashMap<V>> stripe = lockWrite(((Map.Entry<?, ?>) o).getKey().hashCode());
 
-			writeLock.lock();
 			try {
-				bucket.clear();
+				return stripe.bucket.int2ObjectEntrySet().remove(o);
 			} finally {
-				writeLock.unlock();
+				unlockWrite(stripe);
 			}
 		}
+
+		@Override
+		public void clear() {
+			ConcurrentInt2ObjectOpenHashMap.this.clear();
+		}
+
 	}
 
 }
@@ -0,0 +1,891 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
+import it.unimi.dsi.fastutil.ints.AbstractIntCollection;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntSpliterator;
+import it.unimi.dsi.fastutil.longs.*;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.ObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectSpliterator;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.LongToIntFunction;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * A striped long to int map whose stripe tables live in direct buffers, so the heap only holds the stripes themselves.
+ * <p>
+ * Always uses {@link StripeLockMode#REENTRANT}, an optimistic read racing with a resize could touch freed memory.
+ * Tables are freed as soon as a resize or split replaces them, {@link #close()} frees the rest and leaves the map unusable.
+ * <p>
+ * Tables are direct buffers, which count against {@code -XX:MaxDirectMemorySize} rather than the heap. That limit defaults
+ * to the maximum heap size, raise it for maps larger than the heap or a resize fails with an {@link OutOfMemoryError}.
+ */
+public final class ConcurrentLong2IntOffHeapHashMap extends FastUtilConcurrentMap<OffHeapLong2IntTable> implements Long2IntMap, AutoCloseable {
+
+	private final float loadFactor;
+
+	@Getter
+	private int defaultValue;
+
+	// Views are stateless, so racing to create them is harmless
+	private KeySet keySet;
+
+	private Values values;
+
+	private EntrySet entrySet;
+
+
+	public ConcurrentLong2IntOffHeapHashMap() {
+		this(DEFAULT_NUM_BUCKETS, 0, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+	}
+
+	public ConcurrentLong2IntOffHeapHashMap(final int numBuckets, final int defaultValue, final int loadCapacity, final float loadFactor) {
+
+		super(numBuckets, StripeLockMode.REENTRANT);
+
+		this.loadFactor = loadFactor;
+		this.defaultValue = defaultValue;
+
+		initBuckets(loadCapacity);
+	}
+
+
+	@Override
+	protected OffHeapLong2IntTable newBucket(final int capacity) {
+
+		final OffHeapLong2IntTable bucket = new OffHeapLong2IntTable(capacity, loadFactor);
+
+		if (defaultValue != 0) {
+			bucket.defaultReturnValue(defaultValue);
+		}
+
+		return bucket;
+	}
+
+	@Override
+	protected int bucketSize(final OffHeapLong2IntTable bucket) {
+		return bucket.size();
+	}
+
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
+
+	/**
+	 * Closed tables are never split, {@link #close()} takes every stripe's write lock and a split could follow it.
+	 */
+	@Override
+	protected boolean isSplittable(final OffHeapLong2IntTable bucket) {
+		return bucket.isOpen();
+	}
+
+	@Override
+	protected long bucketTableLength(final OffHeapLong2IntTable bucket) {
+		return bucket.capacity();
+	}
+
+	@Override
+	protected void splitBucket(final OffHeapLong2IntTable source, final OffHeapLong2IntTable lower, final OffHeapLong2IntTable upper, final int splitBit) {
+		for (final Long2IntMap.Entry entry : Long2IntMaps.fastIterable(source)) {
+			final long key = entry.getLongKey();
+			(isUpperHalf(Long.hashCode(key), splitBit) ? upper : lower).put(key, entry.getIntValue());
+		}
+
+		// The stripe is forwarded once this returns, nothing reads the source again
+		source.close();
+	}
+
+	@Override
+	public void putAll(final Map<? extends Long, ? extends Integer> m) {
+
+		if (m instanceof Long2IntMap) {
+			putAll((Long2IntMap) m);
+			return;
+		}
+
+		long[] keys = new long[m.size()];
+		int[] values = new int[keys.length];
+
+		int size = 0;
+
+		for (final Map.Entry<? extends Long, ? extends Integer> entry : m.entrySet()) {
+
+			// Grew since it was sized
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
+			}
+
+			keys[size] = entry.getKey();
+			values[size++] = entry.getValue();
+		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Like {@link #putAll(Map)}, without boxing.
+	 */
+	public void putAll(final Long2IntMap m) {
+
+		long[] keys = new long[m.size()];
+		int[] values = new int[keys.length];
+
+		int size = 0;
+
+		for (final Long2IntMap.Entry entry : Long2IntMaps.fastIterable(m)) {
+
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
+			}
+
+			keys[size] = entry.getLongKey();
+			values[size++] = entry.getIntValue();
+		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Puts {@code keys[offset + i]} to {@code values[offset + i]} for every i below length, a later duplicate key wins.
+	 */
+	public void putAll(final long[] keys, final int[] values, final int offset, final int length) {
+
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+
+		putBatch(keys, values, offset, length);
+	}
+
+	@Override
+	public int put(final long key, final int value) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.put(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int remove(final long key) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.remove(key);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int getOrDefault(final long key, final int defaultValue) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.getOrDefault(key, defaultValue);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	@Override
+	public int putIfAbsent(final long key, final int value) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.putIfAbsent(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public boolean remove(final long key, final int value) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.remove(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public boolean replace(final long key, final int oldValue, final int newValue) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.replace(key, oldValue, newValue);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int replace(final long key, final int value) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.replace(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Runs the mapping function under the key's stripe write lock, so it must not access other keys of this map.
+	 */
+	@Override
+	public int computeIfAbsent(final long key, final LongToIntFunction mappingFunction) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int computeIfAbsentNullable(final long key, final LongFunction<? extends Integer> mappingFunction) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfAbsentNullable(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int computeIfAbsent(final long key, final Long2IntFunction mappingFunction) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int computeIfPresent(final long key, final BiFunction<? super Long, ? super Integer, ? extends Integer> remappingFunction) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfPresent(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int compute(final long key, final BiFunction<? super Long, ? super Integer, ? extends Integer> remappingFunction) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.compute(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int merge(final long key, final int value, final BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.merge(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int mergeInt(final long key, final int value, final java.util.function.IntBinaryOperator remappingFunction) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.mergeInt(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Adds the increment to the key's value, starting from the default value if absent.
+	 *
+	 * @return the previous value, or the default value if absent
+	 */
+	public int addTo(final long key, final int increment) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.addTo(key, increment);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Same as {@link #addTo(long, int)}, named after {@link java.util.concurrent.atomic.AtomicInteger}.
+	 */
+	public int getAndAdd(final long key, final int delta) {
+		return addTo(key, delta);
+	}
+
+	/**
+	 * @return the value after adding the delta
+	 */
+	public int addAndGet(final long key, final int delta) {
+		return addTo(key, delta) + delta;
+	}
+
+	/**
+	 * @return the value after incrementing
+	 */
+	public int incrementAndGet(final long key) {
+		return addAndGet(key, 1);
+	}
+
+	/**
+	 * Replaces the key's value, or the default value if absent, with {@code accumulator.applyAsInt(value, x)}.
+	 * The accumulator runs under the key's stripe write lock, so it must not access this map.
+	 *
+	 * @return the new value
+	 */
+	public int accumulate(final long key, final int x, final java.util.function.IntBinaryOperator accumulator) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			final int value = accumulator.applyAsInt(stripe.bucket.get(key), x);
+			stripe.bucket.put(key, value);
+
+			return value;
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public void defaultReturnValue(final int rv) {
+
+		this.defaultValue = rv;
+
+		updateBuckets(bucket -> {
+			bucket.defaultReturnValue(rv);
+			return false;
+		});
+	}
+
+	@Override
+	public int defaultReturnValue() {
+		return defaultValue;
+	}
+
+	@Override
+	public ObjectSet<Entry> long2IntEntrySet() {
+
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+
+		return entrySet;
+	}
+
+	@Override
+	public LongSet keySet() {
+
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+
+		return keySet;
+	}
+
+	@NonNull
+	@Override
+	public IntCollection values() {
+
+		if (values == null) {
+			values = new Values();
+		}
+
+		return values;
+	}
+
+	@Override
+	public int get(final long key) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.get(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	@Override
+	public boolean containsKey(final long key) {
+
+		final Stripe<OffHeapLong2IntTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.containsKey(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	@Override
+	public boolean containsValue(final int value) {
+		return anyBucket(bucket -> bucket.containsValue(value));
+	}
+
+	@Override
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
+
+	/**
+	 * Frees every stripe's table, any later access but the size throws {@link IllegalStateException}. Closing twice does nothing.
+	 */
+	@Override
+	public void close() {
+		updateBuckets(bucket -> {
+			bucket.close();
+			return true;
+		});
+	}
+
+
+	/**
+	 * Puts {@code length} pairs from {@code offset} with one write lock and one table resize per stripe.
+	 */
+	private void putBatch(final long[] keys, final int[] values, final int offset, final int length) {
+
+		final int[] hashCodes = new int[length];
+
+		for (int i = 0; i < length; i++) {
+			hashCodes[i] = Long.hashCode(keys[offset + i]);
+		}
+
+		updateBatch(hashCodes, (bucket, indexes, from, to) -> {
+
+			final long[] shareKeys = new long[to - from];
+			final int[] shareValues = new int[to - from];
+
+			for (int i = from; i < to; i++) {
+				shareKeys[i - from] = keys[offset + indexes[i]];
+				shareValues[i - from] = values[offset + indexes[i]];
+			}
+
+			// Sizes the table once for the whole share
+			bucket.putAll(new Long2IntArrayMap(shareKeys, shareValues, shareKeys.length));
+
+			return true;
+		});
+	}
+
+
+	private class MapIterator extends StripeIterator<ObjectIterator<Long2IntMap.Entry>> {
+
+		long[] keys = LongArrays.EMPTY_ARRAY;
+
+		int[] values = IntArrays.EMPTY_ARRAY;
+
+		private long lastKey;
+
+		private boolean canRemove;
+
+
+		@Override
+		protected ObjectIterator<Long2IntMap.Entry> open(final OffHeapLong2IntTable bucket) {
+			return Long2IntMaps.fastIterator(bucket);
+		}
+
+		@Override
+		protected int read(final OffHeapLong2IntTable bucket, final ObjectIterator<Long2IntMap.Entry> source, final int offset, final int max) {
+
+			grow(offset + Math.min(max, bucket.size()));
+
+			int read = 0;
+
+			while (read < max && source.hasNext()) {
+				final Long2IntMap.Entry entry = source.next();
+				keys[offset + read] = entry.getLongKey();
+				values[offset + read++] = entry.getIntValue();
+			}
+
+			return read;
+		}
+
+		@Override
+		protected int readMissing(final OffHeapLong2IntTable bucket, int offset, final int returned) {
+
+			final LongOpenHashSet seen = new LongOpenHashSet(keys, 0, returned);
+
+			grow(offset + bucket.size());
+
+			for (final Long2IntMap.Entry entry : Long2IntMaps.fastIterable(bucket)) {
+				if (!seen.contains(entry.getLongKey())) {
+					keys[offset] = entry.getLongKey();
+					values[offset++] = entry.getIntValue();
+				}
+			}
+
+			return offset;
+		}
+
+		@Override
+		protected void copyTo(final StripeIterator<ObjectIterator<Long2IntMap.Entry>> prefix, final int from, final int to) {
+
+			final MapIterator split = (MapIterator) prefix;
+
+			split.keys = Arrays.copyOfRange(keys, from, to);
+			split.values = Arrays.copyOfRange(values, from, to);
+		}
+
+		public boolean hasNext() {
+			return position < size || fill();
+		}
+
+		public void remove() {
+
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			canRemove = false;
+			ConcurrentLong2IntOffHeapHashMap.this.remove(lastKey);
+		}
+
+		int nextIndex() {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			lastKey = keys[position];
+			canRemove = true;
+
+			return position++;
+		}
+
+
+		private void grow(final int length) {
+			keys = LongArrays.grow(keys, length);
+			values = IntArrays.grow(values, length);
+		}
+
+	}
+
+	private final class KeyIterator extends MapIterator implements LongIterator {
+
+		@Override
+		public long nextLong() {
+
+			final int index = nextIndex();
+
+			return keys[index];
+		}
+
+	}
+
+	private final class ValueIterator extends MapIterator implements IntIterator {
+
+		@Override
+		public int nextInt() {
+
+			final int index = nextIndex();
+
+			return values[index];
+		}
+
+	}
+
+	private final class EntryIterator extends MapIterator implements ObjectIterator<Long2IntMap.Entry> {
+
+		@Override
+		public Long2IntMap.Entry next() {
+
+			final int index = nextIndex();
+
+			return new MapEntry(keys[index], values[index]);
+		}
+
+	}
+
+	private final class KeySpliterator extends MapIterator implements LongSpliterator {
+
+		@Override
+		public boolean tryAdvance(final java.util.function.LongConsumer action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			action.accept(keys[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public LongSpliterator trySplit() {
+			return trySplit(KeySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class ValueSpliterator extends MapIterator implements IntSpliterator {
+
+		@Override
+		public boolean tryAdvance(final java.util.function.IntConsumer action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			action.accept(values[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public IntSpliterator trySplit() {
+			return trySplit(ValueSpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class EntrySpliterator extends MapIterator implements ObjectSpliterator<Long2IntMap.Entry> {
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Long2IntMap.Entry> action) {
+
+			if (!hasNext()) {
+				return false;
+			}
+
+			final int index = nextIndex();
+
+			action.accept(new MapEntry(keys[index], values[index]));
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<Long2IntMap.Entry> trySplit() {
+			return trySplit(EntrySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	// Writes through to the map, like ConcurrentHashMap's entries
+	private final class MapEntry extends AbstractLong2IntMap.BasicEntry {
+
+		private MapEntry(final long key, final int value) {
+			super(key, value);
+		}
+
+		@Override
+		public int setValue(final int value) {
+
+			final int old = this.value;
+
+			this.value = value;
+			put(key, value);
+
+			return old;
+		}
+
+	}
+
+	private final class KeySet extends AbstractLongSet {
+
+		@Override
+		public LongIterator iterator() {
+			return new KeyIterator();
+		}
+
+		@Override
+		public LongSpliterator spliterator() {
+			return new KeySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2IntOffHeapHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final long key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(final long key) {
+
+			final Stripe<OffHeapLong2IntTable> stripe = lockWrite(Long.hashCode(key));
+
+			try {
+				if (!stripe.bucket.containsKey(key)) {
+					return false;
+				}
+
+				stripe.bucket.remove(key);
+
+				return true;
+			} finally {
+				unlockWrite(stripe);
+			}
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2IntOffHeapHashMap.this.clear();
+		}
+
+	}
+
+	private final class Values extends AbstractIntCollection {
+
+		@Override
+		public IntIterator iterator() {
+			return new ValueIterator();
+		}
+
+		@Override
+		public IntSpliterator spliterator() {
+			return new ValueSpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2IntOffHeapHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final int value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2IntOffHeapHashMap.this.clear();
+		}
+
+	}
+
+	private final class EntrySet extends AbstractObjectSet<Long2IntMap.Entry> {
+
+		@Override
+		public ObjectIterator<Long2IntMap.Entry> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public ObjectSpliterator<Long2IntMap.Entry> spliterator() {
+			return new EntrySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2IntOffHeapHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+				return false;
+			}
+
+			final Stripe<OffHeapLong2IntTable> stripe = lockRead(((Map.Entry<?, ?>) o).getKey().hashCode());
+
+			try {
+				return stripe.bucket.long2IntEntrySet().contains(o);
+			} finally {
+				unlockRead(stripe);
+			}
+		}
+
+		@Override
+		public boolean remove(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+				return false;
+			}
+
+			final Stripe<OffHeapLong2IntTable> stripe = lockWrite(((Map.Entry<?, ?>) o).getKey().hashCode());
+
+			try {
+				return stripe.bucket.long2IntEntrySet().remove(o);
+			} finally {
+				unlockWrite(stripe);
+			}
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2IntOffHeapHashMap.this.clear();
+		}
+
+	}
+
+}
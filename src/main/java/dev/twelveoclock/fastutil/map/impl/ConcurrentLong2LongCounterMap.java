@@ -0,0 +1,209 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * A counting map for keys that are incremented far more often than they are read.
+ * <p>
+ * Every key owns a {@link LongAdder}, its stripe's write lock is only taken the first time the key is counted,
+ * after that increments land in the adder's cells and a hot key no longer serializes writers. {@link #get(long)} merges the cells.
+ * Increments racing with {@link #remove(long)} or {@link #clear()} may be lost along with the removed adder.
+ */
+public final class ConcurrentLong2LongCounterMap extends FastUtilConcurrentMap<Long2ObjectOpenHashMap<LongAdder>> {
+
+	private final float loadFactor;
+
+
+	public ConcurrentLong2LongCounterMap() {
+		this(DEFAULT_NUM_BUCKETS, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Defaults to {@link StripeLockMode#OPTIMISTIC}, every increment starts with a lookup.
+	 */
+	public ConcurrentLong2LongCounterMap(final int numBuckets, final int loadCapacity, final float loadFactor) {
+		this(numBuckets, loadCapacity, loadFactor, StripeLockMode.OPTIMISTIC);
+	}
+
+	public ConcurrentLong2LongCounterMap(final int numBuckets, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
+
+		super(numBuckets, lockMode);
+
+		this.loadFactor = loadFactor;
+
+		initBuckets(loadCapacity);
+	}
+
+
+	@Override
+	protected Long2ObjectOpenHashMap<LongAdder> newBucket(final int capacity) {
+		return new Long2ObjectOpenHashMap<>(capacity, loadFactor);
+	}
+
+	@Override
+	protected int bucketSize(final Long2ObjectOpenHashMap<LongAdder> bucket) {
+		return bucket.size();
+	}
+
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
+
+	@Override
+	protected void splitBucket(final Long2ObjectOpenHashMap<LongAdder> source, final Long2ObjectOpenHashMap<LongAdder> lower, final Long2ObjectOpenHashMap<LongAdder> upper, final int splitBit) {
+		for (final Long2ObjectMap.Entry<LongAdder> entry : Long2ObjectMaps.fastIterable(source)) {
+			final long key = entry.getLongKey();
+			(isUpperHalf(Long.hashCode(key), splitBit) ? upper : lower).put(key, entry.getValue());
+		}
+	}
+
+	public void add(final long key, final long delta) {
+		cell(key).add(delta);
+	}
+
+	public void increment(final long key) {
+		cell(key).increment();
+	}
+
+	public void decrement(final long key) {
+		cell(key).decrement();
+	}
+
+	/**
+	 * Merges the key's cells, concurrent increments may or may not be included.
+	 *
+	 * @return the count, or 0 if the key was never counted
+	 */
+	public long get(final long key) {
+
+		final LongAdder cell = find(key);
+
+		return cell == null ? 0 : cell.sum();
+	}
+
+	/**
+	 * Resets the key's count while keeping its cells, increments racing with the reset count towards the next period.
+	 *
+	 * @return the count before the reset, or 0 if the key was never counted
+	 */
+	public long sumThenReset(final long key) {
+
+		final LongAdder cell = find(key);
+
+		return cell == null ? 0 : cell.sumThenReset();
+	}
+
+	public boolean containsKey(final long key) {
+		return find(key) != null;
+	}
+
+	/**
+	 * @return the count of the removed key, or 0 if it was never counted
+	 */
+	public long remove(final long key) {
+
+		final Stripe<Long2ObjectOpenHashMap<LongAdder>> stripe = lockWrite(Long.hashCode(key));
+
+		final LongAdder cell;
+
+		try {
+			cell = stripe.bucket.remove(key);
+		} finally {
+			unlockWrite(stripe);
+		}
+
+		return cell == null ? 0 : cell.sum();
+	}
+
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
+
+	/**
+	 * Merges every key's cells into a new map, one stripe at a time.
+	 */
+	public Long2LongOpenHashMap snapshot() {
+
+		final Long2LongOpenHashMap snapshot = new Long2LongOpenHashMap(approximateSize());
+
+		forEachBucket(bucket -> {
+			for (final Long2ObjectMap.Entry<LongAdder> entry : Long2ObjectMaps.fastIterable(bucket)) {
+				snapshot.put(entry.getLongKey(), entry.getValue().sum());
+			}
+		});
+
+		return snapshot;
+	}
+
+
+	private LongAdder cell(final long key) {
+
+		final LongAdder cell = find(key);
+
+		if (cell != null) {
+			return cell;
+		}
+
+		final Stripe<Long2ObjectOpenHashMap<LongAdder>> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			// Another writer may have created it since the lookup
+			LongAdder created = stripe.bucket.get(key);
+
+			if (created == null) {
+				created = new LongAdder();
+				stripe.bucket.put(key, created);
+			}
+
+			return created;
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	private LongAdder find(final long key) {
+
+		final int hash = Long.hashCode(key);
+
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Long2ObjectOpenHashMap<LongAdder>> stripe = stripeFor(hash);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final LongAdder cell = stripe.bucket.get(key);
+					if (stripe.validate(stamp)) {
+						return cell;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Long2ObjectOpenHashMap<LongAdder>> stripe = lockRead(hash);
+
+		try {
+			return stripe.bucket.get(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+}
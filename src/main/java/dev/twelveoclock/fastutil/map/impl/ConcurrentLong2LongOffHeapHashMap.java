@@ -0,0 +1,886 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
+import it.unimi.dsi.fastutil.longs.*;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.ObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectSpliterator;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.LongUnaryOperator;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * A striped long to long map whose stripe tables live in direct buffers, so the heap only holds the stripes themselves.
+ * <p>
+ * Always uses {@link StripeLockMode#REENTRANT}, an optimistic read racing with a resize could touch freed memory.
+ * Tables are freed as soon as a resize or split replaces them, {@link #close()} frees the rest and leaves the map unusable.
+ * <p>
+ * Tables are direct buffers, which count against {@code -XX:MaxDirectMemorySize} rather than the heap. That limit defaults
+ * to the maximum heap size, raise it for maps larger than the heap or a resize fails with an {@link OutOfMemoryError}.
+ */
+public final class ConcurrentLong2LongOffHeapHashMap extends FastUtilConcurrentMap<OffHeapLong2LongTable> implements Long2LongMap, AutoCloseable {
+
+	private final float loadFactor;
+
+	@Getter
+	private long defaultValue;
+
+	// Views are stateless, so racing to create them is harmless
+	private KeySet keySet;
+
+	private Values values;
+
+	private EntrySet entrySet;
+
+
+	public ConcurrentLong2LongOffHeapHashMap() {
+		this(DEFAULT_NUM_BUCKETS, 0, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+	}
+
+	public ConcurrentLong2LongOffHeapHashMap(final int numBuckets, final long defaultValue, final int loadCapacity, final float loadFactor) {
+
+		super(numBuckets, StripeLockMode.REENTRANT);
+
+		this.loadFactor = loadFactor;
+		this.defaultValue = defaultValue;
+
+		initBuckets(loadCapacity);
+	}
+
+
+	@Override
+	protected OffHeapLong2LongTable newBucket(final int capacity) {
+
+		final OffHeapLong2LongTable bucket = new OffHeapLong2LongTable(capacity, loadFactor);
+
+		if (defaultValue != 0) {
+			bucket.defaultReturnValue(defaultValue);
+		}
+
+		return bucket;
+	}
+
+	@Override
+	protected int bucketSize(final OffHeapLong2LongTable bucket) {
+		return bucket.size();
+	}
+
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
+
+	/**
+	 * Closed tables are never split, {@link #close()} takes every stripe's write lock and a split could follow it.
+	 */
+	@Override
+	protected boolean isSplittable(final OffHeapLong2LongTable bucket) {
+		return bucket.isOpen();
+	}
+
+	@Override
+	protected long bucketTableLength(final OffHeapLong2LongTable bucket) {
+		return bucket.capacity();
+	}
+
+	@Override
+	protected void splitBucket(final OffHeapLong2LongTable source, final OffHeapLong2LongTable lower, final OffHeapLong2LongTable upper, final int splitBit) {
+		for (final Long2LongMap.Entry entry : Long2LongMaps.fastIterable(source)) {
+			final long key = entry.getLongKey();
+			(isUpperHalf(Long.hashCode(key), splitBit) ? upper : lower).put(key, entry.getLongValue());
+		}
+
+		// The stripe is forwarded once this returns, nothing reads the source again
+		source.close();
+	}
+
+	@Override
+	public void putAll(final Map<? extends Long, ? extends Long> m) {
+
+		if (m instanceof Long2LongMap) {
+			putAll((Long2LongMap) m);
+			return;
+		}
+
+		long[] keys = new long[m.size()];
+		long[] values = new long[keys.length];
+
+		int size = 0;
+
+		for (final Map.Entry<? extends Long, ? extends Long> entry : m.entrySet()) {
+
+			// Grew since it was sized
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
+			}
+
+			keys[size] = entry.getKey();
+			values[size++] = entry.getValue();
+		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Like {@link #putAll(Map)}, without boxing.
+	 */
+	public void putAll(final Long2LongMap m) {
+
+		long[] keys = new long[m.size()];
+		long[] values = new long[keys.length];
+
+		int size = 0;
+
+		for (final Long2LongMap.Entry entry : Long2LongMaps.fastIterable(m)) {
+
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
+			}
+
+			keys[size] = entry.getLongKey();
+			values[size++] = entry.getLongValue();
+		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Puts {@code keys[offset + i]} to {@code values[offset + i]} for every i below length, a later duplicate key wins.
+	 */
+	public void putAll(final long[] keys, final long[] values, final int offset, final int length) {
+
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+
+		putBatch(keys, values, offset, length);
+	}
+
+	@Override
+	public long put(final long key, final long value) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.put(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public long remove(final long key) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.remove(key);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public long getOrDefault(final long key, final long defaultValue) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.getOrDefault(key, defaultValue);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	@Override
+	public long putIfAbsent(final long key, final long value) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.putIfAbsent(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public boolean remove(final long key, final long value) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.remove(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public boolean replace(final long key, final long oldValue, final long newValue) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.replace(key, oldValue, newValue);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public long replace(final long key, final long value) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.replace(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Runs the mapping function under the key's stripe write lock, so it must not access other keys of this map.
+	 */
+	@Override
+	public long computeIfAbsent(final long key, final LongUnaryOperator mappingFunction) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public long computeIfAbsentNullable(final long key, final LongFunction<? extends Long> mappingFunction) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfAbsentNullable(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public long computeIfAbsent(final long key, final Long2LongFunction mappingFunction) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public long computeIfPresent(final long key, final BiFunction<? super Long, ? super Long, ? extends Long> remappingFunction) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfPresent(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public long compute(final long key, final BiFunction<? super Long, ? super Long, ? extends Long> remappingFunction) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.compute(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public long merge(final long key, final long value, final BiFunction<? super Long, ? super Long, ? extends Long> remappingFunction) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.merge(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public long mergeLong(final long key, final long value, final java.util.function.LongBinaryOperator remappingFunction) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.mergeLong(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Adds the increment to the key's value, starting from the default value if absent.
+	 *
+	 * @return the previous value, or the default value if absent
+	 */
+	public long addTo(final long key, final long increment) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.addTo(key, increment);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Same as {@link #addTo(long, long)}, named after {@link java.util.concurrent.atomic.AtomicLong}.
+	 */
+	public long getAndAdd(final long key, final long delta) {
+		return addTo(key, delta);
+	}
+
+	/**
+	 * @return the value after adding the delta
+	 */
+	public long addAndGet(final long key, final long delta) {
+		return addTo(key, delta) + delta;
+	}
+
+	/**
+	 * @return the value after incrementing
+	 */
+	public long incrementAndGet(final long key) {
+		return addAndGet(key, 1);
+	}
+
+	/**
+	 * Replaces the key's value, or the default value if absent, with {@code accumulator.applyAsLong(value, x)}.
+	 * The accumulator runs under the key's stripe write lock, so it must not access this map.
+	 *
+	 * @return the new value
+	 */
+	public long accumulate(final long key, final long x, final java.util.function.LongBinaryOperator accumulator) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			final long value = accumulator.applyAsLong(stripe.bucket.get(key), x);
+			stripe.bucket.put(key, value);
+
+			return value;
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public void defaultReturnValue(final long rv) {
+
+		this.defaultValue = rv;
+
+		updateBuckets(bucket -> {
+			bucket.defaultReturnValue(rv);
+			return false;
+		});
+	}
+
+	@Override
+	public long defaultReturnValue() {
+		return defaultValue;
+	}
+
+	@Override
+	public ObjectSet<Entry> long2LongEntrySet() {
+
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+
+		return entrySet;
+	}
+
+	@Override
+	public LongSet keySet() {
+
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+
+		return keySet;
+	}
+
+	@NonNull
+	@Override
+	public LongCollection values() {
+
+		if (values == null) {
+			values = new Values();
+		}
+
+		return values;
+	}
+
+	@Override
+	public long get(final long key) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.get(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	@Override
+	public boolean containsKey(final long key) {
+
+		final Stripe<OffHeapLong2LongTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.containsKey(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	@Override
+	public boolean containsValue(final long value) {
+		return anyBucket(bucket -> bucket.containsValue(value));
+	}
+
+	@Override
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
+
+	/**
+	 * Frees every stripe's table, any later access but the size throws {@link IllegalStateException}. Closing twice does nothing.
+	 */
+	@Override
+	public void close() {
+		updateBuckets(bucket -> {
+			bucket.close();
+			return true;
+		});
+	}
+
+
+	/**
+	 * Puts {@code length} pairs from {@code offset} with one write lock and one table resize per stripe.
+	 */
+	private void putBatch(final long[] keys, final long[] values, final int offset, final int length) {
+
+		final int[] hashCodes = new int[length];
+
+		for (int i = 0; i < length; i++) {
+			hashCodes[i] = Long.hashCode(keys[offset + i]);
+		}
+
+		updateBatch(hashCodes, (bucket, indexes, from, to) -> {
+
+			final long[] shareKeys = new long[to - from];
+			final long[] shareValues = new long[to - from];
+
+			for (int i = from; i < to; i++) {
+				shareKeys[i - from] = keys[offset + indexes[i]];
+				shareValues[i - from] = values[offset + indexes[i]];
+			}
+
+			// Sizes the table once for the whole share
+			bucket.putAll(new Long2LongArrayMap(shareKeys, shareValues, shareKeys.length));
+
+			return true;
+		});
+	}
+
+
+	private class MapIterator extends StripeIterator<ObjectIterator<Long2LongMap.Entry>> {
+
+		long[] keys = LongArrays.EMPTY_ARRAY;
+
+		long[] values = LongArrays.EMPTY_ARRAY;
+
+		private long lastKey;
+
+		private boolean canRemove;
+
+
+		@Override
+		protected ObjectIterator<Long2LongMap.Entry> open(final OffHeapLong2LongTable bucket) {
+			return Long2LongMaps.fastIterator(bucket);
+		}
+
+		@Override
+		protected int read(final OffHeapLong2LongTable bucket, final ObjectIterator<Long2LongMap.Entry> source, final int offset, final int max) {
+
+			grow(offset + Math.min(max, bucket.size()));
+
+			int read = 0;
+
+			while (read < max && source.hasNext()) {
+				final Long2LongMap.Entry entry = source.next();
+				keys[offset + read] = entry.getLongKey();
+				values[offset + read++] = entry.getLongValue();
+			}
+
+			return read;
+		}
+
+		@Override
+		protected int readMissing(final OffHeapLong2LongTable bucket, int offset, final int returned) {
+
+			final LongOpenHashSet seen = new LongOpenHashSet(keys, 0, returned);
+
+			grow(offset + bucket.size());
+
+			for (final Long2LongMap.Entry entry : Long2LongMaps.fastIterable(bucket)) {
+				if (!seen.contains(entry.getLongKey())) {
+					keys[offset] = entry.getLongKey();
+					values[offset++] = entry.getLongValue();
+				}
+			}
+
+			return offset;
+		}
+
+		@Override
+		protected void copyTo(final StripeIterator<ObjectIterator<Long2LongMap.Entry>> prefix, final int from, final int to) {
+
+			final MapIterator split = (MapIterator) prefix;
+
+			split.keys = Arrays.copyOfRange(keys, from, to);
+			split.values = Arrays.copyOfRange(values, from, to);
+		}
+
+		public boolean hasNext() {
+			return position < size || fill();
+		}
+
+		public void remove() {
+
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			canRemove = false;
+			ConcurrentLong2LongOffHeapHashMap.this.remove(lastKey);
+		}
+
+		int nextIndex() {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			lastKey = keys[position];
+			canRemove = true;
+
+			return position++;
+		}
+
+
+		private void grow(final int length) {
+			keys = LongArrays.grow(keys, length);
+			values = LongArrays.grow(values, length);
+		}
+
+	}
+
+	private final class KeyIterator extends MapIterator implements LongIterator {
+
+		@Override
+		public long nextLong() {
+
+			final int index = nextIndex();
+
+			return keys[index];
+		}
+
+	}
+
+	private final class ValueIterator extends MapIterator implements LongIterator {
+
+		@Override
+		public long nextLong() {
+
+			final int index = nextIndex();
+
+			return values[index];
+		}
+
+	}
+
+	private final class EntryIterator extends MapIterator implements ObjectIterator<Long2LongMap.Entry> {
+
+		@Override
+		public Long2LongMap.Entry next() {
+
+			final int index = nextIndex();
+
+			return new MapEntry(keys[index], values[index]);
+		}
+
+	}
+
+	private final class KeySpliterator extends MapIterator implements LongSpliterator {
+
+		@Override
+		public boolean tryAdvance(final java.util.function.LongConsumer action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			action.accept(keys[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public LongSpliterator trySplit() {
+			return trySplit(KeySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class ValueSpliterator extends MapIterator implements LongSpliterator {
+
+		@Override
+		public boolean tryAdvance(final java.util.function.LongConsumer action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			action.accept(values[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public LongSpliterator trySplit() {
+			return trySplit(ValueSpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class EntrySpliterator extends MapIterator implements ObjectSpliterator<Long2LongMap.Entry> {
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Long2LongMap.Entry> action) {
+
+			if (!hasNext()) {
+				return false;
+			}
+
+			final int index = nextIndex();
+
+			action.accept(new MapEntry(keys[index], values[index]));
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<Long2LongMap.Entry> trySplit() {
+			return trySplit(EntrySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	// Writes through to the map, like ConcurrentHashMap's entries
+	private final class MapEntry extends AbstractLong2LongMap.BasicEntry {
+
+		private MapEntry(final long key, final long value) {
+			super(key, value);
+		}
+
+		@Override
+		public long setValue(final long value) {
+
+			final long old = this.value;
+
+			this.value = value;
+			put(key, value);
+
+			return old;
+		}
+
+	}
+
+	private final class KeySet extends AbstractLongSet {
+
+		@Override
+		public LongIterator iterator() {
+			return new KeyIterator();
+		}
+
+		@Override
+		public LongSpliterator spliterator() {
+			return new KeySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2LongOffHeapHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final long key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(final long key) {
+
+			final Stripe<OffHeapLong2LongTable> stripe = lockWrite(Long.hashCode(key));
+
+			try {
+				if (!stripe.bucket.containsKey(key)) {
+					return false;
+				}
+
+				stripe.bucket.remove(key);
+
+				return true;
+			} finally {
+				unlockWrite(stripe);
+			}
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2LongOffHeapHashMap.this.clear();
+		}
+
+	}
+
+	private final class Values extends AbstractLongCollection {
+
+		@Override
+		public LongIterator iterator() {
+			return new ValueIterator();
+		}
+
+		@Override
+		public LongSpliterator spliterator() {
+			return new ValueSpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2LongOffHeapHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final long value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2LongOffHeapHashMap.this.clear();
+		}
+
+	}
+
+	private final class EntrySet extends AbstractObjectSet<Long2LongMap.Entry> {
+
+		@Override
+		public ObjectIterator<Long2LongMap.Entry> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public ObjectSpliterator<Long2LongMap.Entry> spliterator() {
+			return new EntrySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2LongOffHeapHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+				return false;
+			}
+
+			final Stripe<OffHeapLong2LongTable> stripe = lockRead(((Map.Entry<?, ?>) o).getKey().hashCode());
+
+			try {
+				return stripe.bucket.long2LongEntrySet().contains(o);
+			} finally {
+				unlockRead(stripe);
+			}
+		}
+
+		@Override
+		public boolean remove(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+				return false;
+			}
+
+			final Stripe<OffHeapLong2LongTable> stripe = lockWrite(((Map.Entry<?, ?>) o).getKey().hashCode());
+
+			try {
+				return stripe.bucket.long2LongEntrySet().remove(o);
+			} finally {
+				unlockWrite(stripe);
+			}
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2LongOffHeapHashMap.this.clear();
+		}
+
+	}
+
+}
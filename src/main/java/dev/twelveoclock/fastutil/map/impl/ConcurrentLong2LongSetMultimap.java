@@ -0,0 +1,189 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+
+import java.util.function.LongConsumer;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * A long to set of longs multimap, a key's values live in its stripe and are guarded by the stripe's lock,
+ * so there's no set to synchronize on separately and no set at all for keys with a single value.
+ * <p>
+ * {@link #size()} counts keys, {@link #valueCount()} counts values.
+ */
+public final class ConcurrentLong2LongSetMultimap extends FastUtilConcurrentMap<Long2LongSetTable> {
+
+	private final float loadFactor;
+
+
+	public ConcurrentLong2LongSetMultimap() {
+		this(DEFAULT_NUM_BUCKETS, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+	}
+
+	public ConcurrentLong2LongSetMultimap(final int numBuckets, final int loadCapacity, final float loadFactor) {
+		this(numBuckets, loadCapacity, loadFactor, StripeLockMode.REENTRANT);
+	}
+
+	public ConcurrentLong2LongSetMultimap(final int numBuckets, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
+
+		super(numBuckets, lockMode);
+
+		this.loadFactor = loadFactor;
+
+		initBuckets(loadCapacity);
+	}
+
+
+	@Override
+	protected Long2LongSetTable newBucket(final int capacity) {
+		return new Long2LongSetTable(capacity, loadFactor);
+	}
+
+	@Override
+	protected int bucketSize(final Long2LongSetTable bucket) {
+		return bucket.keyCount();
+	}
+
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
+
+	@Override
+	protected void splitBucket(final Long2LongSetTable source, final Long2LongSetTable lower, final Long2LongSetTable upper, final int splitBit) {
+		source.splitInto(lower, upper, key -> isUpperHalf(Long.hashCode(key), splitBit));
+	}
+
+	/**
+	 * The number of values across every key.
+	 */
+	public long valueCount() {
+
+		final long[] count = new long[1];
+
+		forEachBucket(bucket -> count[0] += bucket.valueCount());
+
+		return count[0];
+	}
+
+	public boolean containsKey(final long key) {
+
+		final Stripe<Long2LongSetTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.containsKey(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	public boolean containsValue(final long key, final long value) {
+
+		final Stripe<Long2LongSetTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.contains(key, value);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	/**
+	 * @return How many values the key has.
+	 */
+	public int valueCount(final long key) {
+
+		final Stripe<Long2LongSetTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.count(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	/**
+	 * @return Whether the value wasn't in the key's set already.
+	 */
+	public boolean putValue(final long key, final long value) {
+
+		final Stripe<Long2LongSetTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.add(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Removes the key too once it has no values left.
+	 */
+	public boolean removeValue(final long key, final long value) {
+
+		final Stripe<Long2LongSetTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.remove(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * @return How many values were removed.
+	 */
+	public int removeAll(final long key) {
+
+		final Stripe<Long2LongSetTable> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.removeAll(key);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Runs the action under the stripe's read lock, so it must not write to this map.
+	 */
+	public void forEachValue(final long key, final LongConsumer action) {
+
+		final Stripe<Long2LongSetTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			stripe.bucket.forEach(key, action);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	/**
+	 * Adds a snapshot of the key's values to the buffer, so callers can reuse one buffer instead of getting a copy per call.
+	 *
+	 * @return How many values the key has, the buffer may have gained fewer if it's a set that already held some.
+	 */
+	public int getValues(final long key, final LongCollection buffer) {
+
+		final Stripe<Long2LongSetTable> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.copyTo(key, buffer);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
+
+}
@@ -0,0 +1,189 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import dev.twelveoclock.fastutil.base.StripeLockMode;
+import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+
+
+/**
+ * A long to list of objects multimap, a key's values live in its stripe and are guarded by the stripe's lock,
+ * so there's no list to synchronize on separately and no list at all for keys with a single value.
+ * <p>
+ * Values keep their insertion order and may repeat. {@link #size()} counts keys, {@link #valueCount()} counts values.
+ */
+public final class ConcurrentLong2ObjectListMultimap<V> extends FastUtilConcurrentMap<Long2ObjectListTable<V>> {
+
+	private final float loadFactor;
+
+
+	public ConcurrentLong2ObjectListMultimap() {
+		this(DEFAULT_NUM_BUCKETS, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+	}
+
+	public ConcurrentLong2ObjectListMultimap(final int numBuckets, final int loadCapacity, final float loadFactor) {
+		this(numBuckets, loadCapacity, loadFactor, StripeLockMode.REENTRANT);
+	}
+
+	public ConcurrentLong2ObjectListMultimap(final int numBuckets, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
+
+		super(numBuckets, lockMode);
+
+		this.loadFactor = loadFactor;
+
+		initBuckets(loadCapacity);
+	}
+
+
+	@Override
+	protected Long2ObjectListTable<V> newBucket(final int capacity) {
+		return new Long2ObjectListTable<>(capacity, loadFactor);
+	}
+
+	@Override
+	protected int bucketSize(final Long2ObjectListTable<V> bucket) {
+		return bucket.keyCount();
+	}
+
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
+
+	@Override
+	protected void splitBucket(final Long2ObjectListTable<V> source, final Long2ObjectListTable<V> lower, final Long2ObjectListTable<V> upper, final int splitBit) {
+		source.splitInto(lower, upper, key -> isUpperHalf(Long.hashCode(key), splitBit));
+	}
+
+	/**
+	 * The number of values across every key.
+	 */
+	public long valueCount() {
+
+		final long[] count = new long[1];
+
+		forEachBucket(bucket -> count[0] += bucket.valueCount());
+
+		return count[0];
+	}
+
+	public boolean containsKey(final long key) {
+
+		final Stripe<Long2ObjectListTable<V>> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.containsKey(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	public boolean containsValue(final long key, final Object value) {
+
+		final Stripe<Long2ObjectListTable<V>> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.contains(key, value);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	/**
+	 * @return How many values the key has.
+	 */
+	public int valueCount(final long key) {
+
+		final Stripe<Long2ObjectListTable<V>> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.count(key);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	/**
+	 * Appends the value to the key's values.
+	 */
+	public void putValue(final long key, final V value) {
+
+		final Stripe<Long2ObjectListTable<V>> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			stripe.bucket.add(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Removes the first occurrence of the value, and the key once it has no values left.
+	 */
+	public boolean removeValue(final long key, final Object value) {
+
+		final Stripe<Long2ObjectListTable<V>> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.remove(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * @return How many values were removed.
+	 */
+	public int removeAll(final long key) {
+
+		final Stripe<Long2ObjectListTable<V>> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.removeAll(key);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Runs the action under the stripe's read lock, so it must not write to this map.
+	 */
+	public void forEachValue(final long key, final Consumer<? super V> action) {
+
+		final Stripe<Long2ObjectListTable<V>> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			stripe.bucket.forEach(key, action);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	/**
+	 * Adds a snapshot of the key's values to the buffer, so callers can reuse one buffer instead of getting a copy per call.
+	 *
+	 * @return How many values were added.
+	 */
+	public int getValues(final long key, final Collection<? super V> buffer) {
+
+		final Stripe<Long2ObjectListTable<V>> stripe = lockRead(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.copyTo(key, buffer);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
+
+}
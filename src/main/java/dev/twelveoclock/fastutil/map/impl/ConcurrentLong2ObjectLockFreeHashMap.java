@@ -0,0 +1,902 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.AbstractLong2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectFunction;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.ObjectSet;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
+
+
+/**
+ * A lock-free open addressing map, keys live in a flat {@code long[]} and values in an {@code Object[]}, both updated by CAS.
+ * <p>
+ * Follows Cliff Click's non-blocking hash map: a key slot is claimed once and never released until the table is replaced,
+ * removals leave a tombstone value, and resizing is done cooperatively by every writer that runs into a table being copied.
+ * The compute and merge methods are atomic, they retry their function until its result replaces the value it was given.
+ * Null values are not supported, {@link #defaultReturnValue()} is returned for absent keys.
+ */
+public final class ConcurrentLong2ObjectLockFreeHashMap<V> extends AbstractLong2ObjectMap<V> {
+
+	private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+	private static final VarHandle TABLE;
+
+	private static final VarHandle ZERO_VALUE;
+
+	private static final VarHandle NEXT;
+
+	private static final VarHandle COPY_INDEX;
+
+	private static final VarHandle COPY_DONE;
+
+	static {
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			TABLE = lookup.findVarHandle(ConcurrentLong2ObjectLockFreeHashMap.class, "table", Table.class);
+			ZERO_VALUE = lookup.findVarHandle(ConcurrentLong2ObjectLockFreeHashMap.class, "zeroValue", Object.class);
+			NEXT = lookup.findVarHandle(Table.class, "next", Table.class);
+			COPY_INDEX = lookup.findVarHandle(Table.class, "copyIndex", int.class);
+			COPY_DONE = lookup.findVarHandle(Table.class, "copyDone", int.class);
+		} catch (final ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// Value of a removed entry, the key slot stays claimed
+	private static final Object TOMBSTONE = new Object();
+
+	// Value of a slot that has been fully copied into the next table
+	private static final Prime TOMBPRIME = new Prime(TOMBSTONE);
+
+	// Expected values for putIfMatch besides a concrete value, TOMBSTONE (expect absent) and null (expect a never written slot)
+	private static final Object NO_MATCH_OLD = new Object();
+
+	private static final Object MATCH_ANY = new Object();
+
+	private static final int MIN_CAPACITY = 16;
+
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private static final int REPROBE_LIMIT = 10;
+
+	private static final int COPY_CHUNK = 1024;
+
+
+	private volatile Table table;
+
+	// Key 0 marks empty slots, so its value is kept out of the table
+	private volatile Object zeroValue;
+
+
+	public ConcurrentLong2ObjectLockFreeHashMap() {
+		this(null, DEFAULT_INITIAL_SIZE);
+	}
+
+	public ConcurrentLong2ObjectLockFreeHashMap(final V defaultValue, final int loadCapacity) {
+		this.defRetValue = defaultValue;
+		this.table = new Table(tableLength(loadCapacity), new LongAdder());
+	}
+
+
+	@Override
+	public int size() {
+		final long size = table.size.sum() + (zeroValue != null ? 1 : 0);
+		return (int) Math.max(0, Math.min(size, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public V get(final long key) {
+
+		final Object value = key == 0 ? zeroValue : get(table, key);
+
+		//noinspection unchecked
+		return value == null ? defRetValue : (V) value;
+	}
+
+	@Override
+	public boolean containsKey(final long key) {
+		return (key == 0 ? zeroValue : get(table, key)) != null;
+	}
+
+	@Override
+	public V put(final long key, final V value) {
+		return unwrap(putIfMatch(key, Objects.requireNonNull(value), NO_MATCH_OLD));
+	}
+
+	@Override
+	public V putIfAbsent(final long key, final V value) {
+		return unwrap(putIfMatch(key, Objects.requireNonNull(value), TOMBSTONE));
+	}
+
+	@Override
+	public V remove(final long key) {
+		return unwrap(putIfMatch(key, TOMBSTONE, NO_MATCH_OLD));
+	}
+
+	@Override
+	public boolean remove(final long key, final Object value) {
+		return value != null && Objects.equals(putIfMatch(key, TOMBSTONE, value), value);
+	}
+
+	@Override
+	public V replace(final long key, final V value) {
+		return unwrap(putIfMatch(key, Objects.requireNonNull(value), MATCH_ANY));
+	}
+
+	@Override
+	public boolean replace(final long key, final V oldValue, final V newValue) {
+		return oldValue != null && Objects.equals(putIfMatch(key, Objects.requireNonNull(newValue), oldValue), oldValue);
+	}
+
+	@Override
+	public V computeIfAbsent(final long key, final LongFunction<? extends V> mappingFunction) {
+
+		// Read once, a value racing in between two reads would otherwise be reported as null
+		final V existing = find(key);
+
+		if (existing != null) {
+			return existing;
+		}
+
+		final V value = mappingFunction.apply(key);
+
+		if (value == null) {
+			return defRetValue;
+		}
+
+		final Object raced = putIfMatch(key, value, TOMBSTONE);
+
+		//noinspection unchecked
+		return raced == null || raced == TOMBSTONE ? value : (V) raced;
+	}
+
+	@Override
+	public V computeIfAbsent(final long key, final Long2ObjectFunction<? extends V> mappingFunction) {
+		return computeIfAbsent(key, (LongFunction<? extends V>) k -> mappingFunction.containsKey(k) ? mappingFunction.get(k) : null);
+	}
+
+	/**
+	 * Retries the remapping function until its result is swapped in for the value it was given, so it may run several times.
+	 */
+	@Override
+	public V computeIfPresent(final long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
+		while (true) {
+
+			final V existing = find(key);
+
+			if (existing == null) {
+				return defRetValue;
+			}
+
+			final V value = remappingFunction.apply(key, existing);
+
+			if (swap(key, existing, value)) {
+				return value == null ? defRetValue : value;
+			}
+		}
+	}
+
+	/**
+	 * Retries the remapping function until its result is swapped in for the value it was given, so it may run several times.
+	 */
+	@Override
+	public V compute(final long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
+		while (true) {
+
+			final V existing = find(key);
+			final V value = remappingFunction.apply(key, existing);
+
+			if (swap(key, existing, value)) {
+				return value == null ? defRetValue : value;
+			}
+		}
+	}
+
+	/**
+	 * Retries the remapping function until its result is swapped in for the value it was given, so it may run several times.
+	 */
+	@Override
+	public V merge(final long key, final V value, final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+
+		Objects.requireNonNull(value);
+
+		while (true) {
+
+			final V existing = find(key);
+			final V merged = existing == null ? value : remappingFunction.apply(existing, value);
+
+			if (swap(key, existing, merged)) {
+				return merged == null ? defRetValue : merged;
+			}
+		}
+	}
+
+	@Override
+	@Deprecated
+	public V computeIfAbsent(final Long key, final Function<? super Long, ? extends V> mappingFunction) {
+		return computeIfAbsent(key.longValue(), (LongFunction<? extends V>) mappingFunction::apply);
+	}
+
+	@Override
+	@Deprecated
+	public V computeIfPresent(final Long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
+		return computeIfPresent(key.longValue(), remappingFunction);
+	}
+
+	@Override
+	@Deprecated
+	public V compute(final Long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
+		return compute(key.longValue(), remappingFunction);
+	}
+
+	@Override
+	@Deprecated
+	public V merge(final Long key, final V value, final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		return merge(key.longValue(), value, remappingFunction);
+	}
+
+	@Override
+	public void putAll(final Map<? extends Long, ? extends V> m) {
+
+		if (m instanceof Long2ObjectMap) {
+			//noinspection unchecked
+			putAll((Long2ObjectMap<? extends V>) m);
+			return;
+		}
+
+		for (final Map.Entry<? extends Long, ? extends V> entry : m.entrySet()) {
+			put(entry.getKey().longValue(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Like {@link #putAll(Map)}, without boxing.
+	 */
+	public void putAll(final Long2ObjectMap<? extends V> m) {
+		for (final Long2ObjectMap.Entry<? extends V> entry : Long2ObjectMaps.fastIterable(m)) {
+			put(entry.getLongKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Puts {@code keys[offset + i]} to {@code values[offset + i]} for every i below length.
+	 */
+	public void putAll(final long[] keys, final V[] values, final int offset, final int length) {
+
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+
+		for (int i = offset; i < offset + length; i++) {
+			put(keys[i], values[i]);
+		}
+	}
+
+	@Override
+	public boolean containsValue(final Object value) {
+
+		if (value == null) {
+			return false;
+		}
+
+		for (final ObjectIterator<Entry<V>> iterator = new EntryIterator(); iterator.hasNext(); ) {
+			if (value.equals(iterator.next().getValue())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		// Entries racing with the swap may land in the discarded table, same as a put that happened just before clear
+		table = new Table(MIN_CAPACITY, new LongAdder());
+		zeroValue = null;
+	}
+
+	@Override
+	public ObjectSet<Entry<V>> long2ObjectEntrySet() {
+		return new AbstractObjectSet<>() {
+
+			@Override
+			public ObjectIterator<Entry<V>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return ConcurrentLong2ObjectLockFreeHashMap.this.size();
+			}
+
+			@Override
+			public boolean contains(final Object o) {
+
+				if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+					return false;
+				}
+
+				final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+				final long key = (Long) entry.getKey();
+				final Object value = key == 0 ? zeroValue : ConcurrentLong2ObjectLockFreeHashMap.this.get(table, key);
+
+				return value != null && value.equals(entry.getValue());
+			}
+
+			@Override
+			public boolean remove(final Object o) {
+
+				if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+					return false;
+				}
+
+				final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+				return ConcurrentLong2ObjectLockFreeHashMap.this.remove((long) (Long) entry.getKey(), entry.getValue());
+			}
+
+			@Override
+			public void clear() {
+				ConcurrentLong2ObjectLockFreeHashMap.this.clear();
+			}
+		};
+	}
+
+
+	private V unwrap(final Object value) {
+		//noinspection unchecked
+		return value == null || value == TOMBSTONE ? defRetValue : (V) value;
+	}
+
+	private Object get(Table table, final long key) {
+
+		outer:
+		while (true) {
+
+			final long[] keys = table.keys;
+			final int mask = keys.length - 1;
+			final int reprobeLimit = reprobeLimit(keys.length);
+
+			int index = (int) HashCommon.mix(key) & mask;
+
+			for (int reprobe = 0; ; reprobe++) {
+
+				final long slotKey = (long) KEYS.getAcquire(keys, index);
+
+				if (slotKey == 0L) {
+					return null;
+				}
+
+				if (slotKey == key) {
+
+					final Object value = VALUES.getAcquire(table.values, index);
+
+					if (!(value instanceof Prime)) {
+						return value == TOMBSTONE ? null : value;
+					}
+
+					table = copySlotAndCheck(table, index, false);
+					continue outer;
+				}
+
+				if (reprobe >= reprobeLimit) {
+
+					final Table next = table.next;
+
+					if (next == null) {
+						return null;
+					}
+
+					table = helpCopy(next);
+					continue outer;
+				}
+
+				index = (index + 1) & mask;
+			}
+		}
+	}
+
+	private V find(final long key) {
+		//noinspection unchecked
+		return (V) (key == 0 ? zeroValue : get(table, key));
+	}
+
+	/**
+	 * Replaces the value a remapping function was given with its result, either being null for absent.
+	 *
+	 * @return Whether the key still had the given value, false means the function has to run again.
+	 */
+	private boolean swap(final long key, final V existing, final V value) {
+
+		if (existing == null) {
+
+			if (value == null) {
+				return true;
+			}
+
+			final Object raced = putIfMatch(key, value, TOMBSTONE);
+
+			return raced == null || raced == TOMBSTONE;
+		}
+
+		return Objects.equals(putIfMatch(key, value == null ? TOMBSTONE : value, existing), existing);
+	}
+
+	private Object putIfMatch(final long key, final Object putValue, final Object expectedValue) {
+
+		if (key != 0L) {
+			return putIfMatch(table, key, putValue, expectedValue, false);
+		}
+
+		while (true) {
+
+			final Object value = zeroValue;
+
+			if (!matches(value, expectedValue)) {
+				return value;
+			}
+
+			if (ZERO_VALUE.compareAndSet(this, value, putValue == TOMBSTONE ? null : putValue)) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * @param copy Whether this is a resize moving an entry into the next table, which leaves the size untouched.
+	 * @return The previous raw slot value, null or {@link #TOMBSTONE} if there was none.
+	 */
+	private Object putIfMatch(final Table table, final long key, final Object putValue, final Object expectedValue, final boolean copy) {
+
+		final long[] keys = table.keys;
+		final Object[] values = table.values;
+		final int mask = keys.length - 1;
+		final int reprobeLimit = reprobeLimit(keys.length);
+
+		int index = (int) HashCommon.mix(key) & mask;
+
+		for (int reprobe = 0; ; reprobe++) {
+
+			long slotKey = (long) KEYS.getAcquire(keys, index);
+
+			if (slotKey == 0L) {
+
+				// Removals and conditional replaces have nothing to do for a key that was never inserted
+				if (putValue == TOMBSTONE || (expectedValue != NO_MATCH_OLD && expectedValue != TOMBSTONE && expectedValue != null)) {
+					return null;
+				}
+
+				if (KEYS.compareAndSet(keys, index, 0L, key)) {
+					table.slots.increment();
+					break;
+				}
+
+				slotKey = (long) KEYS.getAcquire(keys, index);
+			}
+
+			if (slotKey == key) {
+				break;
+			}
+
+			if (reprobe >= reprobeLimit) {
+
+				final Table next = resize(table);
+
+				if (!copy) {
+					helpCopy(next);
+				}
+
+				return putIfMatch(next, key, putValue, expectedValue, copy);
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		Object value = VALUES.getAcquire(values, index);
+
+		if (value == putValue) {
+			return value;
+		}
+
+		Table next = table.next;
+
+		if (next == null && ((value == null && table.isFull()) || value instanceof Prime)) {
+			next = resize(table);
+		}
+
+		if (next != null) {
+			return putIfMatch(copySlotAndCheck(table, index, !copy), key, putValue, expectedValue, copy);
+		}
+
+		while (true) {
+
+			if (!matches(value, expectedValue)) {
+				return value;
+			}
+
+			if (VALUES.compareAndSet(values, index, value, putValue)) {
+
+				if (!copy) {
+
+					final boolean wasPresent = value != null && value != TOMBSTONE;
+
+					if (!wasPresent && putValue != TOMBSTONE) {
+						table.size.increment();
+					}
+					else if (wasPresent && putValue == TOMBSTONE) {
+						table.size.decrement();
+					}
+				}
+
+				return value;
+			}
+
+			value = VALUES.getAcquire(values, index);
+
+			if (value instanceof Prime) {
+				return putIfMatch(copySlotAndCheck(table, index, !copy), key, putValue, expectedValue, copy);
+			}
+		}
+	}
+
+	private Table resize(final Table table) {
+
+		final Table existing = table.next;
+
+		if (existing != null) {
+			return existing;
+		}
+
+		final int length = table.keys.length;
+		final long size = table.size.sum();
+
+		int newLength = length;
+
+		// A table full of tombstones gets rebuilt at the same length
+		if (size >= length >> 2) {
+			newLength = length << 1;
+			if (size >= length >> 1) {
+				newLength = length << 2;
+			}
+		}
+
+		final Table next = new Table(Math.min(Math.max(newLength, MIN_CAPACITY), MAX_CAPACITY), table.size);
+
+		if (NEXT.compareAndSet(table, null, next)) {
+			return next;
+		}
+
+		return table.next;
+	}
+
+	/**
+	 * Copies a chunk of the top level table if it is being resized.
+	 *
+	 * @return The passed table, for chaining.
+	 */
+	private Table helpCopy(final Table helper) {
+
+		final Table top = table;
+
+		if (top.next != null) {
+			copyChunk(top, false);
+		}
+
+		return helper;
+	}
+
+	private void copyChunk(final Table old, final boolean copyAll) {
+
+		final Table next = old.next;
+		final int length = old.keys.length;
+		final int chunk = Math.min(length, COPY_CHUNK);
+
+		int work = 0;
+
+		// Chunks are handed out twice around the table before helpers give up on a stalled copier and copy everything
+		int start = copyAll ? length << 1 : old.copyIndex;
+
+		if (start < length << 1) {
+			start = (int) COPY_INDEX.getAndAdd(old, chunk);
+		}
+
+		if (old.copyDone < length) {
+			if (start < length << 1) {
+				for (int i = 0; i < chunk; i++) {
+					if (copySlot(old, (start + i) & (length - 1), next)) {
+						work++;
+					}
+				}
+			}
+			else {
+				for (int i = 0; i < length; i++) {
+					if (copySlot(old, i, next)) {
+						work++;
+					}
+				}
+			}
+		}
+
+		copyCheckAndPromote(old, work);
+	}
+
+	private Table copySlotAndCheck(final Table old, final int index, final boolean shouldHelp) {
+
+		final Table next = old.next;
+
+		if (copySlot(old, index, next)) {
+			copyCheckAndPromote(old, 1);
+		}
+
+		return shouldHelp ? helpCopy(next) : next;
+	}
+
+	/**
+	 * @return Whether this call was the one that finished the slot, so each slot is counted exactly once.
+	 */
+	private boolean copySlot(final Table old, final int index, final Table next) {
+
+		Object value = VALUES.getAcquire(old.values, index);
+
+		// Box the value so no writer can change it in the old table anymore
+		while (!(value instanceof Prime)) {
+
+			final Prime box = value == null || value == TOMBSTONE ? TOMBPRIME : new Prime(value);
+
+			if (VALUES.compareAndSet(old.values, index, value, box)) {
+
+				if (box == TOMBPRIME) {
+					return true;
+				}
+
+				value = box;
+				break;
+			}
+
+			value = VALUES.getAcquire(old.values, index);
+		}
+
+		if (value == TOMBPRIME) {
+			return false;
+		}
+
+		// A boxed live value implies the key was claimed before it.
+		// Only a never written slot is filled, a stalled copier must not undo a removal made in the next table since
+		final long key = (long) KEYS.getAcquire(old.keys, index);
+		final boolean copied = putIfMatch(next, key, ((Prime) value).value, null, true) == null;
+
+		while (value != TOMBPRIME && !VALUES.compareAndSet(old.values, index, value, TOMBPRIME)) {
+			value = VALUES.getAcquire(old.values, index);
+		}
+
+		return copied;
+	}
+
+	private void copyCheckAndPromote(final Table old, final int work) {
+
+		final int length = old.keys.length;
+		int done = old.copyDone;
+
+		if (work > 0) {
+			done = (int) COPY_DONE.getAndAdd(old, work) + work;
+		}
+
+		if (done == length) {
+			TABLE.compareAndSet(this, old, old.next);
+		}
+	}
+
+	// Finishes any resize in flight so a scan does not miss keys that only made it into the next table
+	private Table snapshotTable() {
+		while (true) {
+
+			final Table top = table;
+
+			if (top.next == null) {
+				return top;
+			}
+
+			copyChunk(top, true);
+		}
+	}
+
+
+	private static boolean matches(final Object value, final Object expectedValue) {
+
+		if (expectedValue == NO_MATCH_OLD) {
+			return true;
+		}
+
+		if (expectedValue == null) {
+			return value == null;
+		}
+
+		final boolean present = value != null && value != TOMBSTONE;
+
+		if (expectedValue == TOMBSTONE) {
+			return !present;
+		}
+
+		if (expectedValue == MATCH_ANY) {
+			return present;
+		}
+
+		return present && (value == expectedValue || expectedValue.equals(value));
+	}
+
+	private static int reprobeLimit(final int length) {
+		return REPROBE_LIMIT + (length >> 2);
+	}
+
+	private static int tableLength(final int loadCapacity) {
+		// Claimed slots trigger a resize at 75%, start at half full
+		return (int) Math.min(MAX_CAPACITY, Math.max(MIN_CAPACITY, HashCommon.nextPowerOfTwo(Math.max(loadCapacity, 1) * 2L)));
+	}
+
+
+	private static final class Table {
+
+		private final long[] keys;
+
+		private final Object[] values;
+
+		// Shared by every table of a resize chain
+		private final LongAdder size;
+
+		// Claimed key slots, including tombstones
+		private final LongAdder slots = new LongAdder();
+
+		private volatile Table next;
+
+		private volatile int copyIndex;
+
+		private volatile int copyDone;
+
+
+		private Table(final int length, final LongAdder size) {
+			this.keys = new long[length];
+			this.values = new Object[length];
+			this.size = size;
+		}
+
+
+		private boolean isFull() {
+			return slots.sum() >= (keys.length >> 1) + (keys.length >> 2);
+		}
+
+	}
+
+	private static final class Prime {
+
+		private final Object value;
+
+
+		private Prime(final Object value) {
+			this.value = value;
+		}
+
+	}
+
+	private final class EntryIterator implements ObjectIterator<Entry<V>> {
+
+		private final Table table = snapshotTable();
+
+		private Object zero = zeroValue;
+
+		private int index = -1;
+
+		private MapEntry next;
+
+		private MapEntry last;
+
+
+		private EntryIterator() {
+			advance();
+		}
+
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Entry<V> next() {
+
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+
+			last = next;
+			advance();
+
+			return last;
+		}
+
+		@Override
+		public void remove() {
+
+			if (last == null) {
+				throw new IllegalStateException();
+			}
+
+			ConcurrentLong2ObjectLockFreeHashMap.this.remove(last.getLongKey());
+			last = null;
+		}
+
+		private void advance() {
+
+			if (zero != null) {
+				//noinspection unchecked
+				next = new MapEntry(0L, (V) zero);
+				zero = null;
+				return;
+			}
+
+			final long[] keys = table.keys;
+
+			while (++index < keys.length) {
+
+				final long key = (long) KEYS.getAcquire(keys, index);
+
+				if (key == 0L) {
+					continue;
+				}
+
+				Object value = VALUES.getAcquire(table.values, index);
+
+				// Moved on by a resize that started after the snapshot
+				if (value instanceof Prime) {
+					value = ConcurrentLong2ObjectLockFreeHashMap.this.get(ConcurrentLong2ObjectLockFreeHashMap.this.table, key);
+				}
+
+				if (value != null && value != TOMBSTONE) {
+					//noinspection unchecked
+					next = new MapEntry(key, (V) value);
+					return;
+				}
+			}
+
+			next = null;
+		}
+
+	}
+
+	private final class MapEntry extends BasicEntry<V> {
+
+		private MapEntry(final long key, final V value) {
+			super(key, value);
+		}
+
+
+		@Override
+		public V setValue(final V value) {
+			final V old = this.value;
+			this.value = value;
+			put(key, value);
+			return old;
+		}
+
+	}
+
+}
@@ -1,196 +1,358 @@
 package dev.twelveoclock.fastutil.map.impl;
 
+import dev.twelveoclock.fastutil.base.StripeLockMode;
 import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.AbstractLong2ObjectMap;
+import it.unimi.dsi.fastutil.longs.AbstractLongSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectArrayMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectFunction;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSpliterator;
+import it.unimi.dsi.fastutil.objects.AbstractObjectCollection;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrays;
 import it.unimi.dsi.fastutil.objects.ObjectCollection;
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectSpliterator;
 import lombok.Getter;
 
+import java.util.Arrays;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
 
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
 
 
-public final class ConcurrentLong2ObjectOpenHashMap<V> extends FastUtilConcurrentMap implements Long2ObjectMap<V> {
+public final class ConcurrentLong2ObjectOpenHashMap<V> extends FastUtilConcurrentMap<Long2ObjectOpenHashMap<V>> implements Long2ObjectMap<V> {
 
-	private final Long2ObjectMap<V>[] buckets;
+	private final float loadFactor;
 
 	@Getter
 	private V defaultValue;
 
+	// Views are stateless, so racing to create them is harmless
+	private KeySet keySet;
+
+	private Values values;
+
+	private EntrySet entrySet;
+
 
 	public ConcurrentLong2ObjectOpenHashMap() {
-		this(Runtime.getRuntime().availableProcessors() - 1, null, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+		this(DEFAULT_NUM_BUCKETS, null, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
 	}
 
 	public ConcurrentLong2ObjectOpenHashMap(final int numBuckets, final V defaultValue, final int loadCapacity, final float loadFactor) {
+		this(numBuckets, defaultValue, loadCapacity, loadFactor, StripeLockMode.REENTRANT);
+	}
 
-		super(numBuckets);
+	public ConcurrentLong2ObjectOpenHashMap(final int numBuckets, final V defaultValue, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
 
-		//noinspection unchecked
-		this.buckets = new Long2ObjectMap[numBuckets];
-		this.defaultValue = defaultValue;
+		super(numBuckets, lockMode);
 
-		final int bucketLoadCapacity = (int) Math.ceil(((double) loadCapacity) / numBuckets);
+		this.loadFactor = loadFactor;
+		this.defaultValue = defaultValue;
 
-		for (int i = 0; i < numBuckets; i++) {
-			final Long2ObjectMap<V> bucket = new Long2ObjectOpenHashMap<>(bucketLoadCapacity, loadFactor);
-			if (defaultValue != null) {
-				bucket.defaultReturnValue(defaultValue);
-			}
-			buckets[i] = bucket;
-		}
+		initBuckets(loadCapacity);
 	}
 
+
 	@Override
-	public int size() {
+	protected Long2ObjectOpenHashMap<V> newBucket(final int capacity) {
 
-		int size = 0;
+		final Long2ObjectOpenHashMap<V> bucket = new Long2ObjectOpenHashMap<>(capacity, loadFactor);
 
-		for (final Long2ObjectMap<V> bucket : buckets) {
-			size += bucket.size();
+		if (defaultValue != null) {
+			bucket.defaultReturnValue(defaultValue);
 		}
 
-		return size;
+		return bucket;
+	}
+
+	@Override
+	protected int bucketSize(final Long2ObjectOpenHashMap<V> bucket) {
+		return bucket.size();
 	}
 
 	@Override
-	public boolean isEmpty() {
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
 
-		for (final Long2ObjectMap<V> bucket : buckets) {
-			if (!bucket.isEmpty()) {
-				return false;
-			}
+	@Override
+	protected void splitBucket(final Long2ObjectOpenHashMap<V> source, final Long2ObjectOpenHashMap<V> lower, final Long2ObjectOpenHashMap<V> upper, final int splitBit) {
+		for (final Long2ObjectMap.Entry<V> entry : Long2ObjectMaps.fastIterable(source)) {
+			final long key = entry.getLongKey();
+			(isUpperHalf(Long.hashCode(key), splitBit) ? upper : lower).put(key, entry.getValue());
 		}
-
-		return true;
 	}
 
 	@Override
 	public void putAll(final Map<? extends Long, ? extends V> m) {
+
+		if (m instanceof Long2ObjectMap) {
+			//noinspection unchecked
+			putAll((Long2ObjectMap<? extends V>) m);
+			return;
+		}
+
+		long[] keys = new long[m.size()];
+		Object[] values = new Object[keys.length];
+
+		int size = 0;
+
 		for (final Map.Entry<? extends Long, ? extends V> entry : m.entrySet()) {
 
-			final int bucket = getBucket(entry.getKey().hashCode());
-			final Lock writeLock = locks[bucket].writeLock();
+			// Grew since it was sized
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
+			}
 
-			writeLock.lock();
-			try {
-				buckets[bucket].put(entry.getKey(), entry.getValue());
-			} finally {
-				writeLock.unlock();
+			keys[size] = entry.getKey();
+			values[size++] = entry.getValue();
+		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Like {@link #putAll(Map)}, without boxing.
+	 */
+	public void putAll(final Long2ObjectMap<? extends V> m) {
+
+		long[] keys = new long[m.size()];
+		Object[] values = new Object[keys.length];
+
+		int size = 0;
+
+		for (final Long2ObjectMap.Entry<? extends V> entry : Long2ObjectMaps.fastIterable(m)) {
+
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
 			}
+
+			keys[size] = entry.getLongKey();
+			values[size++] = entry.getValue();
 		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Puts {@code keys[offset + i]} to {@code values[offset + i]} for every i below length, a later duplicate key wins.
+	 */
+	public void putAll(final long[] keys, final V[] values, final int offset, final int length) {
+
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+
+		putBatch(keys, values, offset, length);
 	}
 
 	@Override
 	public V put(final long key, final V value) {
 
-		final int bucket = getBucket(Long.hashCode(key));
-		final Lock writeLock = locks[bucket].writeLock();
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
 
-		writeLock.lock();
 		try {
-			return buckets[bucket].put(key, value);
+			return stripe.bucket.put(key, value);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
 	public V remove(final long key) {
 
-		final int bucket = getBucket(Long.hashCode(key));
-		final Lock writeLock = locks[bucket].writeLock();
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
 
-		writeLock.lock();
 		try {
-			return buckets[bucket].remove(key);
+			return stripe.bucket.remove(key);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
-	public void defaultReturnValue(final V rv) {
+	public V getOrDefault(final long key, final V defaultValue) {
 
-		this.defaultValue = rv;
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockRead(Long.hashCode(key));
 
-		for (final Long2ObjectMap<V> bucket : buckets) {
-			bucket.defaultReturnValue(rv);
+		try {
+			return stripe.bucket.getOrDefault(key, defaultValue);
+		} finally {
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
-	public V defaultReturnValue() {
-		return defaultValue;
+	public V putIfAbsent(final long key, final V value) {
+
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.putIfAbsent(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
 	}
 
 	@Override
-	public ObjectSet<Entry<V>> long2ObjectEntrySet() {
+	public boolean remove(final long key, final Object value) {
+
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
 
-		final Long2ObjectMap<V> map = new Long2ObjectOpenHashMap<>(size());
+		try {
+			return stripe.bucket.remove(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
 
-		for (int i = 0; i < buckets.length; i++) {
+	@Override
+	public boolean replace(final long key, final V oldValue, final V newValue) {
 
-			final Long2ObjectMap<V> bucket = buckets[i];
-			final Lock readLock = locks[i].readLock();
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
 
-			readLock.lock();
-			try {
-				map.putAll(bucket);
-			} finally {
-				readLock.unlock();
-			}
+		try {
+			return stripe.bucket.replace(key, oldValue, newValue);
+		} finally {
+			unlockWrite(stripe);
 		}
+	}
+
+	@Override
+	public V replace(final long key, final V value) {
+
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
 
-		return map.long2ObjectEntrySet();
+		try {
+			return stripe.bucket.replace(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
 	}
 
+	/**
+	 * Runs the mapping function under the key's stripe write lock, so it must not access other keys of this map.
+	 */
 	@Override
-	public LongSet keySet() {
+	public V computeIfAbsent(final long key, final LongFunction<? extends V> mappingFunction) {
 
-		final LongSet keySets = new LongOpenHashSet(buckets.length);
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
 
-		for (int i = 0; i < buckets.length; i++) {
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
 
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public V computeIfAbsent(final long key, final Long2ObjectFunction<? extends V> mappingFunction) {
 
-			readLock.lock();
-			try {
-				keySets.addAll(buckets[i].keySet());
-			} finally {
-				readLock.unlock();
-			}
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
 		}
+	}
+
+	@Override
+	public V computeIfPresent(final long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
 
-		return keySets;
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.computeIfPresent(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
 	}
 
 	@Override
-	public ObjectCollection<V> values() {
+	public V compute(final long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
 
-		final ObjectOpenHashSet<V> values = new ObjectOpenHashSet<>();
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
 
-		for (int i = 0; i < buckets.length; i++) {
+		try {
+			return stripe.bucket.compute(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
 
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public V merge(final long key, final V value, final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
 
-			readLock.lock();
-			try {
-				values.addAll(buckets[i].values());
-			} finally {
-				readLock.unlock();
-			}
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
+
+		try {
+			return stripe.bucket.merge(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public void defaultReturnValue(final V rv) {
+
+		this.defaultValue = rv;
+
+		updateBuckets(bucket -> {
+			bucket.defaultReturnValue(rv);
+			return false;
+		});
+	}
+
+	@Override
+	public V defaultReturnValue() {
+		return defaultValue;
+	}
+
+	@Override
+	public ObjectSet<Entry<V>> long2ObjectEntrySet() {
+
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+
+		return entrySet;
+	}
+
+	@Override
+	public LongSet keySet() {
+
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+
+		return keySet;
+	}
+
+	@Override
+	public ObjectCollection<V> values() {
+
+		if (values == null) {
+			values = new Values();
 		}
 
 		return values;
@@ -199,67 +361,461 @@ public final class ConcurrentLong2ObjectOpenHashMap<V> extends FastUtilConcurren
 	@Override
 	public V get(final long key) {
 
-		final int bucketIndex = getBucket(Long.hashCode(key));
-		final Long2ObjectMap<V> bucket = buckets[bucketIndex];
-		final Lock readLock = locks[bucketIndex].readLock();
+		final int hash = Long.hashCode(key);
+
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Long2ObjectOpenHashMap<V>> stripe = stripeFor(hash);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final V value = stripe.bucket.get(key);
+					if (stripe.validate(stamp)) {
+						return value;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockRead(hash);
 
-		readLock.lock();
 		try {
-			return bucket.get(key);
+			return stripe.bucket.get(key);
 		} finally {
-			readLock.unlock();
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
 	public boolean containsKey(final long key) {
 
-		final int bucketIndex = getBucket(Long.hashCode(key));
-		final Long2ObjectMap<V> bucket = buckets[bucketIndex];
-		final Lock readLock = locks[bucketIndex].readLock();
+		final int hash = Long.hashCode(key);
+
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Long2ObjectOpenHashMap<V>> stripe = stripeFor(hash);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final boolean result = stripe.bucket.containsKey(key);
+					if (stripe.validate(stamp)) {
+						return result;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockRead(hash);
 
-		readLock.lock();
 		try {
-			return bucket.containsKey(key);
+			return stripe.bucket.containsKey(key);
 		} finally {
-			readLock.unlock();
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
 	public boolean containsValue(final Object value) {
-		for (int i = 0; i < buckets.length; i++) {
+		return anyBucket(bucket -> bucket.containsValue(value));
+	}
 
-			final Long2ObjectMap<V> bucket = buckets[i];
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
 
-			readLock.lock();
-			try {
-				if (bucket.containsValue(value)) {
-					return true;
+
+	/**
+	 * Puts {@code length} pairs from {@code offset} with one write lock and one table resize per stripe.
+	 */
+	private void putBatch(final long[] keys, final Object[] values, final int offset, final int length) {
+
+		final int[] hashCodes = new int[length];
+
+		for (int i = 0; i < length; i++) {
+			hashCodes[i] = Long.hashCode(keys[offset + i]);
+		}
+
+		updateBatch(hashCodes, (bucket, indexes, from, to) -> {
+
+			final long[] shareKeys = new long[to - from];
+			final Object[] shareValues = new Object[to - from];
+
+			for (int i = from; i < to; i++) {
+				shareKeys[i - from] = keys[offset + indexes[i]];
+				shareValues[i - from] = values[offset + indexes[i]];
+			}
+
+			// Sizes the table once for the whole share
+			//noinspection unchecked
+			bucket.putAll(new Long2ObjectArrayMap<>(shareKeys, (V[]) shareValues, shareKeys.length));
+
+			return true;
+		});
+	}
+
+
+	private class MapIterator extends StripeIterator<ObjectIterator<Long2ObjectMap.Entry<V>>> {
+
+		long[] keys = LongArrays.EMPTY_ARRAY;
+
+		Object[] values = ObjectArrays.EMPTY_ARRAY;
+
+		private long lastKey;
+
+		private boolean canRemove;
+
+
+		@Override
+		protected ObjectIterator<Long2ObjectMap.Entry<V>> open(final Long2ObjectOpenHashMap<V> bucket) {
+			return Long2ObjectMaps.fastIterator(bucket);
+		}
+
+		@Override
+		protected int read(final Long2ObjectOpenHashMap<V> bucket, final ObjectIterator<Long2ObjectMap.Entry<V>> source, final int offset, final int max) {
+
+			grow(offset + Math.min(max, bucket.size()));
+
+			int read = 0;
+
+			while (read < max && source.hasNext()) {
+				final Long2ObjectMap.Entry<V> entry = source.next();
+				keys[offset + read] = entry.getLongKey();
+				values[offset + read++] = entry.getValue();
+			}
+
+			return read;
+		}
+
+		@Override
+		protected int readMissing(final Long2ObjectOpenHashMap<V> bucket, int offset, final int returned) {
+
+			final LongOpenHashSet seen = new LongOpenHashSet(keys, 0, returned);
+
+			grow(offset + bucket.size());
+
+			for (final Long2ObjectMap.Entry<V> entry : Long2ObjectMaps.fastIterable(bucket)) {
+				if (!seen.contains(entry.getLongKey())) {
+					keys[offset] = entry.getLongKey();
+					values[offset++] = entry.getValue();
 				}
+			}
+
+			return offset;
+		}
+
+		@Override
+		protected void copyTo(final StripeIterator<ObjectIterator<Long2ObjectMap.Entry<V>>> prefix, final int from, final int to) {
+
+			final MapIterator split = (MapIterator) prefix;
+
+			split.keys = Arrays.copyOfRange(keys, from, to);
+			split.values = Arrays.copyOfRange(values, from, to);
+		}
+
+		public boolean hasNext() {
+			return position < size || fill();
+		}
+
+		public void remove() {
+
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			canRemove = false;
+			ConcurrentLong2ObjectOpenHashMap.this.remove(lastKey);
+		}
+
+		int nextIndex() {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			lastKey = keys[position];
+			canRemove = true;
+
+			return position++;
+		}
+
+
+		private void grow(final int length) {
+			keys = LongArrays.grow(keys, length);
+			values = ObjectArrays.grow(values, length);
+		}
+
+	}
+
+	private final class KeyIterator extends MapIterator implements LongIterator {
+
+		@Override
+		public long nextLong() {
+
+			final int index = nextIndex();
+
+			return keys[index];
+		}
+
+	}
+
+	private final class ValueIterator extends MapIterator implements ObjectIterator<V> {
+
+		@Override
+		public V next() {
+
+			final int index = nextIndex();
+
+			return (V) values[index];
+		}
+
+	}
+
+	private final class EntryIterator extends MapIterator implements ObjectIterator<Long2ObjectMap.Entry<V>> {
+
+		@Override
+		public Long2ObjectMap.Entry<V> next() {
+
+			final int index = nextIndex();
+
+			return new MapEntry(keys[index], (V) values[index]);
+		}
+
+	}
+
+	private final class KeySpliterator extends MapIterator implements LongSpliterator {
+
+		@Override
+		public boolean tryAdvance(final LongConsumer action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			action.accept(keys[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public LongSpliterator trySplit() {
+			return trySplit(KeySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class ValueSpliterator extends MapIterator implements ObjectSpliterator<V> {
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super V> action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			//noinspection unchecked
+			action.accept((V) values[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<V> trySplit() {
+			return trySplit(ValueSpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class EntrySpliterator extends MapIterator implements ObjectSpliterator<Long2ObjectMap.Entry<V>> {
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Long2ObjectMap.Entry<V>> action) {
+
+			if (!hasNext()) {
+				return false;
+			}
+
+			final int index = nextIndex();
+
+			//noinspection unchecked
+			action.accept(new MapEntry(keys[index], (V) values[index]));
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<Long2ObjectMap.Entry<V>> trySplit() {
+			return trySplit(EntrySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	// Writes through to the map, like ConcurrentHashMap's entries
+	private final class MapEntry extends AbstractLong2ObjectMap.BasicEntry<V> {
+
+		private MapEntry(final long key, final V value) {
+			super(key, value);
+		}
+
+		@Override
+		public V setValue(final V value) {
+
+			final V old = this.value;
+
+			this.value = value;
+			put(key, value);
+
+			return old;
+		}
+
+	}
+
+	private final class KeySet extends AbstractLongSet {
+
+		@Override
+		public LongIterator iterator() {
+			return new KeyIterator();
+		}
+
+		@Override
+		public LongSpliterator spliterator() {
+			return new KeySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2ObjectOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final long key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(final long key) {
+
+			final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(Long.hashCode(key));
+
+			try {
+				return stripe.bucket.keySet().remove(key);
 			} finally {
-				readLock.unlock();
+				unlockWrite(stripe);
 			}
 		}
 
-		return false;
+		@Override
+		public void clear() {
+			ConcurrentLong2ObjectOpenHashMap.this.clear();
+		}
+
 	}
 
-	@Override
-	public void clear() {
+	private final class Values extends AbstractObjectCollection<V> {
+
+		@Override
+		public ObjectIterator<V> iterator() {
+			return new ValueIterator();
+		}
+
+		@Override
+		public ObjectSpliterator<V> spliterator() {
+			return new ValueSpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2ObjectOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final Object value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2ObjectOpenHashMap.this.clear();
+		}
+
+	}
+
+	private final class EntrySet extends AbstractObjectSet<Long2ObjectMap.Entry<V>> {
+
+		@Override
+		public ObjectIterator<Long2ObjectMap.Entry<V>> iterator() {
+			return new EntryIterator();
+		}
 
-		for (int i = 0; i < buckets.length; i++) {
+		@Override
+		public ObjectSpliterator<Long2ObjectMap.Entry<V>> spliterator() {
+			return new EntrySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2ObjectOpenHashMap.this.size();
+		}
 
-			final Long2ObjectMap<V> bucket = buckets[i];
-			final Lock writeLock = locks[i].writeLock();
+		@Override
+		public boolean contains(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+				return false;
+			}
+
+			final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockRead(((Map.Entry<?, ?>) o).getKey().hashCode());
 
-			writeLock.lock();
 			try {
-				bucket.clear();
+				return stripe.bucket.long2ObjectEntrySet().contains(o);
 			} finally {
-				writeLock.unlock();
+				unlockRead(stripe);
 			}
 		}
+
+		@Override
+		public boolean remove(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+				return false;
+			}
+
+			final Stripe<Long2ObjectOpenHashMap<V>> stripe = lockWrite(((Map.Entry<?, ?>) o).getKey().hashCode());
+
+			try {
+				return stripe.bucket.long2ObjectEntrySet().remove(o);
+			} finally {
+				unlockWrite(stripe);
+			}
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2ObjectOpenHashMap.this.clear();
+		}
+
 	}
+
 }
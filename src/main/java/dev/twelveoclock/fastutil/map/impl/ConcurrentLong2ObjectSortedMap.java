@@ -0,0 +1,1570 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import it.unimi.dsi.fastutil.longs.AbstractLong2ObjectMap;
+import it.unimi.dsi.fastutil.longs.AbstractLongSortedSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectFunction;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectSortedMap;
+import it.unimi.dsi.fastutil.longs.LongBidirectionalIterator;
+import it.unimi.dsi.fastutil.longs.LongComparator;
+import it.unimi.dsi.fastutil.longs.LongSortedSet;
+import it.unimi.dsi.fastutil.objects.AbstractObjectCollection;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSortedSet;
+import it.unimi.dsi.fastutil.objects.ObjectBidirectionalIterator;
+import it.unimi.dsi.fastutil.objects.ObjectCollection;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.ObjectSortedSet;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.LongFunction;
+
+
+/**
+ * A lock-free sorted map with unboxed long keys, a skip list after {@link java.util.concurrent.ConcurrentSkipListMap}.
+ * <p>
+ * Removal nulls a node's value, then appends a marker node behind it so nothing can be inserted after it before it is unlinked.
+ * Sub maps are live half-open ranges of this map, views and iterators are weakly consistent and walk the keys in order.
+ * Like {@code ConcurrentSkipListMap}, a range whose start is above its end, or a sub view reaching outside its parent's range, throws.
+ * Null values are not supported, {@link #defaultReturnValue()} is returned for absent keys.
+ */
+public final class ConcurrentLong2ObjectSortedMap<V> extends AbstractLong2ObjectMap<V> implements Long2ObjectSortedMap<V> {
+
+	private static final VarHandle HEAD;
+
+	private static final VarHandle NEXT;
+
+	private static final VarHandle VALUE;
+
+	private static final VarHandle RIGHT;
+
+	static {
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			HEAD = lookup.findVarHandle(ConcurrentLong2ObjectSortedMap.class, "head", Index.class);
+			NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+			VALUE = lookup.findVarHandle(Node.class, "value", Object.class);
+			RIGHT = lookup.findVarHandle(Index.class, "right", Index.class);
+		} catch (final ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// Relations for findNear, GT alone is strictly greater
+	private static final int GT = 0;
+
+	private static final int EQ = 1;
+
+	private static final int LT = 2;
+
+	private static final Comparator<Long2ObjectMap.Entry<?>> ENTRY_ORDER = Comparator.comparingLong(Long2ObjectMap.Entry::getLongKey);
+
+
+	private final LongAdder count = new LongAdder();
+
+	private volatile Index<V> head = new Index<>(new Node<>(null), null, null);
+
+
+	public ConcurrentLong2ObjectSortedMap() {
+		this(null);
+	}
+
+	public ConcurrentLong2ObjectSortedMap(final V defaultValue) {
+		this.defRetValue = defaultValue;
+	}
+
+
+	@Override
+	public int size() {
+		return (int) Math.max(0, Math.min(count.sum(), Integer.MAX_VALUE));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return findNear(Long.MIN_VALUE, GT | EQ) == null;
+	}
+
+	@Override
+	public V get(final long key) {
+
+		final V value = doGet(key);
+
+		return value == null ? defRetValue : value;
+	}
+
+	@Override
+	public V getOrDefault(final long key, final V defaultValue) {
+
+		final V value = doGet(key);
+
+		return value == null ? defaultValue : value;
+	}
+
+	@Override
+	public boolean containsKey(final long key) {
+		return doGet(key) != null;
+	}
+
+	@Override
+	public boolean containsValue(final Object value) {
+
+		if (value == null) {
+			return false;
+		}
+
+		for (final ObjectIterator<V> iterator = new ValueIterator(Bounds.ALL); iterator.hasNext(); ) {
+			if (value.equals(iterator.next())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public V put(final long key, final V value) {
+
+		final V old = doPut(key, Objects.requireNonNull(value), false);
+
+		return old == null ? defRetValue : old;
+	}
+
+	@Override
+	public V putIfAbsent(final long key, final V value) {
+
+		final V old = doPut(key, Objects.requireNonNull(value), true);
+
+		return old == null ? defRetValue : old;
+	}
+
+	@Override
+	public V remove(final long key) {
+
+		final V old = doRemove(key, null);
+
+		return old == null ? defRetValue : old;
+	}
+
+	@Override
+	public boolean remove(final long key, final Object value) {
+		return value != null && doRemove(key, value) != null;
+	}
+
+	@Override
+	public V replace(final long key, final V value) {
+
+		Objects.requireNonNull(value);
+
+		while (true) {
+
+			final Node<V> node = findNode(key);
+
+			if (node == null) {
+				return defRetValue;
+			}
+
+			final V old = node.value;
+
+			if (old != null && VALUE.compareAndSet(node, old, value)) {
+				return old;
+			}
+		}
+	}
+
+	@Override
+	public boolean replace(final long key, final V oldValue, final V newValue) {
+
+		Objects.requireNonNull(newValue);
+
+		if (oldValue == null) {
+			return false;
+		}
+
+		while (true) {
+
+			final Node<V> node = findNode(key);
+
+			if (node == null) {
+				return false;
+			}
+
+			final V old = node.value;
+
+			if (old != null) {
+
+				if (!oldValue.equals(old)) {
+					return false;
+				}
+
+				if (VALUE.compareAndSet(node, old, newValue)) {
+					return true;
+				}
+			}
+		}
+	}
+
+	@Override
+	public V computeIfAbsent(final long key, final LongFunction<? extends V> mappingFunction) {
+
+		final V existing = doGet(key);
+
+		if (existing != null) {
+			return existing;
+		}
+
+		final V value = mappingFunction.apply(key);
+
+		if (value == null) {
+			return defRetValue;
+		}
+
+		final V raced = doPut(key, value, true);
+
+		return raced == null ? value : raced;
+	}
+
+	@Override
+	public V computeIfAbsent(final long key, final Long2ObjectFunction<? extends V> mappingFunction) {
+		return computeIfAbsent(key, (LongFunction<? extends V>) k -> mappingFunction.containsKey(k) ? mappingFunction.get(k) : null);
+	}
+
+	@Override
+	public V computeIfPresent(final long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
+
+		Node<V> node;
+
+		while ((node = findNode(key)) != null) {
+
+			final V old = node.value;
+
+			if (old == null) {
+				continue;
+			}
+
+			final V value = remappingFunction.apply(key, old);
+
+			if (value != null) {
+				if (VALUE.compareAndSet(node, old, value)) {
+					return value;
+				}
+			}
+			else if (doRemove(key, old) != null) {
+				break;
+			}
+		}
+
+		return defRetValue;
+	}
+
+	@Override
+	public V compute(final long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
+		while (true) {
+
+			final Node<V> node = findNode(key);
+
+			if (node == null) {
+
+				final V value = remappingFunction.apply(key, null);
+
+				if (value == null) {
+					return defRetValue;
+				}
+
+				if (doPut(key, value, true) == null) {
+					return value;
+				}
+
+				continue;
+			}
+
+			final V old = node.value;
+
+			if (old == null) {
+				continue;
+			}
+
+			final V value = remappingFunction.apply(key, old);
+
+			if (value != null) {
+				if (VALUE.compareAndSet(node, old, value)) {
+					return value;
+				}
+			}
+			else if (doRemove(key, old) != null) {
+				return defRetValue;
+			}
+		}
+	}
+
+	@Override
+	public V merge(final long key, final V value, final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+
+		Objects.requireNonNull(value);
+
+		while (true) {
+
+			final Node<V> node = findNode(key);
+
+			if (node == null) {
+
+				if (doPut(key, value, true) == null) {
+					return value;
+				}
+
+				continue;
+			}
+
+			final V old = node.value;
+
+			if (old == null) {
+				continue;
+			}
+
+			final V merged = remappingFunction.apply(old, value);
+
+			if (merged != null) {
+				if (VALUE.compareAndSet(node, old, merged)) {
+					return merged;
+				}
+			}
+			else if (doRemove(key, old) != null) {
+				return defRetValue;
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+
+		// Drops the index levels first, then deletes the nodes left to right
+		while (true) {
+
+			final Index<V> h = head;
+
+			final Index<V> right = h.right;
+			final Index<V> down = h.down;
+
+			if (right != null) {
+				RIGHT.compareAndSet(h, right, null);
+			}
+			else if (down != null) {
+				HEAD.compareAndSet(this, h, down);
+			}
+			else {
+
+				final Node<V> base = h.node;
+				long removed = 0;
+				Node<V> node;
+
+				while ((node = base.next) != null) {
+
+					final V value = node.value;
+
+					if (value != null && VALUE.compareAndSet(node, value, null)) {
+						removed++;
+						unlinkNode(base, node);
+					}
+					else if (value == null) {
+						unlinkNode(base, node);
+					}
+				}
+
+				if (removed == 0) {
+					return;
+				}
+
+				count.add(-removed);
+			}
+		}
+	}
+
+	@Override
+	public long firstLongKey() {
+		return firstKeyIn(Bounds.ALL);
+	}
+
+	@Override
+	public long lastLongKey() {
+		return lastKeyIn(Bounds.ALL);
+	}
+
+	@Override
+	public Long2ObjectSortedMap<V> subMap(final long fromKey, final long toKey) {
+		return new SubMap(Bounds.ALL.withRange(fromKey, toKey));
+	}
+
+	@Override
+	public Long2ObjectSortedMap<V> headMap(final long toKey) {
+		return new SubMap(Bounds.ALL.withTo(toKey));
+	}
+
+	@Override
+	public Long2ObjectSortedMap<V> tailMap(final long fromKey) {
+		return new SubMap(Bounds.ALL.withFrom(fromKey));
+	}
+
+	/**
+	 * Natural order.
+	 */
+	@Override
+	public LongComparator comparator() {
+		return null;
+	}
+
+	@Override
+	public ObjectSortedSet<Entry<V>> long2ObjectEntrySet() {
+		return new EntrySet(Bounds.ALL);
+	}
+
+	@Override
+	public LongSortedSet keySet() {
+		return new KeySet(Bounds.ALL);
+	}
+
+	@Override
+	public ObjectCollection<V> values() {
+		return new Values(Bounds.ALL);
+	}
+
+
+	private int size(final Bounds bounds) {
+
+		if (bounds == Bounds.ALL) {
+			return size();
+		}
+
+		int size = 0;
+
+		for (final KeyIterator iterator = new KeyIterator(bounds); iterator.hasNext(); iterator.nextLong()) {
+			size++;
+		}
+
+		return size;
+	}
+
+	private void clear(final Bounds bounds) {
+
+		if (bounds == Bounds.ALL) {
+			clear();
+			return;
+		}
+
+		for (final KeyIterator iterator = new KeyIterator(bounds); iterator.hasNext(); ) {
+			doRemove(iterator.nextLong(), null);
+		}
+	}
+
+	private long firstKeyIn(final Bounds bounds) {
+		return new KeyIterator(bounds).nextLong();
+	}
+
+	private long lastKeyIn(final Bounds bounds) {
+		return new KeyIterator(bounds, Long.MAX_VALUE).previousLong();
+	}
+
+	private V doGet(final long key) {
+		while (true) {
+
+			final Node<V> node = findNode(key);
+
+			if (node == null) {
+				return null;
+			}
+
+			final V value = node.value;
+
+			if (value != null) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * @return The previous value, or null if the key was absent and the value got inserted.
+	 */
+	private V doPut(final long key, final V value, final boolean onlyIfAbsent) {
+		while (true) {
+
+			final Index<V> h = head;
+
+			// Levels descended, new indexes are spliced in from this height down
+			int levels = 0;
+			Node<V> b;
+
+			for (Index<V> q = h, r, d; ; ) {
+
+				while ((r = q.right) != null) {
+
+					final Node<V> p = r.node;
+
+					if (p.value == null) {
+						RIGHT.compareAndSet(q, r, r.right);
+					}
+					else if (key > p.key) {
+						q = r;
+					}
+					else {
+						break;
+					}
+				}
+
+				if ((d = q.down) != null) {
+					levels++;
+					q = d;
+				}
+				else {
+					b = q.node;
+					break;
+				}
+			}
+
+			Node<V> inserted = null;
+
+			while (true) {
+
+				final Node<V> n = b.next;
+				int c;
+
+				if (n == null) {
+					c = -1;
+				}
+				else if (n.keyless) {
+					// b was deleted, start over
+					break;
+				}
+				else {
+
+					final V v = n.value;
+
+					if (v == null) {
+						unlinkNode(b, n);
+						c = 1;
+					}
+					else if ((c = Long.compare(key, n.key)) > 0) {
+						b = n;
+					}
+					else if (c == 0 && (onlyIfAbsent || VALUE.compareAndSet(n, v, value))) {
+						return v;
+					}
+				}
+
+				if (c < 0) {
+
+					final Node<V> node = new Node<>(key, value, n);
+
+					if (NEXT.compareAndSet(b, n, node)) {
+						inserted = node;
+						break;
+					}
+				}
+			}
+
+			if (inserted == null) {
+				continue;
+			}
+
+			long random = ThreadLocalRandom.current().nextLong();
+
+			// A quarter of the nodes get indexed, each level above that with half the chance
+			if ((random & 0x3) == 0) {
+
+				int skips = levels;
+				Index<V> x = null;
+
+				while (true) {
+
+					x = new Index<>(inserted, x, null);
+
+					if (random >= 0L || --skips < 0) {
+						break;
+					}
+
+					random <<= 1;
+				}
+
+				if (addIndices(h, skips, x) && skips < 0 && head == h) {
+					final Index<V> top = new Index<>(inserted, x, null);
+					HEAD.compareAndSet(this, h, new Index<>(h.node, h, top));
+				}
+
+				// Removed while its indexes were added, clean them up
+				if (inserted.value == null) {
+					findPredecessor(key);
+				}
+			}
+
+			count.increment();
+
+			return null;
+		}
+	}
+
+	/**
+	 * @param value The value the key must be mapped to, null for any.
+	 * @return The removed value, or null if nothing was removed.
+	 */
+	private V doRemove(final long key, final Object value) {
+
+		V removed = null;
+
+		outer:
+		while (removed == null) {
+
+			Node<V> b = findPredecessor(key);
+
+			while (true) {
+
+				final Node<V> n = b.next;
+
+				if (n == null) {
+					break outer;
+				}
+
+				if (n.keyless) {
+					break;
+				}
+
+				final V v = n.value;
+
+				if (v == null) {
+					unlinkNode(b, n);
+					continue;
+				}
+
+				final int c = Long.compare(key, n.key);
+
+				if (c > 0) {
+					b = n;
+				}
+				else if (c < 0 || (value != null && !value.equals(v))) {
+					break outer;
+				}
+				else if (VALUE.compareAndSet(n, v, null)) {
+					removed = v;
+					unlinkNode(b, n);
+					break;
+				}
+			}
+		}
+
+		if (removed != null) {
+			tryReduceLevel();
+			count.decrement();
+		}
+
+		return removed;
+	}
+
+	/**
+	 * @return The base node to start searching for key from, its key is below key or it's the base header.
+	 */
+	private Node<V> findPredecessor(final long key) {
+
+		Index<V> q = head;
+
+		while (true) {
+
+			Index<V> r;
+
+			while ((r = q.right) != null) {
+
+				final Node<V> p = r.node;
+
+				if (p.value == null) {
+					RIGHT.compareAndSet(q, r, r.right);
+				}
+				else if (key > p.key) {
+					q = r;
+				}
+				else {
+					break;
+				}
+			}
+
+			final Index<V> d = q.down;
+
+			if (d == null) {
+				return q.node;
+			}
+
+			q = d;
+		}
+	}
+
+	/**
+	 * @return The key's node, its value may be removed by the time it's read.
+	 */
+	private Node<V> findNode(final long key) {
+
+		outer:
+		while (true) {
+
+			Node<V> b = findPredecessor(key);
+
+			while (true) {
+
+				final Node<V> n = b.next;
+
+				if (n == null) {
+					return null;
+				}
+
+				if (n.keyless) {
+					continue outer;
+				}
+
+				if (n.value == null) {
+					unlinkNode(b, n);
+					continue;
+				}
+
+				if (key > n.key) {
+					b = n;
+				}
+				else {
+					return key == n.key ? n : null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param relation GT, GT | EQ, LT or LT | EQ.
+	 * @return The closest node to key in the relation, its value may be removed by the time it's read.
+	 */
+	private Node<V> findNear(final long key, final int relation) {
+
+		outer:
+		while (true) {
+
+			Node<V> b = findPredecessor(key);
+
+			while (true) {
+
+				final Node<V> n = b.next;
+
+				if (n == null) {
+					return (relation & LT) != 0 && !b.keyless ? b : null;
+				}
+
+				if (n.keyless) {
+					continue outer;
+				}
+
+				if (n.value == null) {
+					unlinkNode(b, n);
+					continue;
+				}
+
+				final int c = Long.compare(key, n.key);
+
+				if ((c == 0 && (relation & EQ) != 0) || (c < 0 && (relation & LT) == 0)) {
+					return n;
+				}
+
+				if (c <= 0 && (relation & LT) != 0) {
+					return b.keyless ? null : b;
+				}
+
+				b = n;
+			}
+		}
+	}
+
+	/**
+	 * Removes the top level when the top three are empty, three so racing inserts rarely lose a level they just added.
+	 */
+	private void tryReduceLevel() {
+
+		final Index<V> h = head;
+		final Index<V> d;
+		final Index<V> e;
+
+		if (h.right == null && (d = h.down) != null && d.right == null && (e = d.down) != null && e.right == null
+			&& HEAD.compareAndSet(this, h, d) && h.right != null) {
+			HEAD.compareAndSet(this, d, h);
+		}
+	}
+
+
+	/**
+	 * Marks n deleted with a marker node if it isn't already, then unlinks it and its marker from b.
+	 */
+	private static <V> void unlinkNode(final Node<V> b, final Node<V> n) {
+
+		Node<V> after;
+
+		while (true) {
+
+			final Node<V> f = n.next;
+
+			if (f != null && f.keyless) {
+				after = f.next;
+				break;
+			}
+
+			if (NEXT.compareAndSet(n, f, new Node<>(f))) {
+				after = f;
+				break;
+			}
+		}
+
+		NEXT.compareAndSet(b, n, after);
+	}
+
+	/**
+	 * Splices the index tower x into the levels below q, skipping the given number of levels first.
+	 *
+	 * @return Whether every level was added.
+	 */
+	private static <V> boolean addIndices(Index<V> q, int skips, final Index<V> x) {
+
+		if (x == null) {
+			return false;
+		}
+
+		final long key = x.node.key;
+		boolean retrying = false;
+
+		while (true) {
+
+			final Index<V> r = q.right;
+			int c;
+
+			if (r != null) {
+
+				final Node<V> p = r.node;
+
+				if (p.value == null) {
+					RIGHT.compareAndSet(q, r, r.right);
+					c = 0;
+				}
+				else if ((c = Long.compare(key, p.key)) > 0) {
+					q = r;
+				}
+				else if (c == 0) {
+					// Already indexed, the node must have been removed and re-added
+					return false;
+				}
+			}
+			else {
+				c = -1;
+			}
+
+			if (c < 0) {
+
+				final Index<V> d = q.down;
+
+				if (d != null && skips > 0) {
+					skips--;
+					q = d;
+				}
+				else if (d != null && !retrying && !addIndices(d, 0, x.down)) {
+					return false;
+				}
+				else {
+
+					x.right = r;
+
+					if (RIGHT.compareAndSet(q, r, x)) {
+						return true;
+					}
+
+					retrying = true;
+				}
+			}
+		}
+	}
+
+
+	private static final class Node<V> {
+
+		private final long key;
+
+		// Base header and markers carry no key
+		private final boolean keyless;
+
+		// Null once removed
+		private volatile V value;
+
+		private volatile Node<V> next;
+
+
+		private Node(final long key, final V value, final Node<V> next) {
+			this.key = key;
+			this.keyless = false;
+			this.value = value;
+			this.next = next;
+		}
+
+		private Node(final Node<V> next) {
+			this.key = 0;
+			this.keyless = true;
+			this.next = next;
+		}
+
+	}
+
+	private static final class Index<V> {
+
+		private final Node<V> node;
+
+		private final Index<V> down;
+
+		private volatile Index<V> right;
+
+
+		private Index(final Node<V> node, final Index<V> down, final Index<V> right) {
+			this.node = node;
+			this.down = down;
+			this.right = right;
+		}
+
+	}
+
+	/**
+	 * The half-open key range of a sub map, [from, to).
+	 */
+	private static final class Bounds {
+
+		private static final Bounds ALL = new Bounds(false, 0, false, 0);
+
+		private final boolean hasFrom;
+
+		private final long from;
+
+		private final boolean hasTo;
+
+		private final long to;
+
+
+		private Bounds(final boolean hasFrom, final long from, final boolean hasTo, final long to) {
+			this.hasFrom = hasFrom;
+			this.from = from;
+			this.hasTo = hasTo;
+			this.to = to;
+		}
+
+
+		private boolean tooLow(final long key) {
+			return hasFrom && key < from;
+		}
+
+		private boolean tooHigh(final long key) {
+			return hasTo && key >= to;
+		}
+
+		private boolean contains(final long key) {
+			return !tooLow(key) && !tooHigh(key);
+		}
+
+		private Bounds withFrom(final long from) {
+			return new Bounds(true, checkBound(from), hasTo, to);
+		}
+
+		private Bounds withTo(final long to) {
+			return new Bounds(hasFrom, from, true, checkBound(to));
+		}
+
+		private Bounds withRange(final long from, final long to) {
+
+			if (from > to) {
+				throw new IllegalArgumentException("From key " + from + " is above to key " + to);
+			}
+
+			return withFrom(from).withTo(to);
+		}
+
+		// A narrower view may put a bound on either end of this range, but not outside it
+		private long checkBound(final long bound) {
+
+			if (tooLow(bound) || (hasTo && bound > to)) {
+				throw new IllegalArgumentException("Bound out of range: " + bound);
+			}
+
+			return bound;
+		}
+
+	}
+
+	private final class SubMap extends AbstractLong2ObjectMap<V> implements Long2ObjectSortedMap<V> {
+
+		private final Bounds bounds;
+
+
+		private SubMap(final Bounds bounds) {
+			this.bounds = bounds;
+		}
+
+
+		@Override
+		public V defaultReturnValue() {
+			return ConcurrentLong2ObjectSortedMap.this.defaultReturnValue();
+		}
+
+		@Override
+		public void defaultReturnValue(final V rv) {
+			ConcurrentLong2ObjectSortedMap.this.defaultReturnValue(rv);
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2ObjectSortedMap.this.size(bounds);
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return !new KeyIterator(bounds).hasNext();
+		}
+
+		@Override
+		public V get(final long key) {
+			return bounds.contains(key) ? ConcurrentLong2ObjectSortedMap.this.get(key) : defaultReturnValue();
+		}
+
+		@Override
+		public V getOrDefault(final long key, final V defaultValue) {
+			return bounds.contains(key) ? ConcurrentLong2ObjectSortedMap.this.getOrDefault(key, defaultValue) : defaultValue;
+		}
+
+		@Override
+		public boolean containsKey(final long key) {
+			return bounds.contains(key) && ConcurrentLong2ObjectSortedMap.this.containsKey(key);
+		}
+
+		@Override
+		public V put(final long key, final V value) {
+			return ConcurrentLong2ObjectSortedMap.this.put(checkInRange(key), value);
+		}
+
+		@Override
+		public V putIfAbsent(final long key, final V value) {
+			return ConcurrentLong2ObjectSortedMap.this.putIfAbsent(checkInRange(key), value);
+		}
+
+		@Override
+		public V remove(final long key) {
+			return bounds.contains(key) ? ConcurrentLong2ObjectSortedMap.this.remove(key) : defaultReturnValue();
+		}
+
+		@Override
+		public boolean remove(final long key, final Object value) {
+			return bounds.contains(key) && ConcurrentLong2ObjectSortedMap.this.remove(key, value);
+		}
+
+		@Override
+		public V replace(final long key, final V value) {
+			return bounds.contains(key) ? ConcurrentLong2ObjectSortedMap.this.replace(key, value) : defaultReturnValue();
+		}
+
+		@Override
+		public boolean replace(final long key, final V oldValue, final V newValue) {
+			return bounds.contains(key) && ConcurrentLong2ObjectSortedMap.this.replace(key, oldValue, newValue);
+		}
+
+		@Override
+		public V computeIfAbsent(final long key, final LongFunction<? extends V> mappingFunction) {
+			return ConcurrentLong2ObjectSortedMap.this.computeIfAbsent(checkInRange(key), mappingFunction);
+		}
+
+		@Override
+		public V computeIfAbsent(final long key, final Long2ObjectFunction<? extends V> mappingFunction) {
+			return ConcurrentLong2ObjectSortedMap.this.computeIfAbsent(checkInRange(key), mappingFunction);
+		}
+
+		@Override
+		public V computeIfPresent(final long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
+			return bounds.contains(key) ? ConcurrentLong2ObjectSortedMap.this.computeIfPresent(key, remappingFunction) : defaultReturnValue();
+		}
+
+		@Override
+		public V compute(final long key, final BiFunction<? super Long, ? super V, ? extends V> remappingFunction) {
+			return ConcurrentLong2ObjectSortedMap.this.compute(checkInRange(key), remappingFunction);
+		}
+
+		@Override
+		public V merge(final long key, final V value, final BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+			return ConcurrentLong2ObjectSortedMap.this.merge(checkInRange(key), value, remappingFunction);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2ObjectSortedMap.this.clear(bounds);
+		}
+
+		@Override
+		public long firstLongKey() {
+			return firstKeyIn(bounds);
+		}
+
+		@Override
+		public long lastLongKey() {
+			return lastKeyIn(bounds);
+		}
+
+		@Override
+		public Long2ObjectSortedMap<V> subMap(final long fromKey, final long toKey) {
+			return new SubMap(bounds.withRange(fromKey, toKey));
+		}
+
+		@Override
+		public Long2ObjectSortedMap<V> headMap(final long toKey) {
+			return new SubMap(bounds.withTo(toKey));
+		}
+
+		@Override
+		public Long2ObjectSortedMap<V> tailMap(final long fromKey) {
+			return new SubMap(bounds.withFrom(fromKey));
+		}
+
+		@Override
+		public LongComparator comparator() {
+			return null;
+		}
+
+		@Override
+		public ObjectSortedSet<Entry<V>> long2ObjectEntrySet() {
+			return new EntrySet(bounds);
+		}
+
+		@Override
+		public LongSortedSet keySet() {
+			return new KeySet(bounds);
+		}
+
+		@Override
+		public ObjectCollection<V> values() {
+			return new Values(bounds);
+		}
+
+		private long checkInRange(final long key) {
+
+			if (!bounds.contains(key)) {
+				throw new IllegalArgumentException("Key out of range: " + key);
+			}
+
+			return key;
+		}
+
+	}
+
+	private final class KeySet extends AbstractLongSortedSet {
+
+		private final Bounds bounds;
+
+
+		private KeySet(final Bounds bounds) {
+			this.bounds = bounds;
+		}
+
+
+		@Override
+		public LongBidirectionalIterator iterator() {
+			return new KeyIterator(bounds);
+		}
+
+		@Override
+		public LongBidirectionalIterator iterator(final long fromElement) {
+			return new KeyIterator(bounds, fromElement);
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2ObjectSortedMap.this.size(bounds);
+		}
+
+		@Override
+		public boolean contains(final long key) {
+			return bounds.contains(key) && containsKey(key);
+		}
+
+		@Override
+		public boolean remove(final long key) {
+			return bounds.contains(key) && doRemove(key, null) != null;
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2ObjectSortedMap.this.clear(bounds);
+		}
+
+		@Override
+		public LongSortedSet subSet(final long fromElement, final long toElement) {
+			return new KeySet(bounds.withRange(fromElement, toElement));
+		}
+
+		@Override
+		public LongSortedSet headSet(final long toElement) {
+			return new KeySet(bounds.withTo(toElement));
+		}
+
+		@Override
+		public LongSortedSet tailSet(final long fromElement) {
+			return new KeySet(bounds.withFrom(fromElement));
+		}
+
+		@Override
+		public LongComparator comparator() {
+			return null;
+		}
+
+		@Override
+		public long firstLong() {
+			return firstKeyIn(bounds);
+		}
+
+		@Override
+		public long lastLong() {
+			return lastKeyIn(bounds);
+		}
+
+	}
+
+	private final class Values extends AbstractObjectCollection<V> {
+
+		private final Bounds bounds;
+
+
+		private Values(final Bounds bounds) {
+			this.bounds = bounds;
+		}
+
+
+		@Override
+		public ObjectIterator<V> iterator() {
+			return new ValueIterator(bounds);
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2ObjectSortedMap.this.size(bounds);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2ObjectSortedMap.this.clear(bounds);
+		}
+
+	}
+
+	private final class EntrySet extends AbstractObjectSortedSet<Entry<V>> {
+
+		private final Bounds bounds;
+
+
+		private EntrySet(final Bounds bounds) {
+			this.bounds = bounds;
+		}
+
+
+		@Override
+		public ObjectBidirectionalIterator<Entry<V>> iterator() {
+			return new EntryIterator(bounds);
+		}
+
+		@Override
+		public ObjectBidirectionalIterator<Entry<V>> iterator(final Entry<V> fromElement) {
+			return new EntryIterator(bounds, fromElement.getLongKey());
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentLong2ObjectSortedMap.this.size(bounds);
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+				return false;
+			}
+
+			final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+			final long key = (Long) entry.getKey();
+
+			if (!bounds.contains(key)) {
+				return false;
+			}
+
+			final V value = doGet(key);
+
+			return value != null && value.equals(entry.getValue());
+		}
+
+		@Override
+		public boolean remove(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long)) {
+				return false;
+			}
+
+			final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+			final long key = (Long) entry.getKey();
+
+			return bounds.contains(key) && ConcurrentLong2ObjectSortedMap.this.remove(key, entry.getValue());
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentLong2ObjectSortedMap.this.clear(bounds);
+		}
+
+		@Override
+		public ObjectSortedSet<Entry<V>> subSet(final Entry<V> fromElement, final Entry<V> toElement) {
+			return new EntrySet(bounds.withRange(fromElement.getLongKey(), toElement.getLongKey()));
+		}
+
+		@Override
+		public ObjectSortedSet<Entry<V>> headSet(final Entry<V> toElement) {
+			return new EntrySet(bounds.withTo(toElement.getLongKey()));
+		}
+
+		@Override
+		public ObjectSortedSet<Entry<V>> tailSet(final Entry<V> fromElement) {
+			return new EntrySet(bounds.withFrom(fromElement.getLongKey()));
+		}
+
+		@Override
+		public Comparator<? super Entry<V>> comparator() {
+			return ENTRY_ORDER;
+		}
+
+		@Override
+		public Entry<V> first() {
+			return new EntryIterator(bounds).next();
+		}
+
+		@Override
+		public Entry<V> last() {
+			return new EntryIterator(bounds, Long.MAX_VALUE).previous();
+		}
+
+	}
+
+	/**
+	 * Walks the base level forwards, deleted nodes keep their next link so a removed cursor can still move on.
+	 * Going backwards searches again from the cursor's key.
+	 */
+	private abstract class NodeIterator {
+
+		private final Bounds bounds;
+
+		private Node<V> next;
+
+		private V nextValue;
+
+		private Node<V> previous;
+
+		private V previousValue;
+
+		// The node and value handed out last
+		protected Node<V> last;
+
+		protected V lastValue;
+
+
+		private NodeIterator(final Bounds bounds) {
+			this.bounds = bounds;
+			seekNext(bounds.hasFrom ? bounds.from : Long.MIN_VALUE, GT | EQ);
+		}
+
+		/**
+		 * Starts between from and the key after it, same as fastutil's {@code iterator(fromElement)}.
+		 */
+		private NodeIterator(final Bounds bounds, final long from) {
+
+			this.bounds = bounds;
+
+			if (bounds.tooLow(from)) {
+				seekNext(bounds.from, GT | EQ);
+			}
+			else {
+				seekNext(from, GT);
+				seekPrevious(bounds.tooHigh(from) ? bounds.to : from, bounds.tooHigh(from) ? LT : LT | EQ);
+			}
+		}
+
+
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		public boolean hasPrevious() {
+			return previous != null;
+		}
+
+		public void remove() {
+
+			if (last == null) {
+				throw new IllegalStateException();
+			}
+
+			doRemove(last.key, null);
+			last = null;
+		}
+
+		protected void nextNode() {
+
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+
+			last = previous = next;
+			lastValue = previousValue = nextValue;
+
+			Node<V> node = next;
+			V value = null;
+
+			while ((node = node.next) != null && (value = node.value) == null) {
+				// Skips removed nodes and markers
+			}
+
+			setNext(node, value);
+		}
+
+		protected void previousNode() {
+
+			if (previous == null) {
+				throw new NoSuchElementException();
+			}
+
+			last = next = previous;
+			lastValue = nextValue = previousValue;
+
+			seekPrevious(last.key, LT);
+		}
+
+		private void seekNext(final long key, final int relation) {
+
+			Node<V> node;
+			V value = null;
+
+			while ((node = findNear(key, relation)) != null && (value = node.value) == null) {
+				// Removed after it was found, search again
+			}
+
+			setNext(node, value);
+		}
+
+		private void seekPrevious(final long key, final int relation) {
+
+			Node<V> node;
+			V value = null;
+
+			while ((node = findNear(key, relation)) != null && (value = node.value) == null) {
+				// Removed after it was found, search again
+			}
+
+			if (node == null || bounds.tooLow(node.key)) {
+				previous = null;
+				previousValue = null;
+			}
+			else {
+				previous = node;
+				previousValue = value;
+			}
+		}
+
+		private void setNext(final Node<V> node, final V value) {
+			if (node == null || bounds.tooHigh(node.key)) {
+				next = null;
+				nextValue = null;
+			}
+			else {
+				next = node;
+				nextValue = value;
+			}
+		}
+
+	}
+
+	private final class KeyIterator extends NodeIterator implements LongBidirectionalIterator {
+
+		private KeyIterator(final Bounds bounds) {
+			super(bounds);
+		}
+
+		private KeyIterator(final Bounds bounds, final long from) {
+			super(bounds, from);
+		}
+
+
+		@Override
+		public long nextLong() {
+			nextNode();
+			return last.key;
+		}
+
+		@Override
+		public long previousLong() {
+			previousNode();
+			return last.key;
+		}
+
+	}
+
+	private final class ValueIterator extends NodeIterator implements ObjectIterator<V> {
+
+		private ValueIterator(final Bounds bounds) {
+			super(bounds);
+		}
+
+
+		@Override
+		public V next() {
+			nextNode();
+			return lastValue;
+		}
+
+	}
+
+	private final class EntryIterator extends NodeIterator implements ObjectBidirectionalIterator<Entry<V>> {
+
+		private EntryIterator(final Bounds bounds) {
+			super(bounds);
+		}
+
+		private EntryIterator(final Bounds bounds, final long from) {
+			super(bounds, from);
+		}
+
+
+		@Override
+		public Entry<V> next() {
+			nextNode();
+			return new MapEntry(last.key, lastValue);
+		}
+
+		@Override
+		public Entry<V> previous() {
+			previousNode();
+			return new MapEntry(last.key, lastValue);
+		}
+
+	}
+
+	private final class MapEntry extends BasicEntry<V> {
+
+		private MapEntry(final long key, final V value) {
+			super(key, value);
+		}
+
+
+		@Override
+		public V setValue(final V value) {
+			final V old = this.value;
+			this.value = value;
+			put(key, value);
+			return old;
+		}
+
+	}
+
+}
@@ -1,131 +1,353 @@
 package dev.twelveoclock.fastutil.map.impl;
 
+import dev.twelveoclock.fastutil.base.StripeLockMode;
 import dev.twelveoclock.fastutil.map.base.FastUtilConcurrentMap;
 import it.unimi.dsi.fastutil.ints.*;
 import it.unimi.dsi.fastutil.objects.*;
 import lombok.Getter;
 import lombok.NonNull;
 
+import java.util.Arrays;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
 
 
-public final class ConcurrentReference2IntOpenHashMap<T> extends FastUtilConcurrentMap implements Reference2IntMap<T> {
+public final class ConcurrentReference2IntOpenHashMap<T> extends FastUtilConcurrentMap<Reference2IntLinkedOpenHashMap<T>> implements Reference2IntMap<T> {
 
-	private final Reference2IntLinkedOpenHashMap<T>[] buckets;
+	private final float loadFactor;
 
 	@Getter
 	private int defaultValue;
 
+	// Views are stateless, so racing to create them is harmless
+	private KeySet keySet;
+
+	private Values values;
+
+	private EntrySet entrySet;
 
 
 	public ConcurrentReference2IntOpenHashMap() {
-		this(Runtime.getRuntime().availableProcessors() - 1, 0, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+		this(DEFAULT_NUM_BUCKETS, 0, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
 	}
 
 	public ConcurrentReference2IntOpenHashMap(final int numBuckets, final int defaultValue, final int loadCapacity, final float loadFactor) {
+		this(numBuckets, defaultValue, loadCapacity, loadFactor, StripeLockMode.REENTRANT);
+	}
 
-		super(numBuckets);
+	public ConcurrentReference2IntOpenHashMap(final int numBuckets, final int defaultValue, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
 
-		//noinspection unchecked
-		this.buckets = new Reference2IntLinkedOpenHashMap[numBuckets];
-		this.defaultValue = defaultValue;
+		super(numBuckets, lockMode);
 
-		final int bucketLoadCapacity = (int) Math.ceil(((double) loadCapacity) / numBuckets);
+		this.loadFactor = loadFactor;
+		this.defaultValue = defaultValue;
 
-		for (int i = 0; i < numBuckets; i++) {
-			final Reference2IntLinkedOpenHashMap<T> bucket = new Reference2IntLinkedOpenHashMap<>(bucketLoadCapacity, loadFactor);
-			if (defaultValue != 0) {
-				bucket.defaultReturnValue(defaultValue);
-			}
-			buckets[i] = bucket;
-		}
+		initBuckets(loadCapacity);
 	}
 
 
 	@Override
-	public int size() {
+	protected Reference2IntLinkedOpenHashMap<T> newBucket(final int capacity) {
 
-		int size = 0;
+		final Reference2IntLinkedOpenHashMap<T> bucket = new Reference2IntLinkedOpenHashMap<>(capacity, loadFactor);
 
-		for (final Reference2IntMap<T> bucket : buckets) {
-			size += bucket.size();
+		if (defaultValue != 0) {
+			bucket.defaultReturnValue(defaultValue);
 		}
 
-		return size;
+		return bucket;
 	}
 
 	@Override
-	public boolean isEmpty() {
+	protected int bucketSize(final Reference2IntLinkedOpenHashMap<T> bucket) {
+		return bucket.size();
+	}
 
-		for (final Reference2IntMap<T> bucket : buckets) {
-			if (!bucket.isEmpty()) {
-				return false;
-			}
-		}
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
 
-		return true;
+	@Override
+	protected void splitBucket(final Reference2IntLinkedOpenHashMap<T> source, final Reference2IntLinkedOpenHashMap<T> lower, final Reference2IntLinkedOpenHashMap<T> upper, final int splitBit) {
+		// Iterates in link order, so both halves keep the insertion order
+		for (final Reference2IntMap.Entry<T> entry : Reference2IntMaps.fastIterable(source)) {
+			final T key = entry.getKey();
+			(isUpperHalf(key.hashCode(), splitBit) ? upper : lower).put(key, entry.getIntValue());
+		}
 	}
 
 	@Override
 	public void putAll(final Map<? extends T, ? extends Integer> m) {
+
+		if (m instanceof Reference2IntMap) {
+			//noinspection unchecked
+			putAll((Reference2IntMap<? extends T>) m);
+			return;
+		}
+
+		Object[] keys = new Object[m.size()];
+		int[] values = new int[keys.length];
+
+		int size = 0;
+
 		for (final Map.Entry<? extends T, ? extends Integer> entry : m.entrySet()) {
 
-			final int bucket = getBucket(entry.getKey().hashCode());
-			final Lock writeLock = locks[bucket].writeLock();
+			// Grew since it was sized
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
+			}
 
-			writeLock.lock();
-			try {
-				buckets[bucket].put(entry.getKey(), entry.getValue());
-			} finally {
-				writeLock.unlock();
+			keys[size] = entry.getKey();
+			values[size++] = entry.getValue();
+		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Like {@link #putAll(Map)}, without boxing.
+	 */
+	public void putAll(final Reference2IntMap<? extends T> m) {
+
+		Object[] keys = new Object[m.size()];
+		int[] values = new int[keys.length];
+
+		int size = 0;
+
+		for (final Reference2IntMap.Entry<? extends T> entry : Reference2IntMaps.fastIterable(m)) {
+
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2 + 1);
+				values = Arrays.copyOf(values, keys.length);
 			}
+
+			keys[size] = entry.getKey();
+			values[size++] = entry.getIntValue();
 		}
+
+		putBatch(keys, values, 0, size);
+	}
+
+	/**
+	 * Puts {@code keys[offset + i]} to {@code values[offset + i]} for every i below length, a later duplicate key wins.
+	 */
+	public void putAll(final T[] keys, final int[] values, final int offset, final int length) {
+
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+
+		putBatch(keys, values, offset, length);
 	}
 
 	@Override
 	public int put(final T key, final int value) {
 
-		final int bucket = getBucket(key.hashCode());
-		final Lock writeLock = locks[bucket].writeLock();
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
 
-		writeLock.lock();
 		try {
-			return buckets[bucket].put(key, value);
+			return stripe.bucket.put(key, value);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
 	public int getInt(final Object key) {
 
-		final int bucketIndex = getBucket(key.hashCode());
-		final Reference2IntMap<T> bucket = buckets[bucketIndex];
-		final Lock readLock = locks[bucketIndex].readLock();
+		final int hash = key.hashCode();
+
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = stripeFor(hash);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final int value = stripe.bucket.getInt(key);
+					if (stripe.validate(stamp)) {
+						return value;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockRead(hash);
 
-		readLock.lock();
 		try {
-			return bucket.getInt(key);
+			return stripe.bucket.getInt(key);
 		} finally {
-			readLock.unlock();
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
 	public Integer remove(final Object key) {
 
-		final int bucket = getBucket(key.hashCode());
-		final Lock writeLock = locks[bucket].writeLock();
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.remove(key);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int removeInt(final Object key) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.removeInt(key);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int getOrDefault(final Object key, final int defaultValue) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockRead(key.hashCode());
+
+		try {
+			return stripe.bucket.getOrDefault(key, defaultValue);
+		} finally {
+			unlockRead(stripe);
+		}
+	}
+
+	@Override
+	public int putIfAbsent(final T key, final int value) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.putIfAbsent(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public boolean remove(final Object key, final int value) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
 
-		writeLock.lock();
 		try {
-			return buckets[bucket].remove(key);
+			return stripe.bucket.remove(key, value);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public boolean replace(final T key, final int oldValue, final int newValue) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.replace(key, oldValue, newValue);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int replace(final T key, final int value) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.replace(key, value);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	/**
+	 * Runs the mapping function under the key's stripe write lock, so it must not access other keys of this map.
+	 */
+	@Override
+	public int computeIfAbsent(final T key, final ToIntFunction<? super T> mappingFunction) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int computeIfAbsent(final T key, final Reference2IntFunction<? super T> mappingFunction) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.computeIfAbsent(key, mappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int computeIntIfPresent(final T key, final BiFunction<? super T, ? super Integer, ? extends Integer> remappingFunction) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.computeIntIfPresent(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int computeInt(final T key, final BiFunction<? super T, ? super Integer, ? extends Integer> remappingFunction) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.computeInt(key, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int merge(final T key, final int value, final BiFunction<? super Integer, ? super Integer, ? extends Integer> remappingFunction) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.merge(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
+
+	@Override
+	public int mergeInt(final T key, final int value, final java.util.function.IntBinaryOperator remappingFunction) {
+
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
+
+		try {
+			return stripe.bucket.mergeInt(key, value, remappingFunction);
+		} finally {
+			unlockWrite(stripe);
 		}
 	}
 
@@ -134,9 +356,10 @@ public final class ConcurrentReference2IntOpenHashMap<T> extends FastUtilConcurr
 
 		this.defaultValue = rv;
 
-		for (final Reference2IntMap<T> bucket : buckets) {
+		updateBuckets(bucket -> {
 			bucket.defaultReturnValue(rv);
-		}
+			return false;
+		});
 	}
 
 	@Override
@@ -147,115 +370,461 @@ public final class ConcurrentReference2IntOpenHashMap<T> extends FastUtilConcurr
 	@Override
 	public ObjectSet<Entry<T>> reference2IntEntrySet() {
 
-		final Reference2IntMap<T> map = new Reference2IntLinkedOpenHashMap<>(size());
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
 
-		for (int i = 0; i < buckets.length; i++) {
+		return entrySet;
+	}
 
-			final Reference2IntMap<T> bucket = buckets[i];
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public ReferenceSet<T> keySet() {
 
-			readLock.lock();
-			try {
-				map.putAll(bucket);
-			} finally {
-				readLock.unlock();
-			}
+		if (keySet == null) {
+			keySet = new KeySet();
 		}
 
-		return map.reference2IntEntrySet();
+		return keySet;
 	}
 
+	@NonNull
 	@Override
-	public ReferenceSet<T> keySet() {
+	public IntCollection values() {
 
-		final ReferenceOpenHashSet<T> keySets = new ReferenceOpenHashSet<>(buckets.length);
+		if (values == null) {
+			values = new Values();
+		}
 
-		for (int i = 0; i < buckets.length; i++) {
+		return values;
+	}
 
-			final Lock readLock = locks[i].readLock();
+	@Override
+	public boolean containsKey(final Object key) {
 
-			readLock.lock();
-			try {
-				keySets.addAll(buckets[i].keySet());
-			} finally {
-				readLock.unlock();
+		final int hash = key.hashCode();
+
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
+
+			final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = stripeFor(hash);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final boolean result = stripe.bucket.containsKey(key);
+					if (stripe.validate(stamp)) {
+						return result;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
 			}
 		}
 
-		return keySets;
+		final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockRead(hash);
+
+		try {
+			return stripe.bucket.containsKey(key);
+		} finally {
+			unlockRead(stripe);
+		}
 	}
 
-	@NonNull
 	@Override
-	public IntCollection values() {
+	public boolean containsValue(final int value) {
+		return anyBucket(bucket -> bucket.containsValue(value));
+	}
+
+	@Override
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
+
+
+	/**
+	 * Puts {@code length} pairs from {@code offset} with one write lock and one table resize per stripe.
+	 */
+	private void putBatch(final Object[] keys, final int[] values, final int offset, final int length) {
+
+		final int[] hashCodes = new int[length];
+
+		for (int i = 0; i < length; i++) {
+			hashCodes[i] = keys[offset + i].hashCode();
+		}
+
+		updateBatch(hashCodes, (bucket, indexes, from, to) -> {
+
+			final Object[] shareKeys = new Object[to - from];
+			final int[] shareValues = new int[to - from];
+
+			for (int i = from; i < to; i++) {
+				shareKeys[i - from] = keys[offset + indexes[i]];
+				shareValues[i - from] = values[offset + indexes[i]];
+			}
+
+			// Sizes the table once for the whole share
+			//noinspection unchecked
+			bucket.putAll(new Reference2IntArrayMap<>((T[]) shareKeys, shareValues, shareKeys.length));
+
+			return true;
+		});
+	}
+
+
+	private class MapIterator extends StripeIterator<ObjectIterator<Reference2IntMap.Entry<T>>> {
+
+		Object[] keys = ObjectArrays.EMPTY_ARRAY;
+
+		int[] values = IntArrays.EMPTY_ARRAY;
+
+		private T lastKey;
+
+		private boolean canRemove;
+
+
+		@Override
+		protected ObjectIterator<Reference2IntMap.Entry<T>> open(final Reference2IntLinkedOpenHashMap<T> bucket) {
+			return Reference2IntMaps.fastIterator(bucket);
+		}
+
+		@Override
+		protected int read(final Reference2IntLinkedOpenHashMap<T> bucket, final ObjectIterator<Reference2IntMap.Entry<T>> source, final int offset, final int max) {
+
+			grow(offset + Math.min(max, bucket.size()));
+
+			int read = 0;
+
+			while (read < max && source.hasNext()) {
+				final Reference2IntMap.Entry<T> entry = source.next();
+				keys[offset + read] = entry.getKey();
+				values[offset + read++] = entry.getIntValue();
+			}
+
+			return read;
+		}
+
+		@Override
+		protected int readMissing(final Reference2IntLinkedOpenHashMap<T> bucket, int offset, final int returned) {
+
+			final ReferenceOpenHashSet<Object> seen = new ReferenceOpenHashSet<>(keys, 0, returned);
+
+			grow(offset + bucket.size());
+
+			for (final Reference2IntMap.Entry<T> entry : Reference2IntMaps.fastIterable(bucket)) {
+				if (!seen.contains(entry.getKey())) {
+					keys[offset] = entry.getKey();
+					values[offset++] = entry.getIntValue();
+				}
+			}
+
+			return offset;
+		}
+
+		@Override
+		protected void copyTo(final StripeIterator<ObjectIterator<Reference2IntMap.Entry<T>>> prefix, final int from, final int to) {
+
+			final MapIterator split = (MapIterator) prefix;
+
+			split.keys = Arrays.copyOfRange(keys, from, to);
+			split.values = Arrays.copyOfRange(values, from, to);
+		}
+
+		public boolean hasNext() {
+			return position < size || fill();
+		}
 
-		final IntOpenHashSet values = new IntOpenHashSet();
+		public void remove() {
 
-		for (int i = 0; i < buckets.length; i++) {
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			canRemove = false;
+			ConcurrentReference2IntOpenHashMap.this.removeInt(lastKey);
+		}
+
+		int nextIndex() {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			lastKey = (T) keys[position];
+			canRemove = true;
+
+			return position++;
+		}
+
+
+		private void grow(final int length) {
+			keys = ObjectArrays.grow(keys, length);
+			values = IntArrays.grow(values, length);
+		}
+
+	}
+
+	private final class KeyIterator extends MapIterator implements ObjectIterator<T> {
+
+		@Override
+		public T next() {
+
+			final int index = nextIndex();
+
+			return (T) keys[index];
+		}
+
+	}
+
+	private final class ValueIterator extends MapIterator implements IntIterator {
 
-			final Lock readLock = locks[i].readLock();
+		@Override
+		public int nextInt() {
+
+			final int index = nextIndex();
+
+			return values[index];
+		}
+
+	}
+
+	private final class EntryIterator extends MapIterator implements ObjectIterator<Reference2IntMap.Entry<T>> {
+
+		@Override
+		public Reference2IntMap.Entry<T> next() {
+
+			final int index = nextIndex();
+
+			return new MapEntry((T) keys[index], values[index]);
+		}
+
+	}
+
+	private final class KeySpliterator extends MapIterator implements ObjectSpliterator<T> {
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super T> action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			//noinspection unchecked
+			action.accept((T) keys[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<T> trySplit() {
+			return trySplit(KeySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class ValueSpliterator extends MapIterator implements IntSpliterator {
+
+		@Override
+		public boolean tryAdvance(final java.util.function.IntConsumer action) {
+			if (!hasNext()) {
+				return false;
+			}
+
+			action.accept(values[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public IntSpliterator trySplit() {
+			return trySplit(ValueSpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	private final class EntrySpliterator extends MapIterator implements ObjectSpliterator<Reference2IntMap.Entry<T>> {
+
+		@Override
+		public boolean tryAdvance(final Consumer<? super Reference2IntMap.Entry<T>> action) {
+
+			if (!hasNext()) {
+				return false;
+			}
+
+			final int index = nextIndex();
+
+			//noinspection unchecked
+			action.accept(new MapEntry((T) keys[index], values[index]));
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<Reference2IntMap.Entry<T>> trySplit() {
+			return trySplit(EntrySpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
+	}
+
+	// Writes through to the map, like ConcurrentHashMap's entries
+	private final class MapEntry extends AbstractReference2IntMap.BasicEntry<T> {
+
+		private MapEntry(final T key, final int value) {
+			super(key, value);
+		}
+
+		@Override
+		public int setValue(final int value) {
+
+			final int old = this.value;
+
+			this.value = value;
+			put(key, value);
+
+			return old;
+		}
+
+	}
+
+	private final class KeySet extends AbstractReferenceSet<T> {
+
+		@Override
+		public ObjectIterator<T> iterator() {
+			return new KeyIterator();
+		}
+
+		@Override
+		public ObjectSpliterator<T> spliterator() {
+			return new KeySpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentReference2IntOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(final Object key) {
+
+			final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(key.hashCode());
 
-			readLock.lock();
 			try {
-				values.addAll(buckets[i].values());
+				return stripe.bucket.keySet().remove(key);
 			} finally {
-				readLock.unlock();
+				unlockWrite(stripe);
 			}
 		}
 
-		return values;
+		@Override
+		public void clear() {
+			ConcurrentReference2IntOpenHashMap.this.clear();
+		}
+
 	}
 
-	@Override
-	public boolean containsKey(final Object key) {
+	private final class Values extends AbstractIntCollection {
 
-		final int bucketIndex = getBucket(key.hashCode());
-		final Reference2IntMap<T> bucket = buckets[bucketIndex];
-		final Lock readLock = locks[bucketIndex].readLock();
+		@Override
+		public IntIterator iterator() {
+			return new ValueIterator();
+		}
 
-		readLock.lock();
-		try {
-			return bucket.containsKey(key);
-		} finally {
-			readLock.unlock();
+		@Override
+		public IntSpliterator spliterator() {
+			return new ValueSpliterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentReference2IntOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final int value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentReference2IntOpenHashMap.this.clear();
 		}
+
 	}
 
-	@Override
-	public boolean containsValue(final int value) {
+	private final class EntrySet extends AbstractObjectSet<Reference2IntMap.Entry<T>> {
 
-		for (int i = 0; i < buckets.length; i++) {
+		@Override
+		public ObjectIterator<Reference2IntMap.Entry<T>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public ObjectSpliterator<Reference2IntMap.Entry<T>> spliterator() {
+			return new EntrySpliterator();
+		}
 
-			final Reference2IntMap<T> bucket = buckets[i];
-			final Lock readLock = locks[i].readLock();
+		@Override
+		public int size() {
+			return ConcurrentReference2IntOpenHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+
+			if (!(o instanceof Map.Entry) || ((Map.Entry<?, ?>) o).getKey() == null) {
+				return false;
+			}
+
+			final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockRead(((Map.Entry<?, ?>) o).getKey().hashCode());
 
-			readLock.lock();
 			try {
-				if (bucket.containsValue(value)) {
-					return true;
-				}
+				return stripe.bucket.reference2IntEntrySet().contains(o);
 			} finally {
-				readLock.unlock();
+				unlockRead(stripe);
 			}
 		}
 
-		return false;
-	}
+		@Override
+		public boolean remove(final Object o) {
 
-	@Override
-	public void clear() {
-		for (int i = 0; i < buckets.length; i++) {
+			if (!(o instanceof Map.Entry) || ((Map.Entry<?, ?>) o).getKey() == null) {
+				return false;
+			}
 
-			final Reference2IntMap<T> bucket = buckets[i];
-			final Lock writeLock = locks[i].writeLock();
+			final Stripe<Reference2IntLinkedOpenHashMap<T>> stripe = lockWrite(((Map.Entry<?, ?>) o).getKey().hashCode());
 
-			writeLock.lock();
 			try {
-				bucket.clear();
+				return stripe.bucket.reference2IntEntrySet().remove(o);
 			} finally {
-				writeLock.unlock();
+				unlockWrite(stripe);
 			}
 		}
+
+		@Override
+		public void clear() {
+			ConcurrentReference2IntOpenHashMap.this.clear();
+		}
+
 	}
 
 }
@@ -0,0 +1,256 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.ObjectArrays;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+
+/**
+ * One stripe of {@link ConcurrentInt2ObjectCache}, entries sit in slots swept by a CLOCK hand.
+ * <p>
+ * A hit only sets its slot's reference bit, which is safe under a shared read lock since every reader writes the same value.
+ * Optimistic readers only look, through {@link #slotOf(int)} and its siblings. Everything else happens under the owning stripe's write lock. Evicted entries are kept aside until the owner
+ * takes them, so the listener can be called once the lock is released.
+ */
+final class Int2ObjectClockTable<V> {
+
+	// Key to slot
+	private final Int2IntOpenHashMap slots;
+
+	// Slots freed by removals, reused before the slot arrays grow
+	private final IntArrayList free = new IntArrayList();
+
+	private int[] keys;
+
+	// Null for a free slot
+	private Object[] values;
+
+	private int[] weights;
+
+	private boolean[] referenced;
+
+	// Slots below it have been handed out
+	private int used;
+
+	private int hand;
+
+	private long weight;
+
+	// This stripe's share of the cache's maximum weight
+	long maximumWeight;
+
+	private Int2ObjectArrayMap<V> evicted;
+
+
+	Int2ObjectClockTable(final int capacity, final float loadFactor, final long maximumWeight) {
+
+		final int length = Math.max(capacity, 1);
+
+		this.slots = new Int2IntOpenHashMap(length, loadFactor);
+		this.slots.defaultReturnValue(-1);
+		this.keys = new int[length];
+		this.values = new Object[length];
+		this.weights = new int[length];
+		this.referenced = new boolean[length];
+		this.maximumWeight = maximumWeight;
+	}
+
+
+	int size() {
+		return slots.size();
+	}
+
+	long weight() {
+		return weight;
+	}
+
+	boolean containsKey(final int key) {
+		return slots.containsKey(key);
+	}
+
+	/**
+	 * Doesn't mark the entry, so it can be read without the lock as long as the read is validated afterwards.
+	 *
+	 * @return The key's slot, or -1.
+	 */
+	int slotOf(final int key) {
+		return slots.get(key);
+	}
+
+	V valueAt(final int slot) {
+		//noinspection unchecked
+		return (V) values[slot];
+	}
+
+	boolean isReferenced(final int slot) {
+		return referenced[slot];
+	}
+
+	/**
+	 * Marks the entry as recently used.
+	 */
+	V get(final int key) {
+
+		final int slot = slots.get(key);
+
+		if (slot < 0) {
+			return null;
+		}
+
+		referenced[slot] = true;
+
+		//noinspection unchecked
+		return (V) values[slot];
+	}
+
+	/**
+	 * Evicts until the table is within its maximum weight again, which may include the entry just put.
+	 *
+	 * @return The previous value, or null.
+	 */
+	V put(final int key, final V value, final int weight) {
+
+		int slot = slots.get(key);
+		V old = null;
+
+		if (slot >= 0) {
+			//noinspection unchecked
+			old = (V) values[slot];
+			this.weight -= weights[slot];
+		}
+		else {
+			slot = allocate();
+			keys[slot] = key;
+			slots.put(key, slot);
+		}
+
+		values[slot] = value;
+		weights[slot] = weight;
+		referenced[slot] = true;
+
+		this.weight += weight;
+
+		while (this.weight > maximumWeight && !slots.isEmpty()) {
+			evict();
+		}
+
+		return old;
+	}
+
+	V remove(final int key) {
+
+		final int slot = slots.remove(key);
+
+		return slot < 0 ? null : release(slot);
+	}
+
+	void clear() {
+		slots.clear();
+		free.clear();
+		Arrays.fill(values, 0, used, null);
+		used = 0;
+		hand = 0;
+		weight = 0;
+	}
+
+	/**
+	 * Moves every entry into lower or upper with its weight and reference bit, each half gets half the budget.
+	 */
+	void splitInto(final Int2ObjectClockTable<V> lower, final Int2ObjectClockTable<V> upper, final IntPredicate isUpper) {
+
+		lower.maximumWeight = (maximumWeight + 1) / 2;
+		upper.maximumWeight = maximumWeight / 2;
+
+		for (int slot = 0; slot < used; slot++) {
+
+			if (values[slot] == null) {
+				continue;
+			}
+
+			final Int2ObjectClockTable<V> target = isUpper.test(keys[slot]) ? upper : lower;
+			final int moved = target.allocate();
+
+			target.keys[moved] = keys[slot];
+			target.values[moved] = values[slot];
+			target.weights[moved] = weights[slot];
+			target.referenced[moved] = referenced[slot];
+			target.slots.put(keys[slot], moved);
+			target.weight += weights[slot];
+		}
+	}
+
+	/**
+	 * @return The entries evicted since the last call, or null if there were none.
+	 */
+	Int2ObjectArrayMap<V> takeEvicted() {
+		final Int2ObjectArrayMap<V> evicted = this.evicted;
+		this.evicted = null;
+		return evicted;
+	}
+
+
+	private int allocate() {
+
+		if (!free.isEmpty()) {
+			return free.popInt();
+		}
+
+		if (used == keys.length) {
+			keys = IntArrays.grow(keys, used + 1);
+			values = ObjectArrays.grow(values, used + 1);
+			weights = IntArrays.grow(weights, used + 1);
+			referenced = Arrays.copyOf(referenced, keys.length);
+		}
+
+		return used++;
+	}
+
+	private V release(final int slot) {
+
+		//noinspection unchecked
+		final V value = (V) values[slot];
+
+		values[slot] = null;
+		weight -= weights[slot];
+		free.add(slot);
+
+		return value;
+	}
+
+	// Clears reference bits until it finds an entry that wasn't used since the hand last passed it
+	private void evict() {
+		while (true) {
+
+			final int slot = hand;
+
+			hand = hand + 1 < used ? hand + 1 : 0;
+
+			if (values[slot] == null) {
+				continue;
+			}
+
+			if (referenced[slot]) {
+				referenced[slot] = false;
+				continue;
+			}
+
+			final int key = keys[slot];
+
+			slots.remove(key);
+
+			if (evicted == null) {
+				evicted = new Int2ObjectArrayMap<>();
+			}
+
+			evicted.put(key, release(slot));
+
+			return;
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.function.IntPredicate;
+
+
+/**
+ * One stripe of {@link ConcurrentInt2ObjectExpiringMap}, its entries plus the timer wheel that expires them.
+ * <p>
+ * Lookups run under the read lock, treat an expired entry as absent and push back its deadline when it expires after access.
+ * Everything else runs under the write lock, which first advances the wheel to the given time.
+ */
+final class Int2ObjectExpiringTable<V> {
+
+	private final Int2ObjectOpenHashMap<Entry<V>> entries;
+
+	private final TimerWheel<Entry<V>> wheel;
+
+	// Negative when off
+	private final long expireAfterWriteNanos;
+
+	private final long expireAfterAccessNanos;
+
+
+	Int2ObjectExpiringTable(final int capacity, final float loadFactor, final long now, final long expireAfterWriteNanos, final long expireAfterAccessNanos) {
+		this.entries = new Int2ObjectOpenHashMap<>(capacity, loadFactor);
+		this.wheel = new TimerWheel<>(now);
+		this.expireAfterWriteNanos = expireAfterWriteNanos;
+		this.expireAfterAccessNanos = expireAfterAccessNanos;
+	}
+
+
+	/**
+	 * Counts entries that expired but haven't been swept yet.
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	V get(final int key, final long now) {
+
+		final Entry<V> entry = entries.get(key);
+
+		if (entry == null || entry.deadline - now <= 0) {
+			return null;
+		}
+
+		if (expireAfterAccessNanos >= 0) {
+			entry.pushDeadline(accessDeadline(entry, now));
+		}
+
+		return entry.value;
+	}
+
+	/**
+	 * Doesn't count as an access.
+	 */
+	boolean containsKey(final int key, final long now) {
+
+		final Entry<V> entry = entries.get(key);
+
+		return entry != null && entry.deadline - now > 0;
+	}
+
+	V put(final int key, final V value, final long now, final boolean onlyIfAbsent) {
+
+		expire(now);
+
+		final Entry<V> entry = entries.get(key);
+
+		if (entry == null) {
+
+			final Entry<V> created = new Entry<>(key, value);
+
+			write(created, now);
+			entries.put(key, created);
+			wheel.schedule(created);
+
+			return null;
+		}
+
+		// Expired within the current tick, so the wheel hasn't got to it yet
+		final V old = entry.deadline - now <= 0 ? null : entry.value;
+
+		if (!onlyIfAbsent || old == null) {
+			entry.value = value;
+			// Stays in its bucket, the wheel moves it to its later deadline when it gets there
+			write(entry, now);
+		}
+
+		return old;
+	}
+
+	V remove(final int key, final long now) {
+
+		expire(now);
+
+		final Entry<V> entry = entries.remove(key);
+
+		if (entry == null) {
+			return null;
+		}
+
+		wheel.deschedule(entry);
+
+		return entry.deadline - now <= 0 ? null : entry.value;
+	}
+
+	void clear() {
+		entries.clear();
+		wheel.clear();
+	}
+
+	/**
+	 * Removes every entry whose deadline is at or before now.
+	 */
+	void expire(final long now) {
+		wheel.advance(now, entry -> entries.remove(entry.key, entry));
+	}
+
+	/**
+	 * Moves the live entries into lower or upper, rescheduled on their wheels, and drops the expired ones.
+	 */
+	void splitInto(final Int2ObjectExpiringTable<V> lower, final Int2ObjectExpiringTable<V> upper, final long now, final IntPredicate isUpper) {
+		for (final Entry<V> entry : entries.values()) {
+
+			if (entry.deadline - now <= 0) {
+				continue;
+			}
+
+			final Int2ObjectExpiringTable<V> target = isUpper.test(entry.key) ? upper : lower;
+			final Entry<V> moved = new Entry<>(entry.key, entry.value);
+
+			moved.writeTime = entry.writeTime;
+			moved.deadline = entry.deadline;
+
+			target.entries.put(moved.key, moved);
+			target.wheel.schedule(moved);
+		}
+	}
+
+
+	private void write(final Entry<V> entry, final long now) {
+
+		entry.writeTime = now;
+
+		if (expireAfterWriteNanos < 0) {
+			entry.deadline = now + expireAfterAccessNanos;
+		}
+		else if (expireAfterAccessNanos < 0) {
+			entry.deadline = now + expireAfterWriteNanos;
+		}
+		else {
+			entry.deadline = now + Math.min(expireAfterWriteNanos, expireAfterAccessNanos);
+		}
+	}
+
+	private long accessDeadline(final Entry<V> entry, final long now) {
+
+		final long deadline = now + expireAfterAccessNanos;
+
+		if (expireAfterWriteNanos < 0) {
+			return deadline;
+		}
+
+		final long writeDeadline = entry.writeTime + expireAfterWriteNanos;
+
+		return writeDeadline - deadline < 0 ? writeDeadline : deadline;
+	}
+
+
+	static final class Entry<V> extends TimerWheel.Node {
+
+		private final int key;
+
+		// Written under the write lock only
+		private V value;
+
+		private long writeTime;
+
+
+		private Entry(final int key, final V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+	}
+
+}
@@ -0,0 +1,233 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMaps;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+
+/**
+ * One stripe of {@link ConcurrentLong2LongSetMultimap}, guarded by the stripe's lock.
+ * <p>
+ * Keys with a single value, usually most of them, keep it unboxed in {@link #singles}.
+ * Only once a key gets a second value are its values moved into a set in {@link #sets}, a key lives in exactly one of the two.
+ */
+final class Long2LongSetTable {
+
+	private final Long2LongOpenHashMap singles;
+
+	private final Long2ObjectOpenHashMap<LongOpenHashSet> sets;
+
+	private long valueCount;
+
+
+	Long2LongSetTable(final int capacity, final float loadFactor) {
+		this.singles = new Long2LongOpenHashMap(capacity, loadFactor);
+		this.sets = new Long2ObjectOpenHashMap<>(capacity >>> 3, loadFactor);
+	}
+
+
+	int keyCount() {
+		return singles.size() + sets.size();
+	}
+
+	long valueCount() {
+		return valueCount;
+	}
+
+	boolean containsKey(final long key) {
+		return singles.containsKey(key) || sets.containsKey(key);
+	}
+
+	int count(final long key) {
+
+		if (singles.containsKey(key)) {
+			return 1;
+		}
+
+		final LongOpenHashSet set = sets.get(key);
+
+		return set == null ? 0 : set.size();
+	}
+
+	boolean contains(final long key, final long value) {
+
+		if (singles.containsKey(key)) {
+			return singles.get(key) == value;
+		}
+
+		final LongOpenHashSet set = sets.get(key);
+
+		return set != null && set.contains(value);
+	}
+
+	/**
+	 * @return Whether the value wasn't there already.
+	 */
+	boolean add(final long key, final long value) {
+
+		final LongOpenHashSet set = sets.get(key);
+
+		if (set != null) {
+
+			if (!set.add(value)) {
+				return false;
+			}
+
+			valueCount++;
+
+			return true;
+		}
+
+		if (!singles.containsKey(key)) {
+			singles.put(key, value);
+			valueCount++;
+			return true;
+		}
+
+		final long single = singles.get(key);
+
+		if (single == value) {
+			return false;
+		}
+
+		final LongOpenHashSet created = new LongOpenHashSet(4);
+
+		created.add(single);
+		created.add(value);
+		singles.remove(key);
+		sets.put(key, created);
+		valueCount++;
+
+		return true;
+	}
+
+	boolean remove(final long key, final long value) {
+
+		if (singles.containsKey(key)) {
+
+			if (singles.get(key) != value) {
+				return false;
+			}
+
+			singles.remove(key);
+			valueCount--;
+
+			return true;
+		}
+
+		final LongOpenHashSet set = sets.get(key);
+
+		if (set == null || !set.remove(value)) {
+			return false;
+		}
+
+		valueCount--;
+
+		// Back to a single value, which needs no set
+		if (set.size() == 1) {
+			sets.remove(key);
+			singles.put(key, set.iterator().nextLong());
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return How many values the key had.
+	 */
+	int removeAll(final long key) {
+
+		if (singles.containsKey(key)) {
+			singles.remove(key);
+			valueCount--;
+			return 1;
+		}
+
+		final LongOpenHashSet set = sets.remove(key);
+
+		if (set == null) {
+			return 0;
+		}
+
+		valueCount -= set.size();
+
+		return set.size();
+	}
+
+	void forEach(final long key, final LongConsumer action) {
+
+		if (singles.containsKey(key)) {
+			action.accept(singles.get(key));
+			return;
+		}
+
+		final LongOpenHashSet set = sets.get(key);
+
+		if (set == null) {
+			return;
+		}
+
+		for (final LongIterator iterator = set.iterator(); iterator.hasNext(); ) {
+			action.accept(iterator.nextLong());
+		}
+	}
+
+	/**
+	 * @return How many values were added to the buffer.
+	 */
+	int copyTo(final long key, final LongCollection buffer) {
+
+		if (singles.containsKey(key)) {
+			buffer.add(singles.get(key));
+			return 1;
+		}
+
+		final LongOpenHashSet set = sets.get(key);
+
+		if (set == null) {
+			return 0;
+		}
+
+		buffer.addAll(set);
+
+		return set.size();
+	}
+
+	void clear() {
+		singles.clear();
+		sets.clear();
+		valueCount = 0;
+	}
+
+	/**
+	 * Moves every key into lower or upper, sets are handed over rather than copied.
+	 */
+	void splitInto(final Long2LongSetTable lower, final Long2LongSetTable upper, final LongPredicate isUpper) {
+
+		for (final Long2LongMap.Entry entry : Long2LongMaps.fastIterable(singles)) {
+
+			final Long2LongSetTable target = isUpper.test(entry.getLongKey()) ? upper : lower;
+
+			target.singles.put(entry.getLongKey(), entry.getLongValue());
+			target.valueCount++;
+		}
+
+		for (final Long2ObjectMap.Entry<LongOpenHashSet> entry : Long2ObjectMaps.fastIterable(sets)) {
+
+			final Long2LongSetTable target = isUpper.test(entry.getLongKey()) ? upper : lower;
+
+			target.sets.put(entry.getLongKey(), entry.getValue());
+			target.valueCount += entry.getValue().size();
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+
+/**
+ * One stripe of {@link ConcurrentLong2ObjectListMultimap}, guarded by the stripe's lock.
+ * <p>
+ * Keys with a single value, usually most of them, keep it directly in {@link #singles}.
+ * Only once a key gets a second value are its values moved into a list in {@link #lists}, a key lives in exactly one of the two.
+ */
+final class Long2ObjectListTable<V> {
+
+	private final Long2ObjectOpenHashMap<V> singles;
+
+	private final Long2ObjectOpenHashMap<ObjectArrayList<V>> lists;
+
+	private long valueCount;
+
+
+	Long2ObjectListTable(final int capacity, final float loadFactor) {
+		this.singles = new Long2ObjectOpenHashMap<>(capacity, loadFactor);
+		this.lists = new Long2ObjectOpenHashMap<>(capacity >>> 3, loadFactor);
+	}
+
+
+	int keyCount() {
+		return singles.size() + lists.size();
+	}
+
+	long valueCount() {
+		return valueCount;
+	}
+
+	boolean containsKey(final long key) {
+		return singles.containsKey(key) || lists.containsKey(key);
+	}
+
+	int count(final long key) {
+
+		if (singles.containsKey(key)) {
+			return 1;
+		}
+
+		final ObjectArrayList<V> list = lists.get(key);
+
+		return list == null ? 0 : list.size();
+	}
+
+	boolean contains(final long key, final Object value) {
+
+		if (singles.containsKey(key)) {
+			return Objects.equals(singles.get(key), value);
+		}
+
+		final ObjectArrayList<V> list = lists.get(key);
+
+		return list != null && list.contains(value);
+	}
+
+	void add(final long key, final V value) {
+
+		valueCount++;
+
+		final ObjectArrayList<V> list = lists.get(key);
+
+		if (list != null) {
+			list.add(value);
+			return;
+		}
+
+		if (!singles.containsKey(key)) {
+			singles.put(key, value);
+			return;
+		}
+
+		final ObjectArrayList<V> created = new ObjectArrayList<>(4);
+
+		created.add(singles.remove(key));
+		created.add(value);
+		lists.put(key, created);
+	}
+
+	/**
+	 * Removes the first occurrence.
+	 */
+	boolean remove(final long key, final Object value) {
+
+		if (singles.containsKey(key)) {
+
+			if (!Objects.equals(singles.get(key), value)) {
+				return false;
+			}
+
+			singles.remove(key);
+			valueCount--;
+
+			return true;
+		}
+
+		final ObjectArrayList<V> list = lists.get(key);
+
+		if (list == null || !list.remove(value)) {
+			return false;
+		}
+
+		valueCount--;
+
+		// Back to a single value, which needs no list
+		if (list.size() == 1) {
+			lists.remove(key);
+			singles.put(key, list.get(0));
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return How many values the key had.
+	 */
+	int removeAll(final long key) {
+
+		if (singles.containsKey(key)) {
+			singles.remove(key);
+			valueCount--;
+			return 1;
+		}
+
+		final ObjectArrayList<V> list = lists.remove(key);
+
+		if (list == null) {
+			return 0;
+		}
+
+		valueCount -= list.size();
+
+		return list.size();
+	}
+
+	void forEach(final long key, final Consumer<? super V> action) {
+
+		if (singles.containsKey(key)) {
+			action.accept(singles.get(key));
+			return;
+		}
+
+		final ObjectArrayList<V> list = lists.get(key);
+
+		if (list != null) {
+			list.forEach(action);
+		}
+	}
+
+	/**
+	 * @return How many values were added to the buffer.
+	 */
+	int copyTo(final long key, final Collection<? super V> buffer) {
+
+		if (singles.containsKey(key)) {
+			buffer.add(singles.get(key));
+			return 1;
+		}
+
+		final ObjectArrayList<V> list = lists.get(key);
+
+		if (list == null) {
+			return 0;
+		}
+
+		buffer.addAll(list);
+
+		return list.size();
+	}
+
+	void clear() {
+		singles.clear();
+		lists.clear();
+		valueCount = 0;
+	}
+
+	/**
+	 * Moves every key into lower or upper, lists are handed over rather than copied.
+	 */
+	void splitInto(final Long2ObjectListTable<V> lower, final Long2ObjectListTable<V> upper, final LongPredicate isUpper) {
+
+		for (final Long2ObjectMap.Entry<V> entry : Long2ObjectMaps.fastIterable(singles)) {
+
+			final Long2ObjectListTable<V> target = isUpper.test(entry.getLongKey()) ? upper : lower;
+
+			target.singles.put(entry.getLongKey(), entry.getValue());
+			target.valueCount++;
+		}
+
+		for (final Long2ObjectMap.Entry<ObjectArrayList<V>> entry : Long2ObjectMaps.fastIterable(lists)) {
+
+			final Long2ObjectListTable<V> target = isUpper.test(entry.getLongKey()) ? upper : lower;
+
+			target.lists.put(entry.getLongKey(), entry.getValue());
+			target.valueCount += entry.getValue().size();
+		}
+	}
+
+}
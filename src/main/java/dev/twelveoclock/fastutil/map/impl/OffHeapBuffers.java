@@ -0,0 +1,72 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+/**
+ * Allocates and frees the direct buffers behind the off-heap tables.
+ * <p>
+ * Direct buffers count against {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size,
+ * so tables meant to outgrow the heap need that limit raised.
+ * Freeing runs the buffer's cleaner right away through {@code Unsafe.invokeCleaner}, looked up reflectively so nothing
+ * compiles against the internal API, so a table's native memory is returned when it's dropped rather than whenever
+ * the GC gets around to its small heap object. Without {@code jdk.unsupported} the buffer is left to its cleaner instead.
+ */
+final class OffHeapBuffers {
+
+	// Null if the cleaner can't be invoked directly
+	private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+
+	private OffHeapBuffers() {}
+
+
+	static ByteBuffer allocate(final int bytes) {
+		try {
+			return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+		} catch (final OutOfMemoryError e) {
+			final OutOfMemoryError error = new OutOfMemoryError("Off-heap table of " + bytes + " bytes is over the direct memory limit, raise -XX:MaxDirectMemorySize");
+			error.initCause(e);
+			throw error;
+		}
+	}
+
+	/**
+	 * The buffer must not be accessed afterwards, reading freed memory can crash the JVM.
+	 */
+	static void free(final ByteBuffer buffer) {
+
+		if (INVOKE_CLEANER == null) {
+			return;
+		}
+
+		try {
+			INVOKE_CLEANER.invokeExact(buffer);
+		} catch (final Throwable e) {
+			throw new IllegalStateException("Couldn't free an off-heap table", e);
+		}
+	}
+
+
+	private static MethodHandle findInvokeCleaner() {
+		try {
+
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			final Field field = unsafeClass.getDeclaredField("theUnsafe");
+
+			field.setAccessible(true);
+
+			return MethodHandles.lookup()
+				.findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+				.bindTo(field.get(null));
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,509 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.AbstractLong2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+
+/**
+ * A linear probing long to int table in a direct buffer, the bucket of {@link ConcurrentLong2IntOffHeapHashMap}.
+ * <p>
+ * The first n longs of the buffer are keys and the n ints after them their values, key 0 marks a free slot so its value lives on the heap.
+ * Removal shifts the following run back like fastutil's open hash maps, so there are no tombstones.
+ * Not thread safe, every access happens under the owning stripe's lock.
+ */
+final class OffHeapLong2IntTable extends AbstractLong2IntMap {
+
+	// 12 bytes a slot, keeps the buffer within a direct buffer's 2 GiB limit
+	private static final int MAX_CAPACITY = 1 << 27;
+
+	private final float loadFactor;
+
+	// Null once closed
+	private ByteBuffer buffer;
+
+	private int n;
+
+	private int mask;
+
+	private int maxFill;
+
+	// Counts the null key
+	private int size;
+
+	private boolean containsNullKey;
+
+	private int nullValue;
+
+
+	OffHeapLong2IntTable(final int expected, final float loadFactor) {
+
+		this.loadFactor = loadFactor;
+
+		allocate(capacityFor(expected));
+	}
+
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	// Slots, not counting the null key's
+	int capacity() {
+		return n;
+	}
+
+	@Override
+	public int get(final long k) {
+
+		checkOpen();
+
+		if (k == 0) {
+			return containsNullKey ? nullValue : defRetValue;
+		}
+
+		final int slot = find(k);
+
+		return slot < 0 ? defRetValue : value(slot);
+	}
+
+	@Override
+	public boolean containsKey(final long k) {
+
+		checkOpen();
+
+		return k == 0 ? containsNullKey : find(k) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(final int v) {
+
+		final ByteBuffer buffer = buffer();
+
+		if (containsNullKey && nullValue == v) {
+			return true;
+		}
+
+		for (int slot = 0; slot < n; slot++) {
+			if (buffer.getLong(slot << 3) != 0 && value(slot) == v) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public int put(final long k, final int v) {
+
+		checkOpen();
+
+		if (k == 0) {
+
+			final int old = containsNullKey ? nullValue : defRetValue;
+
+			if (!containsNullKey) {
+				containsNullKey = true;
+				size++;
+			}
+
+			nullValue = v;
+
+			return old;
+		}
+
+		final int slot = find(k);
+
+		if (slot >= 0) {
+
+			final int old = value(slot);
+			setValue(slot, v);
+
+			return old;
+		}
+
+		insert(-slot - 1, k, v);
+
+		return defRetValue;
+	}
+
+	/**
+	 * Same as fastutil's {@code Long2LongOpenHashMap.addTo}, absent keys start from the default return value.
+	 */
+	public int addTo(final long k, final int increment) {
+
+		checkOpen();
+
+		if (k == 0) {
+
+			final int old = containsNullKey ? nullValue : defRetValue;
+
+			if (!containsNullKey) {
+				containsNullKey = true;
+				size++;
+			}
+
+			nullValue = old + increment;
+
+			return old;
+		}
+
+		final int slot = find(k);
+
+		if (slot >= 0) {
+
+			final int old = value(slot);
+			setValue(slot, old + increment);
+
+			return old;
+		}
+
+		insert(-slot - 1, k, defRetValue + increment);
+
+		return defRetValue;
+	}
+
+	@Override
+	public int remove(final long k) {
+
+		checkOpen();
+
+		if (k == 0) {
+
+			if (!containsNullKey) {
+				return defRetValue;
+			}
+
+			containsNullKey = false;
+			size--;
+
+			return nullValue;
+		}
+
+		final int slot = find(k);
+
+		if (slot < 0) {
+			return defRetValue;
+		}
+
+		final int old = value(slot);
+
+		size--;
+		shiftKeys(slot);
+
+		return old;
+	}
+
+	@Override
+	public void putAll(final Map<? extends Long, ? extends Integer> m) {
+
+		checkOpen();
+
+		// Sizes the table once for the whole map
+		final int needed = capacityFor(size + m.size());
+
+		if (needed > n) {
+			rehash(needed);
+		}
+
+		super.putAll(m);
+	}
+
+	@Override
+	public void clear() {
+
+		final ByteBuffer buffer = buffer();
+
+		if (size == 0) {
+			return;
+		}
+
+		for (int slot = 0; slot < n; slot++) {
+			buffer.putLong(slot << 3, 0);
+		}
+
+		containsNullKey = false;
+		size = 0;
+	}
+
+	@Override
+	public FastEntrySet long2IntEntrySet() {
+		return new EntrySet();
+	}
+
+	boolean isOpen() {
+		return buffer != null;
+	}
+
+	/**
+	 * Frees the buffer, afterwards every access but {@link #size()} throws.
+	 */
+	void close() {
+
+		if (buffer == null) {
+			return;
+		}
+
+		OffHeapBuffers.free(buffer);
+
+		buffer = null;
+		containsNullKey = false;
+		size = 0;
+	}
+
+
+	private int capacityFor(final int expected) {
+		return Math.min(HashCommon.arraySize(Math.max(expected, 1), loadFactor), MAX_CAPACITY);
+	}
+
+	private void checkOpen() {
+		if (buffer == null) {
+			throw new IllegalStateException("Map is closed");
+		}
+	}
+
+	private ByteBuffer buffer() {
+
+		checkOpen();
+
+		return buffer;
+	}
+
+	private void allocate(final int capacity) {
+		this.buffer = OffHeapBuffers.allocate(capacity * 12);
+		this.n = capacity;
+		this.mask = capacity - 1;
+		this.maxFill = HashCommon.maxFill(capacity, loadFactor);
+	}
+
+	private long key(final int slot) {
+		return buffer.getLong(slot << 3);
+	}
+
+	private int value(final int slot) {
+		return buffer.getInt((n << 3) + (slot << 2));
+	}
+
+	private void setKey(final int slot, final long k) {
+		buffer.putLong(slot << 3, k);
+	}
+
+	private void setValue(final int slot, final int v) {
+		buffer.putInt((n << 3) + (slot << 2), v);
+	}
+
+	/**
+	 * @return The key's slot, or -(free slot + 1) if it's absent.
+	 */
+	private int find(final long k) {
+
+		final ByteBuffer buffer = buffer();
+
+		int pos = (int) HashCommon.mix(k) & mask;
+
+		while (true) {
+
+			final long current = buffer.getLong(pos << 3);
+
+			if (current == 0) {
+				return -pos - 1;
+			}
+
+			if (current == k) {
+				return pos;
+			}
+
+			pos = (pos + 1) & mask;
+		}
+	}
+
+	private void insert(final int slot, final long k, final int v) {
+
+		if (n == MAX_CAPACITY && size + 1 >= maxFill) {
+			throw new IllegalStateException("Stripe table is full, split the map into more stripes");
+		}
+
+		setKey(slot, k);
+		setValue(slot, v);
+
+		if (++size >= maxFill && n < MAX_CAPACITY) {
+			rehash(capacityFor(size + 1));
+		}
+	}
+
+	private void shiftKeys(int pos) {
+
+		int last;
+		long current;
+
+		while (true) {
+
+			pos = ((last = pos) + 1) & mask;
+
+			while (true) {
+
+				if ((current = key(pos)) == 0) {
+					setKey(last, 0);
+					return;
+				}
+
+				final int slot = (int) HashCommon.mix(current) & mask;
+
+				if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+					break;
+				}
+
+				pos = (pos + 1) & mask;
+			}
+
+			setKey(last, current);
+			setValue(last, value(pos));
+		}
+	}
+
+	private void rehash(final int capacity) {
+
+		final ByteBuffer old = buffer();
+		final int oldN = n;
+
+		allocate(capacity);
+
+		for (int slot = 0; slot < oldN; slot++) {
+
+			final long k = old.getLong(slot << 3);
+
+			if (k == 0) {
+				continue;
+			}
+
+			int pos = (int) HashCommon.mix(k) & mask;
+
+			while (key(pos) != 0) {
+				pos = (pos + 1) & mask;
+			}
+
+			setKey(pos, k);
+			setValue(pos, old.getInt((oldN << 3) + (slot << 2)));
+		}
+
+		OffHeapBuffers.free(old);
+	}
+
+	/**
+	 * @return The first slot holding an entry at or after from, n standing for the null key, or -1 past the last one.
+	 */
+	private int nextSlot(int from) {
+
+		final ByteBuffer buffer = buffer();
+
+		for (; from < n; from++) {
+			if (buffer.getLong(from << 3) != 0) {
+				return from;
+			}
+		}
+
+		return from == n && containsNullKey ? n : -1;
+	}
+
+
+	private static final class SlotEntry extends BasicEntry {
+
+		private void set(final long key, final int value) {
+			this.key = key;
+			this.value = value;
+		}
+
+	}
+
+	private final class EntrySet extends AbstractObjectSet<Long2IntMap.Entry> implements FastEntrySet {
+
+		@Override
+		public ObjectIterator<Long2IntMap.Entry> iterator() {
+			return new EntryIterator(false);
+		}
+
+		@Override
+		public ObjectIterator<Long2IntMap.Entry> fastIterator() {
+			return new EntryIterator(true);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+
+			if (!(o instanceof Map.Entry) || !(((Map.Entry<?, ?>) o).getKey() instanceof Long) || !(((Map.Entry<?, ?>) o).getValue() instanceof Integer)) {
+				return false;
+			}
+
+			final long k = (Long) ((Map.Entry<?, ?>) o).getKey();
+
+			return containsKey(k) && get(k) == (Integer) ((Map.Entry<?, ?>) o).getValue();
+		}
+
+		@Override
+		public boolean remove(final Object o) {
+
+			if (!contains(o)) {
+				return false;
+			}
+
+			OffHeapLong2IntTable.this.remove((long) (Long) ((Map.Entry<?, ?>) o).getKey());
+
+			return true;
+		}
+
+	}
+
+	// Walks the slots, the fast variant hands out the same entry every time
+	private final class EntryIterator implements ObjectIterator<Long2IntMap.Entry> {
+
+		private final SlotEntry reused;
+
+		private int slot = nextSlot(0);
+
+
+		private EntryIterator(final boolean fast) {
+			this.reused = fast ? new SlotEntry() : null;
+		}
+
+
+		@Override
+		public boolean hasNext() {
+			return slot != -1;
+		}
+
+		@Override
+		public Long2IntMap.Entry next() {
+
+			if (slot == -1) {
+				throw new NoSuchElementException();
+			}
+
+			final SlotEntry entry = reused != null ? reused : new SlotEntry();
+
+			if (slot == n) {
+				entry.set(0, nullValue);
+				slot = -1;
+			}
+			else {
+				entry.set(key(slot), value(slot));
+				slot = nextSlot(slot + 1);
+			}
+
+			return entry;
+		}
+
+	}
+
+}
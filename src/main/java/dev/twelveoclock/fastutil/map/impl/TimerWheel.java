@@ -0,0 +1,223 @@
+package dev.twelveoclock.fastutil.map.impl;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+
+/**
+ * A hierarchical timer wheel after Caffeine's, one per stripe of the expiring maps, only touched under the stripe's write lock.
+ * <p>
+ * Levels of roughly a second, a minute, an hour and a day per bucket, plus one bucket for anything further out.
+ * Advancing only visits the buckets whose time has come, entries found there that were pushed back since they were
+ * scheduled move to the bucket of their new deadline instead of expiring.
+ */
+final class TimerWheel<N extends TimerWheel.Node> {
+
+	private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+	private static final long[] SPANS = {
+		HashCommon.nextPowerOfTwo(TimeUnit.SECONDS.toNanos(1)),
+		HashCommon.nextPowerOfTwo(TimeUnit.MINUTES.toNanos(1)),
+		HashCommon.nextPowerOfTwo(TimeUnit.HOURS.toNanos(1)),
+		HashCommon.nextPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+		BUCKETS[3] * HashCommon.nextPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+		BUCKETS[3] * HashCommon.nextPowerOfTwo(TimeUnit.DAYS.toNanos(1)),
+	};
+
+	private static final int[] SHIFT = new int[BUCKETS.length];
+
+	static {
+		for (int i = 0; i < SHIFT.length; i++) {
+			SHIFT[i] = Long.numberOfTrailingZeros(SPANS[i]);
+		}
+	}
+
+
+	private final Node[][] wheel = new Node[BUCKETS.length][];
+
+	// The time it was last advanced to
+	private long nanos;
+
+
+	TimerWheel(final long nanos) {
+
+		this.nanos = nanos;
+
+		for (int i = 0; i < wheel.length; i++) {
+
+			wheel[i] = new Node[BUCKETS[i]];
+
+			for (int j = 0; j < wheel[i].length; j++) {
+				wheel[i][j] = new Node();
+			}
+		}
+
+		clear();
+	}
+
+
+	long nanos() {
+		return nanos;
+	}
+
+	/**
+	 * Expires every node whose deadline is at or before now, handing each to the consumer once it's unlinked.
+	 */
+	void advance(long now, final Consumer<? super N> expired) {
+
+		// A writer that read the time before another one took the lock
+		if (now - nanos <= 0) {
+			return;
+		}
+
+		long previous = nanos;
+
+		nanos = now;
+
+		// Shift both across the wrap of System.nanoTime, so ticks still compare as positive
+		if (previous < 0 && now > 0) {
+			previous += Long.MAX_VALUE;
+			now += Long.MAX_VALUE;
+		}
+
+		for (int level = 0; level < SHIFT.length; level++) {
+
+			final long previousTicks = previous >>> SHIFT[level];
+			final long delta = (now >>> SHIFT[level]) - previousTicks;
+
+			if (delta <= 0) {
+				break;
+			}
+
+			expire(level, previousTicks, delta, expired);
+		}
+	}
+
+	void schedule(final N node) {
+
+		final Node sentinel = bucketFor(node.deadline);
+
+		node.prev = sentinel.prev;
+		node.next = sentinel;
+		sentinel.prev.next = node;
+		sentinel.prev = node;
+	}
+
+	void deschedule(final N node) {
+
+		if (node.next == null) {
+			return;
+		}
+
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = null;
+		node.next = null;
+	}
+
+	void clear() {
+		for (final Node[] level : wheel) {
+			for (final Node sentinel : level) {
+				sentinel.prev = sentinel;
+				sentinel.next = sentinel;
+			}
+		}
+	}
+
+
+	private void expire(final int level, final long previousTicks, final long delta, final Consumer<? super N> expired) {
+
+		final Node[] buckets = wheel[level];
+		final int mask = buckets.length - 1;
+		final int steps = (int) Math.min(1 + delta, buckets.length);
+		final int start = (int) (previousTicks & mask);
+
+		for (int i = start; i < start + steps; i++) {
+
+			final Node sentinel = buckets[i & mask];
+
+			Node node = sentinel.next;
+
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+
+			while (node != sentinel) {
+
+				final Node next = node.next;
+
+				node.prev = null;
+				node.next = null;
+
+				//noinspection unchecked
+				if (node.deadline - nanos > 0) {
+					schedule((N) node);
+				}
+				else {
+					expired.accept((N) node);
+				}
+
+				node = next;
+			}
+		}
+	}
+
+	private Node bucketFor(final long deadline) {
+
+		final long duration = deadline - nanos;
+		final int last = wheel.length - 1;
+
+		for (int level = 0; level < last; level++) {
+			if (duration < SPANS[level + 1]) {
+				return wheel[level][(int) ((deadline >>> SHIFT[level]) & (wheel[level].length - 1))];
+			}
+		}
+
+		return wheel[last][0];
+	}
+
+
+	/**
+	 * An entry of a wheel bucket's circular list, also used for the list heads.
+	 */
+	static class Node {
+
+		private static final VarHandle DEADLINE;
+
+		static {
+			try {
+				DEADLINE = MethodHandles.lookup().findVarHandle(Node.class, "deadline", long.class);
+			} catch (final ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+
+		// Read without the lock to tell whether an entry expired, pushed back on access
+		volatile long deadline;
+
+		// Null while not scheduled
+		Node prev;
+
+		Node next;
+
+
+		/**
+		 * Moves the deadline to the given one if it's later, for readers racing under a shared lock,
+		 * one that read the clock earlier must not pull back a deadline another reader pushed further.
+		 */
+		void pushDeadline(final long deadline) {
+
+			long current = this.deadline;
+
+			while (deadline - current > 0 && !DEADLINE.weakCompareAndSet(this, current, deadline)) {
+				current = this.deadline;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,241 @@
+package dev.twelveoclock.fastutil.queues.base;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+
+/**
+ * The index bookkeeping of a bounded ring buffer, subclasses hold the slots.
+ * <p>
+ * Producers claim a position with {@link #claimOffer()}, write the slot and hand it over with {@link #publishOffer(long)},
+ * consumers do the same with {@link #claimPoll()} and {@link #publishPoll(long)}.
+ * Multi producer or multi consumer modes follow Vyukov's bounded queue, every slot carries a sequence telling which lap it is ready for.
+ * SPSC needs no sequences, each side only publishes its own index and caches the other one.
+ * Head and tail sit on their own cache lines so producers and consumers don't invalidate each other's index.
+ */
+public abstract class FastUtilConcurrentQueue extends QueueTailPadding {
+
+	private static final VarHandle HEAD;
+
+	private static final VarHandle TAIL;
+
+	private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+	static {
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			HEAD = lookup.findVarHandle(QueueHead.class, "head", long.class);
+			TAIL = lookup.findVarHandle(QueueTail.class, "tail", long.class);
+		} catch (final ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+
+	@Getter
+	protected final QueueMode mode;
+
+	/**
+	 * The requested capacity rounded up to a power of two, and to at least 2 outside SPSC mode.
+	 */
+	@Getter
+	protected final int capacity;
+
+	protected final int mask;
+
+	// Null in SPSC mode
+	private final long[] sequences;
+
+
+	protected FastUtilConcurrentQueue(final int capacity, final QueueMode mode) {
+
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30, it's rounded up to 2 outside SPSC mode: " + capacity);
+		}
+
+		this.mode = mode;
+		// With a single slot, the sequence a full slot publishes is the one an empty slot waits for on the next lap
+		this.capacity = HashCommon.nextPowerOfTwo(mode == QueueMode.SPSC ? capacity : Math.max(capacity, 2));
+		this.mask = this.capacity - 1;
+
+		if (mode == QueueMode.SPSC) {
+			this.sequences = null;
+		}
+		else {
+
+			this.sequences = new long[this.capacity];
+
+			for (int i = 0; i < sequences.length; i++) {
+				sequences[i] = i;
+			}
+		}
+	}
+
+
+	/**
+	 * Racy between producers and consumers, exact once both are quiescent.
+	 */
+	public int size() {
+
+		// Head first, so a poll in between can only make it smaller
+		final long head = (long) HEAD.getVolatile(this);
+		final long tail = (long) TAIL.getVolatile(this);
+
+		return (int) Math.max(0, Math.min(tail - head, capacity));
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * @return The position to write, or -1 if the queue is full.
+	 */
+	protected final long claimOffer() {
+
+		if (sequences == null) {
+
+			final long position = tail;
+
+			if (position - headCache >= capacity) {
+
+				headCache = (long) HEAD.getAcquire(this);
+
+				if (position - headCache >= capacity) {
+					return -1;
+				}
+			}
+
+			return position;
+		}
+
+		while (true) {
+
+			final long position = (long) TAIL.getVolatile(this);
+			final long sequence = (long) SEQUENCES.getAcquire(sequences, (int) position & mask);
+
+			if (sequence == position) {
+				if (TAIL.compareAndSet(this, position, position + 1)) {
+					return position;
+				}
+			}
+			// Still holds the value from the previous lap
+			else if (sequence < position) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Hands the slot written at a claimed position to the consumers.
+	 */
+	protected final void publishOffer(final long position) {
+		if (sequences == null) {
+			TAIL.setRelease(this, position + 1);
+		}
+		else {
+			SEQUENCES.setRelease(sequences, (int) position & mask, position + 1);
+		}
+	}
+
+	/**
+	 * @return The position to read, or -1 if the queue is empty or the next offer is not published yet.
+	 */
+	protected final long claimPoll() {
+
+		if (sequences == null) {
+
+			final long position = head;
+
+			if (position >= tailCache) {
+
+				tailCache = (long) TAIL.getAcquire(this);
+
+				if (position >= tailCache) {
+					return -1;
+				}
+			}
+
+			return position;
+		}
+
+		if (mode == QueueMode.MPSC) {
+
+			final long position = head;
+
+			return (long) SEQUENCES.getAcquire(sequences, (int) position & mask) == position + 1 ? position : -1;
+		}
+
+		while (true) {
+
+			final long position = (long) HEAD.getVolatile(this);
+			final long sequence = (long) SEQUENCES.getAcquire(sequences, (int) position & mask);
+
+			if (sequence == position + 1) {
+				if (HEAD.compareAndSet(this, position, position + 1)) {
+					return position;
+				}
+			}
+			else if (sequence < position + 1) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Hands the slot read at a claimed position back to the producers.
+	 */
+	protected final void publishPoll(final long position) {
+
+		if (sequences != null) {
+			SEQUENCES.setRelease(sequences, (int) position & mask, position + capacity);
+		}
+
+		// MPMC consumers already moved the head when claiming
+		if (mode != QueueMode.MPMC) {
+			HEAD.setRelease(this, position + 1);
+		}
+	}
+
+}
+
+@SuppressWarnings("unused")
+abstract class QueueHeadPadding {
+	long p00, p01, p02, p03, p04, p05, p06, p07;
+	long p08, p09, p0a, p0b, p0c, p0d, p0e, p0f;
+}
+
+// Written by consumers
+abstract class QueueHead extends QueueHeadPadding {
+
+	volatile long head;
+
+	// SPSC only, the consumer's last look at the tail
+	long tailCache;
+
+}
+
+@SuppressWarnings("unused")
+abstract class QueueMidPadding extends QueueHead {
+	long p10, p11, p12, p13, p14, p15, p16, p17;
+	long p18, p19, p1a, p1b, p1c, p1d, p1e, p1f;
+}
+
+// Written by producers
+abstract class QueueTail extends QueueMidPadding {
+
+	volatile long tail;
+
+	// SPSC only, the producer's last look at the head
+	long headCache;
+
+}
+
+@SuppressWarnings("unused")
+abstract class QueueTailPadding extends QueueTail {
+	long p20, p21, p22, p23, p24, p25, p26, p27;
+	long p28, p29, p2a, p2b, p2c, p2d, p2e, p2f;
+}
@@ -0,0 +1,21 @@
+package dev.twelveoclock.fastutil.queues.base;
+
+
+public enum QueueMode {
+
+	/**
+	 * Any number of producers and consumers, both ends are claimed by CAS.
+	 */
+	MPMC,
+
+	/**
+	 * Any number of producers and a single consumer thread, polling needs no CAS.
+	 */
+	MPSC,
+
+	/**
+	 * A single producer thread and a single consumer thread, neither end needs a CAS or per slot sequences.
+	 */
+	SPSC
+
+}
@@ -0,0 +1,109 @@
+package dev.twelveoclock.fastutil.queues.impl;
+
+import dev.twelveoclock.fastutil.queues.base.FastUtilConcurrentQueue;
+import dev.twelveoclock.fastutil.queues.base.QueueMode;
+import lombok.Getter;
+
+import java.util.function.IntConsumer;
+
+
+/**
+ * A bounded lock-free queue of unboxed ints on a ring buffer.
+ */
+public final class ConcurrentIntArrayQueue extends FastUtilConcurrentQueue {
+
+	private final int[] buffer;
+
+	/**
+	 * Returned by {@link #poll()} when the queue is empty.
+	 */
+	@Getter
+	private final int emptyValue;
+
+
+	public ConcurrentIntArrayQueue(final int capacity) {
+		this(capacity, QueueMode.MPMC);
+	}
+
+	public ConcurrentIntArrayQueue(final int capacity, final QueueMode mode) {
+		this(capacity, mode, 0);
+	}
+
+	public ConcurrentIntArrayQueue(final int capacity, final QueueMode mode, final int emptyValue) {
+
+		super(capacity, mode);
+
+		this.buffer = new int[this.capacity];
+		this.emptyValue = emptyValue;
+	}
+
+
+	/**
+	 * @return Whether the value was added, false if the queue is full.
+	 */
+	public boolean offer(final int value) {
+
+		final long position = claimOffer();
+
+		if (position == -1) {
+			return false;
+		}
+
+		buffer[(int) position & mask] = value;
+		publishOffer(position);
+
+		return true;
+	}
+
+	/**
+	 * @return The head of the queue, or {@link #getEmptyValue()} if it is empty.
+	 */
+	public int poll() {
+
+		final long position = claimPoll();
+
+		if (position == -1) {
+			return emptyValue;
+		}
+
+		final int value = buffer[(int) position & mask];
+		publishPoll(position);
+
+		return value;
+	}
+
+	/**
+	 * Polls up to max values into the consumer, each slot is handed back before the consumer sees its value.
+	 *
+	 * @return How many values were drained.
+	 */
+	public int drain(final IntConsumer consumer, final int max) {
+
+		int drained = 0;
+
+		while (drained < max) {
+
+			final long position = claimPoll();
+
+			if (position == -1) {
+				break;
+			}
+
+			final int value = buffer[(int) position & mask];
+			publishPoll(position);
+
+			consumer.accept(value);
+			drained++;
+		}
+
+		return drained;
+	}
+
+	/**
+	 * Drains at most one capacity's worth, so steady producers can't keep it going forever.
+	 */
+	public int drain(final IntConsumer consumer) {
+		return drain(consumer, capacity);
+	}
+
+}
@@ -0,0 +1,109 @@
+package dev.twelveoclock.fastutil.queues.impl;
+
+import dev.twelveoclock.fastutil.queues.base.FastUtilConcurrentQueue;
+import dev.twelveoclock.fastutil.queues.base.QueueMode;
+import lombok.Getter;
+
+import java.util.function.LongConsumer;
+
+
+/**
+ * A bounded lock-free queue of unboxed longs on a ring buffer.
+ */
+public final class ConcurrentLongArrayQueue extends FastUtilConcurrentQueue {
+
+	private final long[] buffer;
+
+	/**
+	 * Returned by {@link #poll()} when the queue is empty.
+	 */
+	@Getter
+	private final long emptyValue;
+
+
+	public ConcurrentLongArrayQueue(final int capacity) {
+		this(capacity, QueueMode.MPMC);
+	}
+
+	public ConcurrentLongArrayQueue(final int capacity, final QueueMode mode) {
+		this(capacity, mode, 0L);
+	}
+
+	public ConcurrentLongArrayQueue(final int capacity, final QueueMode mode, final long emptyValue) {
+
+		super(capacity, mode);
+
+		this.buffer = new long[this.capacity];
+		this.emptyValue = emptyValue;
+	}
+
+
+	/**
+	 * @return Whether the value was added, false if the queue is full.
+	 */
+	public boolean offer(final long value) {
+
+		final long position = claimOffer();
+
+		if (position == -1) {
+			return false;
+		}
+
+		buffer[(int) position & mask] = value;
+		publishOffer(position);
+
+		return true;
+	}
+
+	/**
+	 * @return The head of the queue, or {@link #getEmptyValue()} if it is empty.
+	 */
+	public long poll() {
+
+		final long position = claimPoll();
+
+		if (position == -1) {
+			return emptyValue;
+		}
+
+		final long value = buffer[(int) position & mask];
+		publishPoll(position);
+
+		return value;
+	}
+
+	/**
+	 * Polls up to max values into the consumer, each slot is handed back before the consumer sees its value.
+	 *
+	 * @return How many values were drained.
+	 */
+	public int drain(final LongConsumer consumer, final int max) {
+
+		int drained = 0;
+
+		while (drained < max) {
+
+			final long position = claimPoll();
+
+			if (position == -1) {
+				break;
+			}
+
+			final long value = buffer[(int) position & mask];
+			publishPoll(position);
+
+			consumer.accept(value);
+			drained++;
+		}
+
+		return drained;
+	}
+
+	/**
+	 * Drains at most one capacity's worth, so steady producers can't keep it going forever.
+	 */
+	public int drain(final LongConsumer consumer) {
+		return drain(consumer, capacity);
+	}
+
+}
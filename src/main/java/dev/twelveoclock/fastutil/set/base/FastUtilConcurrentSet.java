@@ -1,33 +1,18 @@
 package dev.twelveoclock.fastutil.set.base;
 
-import lombok.Getter;
+import dev.twelveoclock.fastutil.base.FastUtilConcurrentBase;
+import dev.twelveoclock.fastutil.base.StripeLockMode;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-
-public abstract class FastUtilConcurrentSet {
-
-
-	@Getter
-	protected final int numBuckets;
-
-	protected final ReadWriteLock[] locks;
+public abstract class FastUtilConcurrentSet<B> extends FastUtilConcurrentBase<B> {
 
 
 	protected FastUtilConcurrentSet(final int numBuckets) {
-
-		this.numBuckets = numBuckets;
-		this.locks = new ReadWriteLock[numBuckets];
-
-		for (int i = 0; i < numBuckets; i++) {
-			locks[i] = new ReentrantReadWriteLock();
-		}
+		this(numBuckets, StripeLockMode.REENTRANT);
 	}
 
-
-	protected int getBucket(final int hashCode) {
-		return Math.floorMod(hashCode, numBuckets);
+	protected FastUtilConcurrentSet(final int numBuckets, final StripeLockMode lockMode) {
+		super(numBuckets, lockMode);
 	}
 
-}
\ No newline at end of file
+}
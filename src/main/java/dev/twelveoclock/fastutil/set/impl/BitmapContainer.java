@@ -0,0 +1,227 @@
+package dev.twelveoclock.fastutil.set.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+
+/**
+ * The low 16 bits of the values sharing their high bits, as a bitmap of 16 blocks of 64 words, each block created on first add.
+ * <p>
+ * Every change is a single atomic read-modify-write of a word, which returns the bits it replaced,
+ * so callers know exactly how many values they added or removed even while racing with each other.
+ */
+final class BitmapContainer {
+
+	private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private static final VarHandle BLOCKS = MethodHandles.arrayElementVarHandle(long[][].class);
+
+	private static final int BLOCK_SHIFT = 12;
+
+	private static final int BLOCK_WORDS = 1 << (BLOCK_SHIFT - 6);
+
+	static final int VALUES = 1 << 16;
+
+
+	private final long[][] blocks = new long[VALUES >>> BLOCK_SHIFT][];
+
+
+	boolean contains(final int low) {
+
+		final long[] block = (long[]) BLOCKS.getAcquire(blocks, low >>> BLOCK_SHIFT);
+
+		return block != null && ((long) WORDS.getAcquire(block, (low >>> 6) & (BLOCK_WORDS - 1)) & (1L << low)) != 0;
+	}
+
+	boolean add(final int low) {
+
+		final long bit = 1L << low;
+
+		return ((long) WORDS.getAndBitwiseOr(block(low >>> BLOCK_SHIFT), (low >>> 6) & (BLOCK_WORDS - 1), bit) & bit) == 0;
+	}
+
+	boolean remove(final int low) {
+
+		final long[] block = (long[]) BLOCKS.getAcquire(blocks, low >>> BLOCK_SHIFT);
+
+		if (block == null) {
+			return false;
+		}
+
+		final long bit = 1L << low;
+
+		return ((long) WORDS.getAndBitwiseAnd(block, (low >>> 6) & (BLOCK_WORDS - 1), ~bit) & bit) != 0;
+	}
+
+	/**
+	 * @return How many values were added.
+	 */
+	int or(final BitmapContainer other) {
+
+		int added = 0;
+
+		for (int index = 0; index < blocks.length; index++) {
+
+			final long[] source = (long[]) BLOCKS.getAcquire(other.blocks, index);
+
+			if (source == null) {
+				continue;
+			}
+
+			long[] block = null;
+
+			for (int word = 0; word < BLOCK_WORDS; word++) {
+
+				final long bits = (long) WORDS.getAcquire(source, word);
+
+				if (bits == 0) {
+					continue;
+				}
+
+				if (block == null) {
+					block = block(index);
+				}
+
+				added += Long.bitCount(bits & ~(long) WORDS.getAndBitwiseOr(block, word, bits));
+			}
+		}
+
+		return added;
+	}
+
+	/**
+	 * @param other Null to keep nothing.
+	 * @return How many values were removed.
+	 */
+	int and(final BitmapContainer other) {
+
+		int removed = 0;
+
+		for (int index = 0; index < blocks.length; index++) {
+
+			final long[] block = (long[]) BLOCKS.getAcquire(blocks, index);
+
+			if (block == null) {
+				continue;
+			}
+
+			final long[] source = other == null ? null : (long[]) BLOCKS.getAcquire(other.blocks, index);
+
+			for (int word = 0; word < BLOCK_WORDS; word++) {
+
+				final long keep = source == null ? 0 : (long) WORDS.getAcquire(source, word);
+
+				removed += Long.bitCount(~keep & (long) WORDS.getAndBitwiseAnd(block, word, keep));
+			}
+		}
+
+		return removed;
+	}
+
+	/**
+	 * @return How many values were removed.
+	 */
+	int andNot(final BitmapContainer other) {
+
+		int removed = 0;
+
+		for (int index = 0; index < blocks.length; index++) {
+
+			final long[] block = (long[]) BLOCKS.getAcquire(blocks, index);
+			final long[] source = (long[]) BLOCKS.getAcquire(other.blocks, index);
+
+			if (block == null || source == null) {
+				continue;
+			}
+
+			for (int word = 0; word < BLOCK_WORDS; word++) {
+
+				final long bits = (long) WORDS.getAcquire(source, word);
+
+				if (bits != 0) {
+					removed += Long.bitCount(bits & (long) WORDS.getAndBitwiseAnd(block, word, ~bits));
+				}
+			}
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Keeps the blocks, so a container that fills up again doesn't allocate.
+	 *
+	 * @return How many values were removed.
+	 */
+	int clear() {
+		return and(null);
+	}
+
+	int cardinality() {
+
+		int cardinality = 0;
+
+		for (int index = 0; index < blocks.length; index++) {
+
+			final long[] block = (long[]) BLOCKS.getAcquire(blocks, index);
+
+			if (block == null) {
+				continue;
+			}
+
+			for (int word = 0; word < BLOCK_WORDS; word++) {
+				cardinality += Long.bitCount((long) WORDS.getAcquire(block, word));
+			}
+		}
+
+		return cardinality;
+	}
+
+	/**
+	 * @return The lowest value at or above from, or -1 if there is none.
+	 */
+	int next(final int from) {
+
+		for (int index = from >>> BLOCK_SHIFT; index < blocks.length; index++) {
+
+			final long[] block = (long[]) BLOCKS.getAcquire(blocks, index);
+
+			if (block == null) {
+				continue;
+			}
+
+			final int start = index == from >>> BLOCK_SHIFT ? (from >>> 6) & (BLOCK_WORDS - 1) : 0;
+
+			for (int word = start; word < BLOCK_WORDS; word++) {
+
+				long bits = (long) WORDS.getAcquire(block, word);
+
+				if (word == start && index == from >>> BLOCK_SHIFT) {
+					bits &= -1L << from;
+				}
+
+				if (bits != 0) {
+					return (index << BLOCK_SHIFT) | (word << 6) | Long.numberOfTrailingZeros(bits);
+				}
+			}
+		}
+
+		return -1;
+	}
+
+
+	private long[] block(final int index) {
+
+		final long[] existing = (long[]) BLOCKS.getAcquire(blocks, index);
+
+		if (existing != null) {
+			return existing;
+		}
+
+		// Racing adders may both allocate, the loser's block is dropped
+		final long[] created = new long[BLOCK_WORDS];
+		final long[] witness = (long[]) BLOCKS.compareAndExchange(blocks, index, null, created);
+
+		return witness == null ? created : witness;
+	}
+
+}
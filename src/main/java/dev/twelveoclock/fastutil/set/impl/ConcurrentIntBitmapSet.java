@@ -0,0 +1,367 @@
+package dev.twelveoclock.fastutil.set.impl;
+
+import it.unimi.dsi.fastutil.ints.AbstractIntSet;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A lock-free set of ints stored as bitmaps, one container per value of the high 16 bits, like a Roaring bitmap's.
+ * <p>
+ * Dense values cost a bit each plus a container's worth of blocks, {@link #contains(int)} is two array loads and a bit test.
+ * Containers are only bitmaps, there are no array or run containers since converting between them can't be done word by word.
+ * Bulk operations with another bitmap set work a word at a time, iterators are weakly consistent and ascending.
+ */
+public final class ConcurrentIntBitmapSet extends AbstractIntSet {
+
+	private static final VarHandle PAGES = MethodHandles.arrayElementVarHandle(BitmapContainer[][].class);
+
+	private static final VarHandle CONTAINERS = MethodHandles.arrayElementVarHandle(BitmapContainer[].class);
+
+	private static final int PAGE_SHIFT = 8;
+
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+
+	// Indexed by the high 16 bits, in pages of containers created on first add
+	private final BitmapContainer[][] pages = new BitmapContainer[BitmapContainer.VALUES >>> PAGE_SHIFT][];
+
+	private final LongAdder size = new LongAdder();
+
+
+	public ConcurrentIntBitmapSet() {}
+
+	public ConcurrentIntBitmapSet(final IntCollection c) {
+		addAll(c);
+	}
+
+
+	@Override
+	public int size() {
+		return (int) Math.min(cardinality(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * The size without the int cap, a full set holds 2^32 values.
+	 */
+	public long cardinality() {
+		return Math.max(size.sum(), 0);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return cardinality() == 0;
+	}
+
+	@Override
+	public boolean contains(final int k) {
+
+		final BitmapContainer container = container(k >>> 16);
+
+		return container != null && container.contains(k & 0xFFFF);
+	}
+
+	@Override
+	public boolean add(final int k) {
+
+		if (!containerOrCreate(k >>> 16).add(k & 0xFFFF)) {
+			return false;
+		}
+
+		size.increment();
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(final int k) {
+
+		final BitmapContainer container = container(k >>> 16);
+
+		if (container == null || !container.remove(k & 0xFFFF)) {
+			return false;
+		}
+
+		size.decrement();
+
+		return true;
+	}
+
+	@Override
+	public boolean addAll(final IntCollection c) {
+
+		if (c instanceof ConcurrentIntBitmapSet) {
+			return addAll((ConcurrentIntBitmapSet) c);
+		}
+
+		return super.addAll(c);
+	}
+
+	@Override
+	public boolean addAll(final Collection<? extends Integer> c) {
+
+		if (c instanceof IntCollection) {
+			return addAll((IntCollection) c);
+		}
+
+		return super.addAll(c);
+	}
+
+	/**
+	 * Union, a word at a time.
+	 */
+	public boolean addAll(final ConcurrentIntBitmapSet other) {
+
+		long added = 0;
+
+		for (int high = 0; high < BitmapContainer.VALUES; high++) {
+
+			final BitmapContainer source = other.container(high);
+
+			if (source != null) {
+				added += containerOrCreate(high).or(source);
+			}
+		}
+
+		size.add(added);
+
+		return added != 0;
+	}
+
+	@Override
+	public boolean retainAll(final IntCollection c) {
+
+		if (c instanceof ConcurrentIntBitmapSet) {
+			return retainAll((ConcurrentIntBitmapSet) c);
+		}
+
+		return super.retainAll(c);
+	}
+
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+
+		if (c instanceof IntCollection) {
+			return retainAll((IntCollection) c);
+		}
+
+		return super.retainAll(c);
+	}
+
+	/**
+	 * Intersection, a word at a time.
+	 */
+	public boolean retainAll(final ConcurrentIntBitmapSet other) {
+
+		long removed = 0;
+
+		for (int high = 0; high < BitmapContainer.VALUES; high++) {
+
+			final BitmapContainer container = container(high);
+
+			if (container != null) {
+				removed += container.and(other.container(high));
+			}
+		}
+
+		size.add(-removed);
+
+		return removed != 0;
+	}
+
+	@Override
+	public boolean removeAll(final IntCollection c) {
+
+		if (c instanceof ConcurrentIntBitmapSet) {
+			return removeAll((ConcurrentIntBitmapSet) c);
+		}
+
+		return super.removeAll(c);
+	}
+
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+
+		if (c instanceof IntCollection) {
+			return removeAll((IntCollection) c);
+		}
+
+		return super.removeAll(c);
+	}
+
+	/**
+	 * Difference, a word at a time.
+	 */
+	public boolean removeAll(final ConcurrentIntBitmapSet other) {
+
+		long removed = 0;
+
+		for (int high = 0; high < BitmapContainer.VALUES; high++) {
+
+			final BitmapContainer container = container(high);
+			final BitmapContainer source = other.container(high);
+
+			if (container != null && source != null) {
+				removed += container.andNot(source);
+			}
+		}
+
+		size.add(-removed);
+
+		return removed != 0;
+	}
+
+	/**
+	 * Keeps the containers, so refilling the same range doesn't allocate.
+	 */
+	@Override
+	public void clear() {
+
+		long removed = 0;
+
+		for (int high = 0; high < BitmapContainer.VALUES; high++) {
+
+			final BitmapContainer container = container(high);
+
+			if (container != null) {
+				removed += container.clear();
+			}
+		}
+
+		size.add(-removed);
+	}
+
+	@Override
+	public IntIterator iterator() {
+		return new BitmapIterator();
+	}
+
+
+	private BitmapContainer container(final int high) {
+
+		final BitmapContainer[] page = (BitmapContainer[]) PAGES.getAcquire(pages, high >>> PAGE_SHIFT);
+
+		return page == null ? null : (BitmapContainer) CONTAINERS.getAcquire(page, high & (PAGE_SIZE - 1));
+	}
+
+	private BitmapContainer containerOrCreate(final int high) {
+
+		BitmapContainer[] page = (BitmapContainer[]) PAGES.getAcquire(pages, high >>> PAGE_SHIFT);
+
+		if (page == null) {
+			// Racing adders may both allocate, the loser's page is dropped
+			final BitmapContainer[] created = new BitmapContainer[PAGE_SIZE];
+			final BitmapContainer[] witness = (BitmapContainer[]) PAGES.compareAndExchange(pages, high >>> PAGE_SHIFT, null, created);
+
+			page = witness == null ? created : witness;
+		}
+
+		final BitmapContainer existing = (BitmapContainer) CONTAINERS.getAcquire(page, high & (PAGE_SIZE - 1));
+
+		if (existing != null) {
+			return existing;
+		}
+
+		final BitmapContainer created = new BitmapContainer();
+		final BitmapContainer witness = (BitmapContainer) CONTAINERS.compareAndExchange(page, high & (PAGE_SIZE - 1), null, created);
+
+		return witness == null ? created : witness;
+	}
+
+
+	// Walks the containers in signed order, so the values come out ascending
+	private final class BitmapIterator implements IntIterator {
+
+		// Position in signed order, the container's high bits are position ^ 0x8000
+		private int position = -1;
+
+		private BitmapContainer container;
+
+		private int low;
+
+		private int next;
+
+		private boolean hasNext;
+
+		private int last;
+
+		private boolean canRemove;
+
+
+		private BitmapIterator() {
+			advance();
+		}
+
+
+		@Override
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public int nextInt() {
+
+			if (!hasNext) {
+				throw new NoSuchElementException();
+			}
+
+			last = next;
+			canRemove = true;
+			advance();
+
+			return last;
+		}
+
+		@Override
+		public void remove() {
+
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			ConcurrentIntBitmapSet.this.remove(last);
+			canRemove = false;
+		}
+
+		private void advance() {
+			while (true) {
+
+				if (container != null) {
+
+					final int found = container.next(low);
+
+					if (found >= 0) {
+						next = ((position ^ 0x8000) << 16) | found;
+						low = found + 1;
+						hasNext = true;
+						return;
+					}
+				}
+
+				if (++position == BitmapContainer.VALUES) {
+					hasNext = false;
+					return;
+				}
+
+				container = null;
+				low = 0;
+
+				if (PAGES.getAcquire(pages, (position ^ 0x8000) >>> PAGE_SHIFT) == null) {
+					// Skips the rest of an empty page
+					position |= PAGE_SIZE - 1;
+					continue;
+				}
+
+				container = container(position ^ 0x8000);
+			}
+		}
+
+	}
+
+}
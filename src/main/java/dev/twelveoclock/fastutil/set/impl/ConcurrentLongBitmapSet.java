@@ -0,0 +1,313 @@
+package dev.twelveoclock.fastutil.set.impl;
+
+import dev.twelveoclock.fastutil.map.impl.ConcurrentLong2ObjectLockFreeHashMap;
+import it.unimi.dsi.fastutil.longs.AbstractLongSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A lock-free set of longs stored as bitmaps, one container per value of the high 48 bits, like a Roaring bitmap's.
+ * <p>
+ * Containers are found through a {@link ConcurrentLong2ObjectLockFreeHashMap}, so {@link #contains(long)} is a lock-free
+ * lookup and a bit test. Dense values cost a bit each plus a container's worth of blocks.
+ * Containers are only bitmaps, there are no array or run containers since converting between them can't be done word by word.
+ * Bulk operations with another bitmap set work a word at a time, iterators are weakly consistent and ascending.
+ */
+public final class ConcurrentLongBitmapSet extends AbstractLongSet {
+
+	private final ConcurrentLong2ObjectLockFreeHashMap<BitmapContainer> containers = new ConcurrentLong2ObjectLockFreeHashMap<>();
+
+	private final LongAdder size = new LongAdder();
+
+
+	public ConcurrentLongBitmapSet() {}
+
+	public ConcurrentLongBitmapSet(final LongCollection c) {
+		addAll(c);
+	}
+
+
+	@Override
+	public int size() {
+		return (int) Math.min(cardinality(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * The size without the int cap.
+	 */
+	public long cardinality() {
+		return Math.max(size.sum(), 0);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return cardinality() == 0;
+	}
+
+	@Override
+	public boolean contains(final long k) {
+
+		final BitmapContainer container = containers.get(k >> 16);
+
+		return container != null && container.contains((int) k & 0xFFFF);
+	}
+
+	@Override
+	public boolean add(final long k) {
+
+		if (!containerOrCreate(k >> 16).add((int) k & 0xFFFF)) {
+			return false;
+		}
+
+		size.increment();
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(final long k) {
+
+		final BitmapContainer container = containers.get(k >> 16);
+
+		if (container == null || !container.remove((int) k & 0xFFFF)) {
+			return false;
+		}
+
+		size.decrement();
+
+		return true;
+	}
+
+	@Override
+	public boolean addAll(final LongCollection c) {
+
+		if (c instanceof ConcurrentLongBitmapSet) {
+			return addAll((ConcurrentLongBitmapSet) c);
+		}
+
+		return super.addAll(c);
+	}
+
+	@Override
+	public boolean addAll(final Collection<? extends Long> c) {
+
+		if (c instanceof LongCollection) {
+			return addAll((LongCollection) c);
+		}
+
+		return super.addAll(c);
+	}
+
+	/**
+	 * Union, a word at a time.
+	 */
+	public boolean addAll(final ConcurrentLongBitmapSet other) {
+
+		long added = 0;
+
+		for (final Long2ObjectMap.Entry<BitmapContainer> entry : other.containers.long2ObjectEntrySet()) {
+			added += containerOrCreate(entry.getLongKey()).or(entry.getValue());
+		}
+
+		size.add(added);
+
+		return added != 0;
+	}
+
+	@Override
+	public boolean retainAll(final LongCollection c) {
+
+		if (c instanceof ConcurrentLongBitmapSet) {
+			return retainAll((ConcurrentLongBitmapSet) c);
+		}
+
+		return super.retainAll(c);
+	}
+
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+
+		if (c instanceof LongCollection) {
+			return retainAll((LongCollection) c);
+		}
+
+		return super.retainAll(c);
+	}
+
+	/**
+	 * Intersection, a word at a time.
+	 */
+	public boolean retainAll(final ConcurrentLongBitmapSet other) {
+
+		long removed = 0;
+
+		for (final Long2ObjectMap.Entry<BitmapContainer> entry : containers.long2ObjectEntrySet()) {
+			removed += entry.getValue().and(other.containers.get(entry.getLongKey()));
+		}
+
+		size.add(-removed);
+
+		return removed != 0;
+	}
+
+	@Override
+	public boolean removeAll(final LongCollection c) {
+
+		if (c instanceof ConcurrentLongBitmapSet) {
+			return removeAll((ConcurrentLongBitmapSet) c);
+		}
+
+		return super.removeAll(c);
+	}
+
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+
+		if (c instanceof LongCollection) {
+			return removeAll((LongCollection) c);
+		}
+
+		return super.removeAll(c);
+	}
+
+	/**
+	 * Difference, a word at a time.
+	 */
+	public boolean removeAll(final ConcurrentLongBitmapSet other) {
+
+		long removed = 0;
+
+		for (final Long2ObjectMap.Entry<BitmapContainer> entry : containers.long2ObjectEntrySet()) {
+
+			final BitmapContainer source = other.containers.get(entry.getLongKey());
+
+			if (source != null) {
+				removed += entry.getValue().andNot(source);
+			}
+		}
+
+		size.add(-removed);
+
+		return removed != 0;
+	}
+
+	/**
+	 * Keeps the containers, so refilling the same ranges doesn't allocate.
+	 */
+	@Override
+	public void clear() {
+
+		long removed = 0;
+
+		for (final BitmapContainer container : containers.values()) {
+			removed += container.clear();
+		}
+
+		size.add(-removed);
+	}
+
+	@Override
+	public LongIterator iterator() {
+		return new BitmapIterator();
+	}
+
+
+	private BitmapContainer containerOrCreate(final long high) {
+
+		final BitmapContainer existing = containers.get(high);
+
+		return existing != null ? existing : containers.computeIfAbsent(high, key -> new BitmapContainer());
+	}
+
+
+	// Walks the containers that existed when it was created, sorted by their high bits
+	private final class BitmapIterator implements LongIterator {
+
+		private final long[] highs = containers.keySet().toLongArray();
+
+		private int index = -1;
+
+		private BitmapContainer container;
+
+		private int low;
+
+		private long next;
+
+		private boolean hasNext;
+
+		private long last;
+
+		private boolean canRemove;
+
+
+		private BitmapIterator() {
+			LongArrays.radixSort(highs);
+			advance();
+		}
+
+
+		@Override
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public long nextLong() {
+
+			if (!hasNext) {
+				throw new NoSuchElementException();
+			}
+
+			last = next;
+			canRemove = true;
+			advance();
+
+			return last;
+		}
+
+		@Override
+		public void remove() {
+
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			ConcurrentLongBitmapSet.this.remove(last);
+			canRemove = false;
+		}
+
+		private void advance() {
+			while (true) {
+
+				if (container != null) {
+
+					final int found = container.next(low);
+
+					if (found >= 0) {
+						next = (highs[index] << 16) | found;
+						low = found + 1;
+						hasNext = true;
+						return;
+					}
+				}
+
+				if (++index == highs.length) {
+					hasNext = false;
+					return;
+				}
+
+				container = containers.get(highs[index]);
+				low = 0;
+			}
+		}
+
+	}
+
+}
@@ -1,360 +1,413 @@
 package dev.twelveoclock.fastutil.set.impl;
 
+import dev.twelveoclock.fastutil.base.StripeLockMode;
 import dev.twelveoclock.fastutil.set.base.FastUtilConcurrentSet;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
 import it.unimi.dsi.fastutil.longs.LongCollection;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
-import it.unimi.dsi.fastutil.objects.ObjectSet;
+import it.unimi.dsi.fastutil.longs.LongSpliterator;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.concurrent.locks.Lock;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
 
-public final class ConcurrentLongOpenHashSet extends FastUtilConcurrentSet implements LongSet {
+public final class ConcurrentLongOpenHashSet extends FastUtilConcurrentSet<LongOpenHashSet> implements LongSet {
 
-	private final LongSet[] buckets;
+	private final float loadFactor;
 
 
 	public ConcurrentLongOpenHashSet() {
-		this(Runtime.getRuntime().availableProcessors() - 1, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+		this(DEFAULT_NUM_BUCKETS, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
 	}
 
 	public ConcurrentLongOpenHashSet(final int numBuckets, final int loadCapacity, final float loadFactor) {
-		super(numBuckets);
+		this(numBuckets, loadCapacity, loadFactor, StripeLockMode.REENTRANT);
+	}
 
-		this.buckets = new LongOpenHashSet[numBuckets];
+	public ConcurrentLongOpenHashSet(final int numBuckets, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
+		super(numBuckets, lockMode);
 
-		final int bucketLoadCapacity = (int) Math.ceil(((double) loadCapacity) / numBuckets);
+		this.loadFactor = loadFactor;
 
-		for (int i = 0; i < numBuckets; i++) {
-			buckets[i] = new LongOpenHashSet(bucketLoadCapacity, loadFactor);
-		}
+		initBuckets(loadCapacity);
 	}
 
 
 	@Override
-	public int size() {
+	protected LongOpenHashSet newBucket(final int capacity) {
+		return new LongOpenHashSet(capacity, loadFactor);
+	}
+
+	@Override
+	protected int bucketSize(final LongOpenHashSet bucket) {
+		return bucket.size();
+	}
 
-		int size = 0;
+	@Override
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
 
-		for (final LongSet bucket : buckets) {
-			size += bucket.size();
+	@Override
+	protected void splitBucket(final LongOpenHashSet source, final LongOpenHashSet lower, final LongOpenHashSet upper, final int splitBit) {
+		for (final LongIterator iterator = source.iterator(); iterator.hasNext(); ) {
+			final long value = iterator.nextLong();
+			(isUpperHalf(Long.hashCode(value), splitBit) ? upper : lower).add(value);
 		}
+	}
 
-		return size;
+
+	@Override
+	public boolean contains(final Object o) {
+		return contains(((Long) o).longValue());
 	}
 
 	@Override
-	public boolean isEmpty() {
+	public long[] toLongArray() {
+		return snapshot().toLongArray();
+	}
 
-		for (final LongSet bucket : buckets) {
-			if (!bucket.isEmpty()) {
-				return false;
-			}
-		}
+	@Override
+	public long[] toArray(final long[] a) {
+		return snapshot().toArray(a);
+	}
 
-		return true;
+	@Override
+	public boolean addAll(final LongCollection c) {
+		return addBatch(c.toLongArray());
 	}
 
+	@Override
+	public LongIterator iterator() {
+		return new ValueIterator();
+	}
 
 	@Override
-	public boolean contains(final Object o) {
+	public LongSpliterator spliterator() {
+		return new ValueSpliterator();
+	}
 
-		final int bucket = getBucket(o.hashCode());
+	@Override
+	public Object[] toArray() {
+		return toArray(new Object[size()]);
+	}
+
+	@Override
+	public <T> T[] toArray(final T[] a) {
+		return snapshot().toArray(a);
+	}
+
+	@Override
+	public boolean add(final long v) {
 
-		final Lock readLock = locks[bucket].readLock();
-		readLock.lock();
+		final Stripe<LongOpenHashSet> stripe = lockWrite(Long.hashCode(v));
 
 		try {
-			return buckets[bucket].contains(o);
+			return stripe.bucket.add(v);
 		} finally {
-			readLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
-	public long[] toLongArray() {
-
-		//noinspection unchecked
-		final long[] array = new long[size()];
+	public boolean contains(final long value) {
 
-		int arrayIndex = 0;
+		final int hash = Long.hashCode(value);
 
-		for (int i = 0; i < buckets.length; i++) {
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
 
-			final Lock readLock = locks[i].readLock();
-			final long[] bucketArray;
+			final Stripe<LongOpenHashSet> stripe = stripeFor(hash);
+			final long stamp = stripe.tryOptimisticRead();
 
-			readLock.lock();
-			try {
-				bucketArray = buckets[i].toLongArray();
-			} finally {
-				readLock.unlock();
+			if (stamp != 0L) {
+				try {
+					final boolean result = stripe.bucket.contains(value);
+					if (stripe.validate(stamp)) {
+						return result;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
 			}
-
-			//noinspection SuspiciousSystemArraycopy
-			System.arraycopy(bucketArray, 0, array, arrayIndex, bucketArray.length);
-			arrayIndex += bucketArray.length;
 		}
 
-		return array;
+		final Stripe<LongOpenHashSet> stripe = lockRead(hash);
+
+		try {
+			return stripe.bucket.contains(value);
+		} finally {
+			unlockRead(stripe);
+		}
 	}
 
 	@Override
-	public long[] toArray(final long[] a) {
+	public boolean remove(final long v) {
 
-		final long[] array = a.length >= size() ? a : new long[size()];
+		final Stripe<LongOpenHashSet> stripe = lockWrite(Long.hashCode(v));
 
-		int arrayIndex = 0;
+		try {
+			return stripe.bucket.remove(v);
+		} finally {
+			unlockWrite(stripe);
+		}
+	}
 
-		for (int i = 0; i < buckets.length; i++) {
+	@Override
+	public boolean containsAll(final Collection<?> c) {
 
-			final Lock readLock = locks[i].readLock();
-			final long[] bucketArray;
+		if (c instanceof LongCollection) {
+			return containsAll((LongCollection) c);
+		}
 
-			readLock.lock();
-			try {
-				bucketArray = buckets[i].toLongArray();
-			} finally {
-				readLock.unlock();
+		for (final Object o : c) {
+			if (!(o instanceof Long)) {
+				return false;
 			}
-
-			//noinspection SuspiciousSystemArraycopy
-			System.arraycopy(bucketArray, 0, array, arrayIndex, bucketArray.length);
-			arrayIndex += bucketArray.length;
 		}
 
-		return array;
+		return containsBatch(unbox(c));
 	}
 
 	@Override
-	public boolean addAll(final LongCollection c) {
-
-		boolean changed = false;
-
-		for (final long l : c) {
-			changed |= add(l);
-		}
+	public boolean addAll(final Collection<? extends Long> c) {
+		return c instanceof LongCollection ? addAll((LongCollection) c) : addBatch(unbox(c));
+	}
 
-		return changed;
+	@Override
+	public boolean containsAll(final LongCollection c) {
+		return containsBatch(c.toLongArray());
 	}
 
 	@Override
-	public LongIterator iterator() {
+	public boolean removeAll(final LongCollection c) {
+		return removeBatch(c.toLongArray());
+	}
 
-		final LongSet longs = new LongOpenHashSet(size());
+	@Override
+	public boolean retainAll(final LongCollection c) {
+		return updateBuckets(bucket -> bucket.retainAll(c));
+	}
 
-		for (int i = 0; i < buckets.length; i++) {
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+		return updateBuckets(bucket -> bucket.retainAll(c));
+	}
 
-			final Lock readLock = locks[i].readLock();
-			readLock.lock();
-			try {
-				longs.addAll(buckets[i]);
-			}
-			finally {
-				readLock.unlock();
-			}
-		}
 
-		return longs.iterator();
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+		return c instanceof LongCollection ? removeAll((LongCollection) c) : removeBatch(unbox(c));
 	}
 
 	@Override
-	public Object[] toArray() {
-		return toArray(new Object[size()]);
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
 	}
 
-	@Override
-	public <T> T[] toArray(final T[] a) {
 
-		//noinspection unchecked
-		final T[] array = a.length >= size() ? a : (T[]) new Long[size()];
+	private boolean addBatch(final long[] values) {
+		return updateBatch(hashCodes(values), (bucket, indexes, from, to) -> {
+
+			final long[] share = new long[to - from];
+
+			for (int i = from; i < to; i++) {
+				share[i - from] = values[indexes[i]];
+			}
 
-		int arrayIndex = 0;
+			// Sizes the table once for the whole share
+			return bucket.addAll(LongArrayList.wrap(share));
+		});
+	}
 
-		for (int i = 0; i < buckets.length; i++) {
+	private boolean removeBatch(final long[] values) {
+		return updateBatch(hashCodes(values), (bucket, indexes, from, to) -> {
 
-			final Lock readLock = locks[i].readLock();
-			final Object[] bucketArray;
+			boolean changed = false;
 
-			readLock.lock();
-			try {
-				bucketArray = buckets[i].toArray();
-			}
-			finally {
-				readLock.unlock();
+			for (int i = from; i < to; i++) {
+				changed |= bucket.remove(values[indexes[i]]);
 			}
 
-			//noinspection SuspiciousSystemArraycopy
-			System.arraycopy(bucketArray, 0, array, arrayIndex, bucketArray.length);
-			arrayIndex += bucketArray.length;
-		}
-
-		return array;
+			return changed;
+		});
 	}
 
-	@Override
-	public boolean add(final long v) {
-
-		final int bucket = getBucket(Long.hashCode(v));
-		final Lock writeLock = locks[bucket].writeLock();
+	private boolean containsBatch(final long[] values) {
+		return testBatch(hashCodes(values), (bucket, indexes, from, to) -> {
 
-		writeLock.lock();
+			for (int i = from; i < to; i++) {
+				if (!bucket.contains(values[indexes[i]])) {
+					return false;
+				}
+			}
 
-		try {
-			return buckets[bucket].add(v);
-		} finally {
-			writeLock.unlock();
-		}
+			return true;
+		});
 	}
 
-	@Override
-	public boolean contains(final long value) {
+	private LongArrayList snapshot() {
 
-		final int bucket = getBucket(Long.hashCode(value));
-		final Lock readLock = locks[bucket].readLock();
+		final LongArrayList values = new LongArrayList(size());
 
-		readLock.lock();
+		forEachBucket(values::addAll);
 
-		try {
-			return buckets[bucket].contains(value);
-		} finally {
-			readLock.unlock();
-		}
+		return values;
 	}
 
-	@Override
-	public boolean remove(final long v) {
 
-		final int bucket = getBucket(Long.hashCode(v));
-		final Lock writeLock = locks[bucket].writeLock();
+	private static int[] hashCodes(final long[] values) {
 
-		writeLock.lock();
+		final int[] hashCodes = new int[values.length];
 
-		try {
-			return buckets[bucket].remove(v);
-		} finally {
-			writeLock.unlock();
+		for (int i = 0; i < values.length; i++) {
+			hashCodes[i] = Long.hashCode(values[i]);
 		}
+
+		return hashCodes;
 	}
 
-	@Override
-	public boolean containsAll(final Collection<?> c) {
+	// Skips anything that isn't a Long, it can't be in the set
+	private static long[] unbox(final Collection<?> c) {
+
+		final LongArrayList values = new LongArrayList(c.size());
 
 		for (final Object o : c) {
-			if (!contains(o)) {
-				return false;
+			if (o instanceof Long) {
+				values.add((long) (Long) o);
 			}
 		}
 
-		return true;
+		return values.toLongArray();
 	}
 
-	@Override
-	public boolean addAll(final Collection<? extends Long> c) {
 
-		boolean changed = false;
+	private class SetCursor extends StripeIterator<LongIterator> {
 
-		for (final long v : c) {
-			changed |= add(v);
-		}
+		long[] values = LongArrays.EMPTY_ARRAY;
 
-		return changed;
-	}
+		private long last;
 
-	@Override
-	public boolean containsAll(final LongCollection c) {
+		private boolean canRemove;
 
-		for (final long o : c) {
-			if (!contains(o)) {
-				return false;
-			}
+
+		@Override
+		protected LongIterator open(final LongOpenHashSet bucket) {
+			return bucket.iterator();
 		}
 
-		return true;
-	}
+		@Override
+		protected int read(final LongOpenHashSet bucket, final LongIterator source, final int offset, final int max) {
 
-	@Override
-	public boolean removeAll(final LongCollection c) {
+			values = LongArrays.grow(values, offset + Math.min(max, bucket.size()));
+
+			int read = 0;
 
-		boolean changed = false;
+			while (read < max && source.hasNext()) {
+				values[offset + read++] = source.nextLong();
+			}
 
-		for (final long v : c) {
-			changed |= remove(v);
+			return read;
 		}
 
-		return changed;
-	}
+		@Override
+		protected int readMissing(final LongOpenHashSet bucket, int offset, final int returned) {
 
-	@Override
-	public boolean retainAll(final LongCollection c) {
+			final LongOpenHashSet seen = new LongOpenHashSet(values, 0, returned);
 
-		boolean changed = false;
+			values = LongArrays.grow(values, offset + bucket.size());
 
-		for (int i = 0; i < buckets.length; i++) {
+			for (final LongIterator iterator = bucket.iterator(); iterator.hasNext(); ) {
 
-			final Lock writeLock = locks[i].writeLock();
-			writeLock.lock();
+				final long value = iterator.nextLong();
 
-			try {
-				changed |= buckets[i].retainAll(c);
-			} finally {
-				writeLock.unlock();
+				if (!seen.contains(value)) {
+					values[offset++] = value;
+				}
 			}
+
+			return offset;
 		}
 
-		return changed;
-	}
+		@Override
+		protected void copyTo(final StripeIterator<LongIterator> prefix, final int from, final int to) {
+			((SetCursor) prefix).values = Arrays.copyOfRange(values, from, to);
+		}
 
-	@Override
-	public boolean retainAll(final Collection<?> c) {
+		public boolean hasNext() {
+			return position < size || fill();
+		}
 
-		boolean changed = false;
+		int nextIndex() {
 
-		for (int i = 0; i < buckets.length; i++) {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			last = values[position];
+			canRemove = true;
 
-			final Lock writeLock = locks[i].writeLock();
-			writeLock.lock();
+			return position++;
+		}
 
-			try {
-				changed |= buckets[i].retainAll(c);
-			} finally {
-				writeLock.unlock();
+		public void remove() {
+
+			if (!canRemove) {
+				throw new IllegalStateException();
 			}
+
+			canRemove = false;
+			ConcurrentLongOpenHashSet.this.remove(last);
 		}
 
-		return changed;
 	}
 
 
-	@Override
-	public boolean removeAll(final Collection<?> c) {
+	private final class ValueIterator extends SetCursor implements LongIterator {
 
-		boolean changed = false;
+		@Override
+		public long nextLong() {
 
-		for (final Object o : c) {
-			changed |= remove(o);
+			final int index = nextIndex();
+
+			return values[index];
 		}
 
-		return changed;
 	}
 
-	@Override
-	public void clear() {
-		for (int i = 0; i < buckets.length; i++) {
+	private final class ValueSpliterator extends SetCursor implements LongSpliterator {
 
-			final Lock writeLock = locks[i].writeLock();
-			writeLock.lock();
+		@Override
+		public boolean tryAdvance(final java.util.function.LongConsumer action) {
 
-			try {
-				buckets[i].clear();
-			} finally {
-				writeLock.unlock();
+			if (!hasNext()) {
+				return false;
 			}
+
+			action.accept(values[nextIndex()]);
+
+			return true;
 		}
+
+		@Override
+		public LongSpliterator trySplit() {
+			return trySplit(ValueSpliterator::new);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
 	}
 
 }
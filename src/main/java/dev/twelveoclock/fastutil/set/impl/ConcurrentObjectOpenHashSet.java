@@ -1,100 +1,108 @@
 package dev.twelveoclock.fastutil.set.impl;
 
+import dev.twelveoclock.fastutil.base.StripeLockMode;
 import dev.twelveoclock.fastutil.set.base.FastUtilConcurrentSet;
-import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrays;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
-import it.unimi.dsi.fastutil.objects.ObjectOpenCustomHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectSpliterator;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.concurrent.locks.Lock;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_INITIAL_SIZE;
 import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
 
 
-public final class ConcurrentObjectOpenHashSet<V> extends FastUtilConcurrentSet implements ObjectSet<V> {
+public final class ConcurrentObjectOpenHashSet<V> extends FastUtilConcurrentSet<ObjectOpenHashSet<V>> implements ObjectSet<V> {
 
-	private final ObjectOpenHashSet<V>[] buckets;
+	private final float loadFactor;
 
 
 	public ConcurrentObjectOpenHashSet() {
-		this(Runtime.getRuntime().availableProcessors() - 1, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+		this(DEFAULT_NUM_BUCKETS, DEFAULT_INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
 	}
 
 	public ConcurrentObjectOpenHashSet(final int numBuckets, final int loadCapacity, final float loadFactor) {
-		super(numBuckets);
+		this(numBuckets, loadCapacity, loadFactor, StripeLockMode.REENTRANT);
+	}
 
-		//noinspection unchecked
-		this.buckets = new ObjectOpenHashSet[numBuckets];
+	public ConcurrentObjectOpenHashSet(final int numBuckets, final int loadCapacity, final float loadFactor, final StripeLockMode lockMode) {
+		super(numBuckets, lockMode);
 
-		final int bucketLoadCapacity = (int) Math.ceil(((double) loadCapacity) / numBuckets);
+		this.loadFactor = loadFactor;
 
-		for (int i = 0; i < numBuckets; i++) {
-			buckets[i] = new ObjectOpenHashSet<>(bucketLoadCapacity, loadFactor);
-		}
+		initBuckets(loadCapacity);
 	}
 
 
 	@Override
-	public int size() {
-
-		int size = 0;
-
-		for (final ObjectSet<V> bucket : buckets) {
-			size += bucket.size();
-		}
+	protected ObjectOpenHashSet<V> newBucket(final int capacity) {
+		return new ObjectOpenHashSet<>(capacity, loadFactor);
+	}
 
-		return size;
+	@Override
+	protected int bucketSize(final ObjectOpenHashSet<V> bucket) {
+		return bucket.size();
 	}
 
 	@Override
-	public boolean isEmpty() {
+	protected float bucketLoadFactor() {
+		return loadFactor;
+	}
 
-		for (final ObjectSet<V> bucket : buckets) {
-			if (!bucket.isEmpty()) {
-				return false;
-			}
+	@Override
+	protected void splitBucket(final ObjectOpenHashSet<V> source, final ObjectOpenHashSet<V> lower, final ObjectOpenHashSet<V> upper, final int splitBit) {
+		for (final V value : source) {
+			(isUpperHalf(value.hashCode(), splitBit) ? upper : lower).add(value);
 		}
-
-		return true;
 	}
 
 
 	@Override
 	public boolean contains(final Object o) {
 
-		final int bucket = getBucket(o.hashCode());
+		final int hash = o.hashCode();
+
+		if (lockMode == StripeLockMode.OPTIMISTIC) {
 
-		final Lock readLock = locks[bucket].readLock();
-		readLock.lock();
+			final Stripe<ObjectOpenHashSet<V>> stripe = stripeFor(hash);
+			final long stamp = stripe.tryOptimisticRead();
+
+			if (stamp != 0L) {
+				try {
+					final boolean result = stripe.bucket.contains(o);
+					if (stripe.validate(stamp)) {
+						return result;
+					}
+				} catch (final RuntimeException ignored) {
+					// Raced with a rehash, retry under the read lock
+				}
+			}
+		}
+
+		final Stripe<ObjectOpenHashSet<V>> stripe = lockRead(hash);
 
 		try {
-			return buckets[bucket].contains(o);
+			return stripe.bucket.contains(o);
 		} finally {
-			readLock.unlock();
+			unlockRead(stripe);
 		}
 	}
 
 	@Override
 	public ObjectIterator<V> iterator() {
+		return new ValueIterator();
+	}
 
-		final ObjectOpenHashSet<V> objects = new ObjectOpenHashSet<>(size());
-
-		for (int i = 0; i < buckets.length; i++) {
-
-			final Lock readLock = locks[i].readLock();
-			readLock.lock();
-			try {
-				objects.addAll(buckets[i]);
-			}
-			finally {
-				readLock.unlock();
-			}
-		}
-
-		return objects.iterator();
+	@Override
+	public ObjectSpliterator<V> spliterator() {
+		return new ValueSpliterator();
 	}
 
 	@Override
@@ -105,131 +113,233 @@ public final class ConcurrentObjectOpenHashSet<V> extends FastUtilConcurrentSet
 	@Override
 	public <T> T[] toArray(final T[] a) {
 
-		//noinspection unchecked
-		final T[] array = a.length >= size() ? a : (T[]) new Object[size()];
-
-		int arrayIndex = 0;
-
-		for (int i = 0; i < buckets.length; i++) {
+		final ObjectArrayList<V> values = new ObjectArrayList<>(size());
 
-			final Lock readLock = locks[i].readLock();
-			final Object[] bucketArray;
+		forEachBucket(values::addAll);
 
-			readLock.lock();
-			try {
-				bucketArray = buckets[i].toArray();
-			}
-			finally {
-				readLock.unlock();
-			}
-
-			//noinspection SuspiciousSystemArraycopy
-			System.arraycopy(bucketArray, 0, array, arrayIndex, bucketArray.length);
-			arrayIndex += bucketArray.length;
-		}
-
-		return array;
+		return values.toArray(a);
 	}
 
 	@Override
 	public boolean add(final V v) {
 
-		final int bucket = getBucket(v.hashCode());
-		final Lock writeLock = locks[bucket].writeLock();
-
-		writeLock.lock();
+		final Stripe<ObjectOpenHashSet<V>> stripe = lockWrite(v.hashCode());
 
 		try {
-			return buckets[bucket].add(v);
+			return stripe.bucket.add(v);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
 	public boolean remove(final Object o) {
 
-		final int bucket = getBucket(o.hashCode());
-		final Lock writeLock = locks[bucket].writeLock();
-
-		writeLock.lock();
+		final Stripe<ObjectOpenHashSet<V>> stripe = lockWrite(o.hashCode());
 
 		try {
-			return buckets[bucket].remove(o);
+			return stripe.bucket.remove(o);
 		} finally {
-			writeLock.unlock();
+			unlockWrite(stripe);
 		}
 	}
 
 	@Override
 	public boolean containsAll(final Collection<?> c) {
 
-		for (final Object o : c) {
-			if (!contains(o)) {
-				return false;
+		final Object[] values = c.toArray();
+
+		return testBatch(hashCodes(values), (bucket, indexes, from, to) -> {
+
+			for (int i = from; i < to; i++) {
+				if (!bucket.contains(values[indexes[i]])) {
+					return false;
+				}
 			}
-		}
 
-		return true;
+			return true;
+		});
 	}
 
 	@Override
 	public boolean addAll(final Collection<? extends V> c) {
 
-		boolean changed = false;
+		final Object[] values = c.toArray();
 
-		for (final V v : c) {
-			changed |= add(v);
-		}
+		return updateBatch(hashCodes(values), (bucket, indexes, from, to) -> {
+
+			final Object[] share = new Object[to - from];
 
-		return changed;
+			for (int i = from; i < to; i++) {
+				share[i - from] = values[indexes[i]];
+			}
+
+			// Sizes the table once for the whole share
+			//noinspection unchecked
+			return bucket.addAll(ObjectArrayList.wrap((V[]) share));
+		});
 	}
 
 	@Override
 	public boolean removeAll(final Collection<?> c) {
 
-		boolean changed = false;
+		final Object[] values = c.toArray();
 
-		for (final Object o : c) {
-			changed |= remove(o);
-		}
+		return updateBatch(hashCodes(values), (bucket, indexes, from, to) -> {
 
-		return changed;
+			boolean changed = false;
+
+			for (int i = from; i < to; i++) {
+				changed |= bucket.remove(values[indexes[i]]);
+			}
+
+			return changed;
+		});
 	}
 
 	@Override
 	public boolean retainAll(final Collection<?> c) {
+		return updateBuckets(bucket -> bucket.retainAll(c));
+	}
+
+	@Override
+	public void clear() {
+		updateBuckets(bucket -> {
+			bucket.clear();
+			return true;
+		});
+	}
 
-		boolean changed = false;
 
-		for (int i = 0; i < buckets.length; i++) {
+	private static int[] hashCodes(final Object[] values) {
 
-			final Lock writeLock = locks[i].writeLock();
-			writeLock.lock();
+		final int[] hashCodes = new int[values.length];
 
-			try {
-				changed |= buckets[i].retainAll(c);
-			} finally {
-				writeLock.unlock();
+		for (int i = 0; i < values.length; i++) {
+			hashCodes[i] = values[i].hashCode();
+		}
+
+		return hashCodes;
+	}
+
+
+	private class SetCursor extends StripeIterator<ObjectIterator<V>> {
+
+		Object[] values = ObjectArrays.EMPTY_ARRAY;
+
+		private Object last;
+
+		private boolean canRemove;
+
+
+		@Override
+		protected ObjectIterator<V> open(final ObjectOpenHashSet<V> bucket) {
+			return bucket.iterator();
+		}
+
+		@Override
+		protected int read(final ObjectOpenHashSet<V> bucket, final ObjectIterator<V> source, final int offset, final int max) {
+
+			values = ObjectArrays.grow(values, offset + Math.min(max, bucket.size()));
+
+			int read = 0;
+
+			while (read < max && source.hasNext()) {
+				values[offset + read++] = source.next();
 			}
+
+			return read;
+		}
+
+		@Override
+		protected int readMissing(final ObjectOpenHashSet<V> bucket, int offset, final int returned) {
+
+			//noinspection unchecked
+			final ObjectSet<V> seen = new ObjectOpenHashSet<>((V[]) values, 0, returned);
+
+			values = ObjectArrays.grow(values, offset + bucket.size());
+
+			for (final V value : bucket) {
+				if (!seen.contains(value)) {
+					values[offset++] = value;
+				}
+			}
+
+			return offset;
+		}
+
+		@Override
+		protected void copyTo(final StripeIterator<ObjectIterator<V>> prefix, final int from, final int to) {
+			((SetCursor) prefix).values = Arrays.copyOfRange(values, from, to);
+		}
+
+		public boolean hasNext() {
+			return position < size || fill();
+		}
+
+		int nextIndex() {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			last = values[position];
+			canRemove = true;
+
+			return position++;
+		}
+
+		public void remove() {
+
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+
+			canRemove = false;
+			ConcurrentObjectOpenHashSet.this.remove(last);
 		}
 
-		return changed;
 	}
 
-	@Override
-	public void clear() {
-		for (int i = 0; i < buckets.length; i++) {
 
-			final Lock writeLock = locks[i].writeLock();
-			writeLock.lock();
+	private final class ValueIterator extends SetCursor implements ObjectIterator<V> {
+
+		@Override
+		public V next() {
+
+			final int index = nextIndex();
+
+			//noinspection unchecked
+			return (V) values[index];
+		}
+
+	}
+
+	private final class ValueSpliterator extends SetCursor implements ObjectSpliterator<V> {
 
-			try {
-				buckets[i].clear();
-			} finally {
-				writeLock.unlock();
+		@Override
+		public boolean tryAdvance(final Consumer<? super V> action) {
+
+			if (!hasNext()) {
+				return false;
 			}
+
+			//noinspection unchecked
+			action.accept((V) values[nextIndex()]);
+
+			return true;
+		}
+
+		@Override
+		public ObjectSpliterator<V> trySplit() {
+			return trySplit(ValueSpliterator::new);
 		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.DISTINCT | Spliterator.CONCURRENT;
+		}
+
 	}
 
 }